@@ -223,4 +223,28 @@ public interface ChangeRequestConfiguration
     {
         return false;
     }
+
+    /**
+     * Define the duration during which the remote events related to a same change request are accumulated before
+     * being sent to the other nodes of the cluster in a single message.
+     *
+     * @return the duration in milliseconds, or {@code 0} to send each remote event immediately
+     * @since 1.24
+     */
+    default long getRemoteEventsBatchWindow()
+    {
+        return 0;
+    }
+
+    /**
+     * Define the duration during which the replication messages related to a same change request are accumulated
+     * before being sent to the replication instances in a single message.
+     *
+     * @return the duration in milliseconds, or {@code 0} to send each replication message immediately
+     * @since 1.24
+     */
+    default long getReplicationBatchWindow()
+    {
+        return 0;
+    }
 }
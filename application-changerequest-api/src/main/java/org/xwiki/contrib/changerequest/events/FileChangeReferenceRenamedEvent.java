@@ -19,6 +19,8 @@
  */
 package org.xwiki.contrib.changerequest.events;
 
+import java.io.Serializable;
+
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.observation.event.Event;
 
@@ -32,7 +34,7 @@ import org.xwiki.observation.event.Event;
  * @version $Id$
  * @since 1.23
  */
-public class FileChangeReferenceRenamedEvent implements Event
+public class FileChangeReferenceRenamedEvent implements Event, Serializable
 {
     private final DocumentReference source;
     private final DocumentReference target;
@@ -0,0 +1,79 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.jobs;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+import org.xwiki.job.AbstractJob;
+import org.xwiki.job.DefaultJobStatus;
+import org.xwiki.job.GroupedJob;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.stability.Unstable;
+
+import com.xpn.xwiki.XWikiContext;
+
+/**
+ * Job processing the items queued in an {@link AbstractDelayedQueueManager}. The job waits for the delay specified in
+ * the request before consuming the queue, so that all the items received in the meantime are processed at once. The
+ * items are processed with the wiki and the user of the request, the previous ones being restored afterwards.
+ *
+ * @param <R> the type of the request of the job
+ * @version $Id$
+ * @since 1.24
+ */
+@Unstable
+public abstract class AbstractDelayedQueueJob<R extends AbstractDelayedQueueRequest>
+    extends AbstractJob<R, DefaultJobStatus<R>> implements GroupedJob
+{
+    @Inject
+    private Provider<XWikiContext> contextProvider;
+
+    @Override
+    protected void runInternal()
+    {
+        long delay = getRequest().getDelay();
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                this.logger.warn("The delay of the job [{}] has been interrupted.", getType());
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        XWikiContext context = this.contextProvider.get();
+        String currentWikiId = context.getWikiId();
+        DocumentReference currentUserReference = context.getUserReference();
+        try {
+            context.setWikiId(getRequest().getWikiId());
+            context.setUserReference(getRequest().getUserReference());
+            this.processQueue();
+        } finally {
+            context.setWikiId(currentWikiId);
+            context.setUserReference(currentUserReference);
+        }
+    }
+
+    /**
+     * Consume and process the items queued for the wiki and the user of the request.
+     */
+    protected abstract void processQueue();
+}
@@ -0,0 +1,152 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.jobs;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BinaryOperator;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.xwiki.job.JobException;
+import org.xwiki.job.JobExecutor;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.stability.Unstable;
+
+import com.xpn.xwiki.XWikiContext;
+
+/**
+ * Base class of the components queuing items to process them in background with an {@link AbstractDelayedQueueJob}.
+ * A job is started when an item is queued and no job is waiting yet: all the items received until the job consumes
+ * the queue are processed together. Identical items are merged when they are queued.
+ * <p>
+ * The items are queued per wiki and per user, and each job processes the items of a single wiki and user in their
+ * context. The queue is only kept in memory: the items which are not processed yet are lost if the instance is
+ * stopped.
+ *
+ * @param <K> the type of the keys identifying the queued items
+ * @param <V> the type of the queued items
+ * @version $Id$
+ * @since 1.24
+ */
+@Unstable
+public abstract class AbstractDelayedQueueManager<K, V>
+{
+    @Inject
+    private Provider<JobExecutor> jobExecutorProvider;
+
+    @Inject
+    private Provider<XWikiContext> contextProvider;
+
+    @Inject
+    private Logger logger;
+
+    private final String jobType;
+
+    private final long delay;
+
+    // Pending items indexed by wiki identifier and user reference.
+    private final Map<Pair<String, DocumentReference>, Map<K, V>> pendingItems = new HashMap<>();
+
+    // Wiki identifiers and user references for which a job is waiting for being executed.
+    private final Set<Pair<String, DocumentReference>> scheduledJobs = new HashSet<>();
+
+    /**
+     * Default constructor.
+     *
+     * @param jobType the type of the job to start for processing the queued items
+     * @param delay the delay in milliseconds during which items are accumulated before being processed
+     */
+    protected AbstractDelayedQueueManager(String jobType, long delay)
+    {
+        this.jobType = jobType;
+        this.delay = delay;
+    }
+
+    /**
+     * Queue the given item for the current wiki and user, and start a job if none is already waiting for being
+     * executed for them.
+     *
+     * @param key the key identifying the item
+     * @param item the item to queue
+     * @param mergeFunction the function to use to merge the item with the one already queued with the same key
+     */
+    protected void addPendingItem(K key, V item, BinaryOperator<V> mergeFunction)
+    {
+        XWikiContext context = this.contextProvider.get();
+        Pair<String, DocumentReference> queueContext = Pair.of(context.getWikiId(), context.getUserReference());
+        boolean startJob;
+        synchronized (this.pendingItems) {
+            this.pendingItems.computeIfAbsent(queueContext, k -> new LinkedHashMap<>())
+                .merge(key, item, mergeFunction);
+            startJob = this.scheduledJobs.add(queueContext);
+        }
+        if (startJob) {
+            this.startJob(queueContext);
+        }
+    }
+
+    /**
+     * @return a new request for the job processing the queued items
+     */
+    protected abstract AbstractDelayedQueueRequest createRequest();
+
+    private void startJob(Pair<String, DocumentReference> queueContext)
+    {
+        AbstractDelayedQueueRequest request = this.createRequest();
+        request.setDelay(this.delay);
+        request.setInteractive(false);
+        request.setWikiId(queueContext.getLeft());
+        request.setUserReference(queueContext.getRight());
+        try {
+            this.jobExecutorProvider.get().execute(this.jobType, request);
+        } catch (JobException e) {
+            // The items are kept so that they are processed by the next started job.
+            synchronized (this.pendingItems) {
+                this.scheduledJobs.remove(queueContext);
+            }
+            this.logger.error("Error when executing the job [{}]", this.jobType, e);
+        }
+    }
+
+    /**
+     * Retrieve all the items queued so far for the wiki and the user of the given request, and clear their queue: any
+     * new item received for them after this call will start a new job.
+     *
+     * @param request the request of the job processing the queued items
+     * @return the queued items indexed by their key
+     */
+    public Map<K, V> consumePendingItems(AbstractDelayedQueueRequest request)
+    {
+        Pair<String, DocumentReference> queueContext = Pair.of(request.getWikiId(), request.getUserReference());
+        synchronized (this.pendingItems) {
+            this.scheduledJobs.remove(queueContext);
+            Map<K, V> result = this.pendingItems.remove(queueContext);
+            return (result != null) ? result : Collections.emptyMap();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.jobs;
+
+import org.xwiki.job.AbstractRequest;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Request of the {@link AbstractDelayedQueueJob}: it holds the delay to wait before consuming the queue, and the
+ * context in which the queued items have been received.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Unstable
+public abstract class AbstractDelayedQueueRequest extends AbstractRequest
+{
+    private static final long serialVersionUID = 1L;
+
+    private static final String DELAY_PROPERTY = "delay";
+
+    private static final String WIKI_ID_PROPERTY = "wiki";
+
+    private static final String USER_REFERENCE_PROPERTY = "user.reference";
+
+    /**
+     * @return the delay in milliseconds to wait before processing the queued items.
+     */
+    public long getDelay()
+    {
+        return getProperty(DELAY_PROPERTY, 0L);
+    }
+
+    /**
+     * @param delay the delay in milliseconds to wait before processing the queued items: all items received during
+     *              that delay are processed together.
+     */
+    public void setDelay(long delay)
+    {
+        setProperty(DELAY_PROPERTY, delay);
+    }
+
+    /**
+     * @return the identifier of the wiki where the queued items have been received.
+     */
+    public String getWikiId()
+    {
+        return getProperty(WIKI_ID_PROPERTY);
+    }
+
+    /**
+     * @param wikiId the identifier of the wiki where the queued items have been received.
+     */
+    public void setWikiId(String wikiId)
+    {
+        setProperty(WIKI_ID_PROPERTY, wikiId);
+    }
+
+    /**
+     * @return the reference of the user who triggered the queued items.
+     */
+    public DocumentReference getUserReference()
+    {
+        return getProperty(USER_REFERENCE_PROPERTY);
+    }
+
+    /**
+     * @param userReference the reference of the user who triggered the queued items.
+     */
+    public void setUserReference(DocumentReference userReference)
+    {
+        setProperty(USER_REFERENCE_PROPERTY, userReference);
+    }
+}
@@ -126,6 +126,22 @@ public interface ChangeRequestStorageManager
         return Collections.emptyList();
     }
 
+    /**
+     * Find the document reference of all change requests that contains a file change inside the given reference.
+     * This method should be used instead of {@link #findChangeRequestTargeting(SpaceReference)} whenever the change
+     * request information won't be used directly: it avoids loading in memory lots of information.
+     *
+     * @param spaceReference reference of a space that might be targeted by a change
+     * @return a list of references of change requests.
+     * @throws ChangeRequestException in case of problem to execute the query.
+     * @since 1.24
+     */
+    default List<DocumentReference> findChangeRequestReferenceTargeting(SpaceReference spaceReference)
+        throws ChangeRequestException
+    {
+        return Collections.emptyList();
+    }
+
     /**
      * Find all change requests that are opened (i.e. not merged, or closed) and that have been created or updated
      * before the given limit date. The goal of this method is mainly to retrieve the old change requests that might
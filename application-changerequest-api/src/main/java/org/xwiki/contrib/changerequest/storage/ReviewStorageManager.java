@@ -45,6 +45,24 @@ public interface ReviewStorageManager
      */
     void save(ChangeRequestReview review) throws ChangeRequestException;
 
+    /**
+     * Save all the given reviews of the given change request at once. Contrarily to calling
+     * {@link #save(ChangeRequestReview)} for each review, implementations should only perform a single save of the
+     * change request storage whatever the number of reviews.
+     *
+     * @param changeRequest the change request all the given reviews belongs to.
+     * @param reviews the reviews to be saved.
+     * @throws ChangeRequestException in case of problem during the save.
+     * @since 1.24
+     */
+    default void saveReviews(ChangeRequest changeRequest, List<ChangeRequestReview> reviews)
+        throws ChangeRequestException
+    {
+        for (ChangeRequestReview review : reviews) {
+            save(review);
+        }
+    }
+
     /**
      * Load all reviews related to the given change request. Note that the method should also set the reviews in
      * the change request object so that {@link ChangeRequest#getReviews()} then returns the loaded reviews.
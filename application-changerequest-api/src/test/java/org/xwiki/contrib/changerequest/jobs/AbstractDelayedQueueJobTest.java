@@ -0,0 +1,131 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.jobs;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.job.JobGroupPath;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWikiContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link AbstractDelayedQueueJob}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class AbstractDelayedQueueJobTest
+{
+    /**
+     * Request of the tested job.
+     */
+    public static class TestDelayedQueueRequest extends AbstractDelayedQueueRequest
+    {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Job recording the context in which the queue is processed.
+     */
+    @Component
+    @Named("testDelayedQueueJob")
+    public static class TestDelayedQueueJob extends AbstractDelayedQueueJob<TestDelayedQueueRequest>
+    {
+        private XWikiContext context;
+
+        private String processedWikiId;
+
+        private DocumentReference processedUserReference;
+
+        @Override
+        public String getType()
+        {
+            return "testDelayedQueueJob";
+        }
+
+        @Override
+        public JobGroupPath getGroupPath()
+        {
+            return new JobGroupPath(getType(), null);
+        }
+
+        @Override
+        protected void processQueue()
+        {
+            this.processedWikiId = this.context.getWikiId();
+            this.processedUserReference = this.context.getUserReference();
+        }
+    }
+
+    @InjectMockComponents
+    private TestDelayedQueueJob job;
+
+    @MockComponent
+    private Provider<XWikiContext> contextProvider;
+
+    private XWikiContext context;
+
+    @BeforeEach
+    void setup()
+    {
+        this.context = mock(XWikiContext.class);
+        when(this.contextProvider.get()).thenReturn(this.context);
+        this.job.context = this.context;
+    }
+
+    @Test
+    void runInternalInRequestContext()
+    {
+        DocumentReference currentUser = new DocumentReference("xwiki", "XWiki", "CurrentUser");
+        DocumentReference requestUser = new DocumentReference("subwiki", "XWiki", "RequestUser");
+        when(this.context.getWikiId()).thenReturn("xwiki").thenReturn("subwiki");
+        when(this.context.getUserReference()).thenReturn(currentUser).thenReturn(requestUser);
+
+        TestDelayedQueueRequest request = new TestDelayedQueueRequest();
+        request.setWikiId("subwiki");
+        request.setUserReference(requestUser);
+        this.job.initialize(request);
+
+        this.job.runInternal();
+
+        assertEquals("subwiki", this.job.processedWikiId);
+        assertEquals(requestUser, this.job.processedUserReference);
+        InOrder inOrder = inOrder(this.context);
+        inOrder.verify(this.context).setWikiId("subwiki");
+        inOrder.verify(this.context).setUserReference(requestUser);
+        inOrder.verify(this.context).setWikiId("xwiki");
+        inOrder.verify(this.context).setUserReference(currentUser);
+    }
+}
@@ -43,10 +43,21 @@ public class ChangeRequestDocumentReferenceResolver implements DocumentReference
     @Inject
     private ChangeRequestConfiguration configuration;
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The space containing the change requests can be given as first parameter, to not read it from the configuration
+     * of the current wiki.
+     */
     @Override
     public DocumentReference resolve(ChangeRequest changeRequest, Object... parameters)
     {
-        return new DocumentReference("WebHome",
-            new SpaceReference(changeRequest.getId(), this.configuration.getChangeRequestSpaceLocation()));
+        SpaceReference location;
+        if (parameters.length > 0 && parameters[0] instanceof SpaceReference) {
+            location = (SpaceReference) parameters[0];
+        } else {
+            location = this.configuration.getChangeRequestSpaceLocation();
+        }
+        return new DocumentReference("WebHome", new SpaceReference(changeRequest.getId(), location));
     }
 }
@@ -232,4 +232,16 @@ public class DefaultChangeRequestConfiguration implements ChangeRequestConfigura
     {
         return this.configurationSource.getProperty("acceptOnlyAllowedApprovers", false);
     }
+
+    @Override
+    public long getRemoteEventsBatchWindow()
+    {
+        return this.configurationSource.getProperty("remoteEventsBatchWindow", 200L);
+    }
+
+    @Override
+    public long getReplicationBatchWindow()
+    {
+        return this.configurationSource.getProperty("replicationBatchWindow", 1000L);
+    }
 }
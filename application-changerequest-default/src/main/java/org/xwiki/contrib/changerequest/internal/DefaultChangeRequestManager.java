@@ -19,6 +19,7 @@
  */
 package org.xwiki.contrib.changerequest.internal;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -49,6 +50,7 @@ import org.xwiki.contrib.changerequest.events.ChangeRequestReviewAddedEvent;
 import org.xwiki.contrib.changerequest.events.ChangeRequestStatusChangedEvent;
 import org.xwiki.contrib.changerequest.events.FileChangeRebasedEvent;
 import org.xwiki.contrib.changerequest.internal.cache.ChangeRequestTitleCacheManager;
+import org.xwiki.contrib.changerequest.internal.storage.ChangeRequestLockManager;
 import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
 import org.xwiki.contrib.changerequest.storage.FileChangeStorageManager;
 import org.xwiki.contrib.changerequest.storage.ReviewStorageManager;
@@ -107,6 +109,9 @@ public class DefaultChangeRequestManager implements ChangeRequestManager, Initia
     @Inject
     private ContextualLocalizationManager localizationManager;
 
+    @Inject
+    private ChangeRequestLockManager lockManager;
+
     private XarExtensionScriptService xarExtensionScriptService;
 
     @Override
@@ -138,33 +143,65 @@ public class DefaultChangeRequestManager implements ChangeRequestManager, Initia
     @Override
     public void computeReadyForMergingStatus(ChangeRequest changeRequest) throws ChangeRequestException
     {
-        ChangeRequestStatus status = changeRequest.getStatus();
-        boolean readyForMerging = false;
-        if (status == ChangeRequestStatus.READY_FOR_REVIEW || status == ChangeRequestStatus.READY_FOR_MERGING) {
-            MergeApprovalStrategy mergeApprovalStrategy = getMergeApprovalStrategy();
-            if (mergeApprovalStrategy.canBeMerged(changeRequest)) {
-                readyForMerging = !this.changeRequestMergeManager.hasConflict(changeRequest);
-            }
-        }
+        ChangeRequestStatus status;
         boolean update = false;
         ChangeRequestStatus newStatus = null;
-        if (status == ChangeRequestStatus.READY_FOR_REVIEW && readyForMerging) {
-            newStatus = ChangeRequestStatus.READY_FOR_MERGING;
-            update = true;
-        } else if (status == ChangeRequestStatus.READY_FOR_MERGING && !readyForMerging) {
-            newStatus = ChangeRequestStatus.READY_FOR_REVIEW;
-            update = true;
+        // The status is read, computed and saved under the lock so that it cannot be computed from an outdated state
+        // of the change request: the event is sent once the lock is released.
+        this.lockManager.lock(changeRequest.getId());
+        try {
+            ChangeRequest currentChangeRequest = this.loadCurrentChangeRequest(changeRequest);
+            status = currentChangeRequest.getStatus();
+            boolean readyForMerging = false;
+            if (status == ChangeRequestStatus.READY_FOR_REVIEW || status == ChangeRequestStatus.READY_FOR_MERGING) {
+                MergeApprovalStrategy mergeApprovalStrategy = getMergeApprovalStrategy();
+                if (mergeApprovalStrategy.canBeMerged(currentChangeRequest)) {
+                    readyForMerging = !this.changeRequestMergeManager.hasConflict(currentChangeRequest);
+                }
+            }
+            if (status == ChangeRequestStatus.READY_FOR_REVIEW && readyForMerging) {
+                newStatus = ChangeRequestStatus.READY_FOR_MERGING;
+                update = true;
+            } else if (status == ChangeRequestStatus.READY_FOR_MERGING && !readyForMerging) {
+                newStatus = ChangeRequestStatus.READY_FOR_REVIEW;
+                update = true;
+            }
+            if (update) {
+                currentChangeRequest
+                    .setStatus(newStatus)
+                    .updateDate();
+                this.changeRequestStorageManager.save(currentChangeRequest, getUpdateStatusSaveComment());
+                this.synchronizeStatus(changeRequest, newStatus, currentChangeRequest);
+            }
+        } finally {
+            this.lockManager.unlock(changeRequest.getId());
         }
         if (update) {
-            changeRequest
-                .setStatus(newStatus)
-                .updateDate();
-            this.changeRequestStorageManager.save(changeRequest, getUpdateStatusSaveComment());
             this.observationManager.notify(new ChangeRequestStatusChangedEvent(), changeRequest.getId(),
                 new ChangeRequestStatus[] {status, newStatus});
         }
     }
 
+    /**
+     * Load the stored version of the given change request: must be called while holding its lock, since the given
+     * instance might have been retrieved from the cache before a concurrent modification.
+     *
+     * @param changeRequest the change request to reload
+     * @return the stored version of the change request, or the given instance if it's not stored yet
+     * @throws ChangeRequestException in case of problem to load the change request
+     */
+    private ChangeRequest loadCurrentChangeRequest(ChangeRequest changeRequest) throws ChangeRequestException
+    {
+        return this.changeRequestStorageManager.load(changeRequest.getId()).orElse(changeRequest);
+    }
+
+    private void synchronizeStatus(ChangeRequest changeRequest, ChangeRequestStatus status, ChangeRequest current)
+    {
+        if (current != changeRequest) {
+            changeRequest.setStatus(status);
+        }
+    }
+
     @Override
     public boolean canBeMerged(ChangeRequest changeRequest) throws ChangeRequestException
     {
@@ -194,10 +231,20 @@ public class DefaultChangeRequestManager implements ChangeRequestManager, Initia
     public void updateStatus(ChangeRequest changeRequest, ChangeRequestStatus newStatus)
         throws ChangeRequestException
     {
-        ChangeRequestStatus oldStatus = changeRequest.getStatus();
+        ChangeRequestStatus oldStatus;
+        this.lockManager.lock(changeRequest.getId());
+        try {
+            ChangeRequest currentChangeRequest = this.loadCurrentChangeRequest(changeRequest);
+            oldStatus = currentChangeRequest.getStatus();
+            if (oldStatus != newStatus) {
+                currentChangeRequest.setStatus(newStatus);
+                this.changeRequestStorageManager.save(currentChangeRequest, getUpdateStatusSaveComment());
+                this.synchronizeStatus(changeRequest, newStatus, currentChangeRequest);
+            }
+        } finally {
+            this.lockManager.unlock(changeRequest.getId());
+        }
         if (oldStatus != newStatus) {
-            changeRequest.setStatus(newStatus);
-            this.changeRequestStorageManager.save(changeRequest, getUpdateStatusSaveComment());
             this.observationManager.notify(new ChangeRequestStatusChangedEvent(), changeRequest.getId(),
                 new ChangeRequestStatus[] {oldStatus, newStatus});
             this.computeReadyForMergingStatus(changeRequest);
@@ -211,31 +258,38 @@ public class DefaultChangeRequestManager implements ChangeRequestManager, Initia
         Optional<ChangeRequestReview> optionalLatestReview;
         ChangeRequestReview review = new ChangeRequestReview(changeRequest, approved, reviewer);
         review.setNew(true);
-        if (originalApprover != null && !originalApprover.equals(reviewer)) {
-            review.setOriginalApprover(originalApprover);
-            optionalLatestReview =  changeRequest.getLatestReviewFromOrOnBehalfOf(originalApprover);
-        } else {
-            optionalLatestReview = changeRequest.getLatestReviewFromOrOnBehalfOf(reviewer);
-        }
-        this.reviewStorageManager.save(review);
-
-        // ensure previous review from latest author is considered outdated
-        if (optionalLatestReview.isPresent()) {
-            ChangeRequestReview previousReview = optionalLatestReview.get();
-            previousReview.setLastFromAuthor(false);
-            // if the review is already invalidated, we don't need to do anything.
-            if (previousReview.isValid()) {
-                previousReview.setValid(false);
-                previousReview.setReviewInvalidationReason(ReviewInvalidationReason.NEW_REVIEW);
-                previousReview.setSaved(false);
-                this.reviewStorageManager.save(previousReview);
+        // The lock ensures that two concurrent reviews from the same author don't both consider the same previous
+        // review as their latest one.
+        this.lockManager.lock(changeRequest.getId());
+        try {
+            if (originalApprover != null && !originalApprover.equals(reviewer)) {
+                review.setOriginalApprover(originalApprover);
+                optionalLatestReview =  changeRequest.getLatestReviewFromOrOnBehalfOf(originalApprover);
+            } else {
+                optionalLatestReview = changeRequest.getLatestReviewFromOrOnBehalfOf(reviewer);
+            }
+            this.reviewStorageManager.save(review);
+
+            // ensure previous review from latest author is considered outdated
+            if (optionalLatestReview.isPresent()) {
+                ChangeRequestReview previousReview = optionalLatestReview.get();
+                previousReview.setLastFromAuthor(false);
+                // if the review is already invalidated, we don't need to do anything.
+                if (previousReview.isValid()) {
+                    previousReview.setValid(false);
+                    previousReview.setReviewInvalidationReason(ReviewInvalidationReason.NEW_REVIEW);
+                    previousReview.setSaved(false);
+                    this.reviewStorageManager.save(previousReview);
+                }
             }
+            changeRequest
+                .addReview(review)
+                .updateDate();
+            // In theory this should never be needed with the default storage as it already update the CR document.
+            this.changeRequestStorageManager.save(changeRequest, "changerequest.save.addReview");
+        } finally {
+            this.lockManager.unlock(changeRequest.getId());
         }
-        changeRequest
-            .addReview(review)
-            .updateDate();
-        // In theory this should never be needed with the default storage as it already update the CR document.
-        this.changeRequestStorageManager.save(changeRequest, "changerequest.save.addReview");
         this.observationManager.notify(new ChangeRequestReviewAddedEvent(), changeRequest.getId(), review);
         this.computeReadyForMergingStatus(changeRequest);
         return review;
@@ -333,8 +387,13 @@ public class DefaultChangeRequestManager implements ChangeRequestManager, Initia
     @Override
     public void rebase(ChangeRequest changeRequest) throws ChangeRequestException
     {
-        for (FileChange fileChange : changeRequest.getLastFileChanges()) {
-            this.fileChangeStorageManager.rebase(fileChange);
+        this.lockManager.lock(changeRequest.getId());
+        try {
+            for (FileChange fileChange : changeRequest.getLastFileChanges()) {
+                this.fileChangeStorageManager.rebase(fileChange);
+            }
+        } finally {
+            this.lockManager.unlock(changeRequest.getId());
         }
         this.observationManager.notify(new ChangeRequestRebasedEvent(), changeRequest.getId(), changeRequest);
     }
@@ -342,7 +401,13 @@ public class DefaultChangeRequestManager implements ChangeRequestManager, Initia
     @Override
     public void rebase(FileChange fileChange) throws ChangeRequestException
     {
-        this.fileChangeStorageManager.rebase(fileChange);
+        String changeRequestId = fileChange.getChangeRequest().getId();
+        this.lockManager.lock(changeRequestId);
+        try {
+            this.fileChangeStorageManager.rebase(fileChange);
+        } finally {
+            this.lockManager.unlock(changeRequestId);
+        }
         this.observationManager.notify(new FileChangeRebasedEvent(), fileChange.getChangeRequest().getId(), fileChange);
     }
 
@@ -356,14 +421,21 @@ public class DefaultChangeRequestManager implements ChangeRequestManager, Initia
     public void invalidateReviews(ChangeRequest changeRequest, ReviewInvalidationReason invalidationReason)
         throws ChangeRequestException
     {
-        List<ChangeRequestReview> reviews = changeRequest.getReviews();
-        for (ChangeRequestReview review : reviews) {
-            if (review.isApproved() && review.isValid()) {
-                review.setValid(false);
-                review.setSaved(false);
-                review.setReviewInvalidationReason(invalidationReason);
-                this.reviewStorageManager.save(review);
+        this.lockManager.lock(changeRequest.getId());
+        try {
+            List<ChangeRequestReview> invalidatedReviews = new ArrayList<>();
+            for (ChangeRequestReview review : changeRequest.getReviews()) {
+                if (review.isApproved() && review.isValid()) {
+                    review.setValid(false);
+                    review.setSaved(false);
+                    review.setReviewInvalidationReason(invalidationReason);
+                    invalidatedReviews.add(review);
+                }
             }
+            // All reviews are saved at once to avoid creating a new version of the change request for each review.
+            this.reviewStorageManager.saveReviews(changeRequest, invalidatedReviews);
+        } finally {
+            this.lockManager.unlock(changeRequest.getId());
         }
     }
 
@@ -49,6 +49,7 @@ import org.xwiki.contrib.changerequest.events.ChangeRequestConflictsFixedEvent;
 import org.xwiki.contrib.changerequest.events.ChangeRequestUpdatedFileChangeEvent;
 import org.xwiki.contrib.changerequest.events.ChangeRequestUpdatingFileChangeEvent;
 import org.xwiki.contrib.changerequest.internal.cache.MergeCacheManager;
+import org.xwiki.contrib.changerequest.internal.storage.ChangeRequestLockManager;
 import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
 import org.xwiki.contrib.changerequest.storage.FileChangeStorageManager;
 import org.xwiki.diff.Conflict;
@@ -113,6 +114,9 @@ public class DefaultChangeRequestMergeManager implements ChangeRequestMergeManag
     @Inject
     private ContextualLocalizationManager contextualLocalizationManager;
 
+    @Inject
+    private ChangeRequestLockManager lockManager;
+
     @Inject
     private Logger logger;
 
@@ -410,25 +414,35 @@ public class DefaultChangeRequestMergeManager implements ChangeRequestMergeManag
         } else {
             filteredDecisionList = conflictDecisionList.stream().filter(Objects::nonNull).collect(Collectors.toList());
         }
-        switch (fileChange.getType()) {
-            case EDITION:
-                result = this.handleEditionConflictDecision(fileChange, resolutionChoice, filteredDecisionList);
-                break;
+        // The new file change is computed from the latest one and saved under the lock of the change request, so
+        // that two concurrent fixes cannot compute the same version.
+        this.lockManager.lock(changeRequest.getId());
+        try {
+            switch (fileChange.getType()) {
+                case EDITION:
+                    result = this.handleEditionConflictDecision(fileChange, resolutionChoice, filteredDecisionList);
+                    break;
 
-            case CREATION:
-                if (!filteredDecisionList.isEmpty()) {
-                    throw new ChangeRequestException("No support of custom decisions in case of fixing a conflict for "
-                        + "a creation change.");
-                }
-                result = this.handleCreationConflictDecision(fileChange, resolutionChoice);
-                break;
+                case CREATION:
+                    if (!filteredDecisionList.isEmpty()) {
+                        throw new ChangeRequestException("No support of custom decisions in case of fixing a "
+                            + "conflict for a creation change.");
+                    }
+                    result = this.handleCreationConflictDecision(fileChange, resolutionChoice);
+                    break;
 
-            case DELETION:
-            case NO_CHANGE:
-            default:
-                throw new ChangeRequestException(
-                    String.format("The following file change type does not support conflict fixing: [%s].",
-                        fileChange.getType()));
+                case DELETION:
+                case NO_CHANGE:
+                default:
+                    throw new ChangeRequestException(
+                        String.format("The following file change type does not support conflict fixing: [%s].",
+                            fileChange.getType()));
+            }
+        } finally {
+            this.lockManager.unlock(changeRequest.getId());
+        }
+        if (fileChange.getType() == FileChange.FileChangeType.EDITION) {
+            this.changeRequestManagerProvider.get().computeReadyForMergingStatus(changeRequest);
         }
 
         if (result) {
@@ -526,7 +540,6 @@ public class DefaultChangeRequestMergeManager implements ChangeRequestMergeManag
             .updateDate();
         String saveComment = this.contextualLocalizationManager.getTranslationPlain("changerequest.save.fixconflict");
         this.changeRequestStorageManager.save(changeRequest, saveComment);
-        this.changeRequestManagerProvider.get().computeReadyForMergingStatus(changeRequest);
         return true;
     }
 }
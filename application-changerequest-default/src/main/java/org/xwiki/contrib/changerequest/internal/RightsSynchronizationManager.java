@@ -0,0 +1,273 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.contrib.changerequest.ChangeRequest;
+import org.xwiki.contrib.changerequest.ChangeRequestException;
+import org.xwiki.contrib.changerequest.ChangeRequestRightsManager;
+import org.xwiki.contrib.changerequest.ChangeRequestStatus;
+import org.xwiki.contrib.changerequest.internal.jobs.ChangeRequestSplitRequest;
+import org.xwiki.contrib.changerequest.internal.jobs.RightsSynchronizationRequest;
+import org.xwiki.contrib.changerequest.jobs.AbstractDelayedQueueManager;
+import org.xwiki.contrib.changerequest.jobs.AbstractDelayedQueueRequest;
+import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
+import org.xwiki.contrib.rights.SecurityRuleDiff;
+import org.xwiki.job.JobException;
+import org.xwiki.job.JobExecutor;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.security.authorization.ReadableSecurityRule;
+import org.xwiki.security.authorization.Right;
+
+import com.xpn.xwiki.XWikiContext;
+
+/**
+ * Component in charge of synchronizing the rights of change requests with the rights of the pages they target.
+ * Rights updates are not synchronized immediately: they are queued and merged per updated entity, and processed in
+ * background by a {@link org.xwiki.contrib.changerequest.internal.jobs.RightsSynchronizationJob}. This allows to
+ * handle bursts of rights updates (e.g. when rights are applied on a whole hierarchy) by resolving the impacted change
+ * requests only once.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component(roles = RightsSynchronizationManager.class)
+@Singleton
+public class RightsSynchronizationManager
+    extends AbstractDelayedQueueManager<EntityReference, List<SecurityRuleDiff>>
+{
+    /**
+     * Delay in milliseconds during which rights updates are accumulated before being processed.
+     */
+    static final long SYNCHRONIZATION_DELAY = 1000;
+
+    @Inject
+    private Provider<ChangeRequestStorageManager> changeRequestStorageManager;
+
+    @Inject
+    private Provider<ChangeRequestRightsManager> changeRequestRightsManager;
+
+    @Inject
+    private DocumentReferenceResolver<ChangeRequest> changeRequestDocumentReferenceResolver;
+
+    @Inject
+    private Provider<JobExecutor> jobExecutorProvider;
+
+    @Inject
+    private Provider<XWikiContext> contextProvider;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * Default constructor.
+     */
+    public RightsSynchronizationManager()
+    {
+        super(RightsSynchronizationRequest.RIGHTS_SYNCHRONIZATION_JOB, SYNCHRONIZATION_DELAY);
+    }
+
+    /**
+     * Queue the given rights update for a later synchronization. Updates concerning the same entity are merged
+     * together, and a synchronization job is started if none is already waiting for being executed.
+     *
+     * @param entityReference the reference of the entity whose rights have been updated
+     * @param securityRuleDiffList the rights changes that have been performed
+     */
+    public void addRightsUpdate(EntityReference entityReference, List<SecurityRuleDiff> securityRuleDiffList)
+    {
+        this.addPendingItem(entityReference, new ArrayList<>(securityRuleDiffList), (pendingList, newList) -> {
+            pendingList.addAll(newList);
+            return pendingList;
+        });
+    }
+
+    @Override
+    protected AbstractDelayedQueueRequest createRequest()
+    {
+        return new RightsSynchronizationRequest();
+    }
+
+    /**
+     * Synchronize the rights of the change requests impacted by the given rights updates: rights changes are applied
+     * to the change requests when possible, and change requests whose view access is not consistent anymore are
+     * splitted.
+     *
+     * @param rightsUpdates the rights updates indexed by updated entity
+     */
+    public void synchronizeRights(Map<EntityReference, List<SecurityRuleDiff>> rightsUpdates)
+    {
+        // The references of the change requests impacted by all updates are retrieved first, so that each change
+        // request is loaded only once even when it's impacted by several updates.
+        Map<EntityReference, List<DocumentReference>> impactedChangeRequests = new LinkedHashMap<>();
+        for (EntityReference entityReference : rightsUpdates.keySet()) {
+            try {
+                impactedChangeRequests.put(entityReference, this.findChangeRequestReferences(entityReference));
+            } catch (ChangeRequestException e) {
+                this.logger.warn("Error while trying to syncing rights after update of [{}]: [{}]", entityReference,
+                    ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+        Map<DocumentReference, ChangeRequest> loadedChangeRequests = this.loadChangeRequests(impactedChangeRequests);
+
+        // Changes request to split are handled at the end.
+        Set<EntityReference> changeRequestsToSplit = new LinkedHashSet<>();
+        List<EntityReference> splitReasons = new ArrayList<>();
+        for (Map.Entry<EntityReference, List<DocumentReference>> entry : impactedChangeRequests.entrySet()) {
+            EntityReference entityReference = entry.getKey();
+            List<ChangeRequest> changeRequests = entry.getValue().stream()
+                .map(loadedChangeRequests::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+            try {
+                if (this.synchronizeRights(rightsUpdates.get(entityReference), changeRequests,
+                    changeRequestsToSplit)) {
+                    splitReasons.add(entityReference);
+                }
+            } catch (ChangeRequestException e) {
+                this.logger.warn("Error while trying to syncing rights after update of [{}]: [{}]", entityReference,
+                    ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+        this.startSplitJob(new ArrayList<>(changeRequestsToSplit), splitReasons);
+    }
+
+    private List<DocumentReference> findChangeRequestReferences(EntityReference entityReference)
+        throws ChangeRequestException
+    {
+        List<DocumentReference> result;
+        if (entityReference.getType() == EntityType.SPACE) {
+            result = this.changeRequestStorageManager.get()
+                .findChangeRequestReferenceTargeting(new SpaceReference(entityReference));
+        } else {
+            result = this.changeRequestStorageManager.get()
+                .findChangeRequestReferenceTargeting(new DocumentReference(entityReference));
+        }
+        return result;
+    }
+
+    private Map<DocumentReference, ChangeRequest> loadChangeRequests(
+        Map<EntityReference, List<DocumentReference>> impactedChangeRequests)
+    {
+        Set<DocumentReference> changeRequestReferences = new LinkedHashSet<>();
+        impactedChangeRequests.values().forEach(changeRequestReferences::addAll);
+
+        Map<DocumentReference, ChangeRequest> result = new HashMap<>();
+        for (DocumentReference changeRequestReference : changeRequestReferences) {
+            try {
+                this.changeRequestStorageManager.get()
+                    .load(changeRequestReference.getLastSpaceReference().getName())
+                    .ifPresent(changeRequest -> result.put(changeRequestReference, changeRequest));
+            } catch (ChangeRequestException e) {
+                this.logger.warn("Error while loading change request [{}] to sync its rights: [{}]",
+                    changeRequestReference, ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+        return result;
+    }
+
+    private boolean synchronizeRights(List<SecurityRuleDiff> securityRuleDiffList, List<ChangeRequest> changeRequests,
+        Set<EntityReference> changeRequestsToSplit) throws ChangeRequestException
+    {
+        boolean needSplit = false;
+        Set<DocumentReference> ruleSubjects = this.computeRulesSubjects(securityRuleDiffList);
+        if (!ruleSubjects.isEmpty()) {
+            for (ChangeRequest changeRequest : changeRequests) {
+                DocumentReference changeRequestReference =
+                    this.changeRequestDocumentReferenceResolver.resolve(changeRequest);
+                ChangeRequestStatus status = changeRequest.getStatus();
+                // if the change request is merged, we don't want to edit its rights.
+                // if it's already planned to be splitted, the split will take care of its rights.
+                if (status == ChangeRequestStatus.MERGED || changeRequestsToSplit.contains(changeRequestReference)) {
+                    continue;
+                // if it's closed, we don't want to split it, we just edit the rights no matter the consequences
+                } else if (status == ChangeRequestStatus.CLOSED || status == ChangeRequestStatus.STALE
+                    || this.changeRequestRightsManager.get().isViewAccessStillConsistent(changeRequest,
+                    ruleSubjects)) {
+                    this.changeRequestRightsManager.get().applyChanges(changeRequest, securityRuleDiffList);
+                } else {
+                    changeRequestsToSplit.add(changeRequestReference);
+                    needSplit = true;
+                }
+            }
+        }
+        return needSplit;
+    }
+
+    private void startSplitJob(List<EntityReference> changeRequestsToSplit, List<EntityReference> updatedReferences)
+    {
+        if (!changeRequestsToSplit.isEmpty()) {
+            ChangeRequestSplitRequest splitRequest = new ChangeRequestSplitRequest();
+            splitRequest.setEntityReferences(changeRequestsToSplit);
+            splitRequest.setUpdatedReferences(updatedReferences);
+            splitRequest.setDeep(false);
+            splitRequest.setInteractive(false);
+            splitRequest.setUserReference(this.contextProvider.get().getUserReference());
+            try {
+                this.jobExecutorProvider.get()
+                    .execute(ChangeRequestSplitRequest.CHANGE_REQUEST_SPLIT_JOB, splitRequest);
+            } catch (JobException e) {
+                this.logger.error("Error when executing the split job for change requests [{}]",
+                    changeRequestsToSplit, e);
+            }
+        }
+    }
+
+    private Set<DocumentReference> computeRulesSubjects(List<SecurityRuleDiff> securityRuleDiffList)
+    {
+        Set<DocumentReference> ruleSubjects = new HashSet<>();
+        for (SecurityRuleDiff securityRuleDiff : securityRuleDiffList) {
+            ReadableSecurityRule currentRule = securityRuleDiff.getCurrentRule();
+            ReadableSecurityRule previousRule = securityRuleDiff.getPreviousRule();
+            boolean concernsView = (currentRule != null && currentRule.match(Right.VIEW))
+                || (previousRule != null && previousRule.match(Right.VIEW));
+            if (currentRule != null && concernsView) {
+                ruleSubjects.addAll(currentRule.getUsers());
+                ruleSubjects.addAll(currentRule.getGroups());
+            }
+            if (previousRule != null && concernsView) {
+                ruleSubjects.addAll(previousRule.getUsers());
+                ruleSubjects.addAll(previousRule.getGroups());
+            }
+        }
+        return ruleSubjects;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.cache;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+
+/**
+ * Cache of the documents loaded in a specific version when converting remote events: the content of a version of a
+ * document never changes, so the same version only needs to be loaded once from the storage.
+ * <p>
+ * The documents are cached per reference and locale, so that all their versions can be invalidated when the document
+ * is deleted: a document created again with the same reference starts again with the same version numbers.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component(roles = DocumentVersionCacheManager.class)
+@Singleton
+public class DocumentVersionCacheManager implements Initializable, Disposable
+{
+    // Maximum number of versions kept for each document.
+    static final int MAX_VERSIONS = 5;
+
+    private static final char KEY_SEPARATOR = ':';
+
+    @Inject
+    private CacheManager cacheManager;
+
+    @Inject
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    private Cache<Map<String, XWikiDocument>> documentCache;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            this.documentCache =
+                this.cacheManager.createNewCache(new LRUCacheConfiguration("changerequest.documentVersions", 100));
+        } catch (CacheException e) {
+            throw new InitializationException("Error while creating cache", e);
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.documentCache.dispose();
+    }
+
+    /**
+     * Retrieve a copy of the document kept in cache for the given version.
+     *
+     * @param documentReference the reference of the document
+     * @param language the language of the document
+     * @param version the version of the document
+     * @return a copy of the cached document that can be safely modified, or {@code null} if it's not in cache
+     */
+    public XWikiDocument getDocument(DocumentReference documentReference, String language, String version)
+    {
+        XWikiDocument result = null;
+        Map<String, XWikiDocument> versions = this.documentCache.get(getKey(documentReference, language));
+        if (versions != null) {
+            XWikiDocument document = versions.get(version);
+            if (document != null) {
+                result = document.clone();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Record in cache a copy of the given document for its current version.
+     *
+     * @param document the document loaded in a specific version
+     */
+    public void setDocument(XWikiDocument document)
+    {
+        String key = getKey(document.getDocumentReference(), document.getLanguage());
+        Map<String, XWikiDocument> versions = this.documentCache.get(key);
+        if (versions == null) {
+            versions = Collections.synchronizedMap(new LinkedHashMap<String, XWikiDocument>(MAX_VERSIONS, 0.75f, true)
+            {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, XWikiDocument> eldest)
+                {
+                    return size() > MAX_VERSIONS;
+                }
+            });
+            this.documentCache.set(key, versions);
+        }
+        versions.put(document.getVersion(), document.clone());
+    }
+
+    /**
+     * Invalidate all the versions of the given document.
+     *
+     * @param documentReference the reference of the document, with its locale
+     */
+    public void invalidate(DocumentReference documentReference)
+    {
+        Locale locale = documentReference.getLocale();
+        this.documentCache.remove(getKey(documentReference, (locale != null) ? locale.toString() : null));
+    }
+
+    private String getKey(DocumentReference documentReference, String language)
+    {
+        // The language cannot contain the separator, contrary to the reference (serialized without its locale).
+        return Objects.toString(language, "") + KEY_SEPARATOR
+            + this.entityReferenceSerializer.serialize(documentReference);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.jobs;
+
+import java.util.List;
+import java.util.Optional;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.contrib.changerequest.ChangeRequest;
+import org.xwiki.contrib.changerequest.ChangeRequestException;
+import org.xwiki.contrib.changerequest.ChangeRequestRightsManager;
+import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
+import org.xwiki.job.JobGroupPath;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.refactoring.internal.job.AbstractEntityJob;
+import org.xwiki.refactoring.job.EntityJobStatus;
+
+/**
+ * Job performing the split of change requests in background: this is used when a split is needed as a consequence of
+ * another operation (e.g. a right update) which shouldn't wait for the split to be performed.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component
+@Named(ChangeRequestSplitRequest.CHANGE_REQUEST_SPLIT_JOB)
+public class ChangeRequestSplitJob
+    extends AbstractEntityJob<ChangeRequestSplitRequest, EntityJobStatus<ChangeRequestSplitRequest>>
+{
+    @Inject
+    private ChangeRequestStorageManager changeRequestStorageManager;
+
+    @Inject
+    private ChangeRequestRightsManager changeRequestRightsManager;
+
+    @Override
+    protected void process(EntityReference entityReference)
+    {
+        if (entityReference instanceof DocumentReference) {
+            String changeRequestId = ((DocumentReference) entityReference).getLastSpaceReference().getName();
+            try {
+                Optional<ChangeRequest> changeRequestOpt = this.changeRequestStorageManager.load(changeRequestId);
+                // The change request might have been deleted or closed since the job has been requested.
+                if (changeRequestOpt.isPresent() && changeRequestOpt.get().getStatus().isOpen()) {
+                    List<ChangeRequest> splittedChangeRequests =
+                        this.changeRequestStorageManager.split(changeRequestOpt.get());
+                    this.copyUpdatedViewRights(splittedChangeRequests);
+                }
+            } catch (ChangeRequestException e) {
+                this.logger.error("Error while splitting change request [{}]", changeRequestId, e);
+            }
+        }
+    }
+
+    private void copyUpdatedViewRights(List<ChangeRequest> splittedChangeRequests) throws ChangeRequestException
+    {
+        for (EntityReference updatedReference : getRequest().getUpdatedReferences()) {
+            for (ChangeRequest splittedChangeRequest : splittedChangeRequests) {
+                boolean concernsIt = false;
+                for (DocumentReference modifiedDocument : splittedChangeRequest.getModifiedDocuments()) {
+                    if (modifiedDocument.equals(updatedReference) || modifiedDocument.hasParent(updatedReference)) {
+                        concernsIt = true;
+                        break;
+                    }
+                }
+
+                if (concernsIt) {
+                    this.changeRequestRightsManager.copyViewRights(splittedChangeRequest, updatedReference);
+                }
+            }
+        }
+    }
+
+    @Override
+    public JobGroupPath getGroupPath()
+    {
+        // Splits are performed in the same group as the rights synchronization to avoid concurrent modifications.
+        return RightsSynchronizationJob.GROUP_PATH;
+    }
+
+    @Override
+    public String getType()
+    {
+        return ChangeRequestSplitRequest.CHANGE_REQUEST_SPLIT_JOB;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.jobs;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.refactoring.job.EntityRequest;
+
+/**
+ * Job request to use to perform the split of change requests in background.
+ * The entity references of the request are the references of the change request documents to split.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+public class ChangeRequestSplitRequest extends EntityRequest
+{
+    /**
+     * Default type for those jobs.
+     */
+    public static final String CHANGE_REQUEST_SPLIT_JOB = "changerequest/split";
+
+    private static final String UPDATED_REFERENCES_PROPERTY = "updatedReferences";
+
+    /**
+     * @return the references of the entities whose rights update triggered the split.
+     */
+    public List<EntityReference> getUpdatedReferences()
+    {
+        return getProperty(UPDATED_REFERENCES_PROPERTY, Collections.emptyList());
+    }
+
+    /**
+     * @param updatedReferences the references of the entities whose rights update triggered the split: the view
+     *                          rights of those entities are copied to the splitted change requests concerning them.
+     */
+    public void setUpdatedReferences(List<EntityReference> updatedReferences)
+    {
+        setProperty(UPDATED_REFERENCES_PROPERTY, updatedReferences);
+    }
+}
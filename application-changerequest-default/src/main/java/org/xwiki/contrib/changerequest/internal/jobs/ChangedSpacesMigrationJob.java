@@ -0,0 +1,153 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.jobs;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.contrib.changerequest.ChangeRequestException;
+import org.xwiki.contrib.changerequest.internal.storage.DefaultChangeRequestStorageManager;
+import org.xwiki.job.AbstractJob;
+import org.xwiki.job.DefaultJobStatus;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+
+import static org.xwiki.contrib.changerequest.internal.storage.ChangeRequestXClassInitializer.CHANGED_DOCUMENTS_FIELD;
+import static org.xwiki.contrib.changerequest.internal.storage.ChangeRequestXClassInitializer.CHANGED_SPACES_FIELD;
+import static org.xwiki.contrib.changerequest.internal.storage.ChangeRequestXClassInitializer.CHANGE_REQUEST_XCLASS;
+
+/**
+ * Job filling the index of changed spaces of the change requests of a wiki created before its introduction. The job
+ * fails if some change requests cannot be migrated, so that the migration is performed again at next startup.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component
+@Named(ChangedSpacesMigrationRequest.CHANGED_SPACES_MIGRATION_JOB)
+public class ChangedSpacesMigrationJob
+    extends AbstractJob<ChangedSpacesMigrationRequest, DefaultJobStatus<ChangedSpacesMigrationRequest>>
+{
+    @Inject
+    private Provider<XWikiContext> contextProvider;
+
+    @Inject
+    private Provider<QueryManager> queryManagerProvider;
+
+    @Inject
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    @Inject
+    @Named("compactwiki")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
+    @Inject
+    @Named("current")
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @Override
+    protected void runInternal() throws Exception
+    {
+        String wikiId = getRequest().getWikiId();
+        XWikiContext context = this.contextProvider.get();
+        String currentWikiId = context.getWikiId();
+        try {
+            context.setWikiId(wikiId);
+            List<String> changeRequestDocuments = this.getChangeRequestsToMigrate(wikiId);
+            int failures = 0;
+            this.progressManager.pushLevelProgress(changeRequestDocuments.size(), this);
+            try {
+                for (String changeRequestDocument : changeRequestDocuments) {
+                    this.progressManager.startStep(this);
+                    if (!this.migrate(this.documentReferenceResolver.resolve(changeRequestDocument), context)) {
+                        failures++;
+                    }
+                    this.progressManager.endStep(this);
+                }
+            } finally {
+                this.progressManager.popLevelProgress(this);
+            }
+            if (failures > 0) {
+                throw new ChangeRequestException(
+                    String.format("The changed spaces index of [%s] change requests of wiki [%s] couldn't be migrated",
+                        failures, wikiId));
+            }
+        } finally {
+            context.setWikiId(currentWikiId);
+        }
+    }
+
+    private List<String> getChangeRequestsToMigrate(String wikiId) throws QueryException
+    {
+        String statement = String.format(", BaseObject as obj where obj.name=doc.fullName and obj.className='%s' "
+            + "and not exists (from DBStringListProperty as prop where prop.id.id=obj.id and prop.id.name='%s')",
+            this.entityReferenceSerializer.serialize(CHANGE_REQUEST_XCLASS), CHANGED_SPACES_FIELD);
+        Query query = this.queryManagerProvider.get().createQuery(statement, Query.HQL);
+        query.setWiki(wikiId);
+        return query.execute();
+    }
+
+    private boolean migrate(DocumentReference changeRequestReference, XWikiContext context)
+    {
+        XWiki wiki = context.getWiki();
+        try {
+            XWikiDocument document = wiki.getDocument(changeRequestReference, context).clone();
+            BaseObject xObject = document.getXObject(CHANGE_REQUEST_XCLASS);
+            if (xObject != null) {
+                List<String> serializedDocuments = xObject.getListValue(CHANGED_DOCUMENTS_FIELD);
+                List<DocumentReference> changedDocuments = serializedDocuments.stream()
+                    .map(this.documentReferenceResolver::resolve)
+                    .collect(Collectors.toList());
+                List<String> changedSpaces = DefaultChangeRequestStorageManager
+                    .getChangedSpaces(changedDocuments, this.localEntityReferenceSerializer);
+                xObject.set(CHANGED_SPACES_FIELD, changedSpaces, context);
+                wiki.saveDocument(document, "Migration of the changed spaces index", true, context);
+            }
+            return true;
+        } catch (XWikiException e) {
+            this.logger.warn("Error while migrating the changed spaces index of [{}]: [{}]", changeRequestReference,
+                ExceptionUtils.getRootCauseMessage(e));
+            this.logger.debug("Full stack trace of the migration error: ", e);
+            return false;
+        }
+    }
+
+    @Override
+    public String getType()
+    {
+        return ChangedSpacesMigrationRequest.CHANGED_SPACES_MIGRATION_JOB;
+    }
+}
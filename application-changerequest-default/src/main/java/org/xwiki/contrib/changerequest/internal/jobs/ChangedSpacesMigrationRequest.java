@@ -0,0 +1,88 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.jobs;
+
+import java.util.List;
+
+import org.xwiki.job.AbstractRequest;
+
+/**
+ * Job request to use to fill the index of changed spaces of the change requests of a wiki created before its
+ * introduction. The status of the job is serialized, so that the migration is not performed again once it succeeded.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+public class ChangedSpacesMigrationRequest extends AbstractRequest
+{
+    /**
+     * Default type for those jobs.
+     */
+    public static final String CHANGED_SPACES_MIGRATION_JOB = "changerequest/changedSpacesMigration";
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String WIKI_ID_PROPERTY = "wiki";
+
+    /**
+     * Default constructor.
+     */
+    public ChangedSpacesMigrationRequest()
+    {
+    }
+
+    /**
+     * Create a request for migrating the change requests of the given wiki.
+     *
+     * @param wikiId the identifier of the wiki whose change requests should be migrated
+     */
+    public ChangedSpacesMigrationRequest(String wikiId)
+    {
+        setId(getJobId(wikiId));
+        setWikiId(wikiId);
+        setInteractive(false);
+        setStatusSerialized(true);
+    }
+
+    /**
+     * @param wikiId the identifier of a wiki
+     * @return the identifier of the migration job of the given wiki
+     */
+    public static List<String> getJobId(String wikiId)
+    {
+        return List.of("changerequest", "changedSpacesMigration", wikiId);
+    }
+
+    /**
+     * @return the identifier of the wiki whose change requests should be migrated.
+     */
+    public String getWikiId()
+    {
+        return getProperty(WIKI_ID_PROPERTY);
+    }
+
+    /**
+     * @param wikiId the identifier of the wiki whose change requests should be migrated.
+     */
+    public void setWikiId(String wikiId)
+    {
+        setProperty(WIKI_ID_PROPERTY, wikiId);
+    }
+}
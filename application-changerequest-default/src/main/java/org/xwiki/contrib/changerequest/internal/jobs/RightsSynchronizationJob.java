@@ -0,0 +1,75 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.jobs;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.contrib.changerequest.internal.RightsSynchronizationManager;
+import org.xwiki.contrib.changerequest.jobs.AbstractDelayedQueueJob;
+import org.xwiki.contrib.rights.SecurityRuleDiff;
+import org.xwiki.job.JobGroupPath;
+import org.xwiki.model.reference.EntityReference;
+
+/**
+ * Job processing the rights updates queued in {@link RightsSynchronizationManager}, so that bursts of rights updates
+ * are handled at once.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component
+@Named(RightsSynchronizationRequest.RIGHTS_SYNCHRONIZATION_JOB)
+public class RightsSynchronizationJob extends AbstractDelayedQueueJob<RightsSynchronizationRequest>
+{
+    /**
+     * Group of the jobs modifying change requests after a rights update: those jobs are executed sequentially.
+     */
+    static final JobGroupPath GROUP_PATH = new JobGroupPath(List.of("changerequest", "rights"));
+
+    @Inject
+    private RightsSynchronizationManager rightsSynchronizationManager;
+
+    @Override
+    protected void processQueue()
+    {
+        Map<EntityReference, List<SecurityRuleDiff>> rightsUpdates =
+            this.rightsSynchronizationManager.consumePendingItems(getRequest());
+        if (!rightsUpdates.isEmpty()) {
+            this.rightsSynchronizationManager.synchronizeRights(rightsUpdates);
+        }
+    }
+
+    @Override
+    public JobGroupPath getGroupPath()
+    {
+        return GROUP_PATH;
+    }
+
+    @Override
+    public String getType()
+    {
+        return RightsSynchronizationRequest.RIGHTS_SYNCHRONIZATION_JOB;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.listeners;
+
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.contrib.changerequest.internal.remote.ChangeRequestRemoteEventsBatchEvent;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.event.Event;
+import org.xwiki.observation.remote.LocalEventData;
+
+/**
+ * Listener in charge of unpacking the {@link ChangeRequestRemoteEventsBatchEvent} received from the other nodes of
+ * the cluster, to notify each event they contain as if it had been received separately.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component
+@Named(ChangeRequestRemoteEventsBatchListener.NAME)
+@Singleton
+public class ChangeRequestRemoteEventsBatchListener extends AbstractEventListener
+{
+    static final String NAME =
+        "org.xwiki.contrib.changerequest.internal.listeners.ChangeRequestRemoteEventsBatchListener";
+
+    @Inject
+    private Provider<ObservationManager> observationManagerProvider;
+
+    /**
+     * Default constructor.
+     */
+    public ChangeRequestRemoteEventsBatchListener()
+    {
+        super(NAME, new ChangeRequestRemoteEventsBatchEvent());
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        // The batch events are only sent remotely, and the events they contain are notified in the context of the
+        // remote event, so they are not sent back to the cluster.
+        if (data instanceof List) {
+            ObservationManager observationManager = this.observationManagerProvider.get();
+            for (LocalEventData localEvent : (List<LocalEventData>) data) {
+                observationManager.notify(localEvent.getEvent(), localEvent.getSource(), localEvent.getData());
+            }
+        }
+    }
+}
@@ -37,6 +37,7 @@ import org.xwiki.contrib.changerequest.ChangeRequest;
 import org.xwiki.contrib.changerequest.ChangeRequestException;
 import org.xwiki.contrib.changerequest.ChangeRequestManager;
 import org.xwiki.contrib.changerequest.events.ChangeRequestRefactoringEvent;
+import org.xwiki.contrib.changerequest.internal.cache.DocumentVersionCacheManager;
 import org.xwiki.contrib.changerequest.internal.cache.MergeCacheManager;
 import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
 import org.xwiki.job.Job;
@@ -80,6 +81,9 @@ public class DocumentUpdatedListener extends AbstractLocalEventListener
     @Inject
     private Provider<MergeCacheManager> conflictCacheManager;
 
+    @Inject
+    private Provider<DocumentVersionCacheManager> documentVersionCacheManager;
+
     @Inject
     private ObservationContext observationContext;
 
@@ -131,6 +135,10 @@ public class DocumentUpdatedListener extends AbstractLocalEventListener
         DocumentReference reference = sourceDoc.getDocumentReferenceWithLocale();
         if (isWikiReady(reference.getWikiReference())) {
             this.conflictCacheManager.get().invalidate(reference);
+            // A document created again after a deletion restarts with the same versions.
+            if (event instanceof DocumentDeletedEvent) {
+                this.documentVersionCacheManager.get().invalidate(reference);
+            }
         }
     }
 
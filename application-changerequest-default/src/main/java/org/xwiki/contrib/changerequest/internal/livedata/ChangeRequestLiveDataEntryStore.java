@@ -0,0 +1,335 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.livedata;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.StringUtils;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.contrib.changerequest.ChangeRequestException;
+import org.xwiki.contrib.changerequest.ChangeRequestStatus;
+import org.xwiki.contrib.changerequest.internal.search.ChangeRequestDatabaseSearcher;
+import org.xwiki.contrib.changerequest.internal.search.ChangeRequestSearchQuery;
+import org.xwiki.contrib.changerequest.internal.search.ChangeRequestSearchResult;
+import org.xwiki.contrib.changerequest.internal.search.ChangeRequestSolrSearcher;
+import org.xwiki.contrib.changerequest.internal.storage.ChangeRequestXClassInitializer;
+import org.xwiki.livedata.LiveData;
+import org.xwiki.livedata.LiveDataEntryStore;
+import org.xwiki.livedata.LiveDataException;
+import org.xwiki.livedata.LiveDataQuery;
+import org.xwiki.localization.ContextualLocalizationManager;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.xml.XMLUtils;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.objects.classes.UsersClass;
+
+import static org.xwiki.contrib.changerequest.internal.livedata.ChangeRequestLiveDataPropertyStore.AUTHORS;
+import static org.xwiki.contrib.changerequest.internal.livedata.ChangeRequestLiveDataPropertyStore.CHANGED_DOCUMENTS;
+import static org.xwiki.contrib.changerequest.internal.livedata.ChangeRequestLiveDataPropertyStore.CREATION_DATE;
+import static org.xwiki.contrib.changerequest.internal.livedata.ChangeRequestLiveDataPropertyStore.DATE;
+import static org.xwiki.contrib.changerequest.internal.livedata.ChangeRequestLiveDataPropertyStore.STATUS;
+import static org.xwiki.contrib.changerequest.internal.livedata.ChangeRequestLiveDataPropertyStore.TITLE;
+import static org.xwiki.contrib.changerequest.internal.livedata.ChangeRequestLiveDataPropertyStore.URL;
+import static org.xwiki.contrib.changerequest.internal.livedata.ChangeRequestLiveDataPropertyStore.VIEWABLE;
+
+/**
+ * Entries of the {@link ChangeRequestLiveDataSource}.
+ * <p>
+ * The filtering, sorting and pagination are performed by the Solr index through {@link ChangeRequestSolrSearcher},
+ * or by a database query through {@link ChangeRequestDatabaseSearcher} when the Solr search is not installed, then
+ * the values are directly read from the change request documents: the file changes are never loaded. The titles
+ * of the changed documents are computed once per query, even if they are modified in several change requests.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component
+@Named(ChangeRequestLiveDataSource.ID)
+@Singleton
+public class ChangeRequestLiveDataEntryStore implements LiveDataEntryStore
+{
+    private static final String WIKI_PARAMETER = "wiki";
+
+    private static final String VIEW_ACTION = "view";
+
+    private static final String LINK_FORMAT = "<a href=\"%s\">%s</a>";
+
+    private static final String SEPARATOR = ", ";
+
+    private static final String EQUALS_OPERATOR = "equals";
+
+    private static final String STARTS_WITH_OPERATOR = "startsWith";
+
+    @Inject
+    private Provider<ChangeRequestSolrSearcher> solrSearcherProvider;
+
+    @Inject
+    private Provider<ChangeRequestDatabaseSearcher> databaseSearcherProvider;
+
+    @Inject
+    private Provider<XWikiContext> contextProvider;
+
+    @Inject
+    private ContextualAuthorizationManager authorizationManager;
+
+    @Inject
+    @Named("current")
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @Inject
+    @Named("changerequestid")
+    private DocumentReferenceResolver<String> changeRequestIdDocumentReferenceResolver;
+
+    @Inject
+    private ContextualLocalizationManager localizationManager;
+
+    @Override
+    public Optional<Map<String, Object>> get(Object entryId) throws LiveDataException
+    {
+        DocumentReference reference = this.changeRequestIdDocumentReferenceResolver.resolve(String.valueOf(entryId));
+        return Optional.of(getEntry(reference, new HashMap<>()));
+    }
+
+    @Override
+    public LiveData get(LiveDataQuery query) throws LiveDataException
+    {
+        // The change requests of another wiki can be listed, e.g. in the user profile.
+        Object wikiParameter = query.getSource().getParameters().get(WIKI_PARAMETER);
+        XWikiContext context = this.contextProvider.get();
+        String currentWiki = context.getWikiId();
+        try {
+            if (wikiParameter != null && StringUtils.isNotBlank(String.valueOf(wikiParameter))) {
+                context.setWikiId(String.valueOf(wikiParameter));
+            }
+            return getLiveData(query);
+        } finally {
+            context.setWikiId(currentWiki);
+        }
+    }
+
+    private LiveData getLiveData(LiveDataQuery query) throws LiveDataException
+    {
+        ChangeRequestSolrSearcher solrSearcher = this.solrSearcherProvider.get();
+        ChangeRequestSearchQuery searchQuery = getSearchQuery(query);
+        ChangeRequestSearchResult searchResult;
+        try {
+            if (solrSearcher.isAvailable()) {
+                searchResult = solrSearcher.search(searchQuery);
+            } else {
+                searchResult = this.databaseSearcherProvider.get().search(searchQuery);
+            }
+        } catch (ChangeRequestException e) {
+            throw new LiveDataException("Error while searching the change requests", e);
+        }
+
+        LiveData liveData = new LiveData();
+        liveData.setCount(searchResult.getTotalCount());
+        // Titles of the changed documents shared by all the entries.
+        Map<DocumentReference, String> titles = new HashMap<>();
+        for (DocumentReference reference : searchResult.getReferences()) {
+            liveData.getEntries().add(getEntry(reference, titles));
+        }
+        return liveData;
+    }
+
+    private ChangeRequestSearchQuery getSearchQuery(LiveDataQuery query) throws LiveDataException
+    {
+        ChangeRequestSearchQuery searchQuery = new ChangeRequestSearchQuery();
+        if (query.getOffset() != null) {
+            searchQuery.setOffset(query.getOffset().intValue());
+        }
+        if (query.getLimit() != null) {
+            searchQuery.setLimit(query.getLimit());
+        }
+        for (LiveDataQuery.Filter filter : query.getFilters()) {
+            List<LiveDataQuery.Constraint> constraints = filter.getConstraints().stream()
+                .filter(constraint -> constraint.getValue() != null
+                    && StringUtils.isNotBlank(String.valueOf(constraint.getValue())))
+                .collect(Collectors.toList());
+            addFilter(searchQuery, filter.getProperty(), constraints);
+        }
+        if (!query.getSort().isEmpty()) {
+            LiveDataQuery.SortEntry sortEntry = query.getSort().get(0);
+            searchQuery.setSort(getSortField(sortEntry.getProperty()), sortEntry.isDescending());
+        }
+        return searchQuery;
+    }
+
+    private void addFilter(ChangeRequestSearchQuery searchQuery, String property,
+        List<LiveDataQuery.Constraint> constraints) throws LiveDataException
+    {
+        if (constraints.isEmpty()) {
+            return;
+        }
+        List<String> values = constraints.stream()
+            .map(constraint -> String.valueOf(constraint.getValue()))
+            .collect(Collectors.toList());
+        switch (property) {
+            case TITLE:
+                searchQuery.setTitle(String.join(" ", values));
+                break;
+
+            case STATUS:
+                try {
+                    searchQuery.setStatuses(values.stream()
+                        .map(value -> ChangeRequestStatus.valueOf(value.toUpperCase(Locale.ROOT)))
+                        .collect(Collectors.toList()));
+                } catch (IllegalArgumentException e) {
+                    throw new LiveDataException(String.format("Unknown change request status in [%s]", values), e);
+                }
+                break;
+
+            case AUTHORS:
+                constraints.forEach(constraint -> searchQuery.addAuthor(String.valueOf(constraint.getValue()),
+                    getMatchType(constraint)));
+                break;
+
+            case CHANGED_DOCUMENTS:
+                constraints.forEach(constraint -> searchQuery.addChangedDocument(
+                    String.valueOf(constraint.getValue()), getMatchType(constraint)));
+                break;
+
+            default:
+                throw new LiveDataException(String.format("Filtering on property [%s] is not supported.", property));
+        }
+    }
+
+    private ChangeRequestSearchQuery.MatchType getMatchType(LiveDataQuery.Constraint constraint)
+    {
+        // Text filters match by default the values containing the typed text, as the live tables were doing.
+        ChangeRequestSearchQuery.MatchType result;
+        if (EQUALS_OPERATOR.equals(constraint.getOperator())) {
+            result = ChangeRequestSearchQuery.MatchType.EXACT;
+        } else if (STARTS_WITH_OPERATOR.equals(constraint.getOperator())) {
+            result = ChangeRequestSearchQuery.MatchType.PREFIX;
+        } else {
+            result = ChangeRequestSearchQuery.MatchType.CONTAINS;
+        }
+        return result;
+    }
+
+    private ChangeRequestSearchQuery.SortField getSortField(String property) throws LiveDataException
+    {
+        switch (property) {
+            case TITLE:
+                return ChangeRequestSearchQuery.SortField.TITLE;
+
+            case DATE:
+                return ChangeRequestSearchQuery.SortField.UPDATE_DATE;
+
+            case CREATION_DATE:
+                return ChangeRequestSearchQuery.SortField.CREATION_DATE;
+
+            case STATUS:
+                return ChangeRequestSearchQuery.SortField.STATUS;
+
+            default:
+                throw new LiveDataException(String.format("Sorting on property [%s] is not supported.", property));
+        }
+    }
+
+    private Map<String, Object> getEntry(DocumentReference reference, Map<DocumentReference, String> titles)
+        throws LiveDataException
+    {
+        Map<String, Object> entry = new HashMap<>();
+        boolean viewable = this.authorizationManager.hasAccess(Right.VIEW, reference);
+        entry.put(VIEWABLE, viewable);
+        if (viewable) {
+            XWikiContext context = this.contextProvider.get();
+            XWiki wiki = context.getWiki();
+            try {
+                XWikiDocument document = wiki.getDocument(reference, context);
+                entry.put(TITLE, document.getTitle());
+                entry.put(URL, document.getURL(VIEW_ACTION, context));
+                entry.put(DATE, document.getDate().getTime());
+                entry.put(CREATION_DATE, document.getCreationDate().getTime());
+
+                BaseObject xObject = document.getXObject(ChangeRequestXClassInitializer.CHANGE_REQUEST_XCLASS);
+                if (xObject != null) {
+                    entry.put(STATUS, ChangeRequestLiveDataPropertyStore.getStatusLabel(this.localizationManager,
+                        xObject.getStringValue(ChangeRequestXClassInitializer.STATUS_FIELD)));
+                    entry.put(AUTHORS, getAuthors(xObject, context));
+                    List<String> changedDocuments =
+                        xObject.getListValue(ChangeRequestXClassInitializer.CHANGED_DOCUMENTS_FIELD);
+                    entry.put(CHANGED_DOCUMENTS, getChangedDocuments(changedDocuments, titles, context));
+                }
+            } catch (XWikiException e) {
+                throw new LiveDataException(String.format("Error while loading change request [%s]", reference), e);
+            }
+        }
+        return entry;
+    }
+
+    private String getAuthors(BaseObject xObject, XWikiContext context)
+    {
+        XWiki wiki = context.getWiki();
+        List<String> authors = UsersClass.getListFromString(
+            xObject.getLargeStringValue(ChangeRequestXClassInitializer.AUTHORS_FIELD));
+        List<String> links = new ArrayList<>();
+        for (String author : authors) {
+            DocumentReference authorReference = this.documentReferenceResolver.resolve(author);
+            links.add(String.format(LINK_FORMAT, XMLUtils.escape(wiki.getURL(authorReference, VIEW_ACTION, context)),
+                XMLUtils.escape(wiki.getPlainUserName(authorReference, context))));
+        }
+        return String.join(SEPARATOR, links);
+    }
+
+    private String getChangedDocuments(List<String> changedDocuments, Map<DocumentReference, String> titles,
+        XWikiContext context) throws XWikiException
+    {
+        XWiki wiki = context.getWiki();
+        List<String> links = new ArrayList<>();
+        for (String changedDocument : changedDocuments) {
+            DocumentReference reference = this.documentReferenceResolver.resolve(changedDocument);
+            String title = titles.get(reference);
+            if (title == null) {
+                if (this.authorizationManager.hasAccess(Right.VIEW, reference)) {
+                    title = wiki.getDocument(reference, context).getRenderedTitle(Syntax.PLAIN_1_0, context);
+                } else {
+                    title = changedDocument;
+                }
+                titles.put(reference, title);
+            }
+            links.add(String.format(LINK_FORMAT, XMLUtils.escape(wiki.getURL(reference, VIEW_ACTION, context)),
+                XMLUtils.escape(title)));
+        }
+        return String.join(SEPARATOR, links);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.livedata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.StringUtils;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.contrib.changerequest.ChangeRequestStatus;
+import org.xwiki.livedata.LiveDataPropertyDescriptor;
+import org.xwiki.livedata.LiveDataPropertyDescriptorStore;
+import org.xwiki.localization.ContextualLocalizationManager;
+
+/**
+ * Descriptors of the properties of the {@link ChangeRequestLiveDataSource}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component
+@Named(ChangeRequestLiveDataSource.ID)
+@Singleton
+public class ChangeRequestLiveDataPropertyStore implements LiveDataPropertyDescriptorStore
+{
+    static final String TITLE = "doc.title";
+
+    static final String URL = "doc.url";
+
+    static final String DATE = "doc.date";
+
+    static final String CREATION_DATE = "doc.creationDate";
+
+    static final String STATUS = "status";
+
+    static final String AUTHORS = "authors";
+
+    static final String CHANGED_DOCUMENTS = "changedDocuments";
+
+    static final String VIEWABLE = "doc.viewable";
+
+    private static final String STATUS_TRANSLATION_PREFIX = "ChangeRequest.Code.ChangeRequestClass_status_";
+
+    private static final String TRANSLATION_PREFIX = "changerequest.livedata.";
+
+    private static final String STRING_TYPE = "String";
+
+    private static final String DATE_TYPE = "Date";
+
+    private static final String HTML_DISPLAYER = "html";
+
+    private static final String TEXT_FILTER = "text";
+
+    @Inject
+    private ContextualLocalizationManager localizationManager;
+
+    @Override
+    public Collection<LiveDataPropertyDescriptor> get()
+    {
+        List<LiveDataPropertyDescriptor> result = new ArrayList<>();
+
+        LiveDataPropertyDescriptor title = createDescriptor(TITLE, STRING_TYPE, true, TEXT_FILTER);
+        LiveDataPropertyDescriptor.DisplayerDescriptor linkDisplayer =
+            new LiveDataPropertyDescriptor.DisplayerDescriptor("link");
+        linkDisplayer.setParameter("propertyHref", URL);
+        title.setDisplayer(linkDisplayer);
+        result.add(title);
+
+        result.add(createDescriptor(DATE, DATE_TYPE, true, null));
+        result.add(createDescriptor(CREATION_DATE, DATE_TYPE, true, null));
+
+        LiveDataPropertyDescriptor status = createDescriptor(STATUS, STRING_TYPE, true, "list");
+        status.getFilter().setParameter("options", Arrays.stream(ChangeRequestStatus.values())
+            .map(value -> value.name().toLowerCase(Locale.ROOT))
+            .map(value -> Map.of("value", value, "label", getStatusLabel(this.localizationManager, value)))
+            .toArray());
+        result.add(status);
+
+        LiveDataPropertyDescriptor authors = createDescriptor(AUTHORS, STRING_TYPE, false, TEXT_FILTER);
+        authors.setDisplayer(new LiveDataPropertyDescriptor.DisplayerDescriptor(HTML_DISPLAYER));
+        result.add(authors);
+
+        LiveDataPropertyDescriptor changedDocuments =
+            createDescriptor(CHANGED_DOCUMENTS, STRING_TYPE, false, TEXT_FILTER);
+        changedDocuments.setDisplayer(new LiveDataPropertyDescriptor.DisplayerDescriptor(HTML_DISPLAYER));
+        result.add(changedDocuments);
+
+        return result;
+    }
+
+    /**
+     * @param localizationManager the localization manager to use for the translation
+     * @param status the status as stored in the change request xobject
+     * @return the translated label of the status
+     */
+    static String getStatusLabel(ContextualLocalizationManager localizationManager, String status)
+    {
+        return StringUtils.defaultIfBlank(
+            localizationManager.getTranslationPlain(STATUS_TRANSLATION_PREFIX + status), status);
+    }
+
+    private LiveDataPropertyDescriptor createDescriptor(String id, String type, boolean sortable, String filter)
+    {
+        LiveDataPropertyDescriptor descriptor = new LiveDataPropertyDescriptor();
+        descriptor.setId(id);
+        descriptor.setName(StringUtils.defaultIfBlank(
+            this.localizationManager.getTranslationPlain(TRANSLATION_PREFIX + id), id));
+        descriptor.setType(type);
+        descriptor.setSortable(sortable);
+        descriptor.setEditable(false);
+        descriptor.setVisible(true);
+        descriptor.setFilterable(filter != null);
+        if (filter != null) {
+            descriptor.setFilter(new LiveDataPropertyDescriptor.FilterDescriptor(filter));
+        }
+        return descriptor;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.livedata;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.annotation.InstantiationStrategy;
+import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
+import org.xwiki.livedata.LiveDataEntryStore;
+import org.xwiki.livedata.LiveDataPropertyDescriptorStore;
+import org.xwiki.livedata.LiveDataSource;
+import org.xwiki.livedata.WithParameters;
+
+/**
+ * Live Data source listing the change requests of the current wiki.
+ * The change requests are retrieved from the Solr index, and all the columns are computed in Java.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component
+@Named(ChangeRequestLiveDataSource.ID)
+@InstantiationStrategy(ComponentInstantiationStrategy.PER_LOOKUP)
+public class ChangeRequestLiveDataSource implements LiveDataSource, WithParameters
+{
+    /**
+     * Identifier of the source.
+     */
+    public static final String ID = "changerequests";
+
+    private final Map<String, Object> parameters = new HashMap<>();
+
+    @Inject
+    @Named(ID)
+    private LiveDataEntryStore entryStore;
+
+    @Inject
+    @Named(ID)
+    private LiveDataPropertyDescriptorStore propertyStore;
+
+    @Override
+    public LiveDataEntryStore getEntries()
+    {
+        return this.entryStore;
+    }
+
+    @Override
+    public LiveDataPropertyDescriptorStore getProperties()
+    {
+        return this.propertyStore;
+    }
+
+    @Override
+    public Map<String, Object> getParameters()
+    {
+        return this.parameters;
+    }
+}
@@ -0,0 +1,403 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.livedata;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.StringUtils;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.contrib.changerequest.ChangeRequest;
+import org.xwiki.contrib.changerequest.ChangeRequestConfiguration;
+import org.xwiki.contrib.changerequest.ChangeRequestException;
+import org.xwiki.contrib.changerequest.ChangeRequestManager;
+import org.xwiki.contrib.changerequest.ChangeRequestMergeManager;
+import org.xwiki.contrib.changerequest.ChangeRequestReference;
+import org.xwiki.contrib.changerequest.ChangeRequestRightsManager;
+import org.xwiki.contrib.changerequest.FileChange;
+import org.xwiki.contrib.changerequest.internal.UserReferenceConverter;
+import org.xwiki.contrib.changerequest.rights.ChangeRequestRight;
+import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
+import org.xwiki.livedata.LiveData;
+import org.xwiki.livedata.LiveDataEntryStore;
+import org.xwiki.livedata.LiveDataException;
+import org.xwiki.livedata.LiveDataQuery;
+import org.xwiki.localization.ContextualLocalizationManager;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.resource.ResourceReferenceSerializer;
+import org.xwiki.resource.SerializeResourceReferenceException;
+import org.xwiki.resource.UnsupportedResourceReferenceException;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.url.ExtendedURL;
+import org.xwiki.user.CurrentUserReference;
+import org.xwiki.user.UserReference;
+import org.xwiki.user.UserReferenceResolver;
+import org.xwiki.xml.XMLUtils;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+
+import static org.xwiki.contrib.changerequest.internal.livedata.FileChangeLiveDataPropertyStore.AUTHOR;
+import static org.xwiki.contrib.changerequest.internal.livedata.FileChangeLiveDataPropertyStore.DOCUMENT_VERSION;
+import static org.xwiki.contrib.changerequest.internal.livedata.FileChangeLiveDataPropertyStore.LOCATION;
+import static org.xwiki.contrib.changerequest.internal.livedata.FileChangeLiveDataPropertyStore.MINOR_CHANGE;
+import static org.xwiki.contrib.changerequest.internal.livedata.FileChangeLiveDataPropertyStore.TITLE;
+import static org.xwiki.contrib.changerequest.internal.livedata.FileChangeLiveDataPropertyStore.TYPE;
+import static org.xwiki.contrib.changerequest.internal.livedata.FileChangeLiveDataPropertyStore.VERSION;
+
+/**
+ * Entries of the {@link FileChangeLiveDataSource}.
+ * <p>
+ * All the entries of the change request are computed at once before being filtered, sorted and paginated, since a
+ * change request usually contains few documents. The rights of the current user on the change request are checked
+ * only once, and the merge results used to detect conflicts are only computed when the user can actually fix them.
+ * No entry is returned if the current user cannot view the change request, and the changes of documents that the
+ * current user cannot view are filtered out.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component
+@Named(FileChangeLiveDataSource.ID)
+@Singleton
+public class FileChangeLiveDataEntryStore implements LiveDataEntryStore
+{
+    static final String CHANGE_REQUEST_PARAMETER = "changerequest";
+
+    private static final String FULLNAME = "doc.fullName";
+
+    private static final String AUTHOR_NAME = "filechange_authorName";
+
+    private static final String VIEWABLE = "doc.viewable";
+
+    private static final String HAS_EDIT = "doc.hasedit";
+
+    private static final String HAS_FIX_CONFLICT = "doc.hasfixconflict";
+
+    private static final String HAS_REBASE = "doc.hasrebase";
+
+    private static final String HAS_EDIT_APPROVERS = "doc.haseditapprovers";
+
+    private static final String EDIT_CR_ACTION = "editcr";
+
+    private static final String VIEW_ACTION = "view";
+
+    private static final String LINK_FORMAT = "<a href=\"%s\">%s</a>";
+
+    private static final String LOCALE_PARAMETER = "&locale=";
+
+    private static final String CHANGE_REQUEST_QUERY_STRING = "changerequest=";
+
+    private static final Map<String, String> SORT_VALUES = Map.of(
+        LOCATION, FULLNAME,
+        AUTHOR, AUTHOR_NAME
+    );
+
+    @Inject
+    private ChangeRequestStorageManager changeRequestStorageManager;
+
+    @Inject
+    private ChangeRequestRightsManager changeRequestRightsManager;
+
+    @Inject
+    private ChangeRequestMergeManager changeRequestMergeManager;
+
+    @Inject
+    private ChangeRequestManager changeRequestManager;
+
+    @Inject
+    private ChangeRequestConfiguration configuration;
+
+    @Inject
+    private UserReferenceResolver<CurrentUserReference> currentUserReferenceResolver;
+
+    @Inject
+    private UserReferenceConverter userReferenceConverter;
+
+    @Inject
+    private ContextualAuthorizationManager authorizationManager;
+
+    @Inject
+    private ContextualLocalizationManager localizationManager;
+
+    @Inject
+    @Named("local")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
+    @Inject
+    private ResourceReferenceSerializer<ChangeRequestReference, ExtendedURL> urlResourceReferenceSerializer;
+
+    @Inject
+    private DocumentReferenceResolver<ChangeRequest> changeRequestDocumentReferenceResolver;
+
+    @Inject
+    private Provider<XWikiContext> contextProvider;
+
+    /**
+     * Information about the change request shared by all the entries.
+     */
+    private static final class ChangeRequestInformation
+    {
+        private ChangeRequest changeRequest;
+
+        private boolean canEditChangeRequest;
+
+        private boolean canEditApprovers;
+
+        private String rebaseURL;
+    }
+
+    @Override
+    public Optional<Map<String, Object>> get(Object entryId)
+    {
+        // Entries cannot be retrieved without their change request.
+        return Optional.empty();
+    }
+
+    @Override
+    public LiveData get(LiveDataQuery query) throws LiveDataException
+    {
+        ChangeRequestInformation information = getChangeRequestInformation(getChangeRequestId(query));
+        List<Map<String, Object>> entries = new ArrayList<>();
+        DocumentReference changeRequestDocument =
+            this.changeRequestDocumentReferenceResolver.resolve(information.changeRequest);
+        Set<DocumentReference> modifiedDocuments = (this.authorizationManager.hasAccess(Right.VIEW,
+            changeRequestDocument)) ? information.changeRequest.getModifiedDocuments() : Set.of();
+        for (DocumentReference reference : modifiedDocuments) {
+            Optional<FileChange> fileChangeOpt = information.changeRequest.getLatestFileChangeFor(reference);
+            // The titles and locations of the documents are only displayed to the users who can view them.
+            if (fileChangeOpt.isPresent() && this.authorizationManager.hasAccess(Right.VIEW, reference)) {
+                entries.add(getEntry(fileChangeOpt.get(), information));
+            }
+        }
+
+        for (LiveDataQuery.Filter filter : query.getFilters()) {
+            if (!CHANGE_REQUEST_PARAMETER.equals(filter.getProperty())) {
+                entries = entries.stream().filter(entry -> matches(entry, filter)).collect(Collectors.toList());
+            }
+        }
+        if (!query.getSort().isEmpty()) {
+            LiveDataQuery.SortEntry sortEntry = query.getSort().get(0);
+            Comparator<Map<String, Object>> comparator = Comparator.comparing(
+                entry -> getValue(entry, sortEntry.getProperty()), String.CASE_INSENSITIVE_ORDER);
+            entries.sort(sortEntry.isDescending() ? comparator.reversed() : comparator);
+        }
+
+        LiveData liveData = new LiveData();
+        liveData.setCount(entries.size());
+        long offset = (query.getOffset() != null) ? query.getOffset() : 0;
+        long limit = (query.getLimit() != null && query.getLimit() > 0) ? query.getLimit() : entries.size();
+        entries.stream().skip(offset).limit(limit).forEach(liveData.getEntries()::add);
+        return liveData;
+    }
+
+    private String getChangeRequestId(LiveDataQuery query) throws LiveDataException
+    {
+        Object result = query.getSource().getParameters().get(CHANGE_REQUEST_PARAMETER);
+        if (result == null) {
+            // Allow to give the change request as a filter too, like it was done with the live table.
+            result = query.getFilters().stream()
+                .filter(filter -> CHANGE_REQUEST_PARAMETER.equals(filter.getProperty()))
+                .flatMap(filter -> filter.getConstraints().stream())
+                .map(LiveDataQuery.Constraint::getValue)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+        }
+        if (result == null || StringUtils.isBlank(String.valueOf(result))) {
+            throw new LiveDataException("The change request parameter is mandatory.");
+        }
+        return String.valueOf(result);
+    }
+
+    private ChangeRequestInformation getChangeRequestInformation(String changeRequestId) throws LiveDataException
+    {
+        ChangeRequestInformation result = new ChangeRequestInformation();
+        try {
+            Optional<ChangeRequest> changeRequestOpt = this.changeRequestStorageManager.load(changeRequestId);
+            if (changeRequestOpt.isEmpty()) {
+                throw new LiveDataException(String.format("Change request [%s] cannot be found.", changeRequestId));
+            }
+            result.changeRequest = changeRequestOpt.get();
+            UserReference currentUser = this.currentUserReferenceResolver.resolve(CurrentUserReference.INSTANCE);
+            result.canEditChangeRequest =
+                this.changeRequestRightsManager.isAuthorizedToEdit(currentUser, result.changeRequest);
+            result.canEditApprovers = this.configuration.getMinimumApprovers() > 0;
+            ChangeRequestReference rebaseReference = new ChangeRequestReference(
+                this.contextProvider.get().getWikiReference(), ChangeRequestReference.ChangeRequestAction.REBASE,
+                changeRequestId);
+            result.rebaseURL = this.urlResourceReferenceSerializer.serialize(rebaseReference).serialize();
+        } catch (ChangeRequestException | SerializeResourceReferenceException
+            | UnsupportedResourceReferenceException e) {
+            throw new LiveDataException(
+                String.format("Error while loading information about change request [%s]", changeRequestId), e);
+        }
+        return result;
+    }
+
+    private Map<String, Object> getEntry(FileChange fileChange, ChangeRequestInformation information)
+        throws LiveDataException
+    {
+        XWikiContext context = this.contextProvider.get();
+        XWiki wiki = context.getWiki();
+        DocumentReference reference = fileChange.getTargetEntity();
+        String serializedReference = this.localEntityReferenceSerializer.serialize(reference);
+        String locale = (reference.getLocale() != null) ? reference.getLocale().toString() : "";
+
+        Map<String, Object> entry = new HashMap<>();
+        entry.put(CHANGE_REQUEST_PARAMETER, information.changeRequest.getId());
+        entry.put(TYPE, this.localizationManager.getTranslationPlain(
+            "changerequest.filechange.type." + fileChange.getType()));
+        entry.put(TITLE, getTitle(fileChange, context));
+        entry.put(LOCATION, getLocation(reference, wiki, context));
+        entry.put(FULLNAME, serializedReference);
+        entry.put(VIEWABLE, true);
+        entry.put(VERSION, fileChange.getVersion());
+        entry.put(DOCUMENT_VERSION, fileChange.getPreviousPublishedVersion());
+        entry.put(MINOR_CHANGE, fileChange.isMinorChange());
+        entry.put("filechange_locale", locale);
+
+        DocumentReference authorReference = this.userReferenceConverter.convert(fileChange.getAuthor());
+        String authorName = wiki.getPlainUserName(authorReference, context);
+        entry.put(AUTHOR_NAME, authorName);
+        entry.put(AUTHOR, String.format(LINK_FORMAT,
+            XMLUtils.escape(wiki.getURL(authorReference, VIEW_ACTION, context)), XMLUtils.escape(authorName)));
+
+        String changeRequestId = information.changeRequest.getId();
+        boolean hasEdit = information.canEditChangeRequest
+            && this.authorizationManager.hasAccess(ChangeRequestRight.getRight(), reference);
+        boolean canBeEdited = fileChange.getType() == FileChange.FileChangeType.EDITION
+            || fileChange.getType() == FileChange.FileChangeType.CREATION;
+        entry.put(HAS_EDIT, hasEdit && canBeEdited);
+        if (hasEdit && canBeEdited) {
+            entry.put("doc.edit_url", wiki.getURL(reference, EDIT_CR_ACTION,
+                CHANGE_REQUEST_QUERY_STRING + changeRequestId + "&realtime=false", context));
+        }
+
+        String referenceParameters = encode(serializedReference) + LOCALE_PARAMETER + encode(locale);
+        boolean hasConflicts = information.canEditChangeRequest && hasConflicts(fileChange);
+        entry.put(HAS_FIX_CONFLICT, hasConflicts);
+        boolean hasRebase = !hasConflicts && hasEdit && isOutdated(fileChange);
+        entry.put(HAS_REBASE, hasRebase);
+        if (hasConflicts) {
+            entry.put("doc.fixconflict_url", "&reference=" + referenceParameters);
+        } else if (hasRebase) {
+            entry.put("doc.rebase_url", information.rebaseURL + "?referenceParameter=" + referenceParameters);
+        }
+
+        if (hasEdit && information.canEditApprovers) {
+            entry.put(HAS_EDIT_APPROVERS, true);
+            entry.put("doc.editapprovers_url", wiki.getURL(reference, EDIT_CR_ACTION,
+                CHANGE_REQUEST_QUERY_STRING + changeRequestId + "&editor=object", context));
+        }
+        return entry;
+    }
+
+    private String getTitle(FileChange fileChange, XWikiContext context)
+    {
+        String result;
+        if (fileChange.getModifiedDocument() != null) {
+            result = ((XWikiDocument) fileChange.getModifiedDocument()).getRenderedTitle(Syntax.PLAIN_1_0, context);
+        } else {
+            result = String.valueOf(fileChange.getTargetEntity());
+        }
+        return result;
+    }
+
+    private String getLocation(DocumentReference reference, XWiki wiki, XWikiContext context)
+    {
+        List<String> links = new ArrayList<>();
+        for (SpaceReference spaceReference : reference.getSpaceReferences()) {
+            DocumentReference spaceHome = new DocumentReference("WebHome", spaceReference);
+            links.add(String.format(LINK_FORMAT, XMLUtils.escape(wiki.getURL(spaceHome, VIEW_ACTION, context)),
+                XMLUtils.escape(spaceReference.getName())));
+        }
+        return String.join(" / ", links);
+    }
+
+    private boolean hasConflicts(FileChange fileChange) throws LiveDataException
+    {
+        try {
+            return this.changeRequestMergeManager.getMergeDocumentResult(fileChange).hasConflicts();
+        } catch (ChangeRequestException e) {
+            throw new LiveDataException(
+                String.format("Error while checking conflicts of file change [%s]", fileChange.getId()), e);
+        }
+    }
+
+    private boolean isOutdated(FileChange fileChange) throws LiveDataException
+    {
+        try {
+            return this.changeRequestManager.isFileChangeOutdated(fileChange);
+        } catch (ChangeRequestException e) {
+            throw new LiveDataException(
+                String.format("Error while checking if file change [%s] is outdated", fileChange.getId()), e);
+        }
+    }
+
+    private boolean matches(Map<String, Object> entry, LiveDataQuery.Filter filter)
+    {
+        String value = getValue(entry, filter.getProperty()).toLowerCase(Locale.ROOT);
+        List<String> constraints = filter.getConstraints().stream()
+            .map(LiveDataQuery.Constraint::getValue)
+            .filter(Objects::nonNull)
+            .map(constraint -> String.valueOf(constraint).toLowerCase(Locale.ROOT))
+            .filter(StringUtils::isNotEmpty)
+            .collect(Collectors.toList());
+        boolean result = constraints.isEmpty();
+        if (!result) {
+            result = (filter.isMatchAll()) ? constraints.stream().allMatch(value::contains)
+                : constraints.stream().anyMatch(value::contains);
+        }
+        return result;
+    }
+
+    private String getValue(Map<String, Object> entry, String property)
+    {
+        Object value = entry.get(SORT_VALUES.getOrDefault(property, property));
+        return (value != null) ? String.valueOf(value) : "";
+    }
+
+    private String encode(String value)
+    {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
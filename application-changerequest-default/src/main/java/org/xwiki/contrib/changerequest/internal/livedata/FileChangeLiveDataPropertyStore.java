@@ -0,0 +1,109 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.livedata;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.StringUtils;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.livedata.LiveDataPropertyDescriptor;
+import org.xwiki.livedata.LiveDataPropertyDescriptorStore;
+import org.xwiki.localization.ContextualLocalizationManager;
+
+/**
+ * Descriptors of the properties of the {@link FileChangeLiveDataSource}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component
+@Named(FileChangeLiveDataSource.ID)
+@Singleton
+public class FileChangeLiveDataPropertyStore implements LiveDataPropertyDescriptorStore
+{
+    static final String TYPE = "filechange_type";
+
+    static final String TITLE = "doc.title";
+
+    static final String LOCATION = "doc.location";
+
+    static final String AUTHOR = "filechange_author";
+
+    static final String VERSION = "filechange_version";
+
+    static final String DOCUMENT_VERSION = "filechange_documentVersion";
+
+    static final String MINOR_CHANGE = "filechange_minorChange";
+
+    static final String ACTIONS = "_actions";
+
+    private static final String TRANSLATION_PREFIX = "changerequest.livetable.filechange.";
+
+    private static final String STRING_TYPE = "String";
+
+    private static final String HTML_DISPLAYER = "html";
+
+    @Inject
+    private ContextualLocalizationManager localizationManager;
+
+    @Override
+    public Collection<LiveDataPropertyDescriptor> get()
+    {
+        List<LiveDataPropertyDescriptor> result = new ArrayList<>();
+        result.add(createDescriptor(TYPE, STRING_TYPE, null));
+        result.add(createDescriptor(TITLE, STRING_TYPE, null));
+        result.add(createDescriptor(LOCATION, STRING_TYPE, HTML_DISPLAYER));
+        result.add(createDescriptor(AUTHOR, STRING_TYPE, HTML_DISPLAYER));
+        result.add(createDescriptor(VERSION, STRING_TYPE, null));
+        result.add(createDescriptor(DOCUMENT_VERSION, STRING_TYPE, null));
+        result.add(createDescriptor(MINOR_CHANGE, "Boolean", null));
+
+        LiveDataPropertyDescriptor actions = createDescriptor(ACTIONS, null, "actions");
+        actions.setSortable(false);
+        actions.setFilterable(false);
+        actions.setFilter(null);
+        result.add(actions);
+        return result;
+    }
+
+    private LiveDataPropertyDescriptor createDescriptor(String id, String type, String displayer)
+    {
+        LiveDataPropertyDescriptor descriptor = new LiveDataPropertyDescriptor();
+        descriptor.setId(id);
+        descriptor.setName(StringUtils.defaultIfBlank(
+            this.localizationManager.getTranslationPlain(TRANSLATION_PREFIX + id), id));
+        descriptor.setType(type);
+        descriptor.setSortable(true);
+        descriptor.setEditable(false);
+        descriptor.setVisible(true);
+        descriptor.setFilterable(true);
+        descriptor.setFilter(new LiveDataPropertyDescriptor.FilterDescriptor("text"));
+        if (displayer != null) {
+            descriptor.setDisplayer(new LiveDataPropertyDescriptor.DisplayerDescriptor(displayer));
+        }
+        return descriptor;
+    }
+}
@@ -54,6 +54,7 @@ import org.xwiki.contrib.changerequest.events.ChangeRequestUpdatingFileChangeEve
 import org.xwiki.contrib.changerequest.events.FileChangeDocumentSavedEvent;
 import org.xwiki.contrib.changerequest.events.FileChangeDocumentSavingEvent;
 import org.xwiki.contrib.changerequest.events.FileChangeRebasedEvent;
+import org.xwiki.contrib.changerequest.events.FileChangeReferenceRenamedEvent;
 import org.xwiki.contrib.changerequest.events.SplitBeginChangeRequestEvent;
 import org.xwiki.contrib.changerequest.events.SplitEndChangeRequestEvent;
 import org.xwiki.contrib.changerequest.events.StaleChangeRequestEvent;
@@ -67,6 +68,15 @@ import com.xpn.xwiki.doc.XWikiDocument;
 
 /**
  * Component in charge of performing conversion of events for cluster support.
+ * <p>
+ * The change requests are sent as {@link ChangeRequestSnapshot} in the remote events, so that the other nodes can
+ * rebuild the data of the events without reloading the whole change requests from the storage. The identifiers are
+ * still supported in the received remote events, to handle the events sent by nodes not using snapshots yet.
+ * <p>
+ * The remote events having a change request identifier as source and a data which is not serializable are not sent
+ * immediately: they are given to the {@link ChangeRequestRemoteEventsBatcher} which sends them later with the other
+ * events of the same change request in a {@link ChangeRequestRemoteEventsBatchEvent}. This converter is executed
+ * before the other ones so that the pending events are always sent before the next event, whatever its converter.
  *
  * @version $Id$
  * @since 1.5
@@ -92,35 +102,98 @@ public class ChangeRequestEventsConverter extends AbstractEventConverter
         FileChangeRebasedEvent.class
     );
 
-    // List of events for which we don't convert the data (those are BeginEvent we need to comply with their respective
+    // List of events for which we don't convert the data (mostly BeginEvent we need to comply with their respective
     // EndEvent).
     private static final List<Class<?>> NO_DATA_EVENTS = List.of(
         ChangeRequestMergingEvent.class,
         ChangeRequestUpdatingFileChangeEvent.class,
-        SplitBeginChangeRequestEvent.class
+        SplitBeginChangeRequestEvent.class,
+        FileChangeReferenceRenamedEvent.class
     );
 
+    // Executed before the default converters (1000) and the generic serializable converter (2000), so that the events
+    // of change requests are batched before another converter could send them.
+    private static final int PRIORITY = 900;
+
     @Inject
     private Provider<ChangeRequestEventsConverterHelper> changeRequestEventsConverterHelperProvider;
 
     @Inject
     private Provider<XWikiDocumentEventConverterSerializer> xWikiDocumentEventConverterSerializerProvider;
 
+    @Inject
+    private Provider<ChangeRequestRemoteEventsBatcher> remoteEventsBatcherProvider;
+
     @Inject
     private Logger logger;
 
+    @Override
+    public int getPriority()
+    {
+        return PRIORITY;
+    }
+
     @Override
     public boolean toRemote(LocalEventData localEvent, RemoteEventData remoteEvent)
+    {
+        boolean result;
+        if (localEvent.getEvent() instanceof ChangeRequestRemoteEventsBatchEvent) {
+            // the data is already a list of converted remote events
+            this.copyEventAndSource(localEvent, remoteEvent);
+            remoteEvent.setData((Serializable) localEvent.getData());
+            result = true;
+        } else if (this.convertToRemote(localEvent, remoteEvent)) {
+            result = !this.batch(localEvent, remoteEvent);
+        } else {
+            // Send first the pending events to preserve the order of the events, even if this one is sent by another
+            // converter.
+            this.remoteEventsBatcherProvider.get().flush();
+            result = false;
+        }
+        return result;
+    }
+
+    private boolean batch(LocalEventData localEvent, RemoteEventData remoteEvent)
+    {
+        ChangeRequestRemoteEventsBatcher batcher = this.remoteEventsBatcherProvider.get();
+        boolean result = isBatchable(localEvent) && batcher.add((String) localEvent.getSource(), remoteEvent);
+        if (!result) {
+            // Send first the pending events to preserve the order of the events.
+            batcher.flush();
+        }
+        return result;
+    }
+
+    /**
+     * A batched event is not sent immediately by not accepting it: this only works for the events that no other
+     * converter accepts, i.e. the ones whose data is not serializable, the others would be sent by the generic
+     * serializable converter.
+     *
+     * @param localEvent the event to send
+     * @return {@code true} if the event can be kept to be sent later in a batch
+     */
+    private static boolean isBatchable(LocalEventData localEvent)
+    {
+        return localEvent.getSource() instanceof String && localEvent.getData() != null
+            && !(localEvent.getData() instanceof Serializable);
+    }
+
+    private boolean convertToRemote(LocalEventData localEvent, RemoteEventData remoteEvent)
     {
         boolean result = false;
-        if (CR_DATA_EVENTS.contains(localEvent.getEvent().getClass())
-             || NO_DATA_EVENTS.contains(localEvent.getEvent().getClass())) {
+        if (CR_DATA_EVENTS.contains(localEvent.getEvent().getClass())) {
+            this.copyEventAndSource(localEvent, remoteEvent);
+            if (localEvent.getData() instanceof ChangeRequest) {
+                remoteEvent.setData(this.getSnapshot((ChangeRequest) localEvent.getData()));
+            }
+            result = true;
+        } else if (NO_DATA_EVENTS.contains(localEvent.getEvent().getClass())) {
             this.copyEventAndSource(localEvent, remoteEvent);
             result = true;
         } else if (FILE_CHANGE_DATA_EVENTS.contains(localEvent.getEvent().getClass())) {
             this.copyEventAndSource(localEvent, remoteEvent);
-            // the data is a filechange we set the data as the identifier.
-            remoteEvent.setData(((FileChange) localEvent.getData()).getId());
+            // the data is a filechange we set the data as the identifier along with the change request snapshot.
+            remoteEvent.setData(this.getFileChangeData((FileChange) localEvent.getData()));
             result = true;
         } else {
             result = this.toRemoteSpecificEvents(localEvent, remoteEvent);
@@ -145,8 +218,8 @@ public class ChangeRequestEventsConverter extends AbstractEventConverter
         } else if (localEvent.getEvent() instanceof ChangeRequestReviewAddedEvent) {
             this.copyEventAndSource(localEvent, remoteEvent);
             ChangeRequestReview review = (ChangeRequestReview) localEvent.getData();
-            // We set the identifier of the review as data of the remote event
-            remoteEvent.setData(review.getId());
+            // We set the identifier of the review as data of the remote event along with the change request snapshot
+            remoteEvent.setData(Pair.of(review.getId(), this.getSnapshot(review.getChangeRequest())));
             result = true;
         } else if (localEvent.getEvent() instanceof ChangeRequestStatusChangedEvent) {
             result = this.toRemoteChangeRequestStatusChangedEvent(localEvent, remoteEvent);
@@ -155,7 +228,7 @@ public class ChangeRequestEventsConverter extends AbstractEventConverter
         } else if (localEvent.getEvent() instanceof SplitEndChangeRequestEvent) {
             this.copyEventAndSource(localEvent, remoteEvent);
             List<ChangeRequest> data = (List<ChangeRequest>) localEvent.getData();
-            remoteEvent.setData(new ArrayList<>(data.stream().map(ChangeRequest::getId).collect(Collectors.toList())));
+            remoteEvent.setData(new ArrayList<>(data.stream().map(this::getSnapshot).collect(Collectors.toList())));
             result = true;
         } else if (localEvent.getEvent() instanceof FileChangeDocumentSavingEvent) {
             remoteEvent.setEvent((FileChangeDocumentSavingEvent) localEvent.getEvent());
@@ -176,21 +249,32 @@ public class ChangeRequestEventsConverter extends AbstractEventConverter
     private boolean toRemoteUpdatedFileChangeEvent(LocalEventData localEvent, RemoteEventData remoteEvent)
     {
         this.copyEventAndSource(localEvent, remoteEvent);
-        // if the data is a filechange we set the data as the identifier.
-        // if it's not a filechange, then it's a full change request, and we'll retrieve it from the source.
+        // if the data is a filechange we set the data as the identifier along with the change request snapshot.
+        // if it's not a filechange, then it's a full change request, and we only send its snapshot.
         if (localEvent.getData() instanceof FileChange) {
-            remoteEvent.setData(((FileChange) localEvent.getData()).getId());
+            remoteEvent.setData(this.getFileChangeData((FileChange) localEvent.getData()));
+        } else if (localEvent.getData() instanceof ChangeRequest) {
+            remoteEvent.setData(this.getSnapshot((ChangeRequest) localEvent.getData()));
         }
         return true;
     }
 
+    private ChangeRequestSnapshot getSnapshot(ChangeRequest changeRequest)
+    {
+        return this.changeRequestEventsConverterHelperProvider.get().createSnapshot(changeRequest);
+    }
+
+    private Pair<String, ChangeRequestSnapshot> getFileChangeData(FileChange fileChange)
+    {
+        return Pair.of(fileChange.getId(), this.getSnapshot(fileChange.getChangeRequest()));
+    }
+
     private boolean toRemoteFileChangeDocumentSavedEvent(LocalEventData localEvent, RemoteEventData remoteEvent)
     {
         // fill the remote event
         remoteEvent.setEvent((Serializable) localEvent.getEvent());
-        // The source is the filechange, we need both the change request id and the filechange id to retrieve it
-        FileChange fileChange = (FileChange) localEvent.getSource();
-        remoteEvent.setSource(Pair.of(fileChange.getChangeRequest().getId(), fileChange.getId()));
+        // The source is the filechange, we need both the change request snapshot and the filechange id to retrieve it
+        remoteEvent.setSource(this.getFileChangeData((FileChange) localEvent.getSource()));
         // the data is an XWikiDocument
         remoteEvent.setData(this.xWikiDocumentEventConverterSerializerProvider.get()
             .serializeXWikiDocument((XWikiDocument) localEvent.getData()));
@@ -226,23 +310,39 @@ public class ChangeRequestEventsConverter extends AbstractEventConverter
         return result;
     }
 
+    private boolean fromRemoteBatchEvent(RemoteEventData remoteEvent, LocalEventData localEvent)
+    {
+        localEvent.setEvent((ChangeRequestRemoteEventsBatchEvent) remoteEvent.getEvent());
+        localEvent.setSource(remoteEvent.getSource());
+        List<LocalEventData> localEvents = new ArrayList<>();
+        for (RemoteEventData batchedRemoteEvent : (List<RemoteEventData>) remoteEvent.getData()) {
+            LocalEventData batchedLocalEvent = new LocalEventData();
+            // The events that cannot be converted are skipped, the error being already logged.
+            if (this.fromRemote(batchedRemoteEvent, batchedLocalEvent) && batchedLocalEvent.getEvent() != null) {
+                localEvents.add(batchedLocalEvent);
+            }
+        }
+        localEvent.setData(localEvents);
+        return true;
+    }
+
     private boolean handleFromRemoteEvent(RemoteEventData remoteEvent, LocalEventData localEvent)
         throws XWikiException, ChangeRequestEventsConverterException
     {
         boolean result = false;
-        if (CR_DATA_EVENTS.contains(remoteEvent.getEvent().getClass())) {
+        if (remoteEvent.getEvent() instanceof ChangeRequestRemoteEventsBatchEvent) {
+            result = this.fromRemoteBatchEvent(remoteEvent, localEvent);
+        } else if (CR_DATA_EVENTS.contains(remoteEvent.getEvent().getClass())) {
             localEvent.setEvent((Event) remoteEvent.getEvent());
             String changeRequestId = (String) remoteEvent.getSource();
             localEvent.setSource(changeRequestId);
-            localEvent.setData(this.changeRequestEventsConverterHelperProvider.get()
-                .getChangeRequest(changeRequestId, remoteEvent));
+            localEvent.setData(this.getChangeRequest(changeRequestId, remoteEvent.getData(), remoteEvent));
             result = true;
         } else if (FILE_CHANGE_DATA_EVENTS.contains(remoteEvent.getEvent().getClass())) {
             localEvent.setEvent((Event) remoteEvent.getEvent());
             String changeRequestId = (String) remoteEvent.getSource();
             localEvent.setSource(changeRequestId);
-            localEvent.setData(this.changeRequestEventsConverterHelperProvider.get()
-                .getFileChange(changeRequestId, remoteEvent.getData(), remoteEvent));
+            localEvent.setData(this.getFileChange(changeRequestId, remoteEvent.getData(), remoteEvent));
             result = true;
         } else if (NO_DATA_EVENTS.contains(remoteEvent.getEvent().getClass())) {
             localEvent.setEvent((Event) remoteEvent.getEvent());
@@ -296,10 +396,15 @@ public class ChangeRequestEventsConverter extends AbstractEventConverter
         localEvent.setEvent((SplitEndChangeRequestEvent) remoteEvent.getEvent());
         localEvent.setSource(remoteEvent.getSource());
         List<ChangeRequest> data = new ArrayList<>();
-        List<String> remoteData = (List<String>) remoteEvent.getData();
-        for (String changeRequestId : remoteData) {
-            data.add(this.changeRequestEventsConverterHelperProvider.get()
-                .getChangeRequest(changeRequestId, remoteEvent));
+        List<Serializable> remoteData = (List<Serializable>) remoteEvent.getData();
+        for (Serializable changeRequestData : remoteData) {
+            if (changeRequestData instanceof ChangeRequestSnapshot) {
+                data.add(this.changeRequestEventsConverterHelperProvider.get()
+                    .getChangeRequest((ChangeRequestSnapshot) changeRequestData, remoteEvent));
+            } else {
+                data.add(this.changeRequestEventsConverterHelperProvider.get()
+                    .getChangeRequest((String) changeRequestData, remoteEvent));
+            }
         }
         localEvent.setData(data);
         return true;
@@ -309,11 +414,15 @@ public class ChangeRequestEventsConverter extends AbstractEventConverter
         throws ChangeRequestEventsConverterException, XWikiException
     {
         localEvent.setEvent((FileChangeDocumentSavedEvent) remoteEvent.getEvent());
-        Pair<String, String> source = (Pair<String, String>) remoteEvent.getSource();
-        String changeRequestId = source.getLeft();
-        String fileChangeId = source.getRight();
-        FileChange fileChange = this.changeRequestEventsConverterHelperProvider.get()
-            .getFileChange(changeRequestId, fileChangeId, remoteEvent);
+        Pair<String, Serializable> source = (Pair<String, Serializable>) remoteEvent.getSource();
+        FileChange fileChange;
+        if (source.getRight() instanceof ChangeRequestSnapshot) {
+            fileChange = this.getFileChange(null, source, remoteEvent);
+        } else {
+            // Pair of change request id and file change id.
+            fileChange = this.changeRequestEventsConverterHelperProvider.get()
+                .getFileChange(source.getLeft(), source.getRight(), remoteEvent);
+        }
         localEvent.setSource(fileChange);
         localEvent.setData(this.xWikiDocumentEventConverterSerializerProvider.get()
             .unserializeDocument(remoteEvent.getData()));
@@ -328,9 +437,18 @@ public class ChangeRequestEventsConverter extends AbstractEventConverter
         String changeRequestId = (String) remoteEvent.getSource();
         localEvent.setSource(changeRequestId);
 
-        ChangeRequest changeRequest = this.changeRequestEventsConverterHelperProvider.get()
-            .getChangeRequest(changeRequestId, remoteEvent);
-        String reviewId = (String) remoteEvent.getData();
+        ChangeRequest changeRequest;
+        String reviewId;
+        if (remoteEvent.getData() instanceof Pair) {
+            Pair<String, ChangeRequestSnapshot> data = (Pair<String, ChangeRequestSnapshot>) remoteEvent.getData();
+            reviewId = data.getLeft();
+            changeRequest = this.changeRequestEventsConverterHelperProvider.get()
+                .getChangeRequest(data.getRight(), remoteEvent);
+        } else {
+            reviewId = (String) remoteEvent.getData();
+            changeRequest = this.changeRequestEventsConverterHelperProvider.get()
+                .getChangeRequest(changeRequestId, remoteEvent);
+        }
         Optional<ChangeRequestReview> reviewOptional = changeRequest.getReviews().stream()
             .filter(changeRequestReview -> changeRequestReview.getId().equals(reviewId))
             .findFirst();
@@ -351,16 +469,39 @@ public class ChangeRequestEventsConverter extends AbstractEventConverter
 
         String changeRequestId = (String) remoteEvent.getSource();
         localEvent.setSource(changeRequestId);
-        if (remoteEvent.getData() != null) {
-            localEvent.setData(this.changeRequestEventsConverterHelperProvider.get()
-                .getFileChange(changeRequestId, remoteEvent.getData(), remoteEvent));
+        Serializable data = remoteEvent.getData();
+        if (data == null || data instanceof ChangeRequestSnapshot) {
+            localEvent.setData(this.getChangeRequest(changeRequestId, data, remoteEvent));
         } else {
-            localEvent.setData(this.changeRequestEventsConverterHelperProvider.get()
-                .getChangeRequest(changeRequestId, remoteEvent));
+            localEvent.setData(this.getFileChange(changeRequestId, data, remoteEvent));
         }
         return true;
     }
 
+    private ChangeRequest getChangeRequest(String changeRequestId, Serializable data, RemoteEventData remoteEvent)
+        throws ChangeRequestEventsConverterException
+    {
+        ChangeRequestEventsConverterHelper helper = this.changeRequestEventsConverterHelperProvider.get();
+        if (data instanceof ChangeRequestSnapshot) {
+            return helper.getChangeRequest((ChangeRequestSnapshot) data, remoteEvent);
+        } else {
+            return helper.getChangeRequest(changeRequestId, remoteEvent);
+        }
+    }
+
+    private FileChange getFileChange(String changeRequestId, Serializable data, RemoteEventData remoteEvent)
+        throws ChangeRequestEventsConverterException
+    {
+        ChangeRequestEventsConverterHelper helper = this.changeRequestEventsConverterHelperProvider.get();
+        if (data instanceof Pair) {
+            // Pair of file change id and change request snapshot.
+            Pair<String, ChangeRequestSnapshot> pair = (Pair<String, ChangeRequestSnapshot>) data;
+            return helper.getFileChange(pair.getRight(), pair.getLeft(), remoteEvent);
+        } else {
+            return helper.getFileChange(changeRequestId, data, remoteEvent);
+        }
+    }
+
     private boolean fromRemoteStatusChangedEvent(RemoteEventData remoteEvent, LocalEventData localEvent)
     {
         localEvent.setEvent((ChangeRequestStatusChangedEvent) remoteEvent.getEvent());
@@ -20,18 +20,30 @@
 package org.xwiki.contrib.changerequest.internal.remote;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.bridge.DocumentModelBridge;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.contrib.changerequest.ChangeRequest;
 import org.xwiki.contrib.changerequest.ChangeRequestException;
+import org.xwiki.contrib.changerequest.ChangeRequestReview;
 import org.xwiki.contrib.changerequest.FileChange;
 import org.xwiki.contrib.changerequest.internal.cache.ChangeRequestStorageCacheManager;
 import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
+import org.xwiki.contrib.changerequest.storage.FileChangeStorageManager;
 import org.xwiki.observation.remote.RemoteEventData;
+import org.xwiki.user.UserReference;
+import org.xwiki.user.UserReferenceResolver;
+import org.xwiki.user.UserReferenceSerializer;
 
 /**
  * Helper component for {@link ChangeRequestEventsConverter} operations.
@@ -49,6 +61,133 @@ public class ChangeRequestEventsConverterHelper
     @Inject
     private ChangeRequestStorageManager changeRequestStorageManager;
 
+    @Inject
+    private FileChangeStorageManager fileChangeStorageManager;
+
+    @Inject
+    private UserReferenceSerializer<String> userReferenceSerializer;
+
+    @Inject
+    @Named("current")
+    private UserReferenceResolver<String> userReferenceResolver;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * Create the snapshot of the given change request to be sent in a remote event.
+     *
+     * @param changeRequest the change request for which to create a snapshot
+     * @return the snapshot of the change request
+     * @since 1.24
+     */
+    public ChangeRequestSnapshot createSnapshot(ChangeRequest changeRequest)
+    {
+        return new ChangeRequestSnapshot(changeRequest, this.userReferenceSerializer::serialize);
+    }
+
+    /**
+     * Rebuild a change request from the snapshot received in a remote event, without loading it from the storage:
+     * only the modified documents of the file changes are loaded, when they are requested. Note that this method
+     * also invalidates the change request from the cache, so that the new values are loaded next time it's needed.
+     * The change request is loaded from the storage if the snapshot has been created with another format.
+     *
+     * @param snapshot the snapshot of the change request
+     * @param remoteEvent the event which triggered that call
+     * @return the change request corresponding to the snapshot
+     * @throws ChangeRequestEventsConverterException if the snapshot format is not supported and there is a problem
+     *                                               when loading the change request
+     * @since 1.24
+     */
+    public ChangeRequest getChangeRequest(ChangeRequestSnapshot snapshot, RemoteEventData remoteEvent)
+        throws ChangeRequestEventsConverterException
+    {
+        if (snapshot.getFormatVersion() != ChangeRequestSnapshot.FORMAT_VERSION) {
+            return this.getChangeRequest(snapshot.getId(), remoteEvent);
+        }
+
+        // The change request has been modified by another node, so the cached value is outdated.
+        this.changeRequestCacheManager.invalidate(snapshot.getId());
+
+        ChangeRequest changeRequest = new ChangeRequest()
+            .setId(snapshot.getId())
+            .setTitle(snapshot.getTitle())
+            .setDescription(snapshot.getDescription())
+            .setCreator(resolveUser(snapshot.getCreator()))
+            .setStatus(snapshot.getStatus())
+            .setCreationDate(snapshot.getCreationDate())
+            .setStaleDate(snapshot.getStaleDate())
+            .setUpdateDate(snapshot.getUpdateDate());
+
+        for (ChangeRequestSnapshot.FileChangeSnapshot fileChangeSnapshot : snapshot.getFileChanges()) {
+            changeRequest.addFileChange(new SnapshotFileChange(changeRequest, fileChangeSnapshot.getType(), this)
+                .setId(fileChangeSnapshot.getId())
+                .setTargetEntity(fileChangeSnapshot.getTargetEntity())
+                .setPreviousVersion(fileChangeSnapshot.getPreviousVersion())
+                .setPreviousPublishedVersion(fileChangeSnapshot.getPreviousPublishedVersion(),
+                    fileChangeSnapshot.getPreviousPublishedVersionDate())
+                .setVersion(fileChangeSnapshot.getVersion())
+                .setCreationDate(fileChangeSnapshot.getCreationDate())
+                .setAuthor(resolveUser(fileChangeSnapshot.getAuthor()))
+                .setMinorChange(fileChangeSnapshot.isMinorChange())
+                .setSaved(fileChangeSnapshot.isSaved()));
+        }
+
+        List<ChangeRequestReview> reviews = new ArrayList<>();
+        for (ChangeRequestSnapshot.ReviewSnapshot reviewSnapshot : snapshot.getReviews()) {
+            ChangeRequestReview review = new ChangeRequestReview(changeRequest, reviewSnapshot.isApproved(),
+                resolveUser(reviewSnapshot.getAuthor()))
+                .setId(reviewSnapshot.getId())
+                .setReviewDate(reviewSnapshot.getReviewDate())
+                .setValid(reviewSnapshot.isValid())
+                .setSaved(reviewSnapshot.isSaved())
+                .setReviewInvalidationReason(reviewSnapshot.getReviewInvalidationReason())
+                .setNew(false);
+            review.setLastFromAuthor(reviewSnapshot.isLastFromAuthor());
+            review.setOriginalApprover(resolveUser(reviewSnapshot.getOriginalApprover()));
+            reviews.add(review);
+        }
+        changeRequest.setReviews(reviews);
+
+        return changeRequest;
+    }
+
+    private UserReference resolveUser(String serializedUser)
+    {
+        return (serializedUser != null) ? this.userReferenceResolver.resolve(serializedUser) : null;
+    }
+
+    /**
+     * Load the modified document of a file change rebuilt from a snapshot: only the file changes of the same
+     * document are loaded from the storage.
+     *
+     * @param fileChange the file change for which to load the modified document
+     * @return the modified document or {@code null} if it cannot be loaded
+     * @since 1.24
+     */
+    public DocumentModelBridge loadModifiedDocument(SnapshotFileChange fileChange)
+    {
+        DocumentModelBridge result = null;
+        try {
+            Optional<FileChange> storedFileChange = this.fileChangeStorageManager
+                .load(fileChange.getChangeRequest(), fileChange.getTargetEntity())
+                .stream()
+                .filter(item -> StringUtils.equals(item.getId(), fileChange.getId()))
+                .findFirst();
+            if (storedFileChange.isPresent()) {
+                result = storedFileChange.get().getModifiedDocument();
+            } else {
+                this.logger.warn("Cannot find file change [{}] in the storage of change request [{}].",
+                    fileChange.getId(), fileChange.getChangeRequest().getId());
+            }
+        } catch (ChangeRequestException e) {
+            this.logger.warn("Error while loading the modified document of file change [{}]: [{}]",
+                fileChange.getId(), ExceptionUtils.getRootCauseMessage(e));
+            this.logger.debug("Full stack trace of the error to load the modified document: ", e);
+        }
+        return result;
+    }
+
     /**
      * Retrieve a change request based on the given information or throw a
      * {@link ChangeRequestEventsConverterException}. Note that this method also invalidate the change request from
@@ -96,14 +235,36 @@ public class ChangeRequestEventsConverterHelper
     public FileChange getFileChange(String changeRequestId, Serializable fileChangeId, RemoteEventData remoteEvent)
         throws ChangeRequestEventsConverterException
     {
-        ChangeRequest changeRequest = this.getChangeRequest(changeRequestId, remoteEvent);
+        return this.getFileChange(this.getChangeRequest(changeRequestId, remoteEvent), fileChangeId, remoteEvent);
+    }
+
+    /**
+     * Retrieve a file change from the change request rebuilt from the given snapshot, or throw a
+     * {@link ChangeRequestEventsConverterException}.
+     *
+     * @param snapshot the snapshot of the change request where to find the file change
+     * @param fileChangeId the identifier of the file change to retrieve
+     * @param remoteEvent the event which triggered that call
+     * @return the filechange instance matching the information
+     * @throws ChangeRequestEventsConverterException if the file change cannot be found
+     * @since 1.24
+     */
+    public FileChange getFileChange(ChangeRequestSnapshot snapshot, Serializable fileChangeId,
+        RemoteEventData remoteEvent) throws ChangeRequestEventsConverterException
+    {
+        return this.getFileChange(this.getChangeRequest(snapshot, remoteEvent), fileChangeId, remoteEvent);
+    }
+
+    private FileChange getFileChange(ChangeRequest changeRequest, Serializable fileChangeId,
+        RemoteEventData remoteEvent) throws ChangeRequestEventsConverterException
+    {
         Optional<FileChange> optionalFileChange = changeRequest.getFileChangeById((String) fileChangeId);
         if (optionalFileChange.isPresent()) {
             return optionalFileChange.get();
         } else {
             throw new ChangeRequestEventsConverterException(
                 String.format("Cannot find file change [%s] from change request [%s] to convert event [%s].",
-                    fileChangeId, changeRequestId, remoteEvent));
+                    fileChangeId, changeRequest.getId(), remoteEvent));
         }
     }
 }
@@ -0,0 +1,48 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.remote;
+
+import java.io.Serializable;
+
+import org.xwiki.observation.event.Event;
+
+/**
+ * Envelope used to send together to the other nodes of the cluster several remote events of the same change request.
+ *
+ * The event also send the following parameters:
+ * <ul>
+ *     <li>source: the change request identifier</li>
+ *     <li>data: the list of {@link org.xwiki.observation.remote.RemoteEventData} in the order they were triggered
+ *     (a list of {@link org.xwiki.observation.remote.LocalEventData} once received)</li>
+ * </ul>
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+public class ChangeRequestRemoteEventsBatchEvent implements Event, Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public boolean matches(Object otherEvent)
+    {
+        return otherEvent instanceof ChangeRequestRemoteEventsBatchEvent;
+    }
+}
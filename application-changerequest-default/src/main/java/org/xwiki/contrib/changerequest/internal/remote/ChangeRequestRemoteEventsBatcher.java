@@ -0,0 +1,147 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.remote;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.contrib.changerequest.ChangeRequestConfiguration;
+import org.xwiki.observation.remote.LocalEventData;
+import org.xwiki.observation.remote.RemoteEventData;
+import org.xwiki.observation.remote.RemoteObservationManager;
+
+/**
+ * Buffers the remote events of the change requests during a short window (see
+ * {@link ChangeRequestConfiguration#getRemoteEventsBatchWindow()}) so that the events of a same change request are
+ * sent together in a single {@link ChangeRequestRemoteEventsBatchEvent}, instead of one message per event.
+ * <p>
+ * All pending batches are sent together, in the order of their first event, when the window of the oldest one is
+ * over, or before sending an event that cannot be batched, so that the other nodes receive the events in the order
+ * they were triggered for each change request.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component(roles = ChangeRequestRemoteEventsBatcher.class)
+@Singleton
+public class ChangeRequestRemoteEventsBatcher implements Initializable, Disposable
+{
+    @Inject
+    private ChangeRequestConfiguration configuration;
+
+    @Inject
+    private Provider<RemoteObservationManager> remoteObservationManagerProvider;
+
+    @Inject
+    private Logger logger;
+
+    private final Map<String, List<RemoteEventData>> pendingEvents = new LinkedHashMap<>();
+
+    private ScheduledExecutorService executor;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        this.executor = Executors.newSingleThreadScheduledExecutor(new BasicThreadFactory.Builder()
+            .namingPattern("Change request remote events batcher")
+            .daemon(true)
+            .build());
+    }
+
+    /**
+     * Add the given remote event to the batch of the given change request.
+     *
+     * @param changeRequestId the identifier of the change request concerned by the event
+     * @param remoteEvent the converted event to send
+     * @return {@code true} if the event has been buffered and will be sent later, {@code false} if the batching is
+     *         disabled and the event should be sent immediately
+     */
+    public boolean add(String changeRequestId, RemoteEventData remoteEvent)
+    {
+        long window = this.configuration.getRemoteEventsBatchWindow();
+        if (window <= 0) {
+            return false;
+        }
+
+        boolean scheduleFlush;
+        synchronized (this.pendingEvents) {
+            scheduleFlush = this.pendingEvents.isEmpty();
+            this.pendingEvents.computeIfAbsent(changeRequestId, key -> new ArrayList<>()).add(remoteEvent);
+        }
+        if (scheduleFlush) {
+            this.executor.schedule(this::flush, window, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    /**
+     * Send immediately all the pending batches.
+     */
+    public void flush()
+    {
+        Map<String, List<RemoteEventData>> batches;
+        synchronized (this.pendingEvents) {
+            if (this.pendingEvents.isEmpty()) {
+                return;
+            }
+            batches = new LinkedHashMap<>(this.pendingEvents);
+            this.pendingEvents.clear();
+        }
+        for (Map.Entry<String, List<RemoteEventData>> batch : batches.entrySet()) {
+            this.send(batch.getKey(), batch.getValue());
+        }
+    }
+
+    private void send(String changeRequestId, List<RemoteEventData> remoteEvents)
+    {
+        try {
+            this.remoteObservationManagerProvider.get().notify(new LocalEventData(
+                new ChangeRequestRemoteEventsBatchEvent(), changeRequestId, new ArrayList<>(remoteEvents)));
+        } catch (Exception e) {
+            this.logger.error("Error while sending the [{}] remote events of change request [{}]: [{}]",
+                remoteEvents.size(), changeRequestId, ExceptionUtils.getRootCauseMessage(e));
+            this.logger.debug("Full stack trace of the error: ", e);
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.executor.shutdownNow();
+        this.flush();
+    }
+}
@@ -0,0 +1,455 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.remote;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.xwiki.contrib.changerequest.ChangeRequest;
+import org.xwiki.contrib.changerequest.ChangeRequestReview;
+import org.xwiki.contrib.changerequest.ChangeRequestStatus;
+import org.xwiki.contrib.changerequest.FileChange;
+import org.xwiki.contrib.changerequest.ReviewInvalidationReason;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.user.UserReference;
+
+/**
+ * Compact and serializable state of a change request sent along with the remote events, so that the other nodes of
+ * the cluster can rebuild the event data without fully loading the change request from the storage.
+ * <p>
+ * The snapshot contains the metadata of the change request, of its file changes and of its reviews, but never the
+ * modified documents which are only loaded when they are needed: see {@link SnapshotFileChange}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+public class ChangeRequestSnapshot implements Serializable
+{
+    /**
+     * Version of the format of the snapshots: it should be incremented each time the content of the snapshot is
+     * modified, so that the nodes receiving a snapshot they cannot handle fall back on loading the change request.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final long serialVersionUID = 1L;
+
+    private final int formatVersion;
+
+    private final String id;
+
+    private final String title;
+
+    private final String description;
+
+    private final String creator;
+
+    private final ChangeRequestStatus status;
+
+    private final Date creationDate;
+
+    private final Date updateDate;
+
+    private final Date staleDate;
+
+    private final List<FileChangeSnapshot> fileChanges;
+
+    private final List<ReviewSnapshot> reviews;
+
+    /**
+     * Metadata of a file change.
+     */
+    public static final class FileChangeSnapshot implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final String id;
+
+        private final FileChange.FileChangeType type;
+
+        private final DocumentReference targetEntity;
+
+        private final String previousVersion;
+
+        private final String previousPublishedVersion;
+
+        private final Date previousPublishedVersionDate;
+
+        private final String version;
+
+        private final String author;
+
+        private final Date creationDate;
+
+        private final boolean minorChange;
+
+        private final boolean saved;
+
+        FileChangeSnapshot(FileChange fileChange, Function<UserReference, String> userSerializer)
+        {
+            this.id = fileChange.getId();
+            this.type = fileChange.getType();
+            this.targetEntity = fileChange.getTargetEntity();
+            this.previousVersion = fileChange.getPreviousVersion();
+            this.previousPublishedVersion = fileChange.getPreviousPublishedVersion();
+            this.previousPublishedVersionDate = fileChange.getPreviousPublishedVersionDate();
+            this.version = fileChange.getVersion();
+            this.author = serialize(fileChange.getAuthor(), userSerializer);
+            this.creationDate = fileChange.getCreationDate();
+            this.minorChange = fileChange.isMinorChange();
+            this.saved = fileChange.isSaved();
+        }
+
+        /**
+         * @return the identifier of the file change
+         */
+        public String getId()
+        {
+            return this.id;
+        }
+
+        /**
+         * @return the type of the file change
+         */
+        public FileChange.FileChangeType getType()
+        {
+            return this.type;
+        }
+
+        /**
+         * @return the reference of the modified document
+         */
+        public DocumentReference getTargetEntity()
+        {
+            return this.targetEntity;
+        }
+
+        /**
+         * @return the version of the document before the change
+         */
+        public String getPreviousVersion()
+        {
+            return this.previousVersion;
+        }
+
+        /**
+         * @return the published version of the document on which the change is based
+         */
+        public String getPreviousPublishedVersion()
+        {
+            return this.previousPublishedVersion;
+        }
+
+        /**
+         * @return the date of the published version of the document on which the change is based
+         */
+        public Date getPreviousPublishedVersionDate()
+        {
+            return this.previousPublishedVersionDate;
+        }
+
+        /**
+         * @return the version of the file change
+         */
+        public String getVersion()
+        {
+            return this.version;
+        }
+
+        /**
+         * @return the serialized reference of the author of the file change
+         */
+        public String getAuthor()
+        {
+            return this.author;
+        }
+
+        /**
+         * @return the creation date of the file change
+         */
+        public Date getCreationDate()
+        {
+            return this.creationDate;
+        }
+
+        /**
+         * @return {@code true} if the file change is a minor change
+         */
+        public boolean isMinorChange()
+        {
+            return this.minorChange;
+        }
+
+        /**
+         * @return {@code true} if the file change has been saved
+         */
+        public boolean isSaved()
+        {
+            return this.saved;
+        }
+    }
+
+    /**
+     * Metadata of a review.
+     */
+    public static final class ReviewSnapshot implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final String id;
+
+        private final boolean approved;
+
+        private final String author;
+
+        private final String originalApprover;
+
+        private final Date reviewDate;
+
+        private final boolean valid;
+
+        private final boolean saved;
+
+        private final boolean lastFromAuthor;
+
+        private final ReviewInvalidationReason reviewInvalidationReason;
+
+        ReviewSnapshot(ChangeRequestReview review, Function<UserReference, String> userSerializer)
+        {
+            this.id = review.getId();
+            this.approved = review.isApproved();
+            this.author = serialize(review.getAuthor(), userSerializer);
+            this.originalApprover = serialize(review.getOriginalApprover(), userSerializer);
+            this.reviewDate = review.getReviewDate();
+            this.valid = review.isValid();
+            this.saved = review.isSaved();
+            this.lastFromAuthor = review.isLastFromAuthor();
+            this.reviewInvalidationReason = review.getReviewInvalidationReason();
+        }
+
+        /**
+         * @return the identifier of the review
+         */
+        public String getId()
+        {
+            return this.id;
+        }
+
+        /**
+         * @return {@code true} if the review approves the change request
+         */
+        public boolean isApproved()
+        {
+            return this.approved;
+        }
+
+        /**
+         * @return the serialized reference of the author of the review
+         */
+        public String getAuthor()
+        {
+            return this.author;
+        }
+
+        /**
+         * @return the serialized reference of the approver on behalf of whom the review was made, or {@code null}
+         */
+        public String getOriginalApprover()
+        {
+            return this.originalApprover;
+        }
+
+        /**
+         * @return the date of the review
+         */
+        public Date getReviewDate()
+        {
+            return this.reviewDate;
+        }
+
+        /**
+         * @return {@code true} if the review is still valid
+         */
+        public boolean isValid()
+        {
+            return this.valid;
+        }
+
+        /**
+         * @return {@code true} if the review has been saved
+         */
+        public boolean isSaved()
+        {
+            return this.saved;
+        }
+
+        /**
+         * @return {@code true} if the review is the last one of its author
+         */
+        public boolean isLastFromAuthor()
+        {
+            return this.lastFromAuthor;
+        }
+
+        /**
+         * @return the reason why the review has been invalidated, or {@code null}
+         */
+        public ReviewInvalidationReason getReviewInvalidationReason()
+        {
+            return this.reviewInvalidationReason;
+        }
+    }
+
+    /**
+     * Default constructor.
+     *
+     * @param changeRequest the change request to take the snapshot of
+     * @param userSerializer the function used to serialize the user references
+     */
+    public ChangeRequestSnapshot(ChangeRequest changeRequest, Function<UserReference, String> userSerializer)
+    {
+        this.formatVersion = FORMAT_VERSION;
+        this.id = changeRequest.getId();
+        this.title = changeRequest.getTitle();
+        this.description = changeRequest.getDescription();
+        this.creator = serialize(changeRequest.getCreator(), userSerializer);
+        this.status = changeRequest.getStatus();
+        this.creationDate = changeRequest.getCreationDate();
+        this.updateDate = changeRequest.getUpdateDate();
+        this.staleDate = changeRequest.getStaleDate();
+        this.fileChanges = new ArrayList<>();
+        for (FileChange fileChange : changeRequest.getAllFileChanges()) {
+            this.fileChanges.add(new FileChangeSnapshot(fileChange, userSerializer));
+        }
+        this.reviews = new ArrayList<>();
+        for (ChangeRequestReview review : changeRequest.getReviews()) {
+            this.reviews.add(new ReviewSnapshot(review, userSerializer));
+        }
+    }
+
+    private static String serialize(UserReference userReference, Function<UserReference, String> userSerializer)
+    {
+        return (userReference != null) ? userSerializer.apply(userReference) : null;
+    }
+
+    /**
+     * @return the version of the format used to create this snapshot
+     * @see #FORMAT_VERSION
+     */
+    public int getFormatVersion()
+    {
+        return this.formatVersion;
+    }
+
+    /**
+     * @return the identifier of the change request
+     */
+    public String getId()
+    {
+        return this.id;
+    }
+
+    /**
+     * @return the title of the change request
+     */
+    public String getTitle()
+    {
+        return this.title;
+    }
+
+    /**
+     * @return the description of the change request
+     */
+    public String getDescription()
+    {
+        return this.description;
+    }
+
+    /**
+     * @return the serialized reference of the creator of the change request
+     */
+    public String getCreator()
+    {
+        return this.creator;
+    }
+
+    /**
+     * @return the status of the change request
+     */
+    public ChangeRequestStatus getStatus()
+    {
+        return this.status;
+    }
+
+    /**
+     * @return the creation date of the change request
+     */
+    public Date getCreationDate()
+    {
+        return this.creationDate;
+    }
+
+    /**
+     * @return the date of the latest update of the change request
+     */
+    public Date getUpdateDate()
+    {
+        return this.updateDate;
+    }
+
+    /**
+     * @return the date when the change request has been notified as stale, or {@code null}
+     */
+    public Date getStaleDate()
+    {
+        return this.staleDate;
+    }
+
+    /**
+     * @return the metadata of all the file changes, in the order of the change request
+     */
+    public List<FileChangeSnapshot> getFileChanges()
+    {
+        return this.fileChanges;
+    }
+
+    /**
+     * @return the metadata of all the reviews, in the order of the change request
+     */
+    public List<ReviewSnapshot> getReviews()
+    {
+        return this.reviews;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this)
+            .append("id", this.id)
+            .append("formatVersion", this.formatVersion)
+            .append("status", this.status)
+            .append("fileChanges", this.fileChanges.size())
+            .append("reviews", this.reviews.size())
+            .toString();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.remote;
+
+import org.xwiki.bridge.DocumentModelBridge;
+import org.xwiki.contrib.changerequest.ChangeRequest;
+import org.xwiki.contrib.changerequest.FileChange;
+
+/**
+ * File change rebuilt from a {@link ChangeRequestSnapshot} received from another node of the cluster: the modified
+ * document is not part of the snapshot, so it's only loaded from the storage the first time it's requested.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+public class SnapshotFileChange extends FileChange
+{
+    private final ChangeRequestEventsConverterHelper helper;
+
+    private boolean modifiedDocumentLoaded;
+
+    /**
+     * Default constructor.
+     *
+     * @param changeRequest the change request containing the file change
+     * @param type the type of the file change
+     * @param helper the helper used to load the modified document
+     */
+    public SnapshotFileChange(ChangeRequest changeRequest, FileChangeType type,
+        ChangeRequestEventsConverterHelper helper)
+    {
+        super(changeRequest, type);
+        this.helper = helper;
+    }
+
+    @Override
+    public DocumentModelBridge getModifiedDocument()
+    {
+        if (!this.modifiedDocumentLoaded) {
+            this.modifiedDocumentLoaded = true;
+            if (super.getModifiedDocument() == null) {
+                setModifiedDocument(this.helper.loadModifiedDocument(this));
+            }
+        }
+        return super.getModifiedDocument();
+    }
+
+    @Override
+    public FileChange cloneWithChangeRequestAndType(ChangeRequest changeRequest, FileChangeType type)
+    {
+        // Ensure that the clones get the modified document.
+        getModifiedDocument();
+        return super.cloneWithChangeRequestAndType(changeRequest, type);
+    }
+}
@@ -24,11 +24,13 @@ import java.util.HashMap;
 import java.util.Map;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import org.xwiki.component.annotation.Component;
 import org.xwiki.context.Execution;
 import org.xwiki.context.ExecutionContext;
+import org.xwiki.contrib.changerequest.internal.cache.DocumentVersionCacheManager;
 import org.xwiki.model.reference.DocumentReference;
 
 import com.xpn.xwiki.XWikiContext;
@@ -71,6 +73,9 @@ public class XWikiDocumentEventConverterSerializer
     @Inject
     private XWikiStubContextProvider stubContextProvider;
 
+    @Inject
+    private Provider<DocumentVersionCacheManager> documentVersionCacheManagerProvider;
+
     /**
      * @param document the document to serialize
      * @return the serialized version of the document
@@ -117,6 +122,21 @@ public class XWikiDocumentEventConverterSerializer
 
     private XWikiDocument getDocument(DocumentReference documentReference, String language, String version)
         throws XWikiException
+    {
+        // A version of a document never changes, so it's only loaded once from the storage.
+        DocumentVersionCacheManager cacheManager = this.documentVersionCacheManagerProvider.get();
+        XWikiDocument targetDocument = cacheManager.getDocument(documentReference, language, version);
+        if (targetDocument == null) {
+            targetDocument = loadDocument(documentReference, language, version);
+            if (!targetDocument.isNew() && version.equals(targetDocument.getVersion())) {
+                cacheManager.setDocument(targetDocument);
+            }
+        }
+        return targetDocument;
+    }
+
+    private XWikiDocument loadDocument(DocumentReference documentReference, String language, String version)
+        throws XWikiException
     {
         XWikiContext xcontext = getXWikiStubContext();
 
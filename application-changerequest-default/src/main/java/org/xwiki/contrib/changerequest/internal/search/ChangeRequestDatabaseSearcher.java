@@ -0,0 +1,267 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.contrib.changerequest.ChangeRequestException;
+import org.xwiki.contrib.changerequest.internal.storage.ChangeRequestXClassInitializer;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryFilter;
+import org.xwiki.query.QueryManager;
+
+/**
+ * Search change requests of the current wiki with a database query: this is used as a fallback of
+ * {@link ChangeRequestSolrSearcher} when the Solr search is not installed.
+ * <p>
+ * The changed documents are stored as a list of values in the database, so each value is matched against the items of
+ * that list. The authors are stored as a single comma separated string, so each value is matched against the parts of
+ * that string.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component(roles = ChangeRequestDatabaseSearcher.class)
+@Singleton
+public class ChangeRequestDatabaseSearcher
+{
+    private static final String LIKE_FORMAT = "%%%s%%";
+
+    private static final String PREFIX_FORMAT = "%s%%";
+
+    private static final char LIKE_ESCAPE = '!';
+
+    private static final String LIKE_CONSTRAINT_FORMAT = "%s like :%s escape '" + LIKE_ESCAPE + "'";
+
+    private static final String AUTHORS_SEPARATOR = ",";
+
+    private static final String PROPERTY_JOIN_FORMAT =
+        " and %1$s.id.id = obj.id and %1$s.id.name = '%2$s'";
+
+    private static final String AND = " and ";
+
+    private static final String OR = " or ";
+
+    private static final String AUTHORS_ALIAS = "obj_authors";
+
+    private static final String CHANGED_DOCUMENTS_ALIAS = "obj_changedDocuments";
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    @Named("count")
+    private QueryFilter countQueryFilter;
+
+    @Inject
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    @Inject
+    @Named("current")
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    /**
+     * Search the change requests of the current wiki matching the given criteria. The name criterion is not
+     * supported.
+     *
+     * @param searchQuery the criteria of the search
+     * @return the matching change request references and their total count
+     * @throws ChangeRequestException in case of problem when performing the query
+     */
+    public ChangeRequestSearchResult search(ChangeRequestSearchQuery searchQuery) throws ChangeRequestException
+    {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        String statement = getStatement(searchQuery, parameters);
+        try {
+            Query countQuery = this.queryManager.createQuery(statement, Query.HQL).addFilter(this.countQueryFilter);
+            parameters.forEach(countQuery::bindValue);
+            List<Long> count = countQuery.execute();
+
+            Query query = this.queryManager.createQuery(statement + getOrderBy(searchQuery), Query.HQL);
+            parameters.forEach(query::bindValue);
+            query.setOffset(searchQuery.getOffset());
+            if (searchQuery.getLimit() > 0) {
+                query.setLimit(searchQuery.getLimit());
+            }
+            List<String> documents = query.execute();
+            List<DocumentReference> references = documents.stream()
+                .map(this.documentReferenceResolver::resolve)
+                .collect(Collectors.toList());
+            return new ChangeRequestSearchResult(count.get(0), references);
+        } catch (QueryException e) {
+            throw new ChangeRequestException(String.format("Error while searching change requests with [%s]",
+                searchQuery), e);
+        }
+    }
+
+    private String getStatement(ChangeRequestSearchQuery searchQuery, Map<String, Object> parameters)
+    {
+        StringBuilder from = new StringBuilder(", BaseObject as obj, StringProperty as obj_status");
+        StringBuilder where = new StringBuilder(" where doc.fullName = obj.name and obj.className = :className");
+        parameters.put("className",
+            this.entityReferenceSerializer.serialize(ChangeRequestXClassInitializer.CHANGE_REQUEST_XCLASS));
+        where.append(String.format(PROPERTY_JOIN_FORMAT, "obj_status", ChangeRequestXClassInitializer.STATUS_FIELD));
+
+        if (!searchQuery.getStatuses().isEmpty()) {
+            // The statuses are enum values so they can be safely inlined.
+            where.append(String.format(" and obj_status.value in (%s)", searchQuery.getStatuses().stream()
+                .map(status -> String.format("'%s'", status.name().toLowerCase(Locale.ROOT)))
+                .collect(Collectors.joining(", "))));
+        }
+        if (!StringUtils.isBlank(searchQuery.getTitle())) {
+            String[] words = StringUtils.split(searchQuery.getTitle());
+            for (int i = 0; i < words.length; i++) {
+                String parameter = "title" + i;
+                where.append(AND).append(String.format(LIKE_CONSTRAINT_FORMAT, "lower(doc.title)", parameter));
+                parameters.put(parameter, String.format(LIKE_FORMAT, escapeLike(words[i].toLowerCase(Locale.ROOT))));
+            }
+        }
+        appendAuthorsConstraints(from, where, parameters, searchQuery.getAuthors());
+        appendChangedDocumentsConstraints(from, where, parameters, searchQuery.getChangedDocuments());
+
+        return from.append(where).toString();
+    }
+
+    private void appendAuthorsConstraints(StringBuilder from, StringBuilder where, Map<String, Object> parameters,
+        List<Pair<String, ChangeRequestSearchQuery.MatchType>> values)
+    {
+        if (!values.isEmpty()) {
+            String property = ChangeRequestXClassInitializer.AUTHORS_FIELD;
+            String column = AUTHORS_ALIAS + ".value";
+            from.append(String.format(", LargeStringProperty as %s", AUTHORS_ALIAS));
+            where.append(String.format(PROPERTY_JOIN_FORMAT, AUTHORS_ALIAS, property));
+            for (int i = 0; i < values.size(); i++) {
+                String parameter = property + i;
+                String value = escapeLike(values.get(i).getLeft());
+                // Each value is matched against the start of the string or against the part following a separator.
+                List<String> patterns = new ArrayList<>();
+                switch (values.get(i).getRight()) {
+                    case EXACT:
+                        patterns.add(value);
+                        patterns.add(value + AUTHORS_SEPARATOR + "%");
+                        patterns.add("%" + AUTHORS_SEPARATOR + value);
+                        patterns.add("%" + AUTHORS_SEPARATOR + value + AUTHORS_SEPARATOR + "%");
+                        break;
+
+                    case PREFIX:
+                        patterns.add(String.format(PREFIX_FORMAT, value));
+                        patterns.add(String.format(PREFIX_FORMAT, "%" + AUTHORS_SEPARATOR + value));
+                        break;
+
+                    case CONTAINS:
+                    default:
+                        patterns.add(String.format(LIKE_FORMAT, value));
+                        break;
+                }
+                List<String> constraints = new ArrayList<>();
+                for (int j = 0; j < patterns.size(); j++) {
+                    String patternParameter = (patterns.size() > 1) ? parameter + "_" + j : parameter;
+                    constraints.add(String.format(LIKE_CONSTRAINT_FORMAT, column, patternParameter));
+                    parameters.put(patternParameter, patterns.get(j));
+                }
+                where.append(AND).append(String.format("(%s)", String.join(OR, constraints)));
+            }
+        }
+    }
+
+    private void appendChangedDocumentsConstraints(StringBuilder from, StringBuilder where,
+        Map<String, Object> parameters, List<Pair<String, ChangeRequestSearchQuery.MatchType>> values)
+    {
+        String property = ChangeRequestXClassInitializer.CHANGED_DOCUMENTS_FIELD;
+        for (int i = 0; i < values.size(); i++) {
+            // The values are all expected to match, possibly different items of the list: so each one needs its own
+            // join on the items.
+            String alias = CHANGED_DOCUMENTS_ALIAS + i;
+            String item = alias + "_item";
+            String parameter = property + i;
+            from.append(String.format(", DBStringListProperty as %1$s join %1$s.list as %2$s", alias, item));
+            where.append(String.format(PROPERTY_JOIN_FORMAT, alias, property));
+            String value = values.get(i).getLeft();
+            switch (values.get(i).getRight()) {
+                case EXACT:
+                    where.append(String.format(" and %s = :%s", item, parameter));
+                    parameters.put(parameter, value);
+                    break;
+
+                case PREFIX:
+                    where.append(AND).append(String.format(LIKE_CONSTRAINT_FORMAT, item, parameter));
+                    parameters.put(parameter, String.format(PREFIX_FORMAT, escapeLike(value)));
+                    break;
+
+                case CONTAINS:
+                default:
+                    where.append(AND).append(String.format(LIKE_CONSTRAINT_FORMAT, item, parameter));
+                    parameters.put(parameter, String.format(LIKE_FORMAT, escapeLike(value)));
+                    break;
+            }
+        }
+    }
+
+    private String escapeLike(String value)
+    {
+        StringBuilder result = new StringBuilder();
+        for (char character : value.toCharArray()) {
+            if (character == LIKE_ESCAPE || character == '%' || character == '_') {
+                result.append(LIKE_ESCAPE);
+            }
+            result.append(character);
+        }
+        return result.toString();
+    }
+
+    private String getOrderBy(ChangeRequestSearchQuery searchQuery)
+    {
+        String field;
+        switch (searchQuery.getSortField()) {
+            case TITLE:
+                field = "doc.title";
+                break;
+
+            case CREATION_DATE:
+                field = "doc.creationDate";
+                break;
+
+            case STATUS:
+                field = "obj_status.value";
+                break;
+
+            default:
+                field = "doc.date";
+                break;
+        }
+        return String.format(" order by %s %s", field, searchQuery.isDescending() ? "desc" : "asc");
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.tuple.Pair;
+import org.xwiki.contrib.changerequest.ChangeRequestStatus;
+
+/**
+ * Criteria of a search of change requests performed with {@link ChangeRequestSolrSearcher} or
+ * {@link ChangeRequestDatabaseSearcher}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+public class ChangeRequestSearchQuery
+{
+    /**
+     * The ways a value can be matched against the values of a change request property.
+     */
+    public enum MatchType
+    {
+        /**
+         * The property should contain exactly the value.
+         */
+        EXACT,
+
+        /**
+         * The property should contain a value starting with the given value.
+         */
+        PREFIX,
+
+        /**
+         * The property should contain a value containing the given value.
+         */
+        CONTAINS
+    }
+
+    /**
+     * The fields that can be used to sort the results.
+     */
+    public enum SortField
+    {
+        /**
+         * Sort on the title of the change requests.
+         */
+        TITLE("title_sort"),
+
+        /**
+         * Sort on the creation date of the change requests.
+         */
+        CREATION_DATE("creationdate"),
+
+        /**
+         * Sort on the last update date of the change requests.
+         */
+        UPDATE_DATE("date"),
+
+        /**
+         * Sort on the status of the change requests.
+         */
+        STATUS(null);
+
+        private final String solrField;
+
+        SortField(String solrField)
+        {
+            this.solrField = solrField;
+        }
+
+        /**
+         * @return the name of the Solr field to sort on, or {@code null} if it's an xproperty field.
+         */
+        public String getSolrField()
+        {
+            return this.solrField;
+        }
+    }
+
+    private String title;
+
+    private String name;
+
+    private final Set<ChangeRequestStatus> statuses = EnumSet.noneOf(ChangeRequestStatus.class);
+
+    private final List<Pair<String, MatchType>> authors = new ArrayList<>();
+
+    private final List<Pair<String, MatchType>> changedDocuments = new ArrayList<>();
+
+    private SortField sortField = SortField.UPDATE_DATE;
+
+    private boolean descending = true;
+
+    private int offset;
+
+    private int limit;
+
+    /**
+     * @return a part of title that the change requests should match, or {@code null} to not filter on title
+     */
+    public String getTitle()
+    {
+        return this.title;
+    }
+
+    /**
+     * @param title a part of title that the change requests should match
+     * @return the current instance
+     */
+    public ChangeRequestSearchQuery setTitle(String title)
+    {
+        this.title = title;
+        return this;
+    }
+
+    /**
+     * @return a part of the name of the change requests that they should match, or {@code null} to not filter on name
+     */
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * @param name a part of the name of the change requests, i.e. of their identifier, that they should match: when
+     *     both a title and a name are given, matching one of them is enough
+     * @return the current instance
+     */
+    public ChangeRequestSearchQuery setName(String name)
+    {
+        this.name = name;
+        return this;
+    }
+
+    /**
+     * @return the statuses the change requests should have, an empty set means any status
+     */
+    public Set<ChangeRequestStatus> getStatuses()
+    {
+        return Collections.unmodifiableSet(this.statuses);
+    }
+
+    /**
+     * @param statuses the statuses the change requests should have, one of them is enough
+     * @return the current instance
+     */
+    public ChangeRequestSearchQuery setStatuses(Collection<ChangeRequestStatus> statuses)
+    {
+        this.statuses.clear();
+        this.statuses.addAll(statuses);
+        return this;
+    }
+
+    /**
+     * @return the values that should all be matched by the authors of the change requests, with the way to match
+     *     them
+     */
+    public List<Pair<String, MatchType>> getAuthors()
+    {
+        return Collections.unmodifiableList(this.authors);
+    }
+
+    /**
+     * @param author the serialized reference of a user who should be author of the change requests, as stored in
+     *     the change request xobject
+     * @return the current instance
+     */
+    public ChangeRequestSearchQuery addAuthor(String author)
+    {
+        return addAuthor(author, MatchType.EXACT);
+    }
+
+    /**
+     * @param author a value that should be matched by one of the authors of the change requests, as stored in the
+     *     change request xobject
+     * @param matchType the way to match the value
+     * @return the current instance
+     */
+    public ChangeRequestSearchQuery addAuthor(String author, MatchType matchType)
+    {
+        this.authors.add(Pair.of(author, matchType));
+        return this;
+    }
+
+    /**
+     * @return the values that should all be matched by the documents changed in the change requests, with the way
+     *     to match them
+     */
+    public List<Pair<String, MatchType>> getChangedDocuments()
+    {
+        return Collections.unmodifiableList(this.changedDocuments);
+    }
+
+    /**
+     * @param changedDocument the serialized reference of a document which should be changed in the change requests,
+     *     as stored in the change request xobject
+     * @return the current instance
+     */
+    public ChangeRequestSearchQuery addChangedDocument(String changedDocument)
+    {
+        return addChangedDocument(changedDocument, MatchType.EXACT);
+    }
+
+    /**
+     * @param changedDocument a value that should be matched by one of the documents changed in the change requests,
+     *     as stored in the change request xobject
+     * @param matchType the way to match the value
+     * @return the current instance
+     */
+    public ChangeRequestSearchQuery addChangedDocument(String changedDocument, MatchType matchType)
+    {
+        this.changedDocuments.add(Pair.of(changedDocument, matchType));
+        return this;
+    }
+
+    /**
+     * @return the field used to sort the results
+     */
+    public SortField getSortField()
+    {
+        return this.sortField;
+    }
+
+    /**
+     * @param sortField the field used to sort the results
+     * @param descending {@code true} to sort in descending order
+     * @return the current instance
+     */
+    public ChangeRequestSearchQuery setSort(SortField sortField, boolean descending)
+    {
+        this.sortField = sortField;
+        this.descending = descending;
+        return this;
+    }
+
+    /**
+     * @return {@code true} if the results are sorted in descending order
+     */
+    public boolean isDescending()
+    {
+        return this.descending;
+    }
+
+    /**
+     * @return the index of the first result to return
+     */
+    public int getOffset()
+    {
+        return this.offset;
+    }
+
+    /**
+     * @param offset the index of the first result to return
+     * @return the current instance
+     */
+    public ChangeRequestSearchQuery setOffset(int offset)
+    {
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * @return the maximum number of results to return, {@code 0} means no limit
+     */
+    public int getLimit()
+    {
+        return this.limit;
+    }
+
+    /**
+     * @param limit the maximum number of results to return
+     * @return the current instance
+     */
+    public ChangeRequestSearchQuery setLimit(int limit)
+    {
+        this.limit = limit;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ChangeRequestSearchQuery that = (ChangeRequestSearchQuery) o;
+
+        return new EqualsBuilder()
+            .append(descending, that.descending)
+            .append(offset, that.offset)
+            .append(limit, that.limit)
+            .append(title, that.title)
+            .append(name, that.name)
+            .append(statuses, that.statuses)
+            .append(authors, that.authors)
+            .append(changedDocuments, that.changedDocuments)
+            .append(sortField, that.sortField)
+            .isEquals();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return new HashCodeBuilder(17, 37)
+            .append(title)
+            .append(name)
+            .append(statuses)
+            .append(authors)
+            .append(changedDocuments)
+            .append(sortField)
+            .append(descending)
+            .append(offset)
+            .append(limit)
+            .toHashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this)
+            .append("title", title)
+            .append("name", name)
+            .append("statuses", statuses)
+            .append("authors", authors)
+            .append("changedDocuments", changedDocuments)
+            .append("sortField", sortField)
+            .append("descending", descending)
+            .append("offset", offset)
+            .append("limit", limit)
+            .toString();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.search;
+
+import java.util.List;
+
+import org.xwiki.model.reference.DocumentReference;
+
+/**
+ * Results of a search of change requests performed with {@link ChangeRequestSolrSearcher}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+public class ChangeRequestSearchResult
+{
+    private final long totalCount;
+
+    private final List<DocumentReference> references;
+
+    /**
+     * Default constructor.
+     *
+     * @param totalCount the total number of change requests matching the query, without considering the offset and
+     *     the limit
+     * @param references the references of the change request documents of the requested page of results
+     */
+    public ChangeRequestSearchResult(long totalCount, List<DocumentReference> references)
+    {
+        this.totalCount = totalCount;
+        this.references = references;
+    }
+
+    /**
+     * @return the total number of change requests matching the query, without considering the offset and the limit
+     */
+    public long getTotalCount()
+    {
+        return this.totalCount;
+    }
+
+    /**
+     * @return the references of the change request documents of the requested page of results
+     */
+    public List<DocumentReference> getReferences()
+    {
+        return this.references;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.util.ClientUtils;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.contrib.changerequest.ChangeRequestConfiguration;
+import org.xwiki.contrib.changerequest.ChangeRequestException;
+import org.xwiki.contrib.changerequest.internal.storage.ChangeRequestXClassInitializer;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+
+import com.xpn.xwiki.XWikiContext;
+
+/**
+ * Search change requests in the Solr index of the wiki.
+ * <p>
+ * Change request documents are indexed by the standard Solr indexer of XWiki whenever they are saved, which includes
+ * the properties of their xobjects as typed fields: those fields are used to filter and sort the change requests
+ * without going through the database, so that the time needed to answer does not depend on the number of change
+ * requests.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component(roles = ChangeRequestSolrSearcher.class)
+@Singleton
+public class ChangeRequestSolrSearcher
+{
+    private static final String SOLR = "solr";
+
+    private static final String WIKI_FIELD = "wiki";
+
+    private static final String FULLNAME_FIELD = "fullname";
+
+    private static final String FIELD_QUERY_FORMAT = "%s:%s";
+
+    private static final String OR = " OR ";
+
+    private static final String WILDCARD = "*";
+
+    @Inject
+    private Provider<QueryManager> queryManagerProvider;
+
+    @Inject
+    private Provider<XWikiContext> contextProvider;
+
+    @Inject
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    @Inject
+    @Named("compactwiki")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
+    @Inject
+    private ChangeRequestConfiguration configuration;
+
+    @Inject
+    @Named("current")
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    /**
+     * @return {@code true} if the Solr query language is available, {@code false} if the Solr search is not installed
+     *     and another way of searching should be used.
+     */
+    public boolean isAvailable()
+    {
+        return this.queryManagerProvider.get().getLanguages().contains(SOLR);
+    }
+
+    /**
+     * Search the change requests of the current wiki matching the given criteria.
+     *
+     * @param searchQuery the criteria of the search
+     * @return the matching change request references and their total count
+     * @throws ChangeRequestException in case of problem when performing the query
+     */
+    public ChangeRequestSearchResult search(ChangeRequestSearchQuery searchQuery) throws ChangeRequestException
+    {
+        try {
+            Query query = this.queryManagerProvider.get().createQuery(getStatement(searchQuery), SOLR);
+            query.bindValue("fq", getFilterQueries(searchQuery));
+            query.bindValue("fl", String.join(",", WIKI_FIELD, FULLNAME_FIELD));
+            query.bindValue("sort", getSort(searchQuery));
+            if (!StringUtils.isBlank(searchQuery.getTitle()) || !StringUtils.isBlank(searchQuery.getName())) {
+                query.bindValue("defType", "edismax");
+                query.bindValue("qf", "title");
+                query.bindValue("q.op", "AND");
+            }
+            query.setOffset(searchQuery.getOffset());
+            if (searchQuery.getLimit() > 0) {
+                query.setLimit(searchQuery.getLimit());
+            }
+
+            QueryResponse response = (QueryResponse) query.execute().get(0);
+            SolrDocumentList results = response.getResults();
+            List<DocumentReference> references = new ArrayList<>();
+            for (SolrDocument result : results) {
+                references.add(this.documentReferenceResolver.resolve((String) result.getFieldValue(FULLNAME_FIELD),
+                    new WikiReference((String) result.getFieldValue(WIKI_FIELD))));
+            }
+            return new ChangeRequestSearchResult(results.getNumFound(), references);
+        } catch (QueryException e) {
+            throw new ChangeRequestException(String.format("Error while searching change requests with [%s]",
+                searchQuery), e);
+        }
+    }
+
+    private String getStatement(ChangeRequestSearchQuery searchQuery)
+    {
+        List<String> clauses = new ArrayList<>();
+        if (!StringUtils.isBlank(searchQuery.getTitle())) {
+            // Each word is used as a prefix so that the results are matching while typing.
+            clauses.add(Arrays.stream(StringUtils.split(searchQuery.getTitle()))
+                .map(word -> ClientUtils.escapeQueryChars(word) + WILDCARD)
+                .collect(Collectors.joining(" ")));
+        }
+        if (!StringUtils.isBlank(searchQuery.getName())) {
+            // The name is matched anywhere in the space of the change request, located under the configured space.
+            String changeRequestSpace = this.localEntityReferenceSerializer.serialize(
+                this.configuration.getChangeRequestSpaceLocation());
+            clauses.add(String.format("%s:%s.*%s*", FULLNAME_FIELD, ClientUtils.escapeQueryChars(changeRequestSpace),
+                ClientUtils.escapeQueryChars(searchQuery.getName().trim())));
+        }
+
+        String result;
+        if (clauses.isEmpty()) {
+            result = "*:*";
+        } else if (clauses.size() == 1) {
+            result = clauses.get(0);
+        } else {
+            result = clauses.stream().map(clause -> String.format("(%s)", clause)).collect(Collectors.joining(OR));
+        }
+        return result;
+    }
+
+    private List<String> getFilterQueries(ChangeRequestSearchQuery searchQuery)
+    {
+        List<String> result = new ArrayList<>();
+        result.add("type:DOCUMENT");
+        result.add(String.format(FIELD_QUERY_FORMAT, WIKI_FIELD,
+            ClientUtils.escapeQueryChars(this.contextProvider.get().getWikiId())));
+        result.add(String.format(FIELD_QUERY_FORMAT, "class", ClientUtils.escapeQueryChars(
+            this.entityReferenceSerializer.serialize(ChangeRequestXClassInitializer.CHANGE_REQUEST_XCLASS))));
+
+        if (!searchQuery.getStatuses().isEmpty()) {
+            result.add(String.format("%s:(%s)", getPropertyField(ChangeRequestXClassInitializer.STATUS_FIELD),
+                searchQuery.getStatuses().stream()
+                    .map(status -> status.name().toLowerCase(Locale.ROOT))
+                    .collect(Collectors.joining(OR))));
+        }
+        for (Pair<String, ChangeRequestSearchQuery.MatchType> author : searchQuery.getAuthors()) {
+            result.add(String.format(FIELD_QUERY_FORMAT, getPropertyField(ChangeRequestXClassInitializer.AUTHORS_FIELD),
+                getValueQuery(author)));
+        }
+        for (Pair<String, ChangeRequestSearchQuery.MatchType> changedDocument : searchQuery.getChangedDocuments()) {
+            result.add(String.format(FIELD_QUERY_FORMAT,
+                getPropertyField(ChangeRequestXClassInitializer.CHANGED_DOCUMENTS_FIELD),
+                getValueQuery(changedDocument)));
+        }
+        return result;
+    }
+
+    private String getValueQuery(Pair<String, ChangeRequestSearchQuery.MatchType> value)
+    {
+        String result = ClientUtils.escapeQueryChars(value.getLeft());
+        switch (value.getRight()) {
+            case PREFIX:
+                result = result + WILDCARD;
+                break;
+
+            case CONTAINS:
+                result = WILDCARD + result + WILDCARD;
+                break;
+
+            default:
+                break;
+        }
+        return result;
+    }
+
+    private String getSort(ChangeRequestSearchQuery searchQuery)
+    {
+        String field = searchQuery.getSortField().getSolrField();
+        if (field == null) {
+            field = getPropertyField(ChangeRequestXClassInitializer.STATUS_FIELD, "sortString");
+        }
+        return String.format("%s %s", field, searchQuery.isDescending() ? "desc" : "asc");
+    }
+
+    private String getPropertyField(String property)
+    {
+        return getPropertyField(property, "string");
+    }
+
+    private String getPropertyField(String property, String type)
+    {
+        // Name of the fields used by the Solr indexer for xobject properties.
+        return String.format("property.%s.%s_%s",
+            this.entityReferenceSerializer.serialize(ChangeRequestXClassInitializer.CHANGE_REQUEST_XCLASS), property,
+            type);
+    }
+}
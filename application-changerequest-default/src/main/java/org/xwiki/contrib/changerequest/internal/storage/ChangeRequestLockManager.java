@@ -0,0 +1,108 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.storage;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.contrib.changerequest.ChangeRequestException;
+
+/**
+ * Component responsible to serialize the concurrent modifications of a same change request: the storage of a change
+ * request is performed by loading its documents, modifying them and saving them back, so two concurrent writers of the
+ * same change request could otherwise lose one of the modifications.
+ * <p>
+ * The locks are striped: a fixed number of reentrant locks is shared by all change requests, a change request always
+ * using the same lock. Since two change requests might share the same lock, the lock acquisition is performed with a
+ * timeout to never end up with a deadlock between two threads each modifying a different change request.
+ * <p>
+ * Since nothing orders the locks of the different change requests, the lock of a change request must only be held
+ * while reading, modifying and saving this change request: the change request events must be notified once it's
+ * released. The document events triggered by the save are still sent under the lock: their listeners can save the
+ * same change request since the lock is reentrant, and another change request unless the thread holding its lock is
+ * itself waiting for the lock of the first one.
+ * <p>
+ * Note that the locks are local to the current instance.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component(roles = ChangeRequestLockManager.class)
+@Singleton
+public class ChangeRequestLockManager
+{
+    // Number of locks shared by all change requests.
+    static final int STRIPES = 64;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    // Maximum time to wait for a lock, in milliseconds.
+    long lockTimeout = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Default constructor.
+     */
+    public ChangeRequestLockManager()
+    {
+        for (int i = 0; i < STRIPES; i++) {
+            this.locks[i] = new ReentrantLock();
+        }
+    }
+
+    private ReentrantLock getLock(String changeRequestId)
+    {
+        return this.locks[Math.floorMod(changeRequestId.hashCode(), STRIPES)];
+    }
+
+    /**
+     * Acquire the lock of the given change request: the lock is reentrant, so a thread already holding it can acquire
+     * it again. Each call must be followed by a call to {@link #unlock(String)} in a {@code finally} block.
+     *
+     * @param changeRequestId the identifier of the change request to lock
+     * @throws ChangeRequestException if the lock cannot be acquired before the timeout or if the thread is
+     *         interrupted while waiting for it
+     */
+    public void lock(String changeRequestId) throws ChangeRequestException
+    {
+        try {
+            if (!getLock(changeRequestId).tryLock(this.lockTimeout, TimeUnit.MILLISECONDS)) {
+                throw new ChangeRequestException(
+                    String.format("Timeout while waiting for the lock of change request [%s]", changeRequestId));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ChangeRequestException(
+                String.format("Interrupted while waiting for the lock of change request [%s]", changeRequestId), e);
+        }
+    }
+
+    /**
+     * Release the lock of the given change request previously acquired with {@link #lock(String)}.
+     *
+     * @param changeRequestId the identifier of the change request to unlock
+     */
+    public void unlock(String changeRequestId)
+    {
+        getLock(changeRequestId).unlock();
+    }
+}
@@ -59,11 +59,31 @@ public class ChangeRequestXClassInitializer extends AbstractMandatoryClassInitia
     public static final LocalDocumentReference CHANGE_REQUEST_XCLASS =
         new LocalDocumentReference(CHANGE_REQUEST_SPACE, "ChangeRequestClass");
 
-    static final String STATUS_FIELD = "status";
-    static final String CHANGED_DOCUMENTS_FIELD = "changedDocuments";
-    static final String AUTHORS_FIELD = "authors";
+    /**
+     * Name of the field containing the status of the change request.
+     */
+    public static final String STATUS_FIELD = "status";
+
+    /**
+     * Name of the field containing the references of the documents changed in the change request.
+     */
+    public static final String CHANGED_DOCUMENTS_FIELD = "changedDocuments";
+
+    /**
+     * Name of the field containing the references of the authors of the change request.
+     */
+    public static final String AUTHORS_FIELD = "authors";
+
     static final String STALE_DATE_FIELD = "staleDate";
 
+    /**
+     * Index of all the spaces containing a changed document: it contains each ancestor space of each changed document
+     * so that a change request targeting a space can be found with an equality lookup.
+     *
+     * @since 1.24
+     */
+    public static final String CHANGED_SPACES_FIELD = "changedSpaces";
+
     private static final LocalDocumentReference SHEET_REFERENCE =
         new LocalDocumentReference(CHANGE_REQUEST_SPACE, "ChangeRequestSheet");
 
@@ -93,6 +113,8 @@ public class ChangeRequestXClassInitializer extends AbstractMandatoryClassInitia
         xclass.addPageField(CHANGED_DOCUMENTS_FIELD, CHANGED_DOCUMENTS_FIELD, 1, true);
         xclass.addUsersField(AUTHORS_FIELD, AUTHORS_FIELD, true);
         xclass.addDateField(STALE_DATE_FIELD, STALE_DATE_FIELD);
+        // The index is a plain list of serialized spaces, stored in a dedicated table to be queried.
+        xclass.addStaticListField(CHANGED_SPACES_FIELD, CHANGED_SPACES_FIELD, 1, true, true, "", "input", "|");
     }
 
     @Override
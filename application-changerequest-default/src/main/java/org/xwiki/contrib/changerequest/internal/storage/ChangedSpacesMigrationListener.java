@@ -0,0 +1,98 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.storage;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.xwiki.bridge.event.WikiReadyEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.contrib.changerequest.internal.jobs.ChangedSpacesMigrationRequest;
+import org.xwiki.job.JobException;
+import org.xwiki.job.JobExecutor;
+import org.xwiki.job.JobStatusStore;
+import org.xwiki.job.event.status.JobStatus;
+import org.xwiki.observation.event.AbstractLocalEventListener;
+import org.xwiki.observation.event.Event;
+
+/**
+ * Listener in charge of starting the migration of the index of changed spaces of the change requests created before
+ * its introduction, each time a wiki is ready. The migration is performed in background by a
+ * {@link org.xwiki.contrib.changerequest.internal.jobs.ChangedSpacesMigrationJob} whose status is stored: the job is
+ * not started again once it succeeded for the wiki.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component
+@Singleton
+@Named(ChangedSpacesMigrationListener.NAME)
+public class ChangedSpacesMigrationListener extends AbstractLocalEventListener
+{
+    static final String NAME = "org.xwiki.contrib.changerequest.internal.storage.ChangedSpacesMigrationListener";
+
+    private static final List<Event> EVENT_LIST = Collections.singletonList(new WikiReadyEvent());
+
+    @Inject
+    private Provider<JobExecutor> jobExecutorProvider;
+
+    @Inject
+    private Provider<JobStatusStore> jobStatusStoreProvider;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * Default constructor.
+     */
+    public ChangedSpacesMigrationListener()
+    {
+        super(NAME, EVENT_LIST);
+    }
+
+    @Override
+    public void processLocalEvent(Event event, Object source, Object data)
+    {
+        String wikiId = ((WikiReadyEvent) event).getWikiId();
+        List<String> jobId = ChangedSpacesMigrationRequest.getJobId(wikiId);
+        JobExecutor jobExecutor = this.jobExecutorProvider.get();
+        if (!this.isMigrated(jobId) && jobExecutor.getJob(jobId) == null) {
+            try {
+                jobExecutor.execute(ChangedSpacesMigrationRequest.CHANGED_SPACES_MIGRATION_JOB,
+                    new ChangedSpacesMigrationRequest(wikiId));
+            } catch (JobException e) {
+                this.logger.error("Error when starting the migration of the changed spaces index of wiki [{}]",
+                    wikiId, e);
+            }
+        }
+    }
+
+    private boolean isMigrated(List<String> jobId)
+    {
+        JobStatus jobStatus = this.jobStatusStoreProvider.get().getJobStatus(jobId);
+        return jobStatus != null && jobStatus.getState() == JobStatus.State.FINISHED && jobStatus.getError() == null;
+    }
+}
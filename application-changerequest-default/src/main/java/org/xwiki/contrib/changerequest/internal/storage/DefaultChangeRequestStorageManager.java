@@ -21,6 +21,7 @@ package org.xwiki.contrib.changerequest.internal.storage;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Deque;
@@ -64,6 +65,8 @@ import org.xwiki.contrib.changerequest.events.SplitBeginChangeRequestEvent;
 import org.xwiki.contrib.changerequest.events.SplitEndChangeRequestEvent;
 import org.xwiki.contrib.changerequest.ChangeRequestException;
 import org.xwiki.contrib.changerequest.internal.cache.ChangeRequestStorageCacheManager;
+import org.xwiki.contrib.changerequest.internal.search.ChangeRequestSearchQuery;
+import org.xwiki.contrib.changerequest.internal.search.ChangeRequestSolrSearcher;
 import org.xwiki.contrib.changerequest.storage.ChangeRequestIDGenerator;
 import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
 import org.xwiki.contrib.changerequest.storage.FileChangeStorageManager;
@@ -99,6 +102,7 @@ import com.xpn.xwiki.objects.classes.UsersClass;
 
 import static org.xwiki.contrib.changerequest.internal.storage.ChangeRequestXClassInitializer.AUTHORS_FIELD;
 import static org.xwiki.contrib.changerequest.internal.storage.ChangeRequestXClassInitializer.CHANGED_DOCUMENTS_FIELD;
+import static org.xwiki.contrib.changerequest.internal.storage.ChangeRequestXClassInitializer.CHANGED_SPACES_FIELD;
 import static org.xwiki.contrib.changerequest.internal.storage.ChangeRequestXClassInitializer.CHANGE_REQUEST_XCLASS;
 import static org.xwiki.contrib.changerequest.internal.storage.ChangeRequestXClassInitializer.STALE_DATE_FIELD;
 import static org.xwiki.contrib.changerequest.internal.storage.ChangeRequestXClassInitializer.STATUS_FIELD;
@@ -116,6 +120,11 @@ public class DefaultChangeRequestStorageManager implements ChangeRequestStorageM
 {
     private static final String REFERENCE = "reference";
 
+    /**
+     * Maximum number of change requests returned when looking for change requests by title in Solr.
+     */
+    private static final int MATCHING_NAME_LIMIT = 30;
+
     @Inject
     private Provider<XWikiContext> contextProvider;
 
@@ -190,6 +199,12 @@ public class DefaultChangeRequestStorageManager implements ChangeRequestStorageM
     @Inject
     private ContextualLocalizationManager contextualLocalizationManager;
 
+    @Inject
+    private ChangeRequestLockManager lockManager;
+
+    @Inject
+    private Provider<ChangeRequestSolrSearcher> solrSearcherProvider;
+
     @Inject
     private Logger logger;
 
@@ -223,6 +238,7 @@ public class DefaultChangeRequestStorageManager implements ChangeRequestStorageM
             changeRequest.setId(this.getIdGenerator().generateId(changeRequest));
         }
         DocumentReference reference = this.changeRequestDocumentReferenceResolver.resolve(changeRequest);
+        this.lockManager.lock(changeRequest.getId());
         try {
             XWikiDocument document = wiki.getDocument(reference, context).clone();
             this.prepareChangeRequestDocument(changeRequest, document);
@@ -241,11 +257,14 @@ public class DefaultChangeRequestStorageManager implements ChangeRequestStorageM
             if (document.isMetaDataDirty()) {
                 wiki.saveDocument(document, saveComment, context);
             }
+            // Invalidate the cache before releasing the lock so that the next writer doesn't rely on stale data.
+            this.changeRequestStorageCacheManager.invalidate(changeRequest.getId());
         } catch (XWikiException e) {
             throw new ChangeRequestException(
                 String.format("Error while saving the change request [%s]", changeRequest), e);
+        } finally {
+            this.lockManager.unlock(changeRequest.getId());
         }
-        this.changeRequestStorageCacheManager.invalidate(changeRequest.getId());
     }
 
     private void prepareChangeRequestDocument(ChangeRequest changeRequest, XWikiDocument document) throws XWikiException
@@ -275,6 +294,12 @@ public class DefaultChangeRequestStorageManager implements ChangeRequestStorageM
             xObject.set(CHANGED_DOCUMENTS_FIELD, serializedDocuments, context);
         }
 
+        List<String> serializedSpaces =
+            getChangedSpaces(changeRequest.getModifiedDocuments(), this.localEntityReferenceSerializer);
+        if (!xObject.getListValue(CHANGED_SPACES_FIELD).equals(serializedSpaces)) {
+            xObject.set(CHANGED_SPACES_FIELD, serializedSpaces, context);
+        }
+
         List<String> serializedAuthors = changeRequest.getAuthors().stream()
             .map(target -> this.userReferenceSerializer.serialize(target))
             .collect(Collectors.toList());
@@ -288,6 +313,25 @@ public class DefaultChangeRequestStorageManager implements ChangeRequestStorageM
         }
     }
 
+    /**
+     * Compute the value of the changed spaces index: all ancestor spaces of the given documents, serialized, without
+     * duplicates and sorted to obtain a stable value.
+     *
+     * @param changedDocuments the documents modified in a change request
+     * @param serializer the serializer to use for the spaces
+     * @return the serialized spaces to store in the index
+     */
+    public static List<String> getChangedSpaces(Collection<DocumentReference> changedDocuments,
+        EntityReferenceSerializer<String> serializer)
+    {
+        return changedDocuments.stream()
+            .flatMap(target -> target.getSpaceReferences().stream())
+            .map(serializer::serialize)
+            .distinct()
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
     @Override
     public void saveStaleDate(ChangeRequest changeRequest) throws ChangeRequestException
     {
@@ -297,6 +341,7 @@ public class DefaultChangeRequestStorageManager implements ChangeRequestStorageM
             throw new ChangeRequestException("The stale date can only be saved for existing change requests.");
         } else {
             DocumentReference reference = this.changeRequestDocumentReferenceResolver.resolve(changeRequest);
+            this.lockManager.lock(changeRequest.getId());
             try {
                 XWikiDocument document = wiki.getDocument(reference, context);
                 BaseObject xObject = document.getXObject(CHANGE_REQUEST_XCLASS, 0, false, context);
@@ -313,6 +358,8 @@ public class DefaultChangeRequestStorageManager implements ChangeRequestStorageM
                 }
             } catch (XWikiException e) {
                 throw new ChangeRequestException("Error while saving the change request stale date", e);
+            } finally {
+                this.lockManager.unlock(changeRequest.getId());
             }
         }
     }
@@ -373,12 +420,8 @@ public class DefaultChangeRequestStorageManager implements ChangeRequestStorageM
         this.observationManager.notify(new ChangeRequestMergingEvent(), changeRequest.getId(), changeRequest);
         // We immediately save the merge status to avoid having the listeners to consider this change request
         // when computing status changes.
-        ChangeRequestStatus oldStatus = changeRequest.getStatus();
-        changeRequest
-            .setStatus(ChangeRequestStatus.MERGED)
-            .updateDate();
-        String saveComment = this.contextualLocalizationManager.getTranslationPlain("changerequest.save.merge");
-        this.save(changeRequest, saveComment);
+        ChangeRequestStatus oldStatus =
+            this.saveMergeStatus(changeRequest, ChangeRequestStatus.MERGED, "changerequest.save.merge");
         this.observationManager.notify(new ChangeRequestStatusChangedEvent(), changeRequest.getId(),
             new ChangeRequestStatus[] {oldStatus, ChangeRequestStatus.MERGED});
 
@@ -393,11 +436,7 @@ public class DefaultChangeRequestStorageManager implements ChangeRequestStorageM
             this.observationManager.notify(new ChangeRequestMergedEvent(), changeRequest.getId(), changeRequest);
         } catch (ChangeRequestException e) {
             // in case of error we reset the status
-            changeRequest
-                .setStatus(oldStatus)
-                .updateDate();
-            saveComment = this.contextualLocalizationManager.getTranslationPlain("changerequest.save.rollbackMerge");
-            this.save(changeRequest, saveComment);
+            this.saveMergeStatus(changeRequest, oldStatus, "changerequest.save.rollbackMerge");
             this.observationManager.notify(new ChangeRequestStatusChangedEvent(), changeRequest.getId(),
                 new ChangeRequestStatus[] {ChangeRequestStatus.MERGED, oldStatus});
             this.observationManager.notify(new ChangeRequestMergeFailedEvent(), changeRequest.getId(), changeRequest);
@@ -406,9 +445,49 @@ public class DefaultChangeRequestStorageManager implements ChangeRequestStorageM
         }
     }
 
+    /**
+     * Save the given status during a merge. Only the status update is performed under the lock of the change request:
+     * the merge events and the merge of the file changes might lead to update other change requests, so they are
+     * performed once the lock is released.
+     *
+     * @param changeRequest the change request being merged
+     * @param status the new status to save
+     * @param saveCommentKey the translation key of the save comment
+     * @return the status of the change request before the update
+     * @throws ChangeRequestException in case of problem when saving the change request
+     */
+    private ChangeRequestStatus saveMergeStatus(ChangeRequest changeRequest, ChangeRequestStatus status,
+        String saveCommentKey) throws ChangeRequestException
+    {
+        this.lockManager.lock(changeRequest.getId());
+        try {
+            ChangeRequestStatus oldStatus = changeRequest.getStatus();
+            changeRequest
+                .setStatus(status)
+                .updateDate();
+            this.save(changeRequest, this.contextualLocalizationManager.getTranslationPlain(saveCommentKey));
+            return oldStatus;
+        } finally {
+            this.lockManager.unlock(changeRequest.getId());
+        }
+    }
+
     @Override
     public List<DocumentReference> getOpenChangeRequestMatchingName(String title) throws ChangeRequestException
     {
+        ChangeRequestSolrSearcher solrSearcher = this.solrSearcherProvider.get();
+        if (solrSearcher.isAvailable()) {
+            ChangeRequestSearchQuery searchQuery = new ChangeRequestSearchQuery()
+                .setTitle(title)
+                .setName(title)
+                .setStatuses(Arrays.stream(ChangeRequestStatus.values())
+                    .filter(ChangeRequestStatus::isOpen)
+                    .collect(Collectors.toList()))
+                .setLimit(MATCHING_NAME_LIMIT);
+            return solrSearcher.search(searchQuery).getReferences();
+        }
+
+        // Fallback when the Solr search is not installed.
         String statement = String.format(", BaseObject as obj , StringProperty as obj_status where "
             + "(doc.fullName like :reference or lower(doc.title) like lower(:title)) and obj_status.value in %s and "
             + "doc.fullName=obj.name and obj.className='%s' and obj_status.id.id=obj.id and obj_status.id.name='%s'",
@@ -468,18 +547,29 @@ public class DefaultChangeRequestStorageManager implements ChangeRequestStorageM
         throws ChangeRequestException
     {
         List<ChangeRequest> result = new ArrayList<>();
-        String statement = String.format(", BaseObject as obj, DBStringListProperty as prop join prop.list list "
-            + "where obj.name=doc.fullName and obj.className='%s' and obj.id=prop.id.id and "
-            + "prop.id.name='%s' and list like :reference order by doc.creationDate desc",
-            this.entityReferenceSerializer.serialize(CHANGE_REQUEST_XCLASS), CHANGED_DOCUMENTS_FIELD);
+        List<DocumentReference> changeRequestReferences = this.findChangeRequestReferenceTargeting(spaceReference);
+        for (DocumentReference crReference : changeRequestReferences) {
+            this.load(crReference.getLastSpaceReference().getName()).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public List<DocumentReference> findChangeRequestReferenceTargeting(SpaceReference spaceReference)
+        throws ChangeRequestException
+    {
+        List<DocumentReference> result = new ArrayList<>();
+        // We rely on the index of changed spaces to perform an equality lookup instead of a pattern matching on all
+        // changed documents: this also avoids matching spaces which only share a part of their names.
+        String statement = String.format("from doc.object(%s) as obj where :reference member of obj.%s "
+            + "order by doc.creationDate desc",
+            this.entityReferenceSerializer.serialize(CHANGE_REQUEST_XCLASS), CHANGED_SPACES_FIELD);
         try {
-            Query query = this.queryManager.createQuery(statement, Query.HQL);
-            query.bindValue(REFERENCE,
-                String.format("%%%s%%", this.localEntityReferenceSerializer.serialize(spaceReference)));
+            Query query = this.queryManager.createQuery(statement, Query.XWQL);
+            query.bindValue(REFERENCE, this.localEntityReferenceSerializer.serialize(spaceReference));
             List<String> changeRequestDocuments = query.execute();
             for (String changeRequestDocument : changeRequestDocuments) {
-                DocumentReference crReference = this.documentReferenceResolver.resolve(changeRequestDocument);
-                this.load(crReference.getLastSpaceReference().getName()).ifPresent(result::add);
+                result.add(this.documentReferenceResolver.resolve(changeRequestDocument));
             }
         } catch (QueryException e) {
             throw new ChangeRequestException(
@@ -580,13 +670,16 @@ public class DefaultChangeRequestStorageManager implements ChangeRequestStorageM
 
         // If the CR only contains a single document, the split shouldn't have any effect.
         if (refToKeep.size() > 1) {
+            // The lock of the splitted change request is not held during the split: the new change requests are
+            // locked when saved, and the split events might lead to update other change requests.
             this.observationManager.notify(new SplitBeginChangeRequestEvent(), changeRequest.getId(), changeRequest);
 
             // Perform the actual split
             result.addAll(this.performFileChangeSplit(changeRequest, refToKeep));
 
-            // Handle the reviews
+            // Handle the reviews: all reviews of a splitted change request are saved at once.
             for (ChangeRequest splittedChangeRequest : result) {
+                List<ChangeRequestReview> clonedReviews = new ArrayList<>();
                 for (ChangeRequestReview review : changeRequest.getReviews()) {
                     ChangeRequestReview clonedReview = review.cloneWithChangeRequest(splittedChangeRequest);
 
@@ -597,8 +690,9 @@ public class DefaultChangeRequestStorageManager implements ChangeRequestStorageM
                     clonedReview.setId(review.getId());
 
                     splittedChangeRequest.addReview(clonedReview);
-                    this.reviewStorageManager.save(clonedReview);
+                    clonedReviews.add(clonedReview);
                 }
+                this.reviewStorageManager.saveReviews(splittedChangeRequest, clonedReviews);
             }
 
             // Handle the approvers
@@ -606,7 +700,7 @@ public class DefaultChangeRequestStorageManager implements ChangeRequestStorageM
 
             // Handle discussions last to not break the CR in case of problem there.
             this.discussionService.moveDiscussions(changeRequest, result);
-            this.delete(changeRequest);
+            this.deleteSplittedChangeRequest(changeRequest);
             this.observationManager.notify(new SplitEndChangeRequestEvent(), changeRequest.getId(), result);
         }
         return result;
@@ -777,6 +871,65 @@ public class DefaultChangeRequestStorageManager implements ChangeRequestStorageM
         }
     }
 
+    /**
+     * Delete directly the storage documents of a change request that has been splitted: contrarily to
+     * {@link #delete(ChangeRequest)} this doesn't rely on a refactoring job, since we know exactly which documents
+     * needs to be deleted: the file changes, the discussions that have already been copied to the splitted change
+     * requests, and the change request document itself.
+     *
+     * @param changeRequest the change request that has been splitted
+     * @throws ChangeRequestException in case of problem when deleting the documents
+     */
+    private void deleteSplittedChangeRequest(ChangeRequest changeRequest) throws ChangeRequestException
+    {
+        DocumentReference changeRequestDocument =
+            this.changeRequestDocumentReferenceResolver.resolve(changeRequest);
+        List<String> discussionDocuments = this.getDiscussionDocuments(changeRequestDocument);
+        XWikiContext context = this.contextProvider.get();
+        XWiki wiki = context.getWiki();
+        this.lockManager.lock(changeRequest.getId());
+        try {
+            for (DocumentReference modifiedDocument : changeRequest.getModifiedDocuments()) {
+                this.fileChangeStorageManager.deleteFileChangeStorageDocumentFor(changeRequest, modifiedDocument);
+            }
+            for (String discussionDocument : discussionDocuments) {
+                DocumentReference discussionDocumentReference =
+                    this.documentReferenceResolver.resolve(discussionDocument, changeRequestDocument);
+                wiki.deleteDocument(wiki.getDocument(discussionDocumentReference, context), context);
+            }
+            wiki.deleteDocument(wiki.getDocument(changeRequestDocument, context), context);
+            this.changeRequestStorageCacheManager.invalidate(changeRequest.getId());
+        } catch (XWikiException e) {
+            throw new ChangeRequestException(
+                String.format("Error while performing deletion of change request document [%s]",
+                    changeRequestDocument),
+                e);
+        } finally {
+            this.lockManager.unlock(changeRequest.getId());
+        }
+    }
+
+    private List<String> getDiscussionDocuments(DocumentReference changeRequestDocument)
+        throws ChangeRequestException
+    {
+        // The discussions of a change request are stored in the Discussions space of the change request.
+        SpaceReference discussionsSpace =
+            new SpaceReference("Discussions", changeRequestDocument.getLastSpaceReference());
+        String serializedSpace = this.localEntityReferenceSerializer.serialize(discussionsSpace);
+        try {
+            Query query = this.queryManager.createQuery(
+                "where doc.space = :space or doc.space like :spacePrefix escape '!'", Query.HQL);
+            query.bindValue("space", serializedSpace);
+            query.bindValue("spacePrefix", String.format("%s.%%", serializedSpace.replaceAll("([!%_])", "!$1")));
+            query.setWiki(changeRequestDocument.getWikiReference().getName());
+            return query.execute();
+        } catch (QueryException e) {
+            throw new ChangeRequestException(
+                String.format("Error while getting the discussion documents of change request document [%s]",
+                    changeRequestDocument), e);
+        }
+    }
+
     @Override
     public void refactorTargetEntity(ChangeRequest changeRequest, DocumentReference source, DocumentReference target,
         boolean isDeep)
@@ -146,6 +146,9 @@ public class DefaultFileChangeStorageManager implements FileChangeStorageManager
     @Inject
     private ChangeRequestStorageCacheManager changeRequestStorageCacheManager;
 
+    @Inject
+    private ChangeRequestLockManager lockManager;
+
     @Inject
     private Logger logger;
 
@@ -184,6 +187,9 @@ public class DefaultFileChangeStorageManager implements FileChangeStorageManager
         if (!fileChange.isSaved()) {
             XWikiContext context = this.contextProvider.get();
             XWiki wiki = context.getWiki();
+            ChangeRequest changeRequest = fileChange.getChangeRequest();
+            XWikiDocument fileChangeDocument;
+            this.lockManager.lock(changeRequest.getId());
             try {
                 if (fileChange.getModifiedDocument() != null) {
                     XWikiDocument modifiedDocument = (XWikiDocument) fileChange.getModifiedDocument();
@@ -199,9 +205,8 @@ public class DefaultFileChangeStorageManager implements FileChangeStorageManager
                     fileChange.setId(fileChangeId);
                 }
 
-                ChangeRequest changeRequest = fileChange.getChangeRequest();
                 String filename = this.getFileChangeFileName(fileChange.getId());
-                XWikiDocument fileChangeDocument = this.getFileChangeStorageDocument(changeRequest,
+                fileChangeDocument = this.getFileChangeStorageDocument(changeRequest,
                     fileChange.getTargetEntity()).clone();
                 fileChangeDocument.setHidden(true);
 
@@ -222,11 +227,13 @@ public class DefaultFileChangeStorageManager implements FileChangeStorageManager
                     wiki.saveDocument(fileChangeDocument, "Creation of the filechange", context);
                 }
                 fileChange.setSaved(true);
-                this.observationManager.notify(new FileChangeDocumentSavedEvent(), fileChange, fileChangeDocument);
             } catch (XWikiException | IOException e) {
                 throw new ChangeRequestException(
                     String.format("Error while storing filechange [%s]", fileChange), e);
+            } finally {
+                this.lockManager.unlock(changeRequest.getId());
             }
+            this.observationManager.notify(new FileChangeDocumentSavedEvent(), fileChange, fileChangeDocument);
         }
     }
 
@@ -21,6 +21,7 @@ package org.xwiki.contrib.changerequest.internal.storage;
 
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -79,9 +80,16 @@ public class DefaultReviewStorageManager implements ReviewStorageManager
     @Named("current")
     private UserReferenceResolver<String> userReferenceResolver;
 
+    @Inject
+    @Named("document")
+    private UserReferenceResolver<DocumentReference> documentUserReferenceResolver;
+
     @Inject
     private UserReferenceConverter userReferenceConverter;
 
+    @Inject
+    private ChangeRequestLockManager lockManager;
+
     @Inject
     private Logger logger;
 
@@ -94,25 +102,14 @@ public class DefaultReviewStorageManager implements ReviewStorageManager
                 this.changeRequestDocumentReferenceResolver.resolve(changeRequest);
 
             XWikiContext context = contextProvider.get();
+            this.lockManager.lock(changeRequest.getId());
             try {
                 XWikiDocument changeRequestDoc = context.getWiki().getDocument(changeRequestDocReference, context)
                     .clone();
-                BaseObject xObject;
                 // FIXME: use localization
-                String saveComment = "Add new review";
-                if (StringUtils.isEmpty(review.getId())) {
-                    int xObjectNumber = changeRequestDoc.createXObject(REVIEW_XCLASS, context);
-                    xObject = changeRequestDoc.getXObject(REVIEW_XCLASS, xObjectNumber);
-                    review.setId(String.format(ID_FORMAT, xObjectNumber));
-                } else if (review.isNew()) {
-                    int xObjectNumber = Integer.parseInt(review.getId().split(REVIEW_ID_SEPARATOR)[1]);
-                    xObject = changeRequestDoc.getXObject(REVIEW_XCLASS, xObjectNumber, true, context);
-                } else {
-                    int xObjectNumber = Integer.parseInt(review.getId().split(REVIEW_ID_SEPARATOR)[1]);
-                    xObject = changeRequestDoc.getXObject(REVIEW_XCLASS, xObjectNumber);
-                    saveComment = "Update existing review";
-                }
-                this.fillXObjectValues(xObject, review);
+                String saveComment = (review.isNew() || StringUtils.isEmpty(review.getId())) ? "Add new review"
+                    : "Update existing review";
+                this.fillXObjectValues(this.getReviewXObject(changeRequestDoc, review), review);
                 changeRequestDoc.getAuthors().setOriginalMetadataAuthor(review.getAuthor());
 
                 // Bulletproofing: ensure to not save if there's no change
@@ -126,10 +123,69 @@ public class DefaultReviewStorageManager implements ReviewStorageManager
                 review.setNew(false);
             } catch (XWikiException e) {
                 throw new ChangeRequestException("Error while saving review", e);
+            } finally {
+                this.lockManager.unlock(changeRequest.getId());
+            }
+        }
+    }
+
+    @Override
+    public void saveReviews(ChangeRequest changeRequest, List<ChangeRequestReview> reviews)
+        throws ChangeRequestException
+    {
+        List<ChangeRequestReview> reviewsToSave =
+            reviews.stream().filter(review -> !review.isSaved()).collect(Collectors.toList());
+        if (!reviewsToSave.isEmpty()) {
+            DocumentReference changeRequestDocReference =
+                this.changeRequestDocumentReferenceResolver.resolve(changeRequest);
+
+            XWikiContext context = contextProvider.get();
+            this.lockManager.lock(changeRequest.getId());
+            try {
+                XWikiDocument changeRequestDoc = context.getWiki().getDocument(changeRequestDocReference, context)
+                    .clone();
+                for (ChangeRequestReview review : reviewsToSave) {
+                    this.fillXObjectValues(this.getReviewXObject(changeRequestDoc, review), review);
+                }
+                changeRequestDoc.getAuthors()
+                    .setOriginalMetadataAuthor(this.documentUserReferenceResolver.resolve(context.getUserReference()));
+
+                if (changeRequestDoc.isMetaDataDirty()) {
+                    // FIXME: use localization
+                    context.getWiki().saveDocument(changeRequestDoc, "Save reviews", context);
+                }
+                for (ChangeRequestReview review : reviewsToSave) {
+                    review.setSaved(true);
+                    review.setNew(false);
+                }
+            } catch (XWikiException e) {
+                throw new ChangeRequestException(
+                    String.format("Error while saving reviews of change request [%s]", changeRequest.getId()), e);
+            } finally {
+                this.lockManager.unlock(changeRequest.getId());
             }
         }
     }
 
+    private BaseObject getReviewXObject(XWikiDocument changeRequestDoc, ChangeRequestReview review)
+        throws XWikiException
+    {
+        XWikiContext context = contextProvider.get();
+        BaseObject xObject;
+        if (StringUtils.isEmpty(review.getId())) {
+            int xObjectNumber = changeRequestDoc.createXObject(REVIEW_XCLASS, context);
+            xObject = changeRequestDoc.getXObject(REVIEW_XCLASS, xObjectNumber);
+            review.setId(String.format(ID_FORMAT, xObjectNumber));
+        } else if (review.isNew()) {
+            int xObjectNumber = Integer.parseInt(review.getId().split(REVIEW_ID_SEPARATOR)[1]);
+            xObject = changeRequestDoc.getXObject(REVIEW_XCLASS, xObjectNumber, true, context);
+        } else {
+            int xObjectNumber = Integer.parseInt(review.getId().split(REVIEW_ID_SEPARATOR)[1]);
+            xObject = changeRequestDoc.getXObject(REVIEW_XCLASS, xObjectNumber);
+        }
+        return xObject;
+    }
+
     private void fillXObjectValues(BaseObject xObject, ChangeRequestReview review)
     {
         XWikiContext context = contextProvider.get();
@@ -30,6 +30,8 @@ import org.xwiki.test.junit5.mockito.MockComponent;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -59,4 +61,17 @@ class ChangeRequestDocumentReferenceResolverTest
             new DocumentReference("WebHome", new SpaceReference("foo", spaceReference));
         assertEquals(expectedReference, this.resolver.resolve(changeRequest));
     }
+
+    @Test
+    void resolveWithLocation()
+    {
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+        when(changeRequest.getId()).thenReturn("foo");
+
+        SpaceReference spaceReference = new SpaceReference("mywiki", "MySpace", "Something");
+        DocumentReference expectedReference =
+            new DocumentReference("WebHome", new SpaceReference("foo", spaceReference));
+        assertEquals(expectedReference, this.resolver.resolve(changeRequest, spaceReference));
+        verify(this.configuration, never()).getChangeRequestSpaceLocation();
+    }
 }
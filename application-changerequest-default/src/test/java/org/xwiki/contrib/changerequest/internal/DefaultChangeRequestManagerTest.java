@@ -19,12 +19,19 @@
  */
 package org.xwiki.contrib.changerequest.internal;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Deque;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Provider;
 
@@ -41,7 +48,9 @@ import org.xwiki.contrib.changerequest.ChangeRequestReview;
 import org.xwiki.contrib.changerequest.ChangeRequestStatus;
 import org.xwiki.contrib.changerequest.FileChange;
 import org.xwiki.contrib.changerequest.MergeApprovalStrategy;
+import org.xwiki.contrib.changerequest.ReviewInvalidationReason;
 import org.xwiki.contrib.changerequest.events.ChangeRequestStatusChangedEvent;
+import org.xwiki.contrib.changerequest.internal.storage.ChangeRequestLockManager;
 import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
 import org.xwiki.contrib.changerequest.storage.FileChangeStorageManager;
 import org.xwiki.contrib.changerequest.storage.ReviewStorageManager;
@@ -89,6 +98,10 @@ import static org.mockito.Mockito.when;
 @ComponentTest
 class DefaultChangeRequestManagerTest
 {
+    private static final int CONCURRENT_THREADS = 4;
+
+    private static final int CONCURRENT_ITERATIONS = 200;
+
     @InjectMockComponents
     private DefaultChangeRequestManager manager;
 
@@ -134,10 +147,17 @@ class DefaultChangeRequestManagerTest
     @MockComponent
     private ContextualLocalizationManager contextualLocalizationManager;
 
+    @MockComponent
+    private ChangeRequestLockManager lockManager;
+
     private XarExtensionScriptService xarExtensionScriptService;
 
     private XWikiContext context;
 
+    private int storedReviews;
+
+    private ChangeRequestStatus storedStatus;
+
     @BeforeComponent
     void beforeComponent() throws Exception
     {
@@ -175,7 +195,7 @@ class DefaultChangeRequestManagerTest
 
         when(changeRequest.getStatus()).thenReturn(ChangeRequestStatus.DRAFT);
         this.manager.computeReadyForMergingStatus(changeRequest);
-        verifyNoInteractions(this.changeRequestStorageManager);
+        verify(this.changeRequestStorageManager, never()).save(any(), any());
         verify(this.configuration, never()).getMergeApprovalStrategy();
 
         when(changeRequest.getStatus()).thenReturn(ChangeRequestStatus.READY_FOR_REVIEW);
@@ -186,12 +206,12 @@ class DefaultChangeRequestManagerTest
         when(strategy.canBeMerged(changeRequest)).thenReturn(false);
         this.manager.computeReadyForMergingStatus(changeRequest);
         verify(strategy).canBeMerged(changeRequest);
-        verifyNoInteractions(this.changeRequestStorageManager);
+        verify(this.changeRequestStorageManager, never()).save(any(), any());
 
         when(strategy.canBeMerged(changeRequest)).thenReturn(true);
         when(this.changeRequestMergeManager.hasConflict(changeRequest)).thenReturn(true);
         this.manager.computeReadyForMergingStatus(changeRequest);
-        verifyNoInteractions(this.changeRequestStorageManager);
+        verify(this.changeRequestStorageManager, never()).save(any(), any());
         verify(this.changeRequestMergeManager).hasConflict(changeRequest);
 
         when(this.changeRequestMergeManager.hasConflict(changeRequest)).thenReturn(false);
@@ -224,7 +244,7 @@ class DefaultChangeRequestManagerTest
         when(changeRequest.getStatus()).thenReturn(ChangeRequestStatus.READY_FOR_REVIEW);
 
         this.manager.updateStatus(changeRequest, ChangeRequestStatus.READY_FOR_REVIEW);
-        verifyNoInteractions(this.changeRequestStorageManager);
+        verify(this.changeRequestStorageManager, never()).save(any(), any());
         verifyNoInteractions(this.observationManager);
 
         when(changeRequest.getStatus()).thenReturn(ChangeRequestStatus.DRAFT);
@@ -237,6 +257,48 @@ class DefaultChangeRequestManagerTest
             eq(new ChangeRequestStatus[] {ChangeRequestStatus.DRAFT, ChangeRequestStatus.READY_FOR_REVIEW}));
     }
 
+    @Test
+    void updateStatusWithOutdatedChangeRequest() throws ChangeRequestException
+    {
+        // The given instance is outdated: the stored change request has already been closed.
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+        when(changeRequest.getId()).thenReturn("someId");
+        when(changeRequest.getStatus()).thenReturn(ChangeRequestStatus.READY_FOR_REVIEW);
+        ChangeRequest storedChangeRequest = mock(ChangeRequest.class);
+        when(storedChangeRequest.getId()).thenReturn("someId");
+        when(storedChangeRequest.getStatus()).thenReturn(ChangeRequestStatus.CLOSED);
+        when(this.changeRequestStorageManager.load("someId")).thenReturn(Optional.of(storedChangeRequest));
+
+        this.manager.updateStatus(changeRequest, ChangeRequestStatus.CLOSED);
+        verify(this.changeRequestStorageManager, never()).save(any(), any());
+        verifyNoInteractions(this.observationManager);
+
+        when(storedChangeRequest.getStatus()).thenReturn(ChangeRequestStatus.DRAFT);
+        this.manager.updateStatus(changeRequest, ChangeRequestStatus.CLOSED);
+        verify(storedChangeRequest).setStatus(ChangeRequestStatus.CLOSED);
+        verify(changeRequest).setStatus(ChangeRequestStatus.CLOSED);
+        verify(this.changeRequestStorageManager).save(storedChangeRequest, "Update status");
+        verify(this.observationManager).notify(any(ChangeRequestStatusChangedEvent.class), eq("someId"),
+            eq(new ChangeRequestStatus[] {ChangeRequestStatus.DRAFT, ChangeRequestStatus.CLOSED}));
+    }
+
+    @Test
+    void computeReadyForMergingStatusWithOutdatedChangeRequest() throws Exception
+    {
+        // The given instance is outdated: the stored change request has already been merged.
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+        when(changeRequest.getId()).thenReturn("someId");
+        when(changeRequest.getStatus()).thenReturn(ChangeRequestStatus.READY_FOR_REVIEW);
+        ChangeRequest storedChangeRequest = mock(ChangeRequest.class);
+        when(storedChangeRequest.getStatus()).thenReturn(ChangeRequestStatus.MERGED);
+        when(this.changeRequestStorageManager.load("someId")).thenReturn(Optional.of(storedChangeRequest));
+
+        this.manager.computeReadyForMergingStatus(changeRequest);
+        verify(this.configuration, never()).getMergeApprovalStrategy();
+        verify(this.changeRequestStorageManager, never()).save(any(), any());
+        verifyNoInteractions(this.observationManager);
+    }
+
     @Test
     void addReview() throws ChangeRequestException
     {
@@ -326,4 +388,134 @@ class DefaultChangeRequestManagerTest
         when(baseClass.getProperties()).thenReturn(new String[] {"foo"});
         assertFalse(this.manager.canDeletionBeRequested(documentReference));
     }
+
+    @Test
+    void invalidateReviews() throws Exception
+    {
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+        UserReference author = mock(UserReference.class);
+        ChangeRequestReview approvedReview1 = new ChangeRequestReview(changeRequest, true, author);
+        ChangeRequestReview approvedReview2 = new ChangeRequestReview(changeRequest, true, author);
+        ChangeRequestReview rejectedReview = new ChangeRequestReview(changeRequest, false, author);
+        ChangeRequestReview outdatedReview = new ChangeRequestReview(changeRequest, true, author);
+        outdatedReview.setValid(false);
+        outdatedReview.setSaved(true);
+        when(changeRequest.getReviews())
+            .thenReturn(List.of(approvedReview1, rejectedReview, approvedReview2, outdatedReview));
+
+        this.manager.invalidateReviews(changeRequest, ReviewInvalidationReason.NEW_CHANGE);
+
+        verify(this.reviewStorageManager).saveReviews(changeRequest, List.of(approvedReview1, approvedReview2));
+        verify(this.reviewStorageManager, never()).save(any());
+        assertFalse(approvedReview1.isValid());
+        assertFalse(approvedReview1.isSaved());
+        assertEquals(ReviewInvalidationReason.NEW_CHANGE, approvedReview1.getReviewInvalidationReason());
+        assertFalse(approvedReview2.isValid());
+        assertTrue(rejectedReview.isValid());
+        assertTrue(outdatedReview.isSaved());
+    }
+
+    @Test
+    void concurrentModifications() throws Exception
+    {
+        // Use actual locks to check that the read-decide-save sequences of the manager are serialized.
+        ChangeRequestLockManager actualLockManager = new ChangeRequestLockManager();
+        doAnswer(invocation -> {
+            actualLockManager.lock(invocation.getArgument(0));
+            return null;
+        }).when(this.lockManager).lock(any());
+        doAnswer(invocation -> {
+            actualLockManager.unlock(invocation.getArgument(0));
+            return null;
+        }).when(this.lockManager).unlock(any());
+
+        String changeRequestId = "cr1";
+        ChangeRequest changeRequest = new ChangeRequest()
+            .setId(changeRequestId)
+            .setStatus(ChangeRequestStatus.READY_FOR_REVIEW);
+
+        // The change request can only be merged with an even number of reviews, so that its status keeps changing.
+        String approvalStrategyHint = "approve";
+        when(this.configuration.getMergeApprovalStrategy()).thenReturn(approvalStrategyHint);
+        MergeApprovalStrategy strategy =
+            this.componentManager.registerMockComponent(MergeApprovalStrategy.class, approvalStrategyHint);
+        when(strategy.canBeMerged(any())).then(invocation -> changeRequest.getReviews().size() % 2 == 0);
+
+        // Non atomic read-modify-write of the stored change request, performed under the lock as the actual storage.
+        doAnswer(invocation -> {
+            actualLockManager.lock(changeRequestId);
+            try {
+                int reviews = changeRequest.getReviews().size();
+                ChangeRequestStatus status = changeRequest.getStatus();
+                Thread.yield();
+                this.storedReviews = reviews;
+                this.storedStatus = status;
+            } finally {
+                actualLockManager.unlock(changeRequestId);
+            }
+            return null;
+        }).when(this.changeRequestStorageManager).save(eq(changeRequest), any());
+
+        AtomicInteger mergingTransitions = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) instanceof ChangeRequestStatusChangedEvent) {
+                ChangeRequestStatus[] statuses = invocation.getArgument(2);
+                if (statuses[1] == ChangeRequestStatus.READY_FOR_MERGING) {
+                    mergingTransitions.incrementAndGet();
+                } else {
+                    mergingTransitions.decrementAndGet();
+                }
+            }
+            return null;
+        }).when(this.observationManager).notify(any(), eq(changeRequestId), any());
+
+        List<UserReference> reviewers = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_THREADS * CONCURRENT_ITERATIONS; i++) {
+            reviewers.add(mock(UserReference.class));
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(CONCURRENT_THREADS * 3);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < CONCURRENT_THREADS; i++) {
+                List<UserReference> threadReviewers =
+                    reviewers.subList(i * CONCURRENT_ITERATIONS, (i + 1) * CONCURRENT_ITERATIONS);
+                futures.add(executorService.submit(() -> {
+                    startLatch.await();
+                    for (UserReference reviewer : threadReviewers) {
+                        this.manager.addReview(changeRequest, reviewer, true);
+                    }
+                    return null;
+                }));
+                futures.add(executorService.submit(() -> {
+                    startLatch.await();
+                    for (int j = 0; j < CONCURRENT_ITERATIONS; j++) {
+                        this.manager.computeReadyForMergingStatus(changeRequest);
+                    }
+                    return null;
+                }));
+                futures.add(executorService.submit(() -> {
+                    startLatch.await();
+                    for (int j = 0; j < CONCURRENT_ITERATIONS; j++) {
+                        this.changeRequestStorageManager.save(changeRequest, "save");
+                    }
+                    return null;
+                }));
+            }
+            startLatch.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertEquals(CONCURRENT_THREADS * CONCURRENT_ITERATIONS, changeRequest.getReviews().size());
+        assertEquals(changeRequest.getReviews().size(), this.storedReviews);
+        assertEquals(changeRequest.getStatus(), this.storedStatus);
+        // Each status change is decided from the latest status: the transitions must lead to the final status.
+        assertEquals(changeRequest.getStatus() == ChangeRequestStatus.READY_FOR_MERGING ? 1 : 0,
+            mergingTransitions.get());
+    }
 }
@@ -0,0 +1,241 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.contrib.changerequest.ChangeRequest;
+import org.xwiki.contrib.changerequest.ChangeRequestRightsManager;
+import org.xwiki.contrib.changerequest.ChangeRequestStatus;
+import org.xwiki.contrib.changerequest.internal.jobs.ChangeRequestSplitRequest;
+import org.xwiki.contrib.changerequest.internal.jobs.RightsSynchronizationRequest;
+import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
+import org.xwiki.contrib.rights.SecurityRuleDiff;
+import org.xwiki.job.Job;
+import org.xwiki.job.JobExecutor;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.security.authorization.ReadableSecurityRule;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWikiContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link RightsSynchronizationManager}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class RightsSynchronizationManagerTest
+{
+    @InjectMockComponents
+    private RightsSynchronizationManager synchronizationManager;
+
+    @MockComponent
+    private ChangeRequestStorageManager changeRequestStorageManager;
+
+    @MockComponent
+    private ChangeRequestRightsManager changeRequestRightsManager;
+
+    @MockComponent
+    private DocumentReferenceResolver<ChangeRequest> changeRequestDocumentReferenceResolver;
+
+    @MockComponent
+    private JobExecutor jobExecutor;
+
+    @MockComponent
+    private Provider<XWikiContext> contextProvider;
+
+    private DocumentReference currentUser;
+
+    @BeforeEach
+    void setup()
+    {
+        XWikiContext context = mock(XWikiContext.class);
+        when(this.contextProvider.get()).thenReturn(context);
+        this.currentUser = mock(DocumentReference.class, "currentUser");
+        when(context.getUserReference()).thenReturn(this.currentUser);
+        when(context.getWikiId()).thenReturn("xwiki");
+    }
+
+    @Test
+    void addRightsUpdateAndConsume() throws Exception
+    {
+        EntityReference reference1 = new SpaceReference("Foo", new WikiReference("xwiki"));
+        EntityReference reference2 = new DocumentReference("xwiki", "Bar", "WebHome");
+        SecurityRuleDiff diff1 = mock(SecurityRuleDiff.class, "diff1");
+        SecurityRuleDiff diff2 = mock(SecurityRuleDiff.class, "diff2");
+        SecurityRuleDiff diff3 = mock(SecurityRuleDiff.class, "diff3");
+
+        when(this.jobExecutor.execute(eq(RightsSynchronizationRequest.RIGHTS_SYNCHRONIZATION_JOB), any()))
+            .then(invocationOnMock -> {
+                RightsSynchronizationRequest request = invocationOnMock.getArgument(1);
+                assertEquals(RightsSynchronizationManager.SYNCHRONIZATION_DELAY, request.getDelay());
+                assertEquals(this.currentUser, request.getUserReference());
+                assertEquals("xwiki", request.getWikiId());
+                return mock(Job.class);
+            });
+
+        this.synchronizationManager.addRightsUpdate(reference1, List.of(diff1));
+        this.synchronizationManager.addRightsUpdate(reference2, List.of(diff2));
+        this.synchronizationManager.addRightsUpdate(reference1, List.of(diff3));
+
+        // Only one job is started for the whole burst
+        verify(this.jobExecutor).execute(eq(RightsSynchronizationRequest.RIGHTS_SYNCHRONIZATION_JOB), any());
+
+        RightsSynchronizationRequest request = new RightsSynchronizationRequest();
+        request.setWikiId("xwiki");
+        request.setUserReference(this.currentUser);
+        assertEquals(Map.of(reference1, List.of(diff1, diff3), reference2, List.of(diff2)),
+            this.synchronizationManager.consumePendingItems(request));
+        assertTrue(this.synchronizationManager.consumePendingItems(request).isEmpty());
+
+        // Once the queue is consumed, a new update starts a new job
+        this.synchronizationManager.addRightsUpdate(reference2, List.of(diff1));
+        verify(this.jobExecutor, times(2))
+            .execute(eq(RightsSynchronizationRequest.RIGHTS_SYNCHRONIZATION_JOB), any());
+    }
+
+    @Test
+    void synchronizeRights() throws Exception
+    {
+        SpaceReference source = new SpaceReference("Something", new WikiReference("foo"));
+        DocumentReference otherSource = new DocumentReference("foo", "Other", "WebHome");
+
+        ChangeRequest changeRequest1 = mock(ChangeRequest.class);
+        ChangeRequest changeRequest2 = mock(ChangeRequest.class);
+        ChangeRequest changeRequest3 = mock(ChangeRequest.class);
+        DocumentReference changeRequest1Ref = new DocumentReference("foo", List.of("ChangeRequest", "cr1"), "WebHome");
+        DocumentReference changeRequest2Ref = new DocumentReference("foo", List.of("ChangeRequest", "cr2"), "WebHome");
+        DocumentReference changeRequest3Ref = new DocumentReference("foo", List.of("ChangeRequest", "cr3"), "WebHome");
+        when(this.changeRequestDocumentReferenceResolver.resolve(changeRequest1)).thenReturn(changeRequest1Ref);
+        when(this.changeRequestDocumentReferenceResolver.resolve(changeRequest2)).thenReturn(changeRequest2Ref);
+        when(this.changeRequestDocumentReferenceResolver.resolve(changeRequest3)).thenReturn(changeRequest3Ref);
+
+        when(this.changeRequestStorageManager.findChangeRequestReferenceTargeting(source))
+            .thenReturn(Arrays.asList(changeRequest1Ref, changeRequest2Ref, changeRequest3Ref));
+        when(this.changeRequestStorageManager.findChangeRequestReferenceTargeting(otherSource))
+            .thenReturn(Collections.singletonList(changeRequest1Ref));
+        when(this.changeRequestStorageManager.load("cr1")).thenReturn(Optional.of(changeRequest1));
+        when(this.changeRequestStorageManager.load("cr2")).thenReturn(Optional.of(changeRequest2));
+        when(this.changeRequestStorageManager.load("cr3")).thenReturn(Optional.of(changeRequest3));
+
+        SecurityRuleDiff diff1 = mock(SecurityRuleDiff.class);
+        SecurityRuleDiff diff2 = mock(SecurityRuleDiff.class);
+        SecurityRuleDiff diff3 = mock(SecurityRuleDiff.class);
+        List<SecurityRuleDiff> data = Arrays.asList(diff1, diff2, diff3);
+
+        // rule subjects
+        DocumentReference user1 = mock(DocumentReference.class);
+        DocumentReference user2 = mock(DocumentReference.class);
+
+        DocumentReference groupA = mock(DocumentReference.class);
+        DocumentReference groupB = mock(DocumentReference.class);
+
+        ReadableSecurityRule ruleDiff1 = mock(ReadableSecurityRule.class);
+        ReadableSecurityRule ruleDiff2 = mock(ReadableSecurityRule.class);
+
+        ReadableSecurityRule rule1Diff3 = mock(ReadableSecurityRule.class);
+        ReadableSecurityRule rule2Diff3 = mock(ReadableSecurityRule.class);
+
+        when(diff1.getCurrentRule()).thenReturn(ruleDiff1);
+        when(diff2.getPreviousRule()).thenReturn(ruleDiff2);
+        when(diff3.getPreviousRule()).thenReturn(rule1Diff3);
+        when(diff3.getCurrentRule()).thenReturn(rule2Diff3);
+
+        when(ruleDiff1.match(Right.VIEW)).thenReturn(true);
+        when(ruleDiff2.match(Right.VIEW)).thenReturn(false);
+        when(rule1Diff3.match(Right.VIEW)).thenReturn(true);
+        when(rule2Diff3.match(Right.VIEW)).thenReturn(false);
+
+        // should never be used
+        when(ruleDiff2.getGroups()).thenReturn(Collections.singletonList(mock(DocumentReference.class)));
+
+        when(ruleDiff1.getGroups()).thenReturn(Collections.singletonList(groupA));
+        when(rule1Diff3.getUsers()).thenReturn(Arrays.asList(user1, user2));
+        when(rule2Diff3.getUsers()).thenReturn(Collections.singletonList(user1));
+        when(rule2Diff3.getGroups()).thenReturn(Collections.singletonList(groupB));
+
+        when(changeRequest1.getStatus()).thenReturn(ChangeRequestStatus.READY_FOR_REVIEW);
+        when(changeRequest2.getStatus()).thenReturn(ChangeRequestStatus.MERGED);
+        when(changeRequest3.getStatus()).thenReturn(ChangeRequestStatus.CLOSED);
+
+        when(this.changeRequestRightsManager.isViewAccessStillConsistent(changeRequest1,
+            Stream.of(user1, user2, groupA, groupB).collect(Collectors.toSet())))
+            .thenReturn(false);
+
+        when(this.jobExecutor.execute(eq(ChangeRequestSplitRequest.CHANGE_REQUEST_SPLIT_JOB), any()))
+            .then(invocationOnMock -> {
+                ChangeRequestSplitRequest request = invocationOnMock.getArgument(1);
+                assertEquals(List.of(changeRequest1Ref), request.getEntityReferences());
+                assertEquals(List.of(source), request.getUpdatedReferences());
+                assertEquals(this.currentUser, request.getUserReference());
+                return mock(Job.class);
+            });
+
+        Map<EntityReference, List<SecurityRuleDiff>> rightsUpdates = new LinkedHashMap<>();
+        rightsUpdates.put(source, data);
+        rightsUpdates.put(otherSource, data);
+        this.synchronizationManager.synchronizeRights(rightsUpdates);
+
+        verify(this.changeRequestRightsManager).isViewAccessStillConsistent(changeRequest1,
+            Stream.of(user1, user2, groupA, groupB).collect(Collectors.toSet()));
+        verify(this.changeRequestRightsManager).applyChanges(changeRequest3, data);
+        verify(this.changeRequestRightsManager, never()).applyChanges(eq(changeRequest1), any());
+        verify(this.changeRequestRightsManager, never()).applyChanges(eq(changeRequest2), any());
+        verify(this.jobExecutor).execute(eq(ChangeRequestSplitRequest.CHANGE_REQUEST_SPLIT_JOB), any());
+        verify(this.changeRequestStorageManager, never()).split(any());
+
+        // Each change request is loaded only once, even when impacted by several updates.
+        verify(this.changeRequestStorageManager).load("cr1");
+        verify(this.changeRequestStorageManager).load("cr2");
+        verify(this.changeRequestStorageManager).load("cr3");
+        verify(this.changeRequestStorageManager, never()).findChangeRequestTargeting(any(SpaceReference.class));
+        verify(this.changeRequestStorageManager, never()).findChangeRequestTargeting(any(DocumentReference.class));
+    }
+}
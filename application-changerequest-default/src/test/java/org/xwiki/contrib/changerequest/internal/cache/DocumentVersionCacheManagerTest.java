@@ -0,0 +1,143 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.cache;
+
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link DocumentVersionCacheManager}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class DocumentVersionCacheManagerTest
+{
+    private static final DocumentReference DOCUMENT_REFERENCE = new DocumentReference("xwiki", "Space", "Page");
+
+    @InjectMockComponents
+    private DocumentVersionCacheManager cacheManager;
+
+    @MockComponent
+    private CacheManager xwikiCacheManager;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    private Cache<Map<String, XWikiDocument>> documentCache;
+
+    @BeforeComponent
+    void beforeComponent() throws CacheException
+    {
+        this.documentCache = mock(Cache.class);
+        when(this.xwikiCacheManager.createNewCache(any())).thenReturn((Cache) this.documentCache);
+    }
+
+    @BeforeEach
+    void setup()
+    {
+        when(this.entityReferenceSerializer.serialize(any())).thenReturn("xwiki:Space.Page");
+    }
+
+    private XWikiDocument mockDocument(String version)
+    {
+        XWikiDocument document = mock(XWikiDocument.class, version);
+        when(document.getDocumentReference()).thenReturn(DOCUMENT_REFERENCE);
+        when(document.getLanguage()).thenReturn("fr");
+        when(document.getVersion()).thenReturn(version);
+        return document;
+    }
+
+    @Test
+    void getDocument()
+    {
+        assertNull(this.cacheManager.getDocument(DOCUMENT_REFERENCE, "fr", "1.1"));
+
+        XWikiDocument document = mock(XWikiDocument.class);
+        XWikiDocument clone = mock(XWikiDocument.class, "clone");
+        when(document.clone()).thenReturn(clone);
+        when(this.documentCache.get("fr:xwiki:Space.Page")).thenReturn(Map.of("1.1", document));
+
+        assertSame(clone, this.cacheManager.getDocument(DOCUMENT_REFERENCE, "fr", "1.1"));
+        assertNull(this.cacheManager.getDocument(DOCUMENT_REFERENCE, "fr", "1.2"));
+        assertNull(this.cacheManager.getDocument(DOCUMENT_REFERENCE, "", "1.1"));
+    }
+
+    @Test
+    void setDocument()
+    {
+        XWikiDocument document = mockDocument("1.1");
+        XWikiDocument clone = mock(XWikiDocument.class, "clone");
+        when(document.clone()).thenReturn(clone);
+
+        this.cacheManager.setDocument(document);
+
+        ArgumentCaptor<Map<String, XWikiDocument>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(this.documentCache).set(eq("fr:xwiki:Space.Page"), captor.capture());
+        Map<String, XWikiDocument> versions = captor.getValue();
+        assertEquals(Map.of("1.1", clone), versions);
+
+        // Only the last versions are kept.
+        when(this.documentCache.get("fr:xwiki:Space.Page")).thenReturn(versions);
+        for (int i = 2; i <= DocumentVersionCacheManager.MAX_VERSIONS + 1; i++) {
+            this.cacheManager.setDocument(mockDocument(i + ".1"));
+        }
+        assertEquals(DocumentVersionCacheManager.MAX_VERSIONS, versions.size());
+        assertFalse(versions.containsKey("1.1"));
+        assertTrue(versions.containsKey((DocumentVersionCacheManager.MAX_VERSIONS + 1) + ".1"));
+    }
+
+    @Test
+    void invalidate()
+    {
+        this.cacheManager.invalidate(new DocumentReference(DOCUMENT_REFERENCE, Locale.FRENCH));
+        verify(this.documentCache).remove("fr:xwiki:Space.Page");
+
+        this.cacheManager.invalidate(DOCUMENT_REFERENCE);
+        verify(this.documentCache).remove(":xwiki:Space.Page");
+    }
+}
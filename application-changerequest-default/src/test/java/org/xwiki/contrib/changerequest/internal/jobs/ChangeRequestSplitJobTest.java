@@ -0,0 +1,97 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.jobs;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.contrib.changerequest.ChangeRequest;
+import org.xwiki.contrib.changerequest.ChangeRequestRightsManager;
+import org.xwiki.contrib.changerequest.ChangeRequestStatus;
+import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ChangeRequestSplitJob}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class ChangeRequestSplitJobTest
+{
+    @InjectMockComponents
+    private ChangeRequestSplitJob splitJob;
+
+    @MockComponent
+    private ChangeRequestStorageManager changeRequestStorageManager;
+
+    @MockComponent
+    private ChangeRequestRightsManager changeRequestRightsManager;
+
+    @Test
+    void process() throws Exception
+    {
+        DocumentReference updatedReference = new DocumentReference("xwiki", "Foo", "WebHome");
+        SpaceReference updatedSpace = updatedReference.getLastSpaceReference();
+
+        ChangeRequestSplitRequest request = new ChangeRequestSplitRequest();
+        request.setUpdatedReferences(List.of(updatedSpace));
+        this.splitJob.initialize(request);
+
+        DocumentReference crReference = new DocumentReference("xwiki", List.of("ChangeRequest", "cr1"), "WebHome");
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+        when(changeRequest.getStatus()).thenReturn(ChangeRequestStatus.READY_FOR_REVIEW);
+        when(this.changeRequestStorageManager.load("cr1")).thenReturn(Optional.of(changeRequest));
+
+        ChangeRequest splitted1 = mock(ChangeRequest.class, "splitted1");
+        ChangeRequest splitted2 = mock(ChangeRequest.class, "splitted2");
+        when(splitted1.getModifiedDocuments())
+            .thenReturn(Set.of(new DocumentReference("xwiki", "Bar", "WebHome")));
+        when(splitted2.getModifiedDocuments())
+            .thenReturn(Set.of(new DocumentReference("xwiki", List.of("Foo", "Child"), "WebHome")));
+        when(this.changeRequestStorageManager.split(changeRequest)).thenReturn(List.of(splitted1, splitted2));
+
+        this.splitJob.process(crReference);
+        verify(this.changeRequestStorageManager).split(changeRequest);
+        verify(this.changeRequestRightsManager).copyViewRights(splitted2, updatedSpace);
+        verify(this.changeRequestRightsManager, never()).copyViewRights(eq(splitted1), any());
+
+        // A change request which is not open anymore is not splitted.
+        ChangeRequest closedChangeRequest = mock(ChangeRequest.class);
+        when(closedChangeRequest.getStatus()).thenReturn(ChangeRequestStatus.CLOSED);
+        when(this.changeRequestStorageManager.load("cr2")).thenReturn(Optional.of(closedChangeRequest));
+        this.splitJob.process(new DocumentReference("xwiki", List.of("ChangeRequest", "cr2"), "WebHome"));
+        verify(this.changeRequestStorageManager, never()).split(closedChangeRequest);
+    }
+}
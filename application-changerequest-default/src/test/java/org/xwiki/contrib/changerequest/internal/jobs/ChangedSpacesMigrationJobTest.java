@@ -0,0 +1,168 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.jobs;
+
+import java.util.List;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.contrib.changerequest.ChangeRequestException;
+import org.xwiki.contrib.changerequest.internal.storage.ChangeRequestXClassInitializer;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.xwiki.contrib.changerequest.internal.storage.ChangeRequestXClassInitializer.CHANGE_REQUEST_XCLASS;
+
+/**
+ * Tests for {@link ChangedSpacesMigrationJob}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class ChangedSpacesMigrationJobTest
+{
+    @InjectMockComponents
+    private ChangedSpacesMigrationJob job;
+
+    @MockComponent
+    private Provider<XWikiContext> contextProvider;
+
+    @MockComponent
+    private Provider<QueryManager> queryManagerProvider;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    @MockComponent
+    @Named("compactwiki")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
+    @MockComponent
+    @Named("current")
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    private XWikiContext context;
+
+    private XWiki wiki;
+
+    private Query query;
+
+    @BeforeEach
+    void setup() throws Exception
+    {
+        this.context = mock(XWikiContext.class);
+        when(this.contextProvider.get()).thenReturn(this.context);
+        this.wiki = mock(XWiki.class);
+        when(this.context.getWiki()).thenReturn(this.wiki);
+        when(this.context.getWikiId()).thenReturn("xwiki");
+
+        QueryManager queryManager = mock(QueryManager.class);
+        when(this.queryManagerProvider.get()).thenReturn(queryManager);
+        when(this.entityReferenceSerializer.serialize(CHANGE_REQUEST_XCLASS))
+            .thenReturn("ChangeRequest.Code.ChangeRequestClass");
+        String expectedStatement = ", BaseObject as obj where obj.name=doc.fullName "
+            + "and obj.className='ChangeRequest.Code.ChangeRequestClass' and not exists (from DBStringListProperty as "
+            + "prop where prop.id.id=obj.id and prop.id.name='changedSpaces')";
+        this.query = mock(Query.class);
+        when(queryManager.createQuery(expectedStatement, Query.HQL)).thenReturn(this.query);
+    }
+
+    @Test
+    void runInternal() throws Exception
+    {
+        when(this.query.execute()).thenReturn(List.of("ChangeRequest.CR1.WebHome"));
+
+        DocumentReference crReference = new DocumentReference("foo", List.of("ChangeRequest", "CR1"), "WebHome");
+        when(this.documentReferenceResolver.resolve("ChangeRequest.CR1.WebHome")).thenReturn(crReference);
+        XWikiDocument crDoc = mock(XWikiDocument.class);
+        when(this.wiki.getDocument(crReference, this.context)).thenReturn(crDoc);
+        when(crDoc.clone()).thenReturn(crDoc);
+        BaseObject xObject = mock(BaseObject.class);
+        when(crDoc.getXObject(CHANGE_REQUEST_XCLASS)).thenReturn(xObject);
+        when(xObject.getListValue(ChangeRequestXClassInitializer.CHANGED_DOCUMENTS_FIELD))
+            .thenReturn(List.of("Foo.Bar.Page1", "Buz.Page2"));
+
+        DocumentReference page1 = new DocumentReference("foo", List.of("Foo", "Bar"), "Page1");
+        DocumentReference page2 = new DocumentReference("foo", "Buz", "Page2");
+        when(this.documentReferenceResolver.resolve("Foo.Bar.Page1")).thenReturn(page1);
+        when(this.documentReferenceResolver.resolve("Buz.Page2")).thenReturn(page2);
+        when(this.localEntityReferenceSerializer.serialize(page1.getLastSpaceReference())).thenReturn("Foo.Bar");
+        when(this.localEntityReferenceSerializer.serialize(page1.getLastSpaceReference().getParent()))
+            .thenReturn("Foo");
+        when(this.localEntityReferenceSerializer.serialize(page2.getLastSpaceReference())).thenReturn("Buz");
+
+        this.job.initialize(new ChangedSpacesMigrationRequest("foo"));
+        this.job.runInternal();
+
+        verify(this.query).setWiki("foo");
+        verify(this.context).setWikiId("foo");
+        verify(xObject).set(ChangeRequestXClassInitializer.CHANGED_SPACES_FIELD, List.of("Buz", "Foo", "Foo.Bar"),
+            this.context);
+        verify(this.wiki).saveDocument(crDoc, "Migration of the changed spaces index", true, this.context);
+        verify(this.context).setWikiId("xwiki");
+    }
+
+    @Test
+    void runInternalWithError() throws Exception
+    {
+        when(this.query.execute()).thenReturn(List.of("ChangeRequest.CR1.WebHome"));
+
+        DocumentReference crReference = new DocumentReference("foo", List.of("ChangeRequest", "CR1"), "WebHome");
+        when(this.documentReferenceResolver.resolve("ChangeRequest.CR1.WebHome")).thenReturn(crReference);
+        XWikiDocument crDoc = mock(XWikiDocument.class);
+        when(this.wiki.getDocument(crReference, this.context)).thenReturn(crDoc);
+        when(crDoc.clone()).thenReturn(crDoc);
+        BaseObject xObject = mock(BaseObject.class);
+        when(crDoc.getXObject(CHANGE_REQUEST_XCLASS)).thenReturn(xObject);
+        when(xObject.getListValue(ChangeRequestXClassInitializer.CHANGED_DOCUMENTS_FIELD)).thenReturn(List.of());
+        doThrow(new XWikiException()).when(this.wiki).saveDocument(any(), anyString(), anyBoolean(), any());
+
+        this.job.initialize(new ChangedSpacesMigrationRequest("foo"));
+        ChangeRequestException exception = assertThrows(ChangeRequestException.class, () -> this.job.runInternal());
+        assertEquals("The changed spaces index of [1] change requests of wiki [foo] couldn't be migrated",
+            exception.getMessage());
+        verify(this.context).setWikiId("xwiki");
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.jobs;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.contrib.changerequest.internal.RightsSynchronizationManager;
+import org.xwiki.contrib.rights.SecurityRuleDiff;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link RightsSynchronizationJob}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class RightsSynchronizationJobTest
+{
+    @InjectMockComponents
+    private RightsSynchronizationJob job;
+
+    @MockComponent
+    private RightsSynchronizationManager rightsSynchronizationManager;
+
+    @Test
+    void processQueue()
+    {
+        RightsSynchronizationRequest request = new RightsSynchronizationRequest();
+        this.job.initialize(request);
+
+        when(this.rightsSynchronizationManager.consumePendingItems(request)).thenReturn(Map.of());
+        this.job.processQueue();
+        verify(this.rightsSynchronizationManager, never()).synchronizeRights(any());
+
+        Map<EntityReference, List<SecurityRuleDiff>> updates =
+            Map.of(new DocumentReference("xwiki", "Foo", "WebHome"), List.of(mock(SecurityRuleDiff.class)));
+        when(this.rightsSynchronizationManager.consumePendingItems(request)).thenReturn(updates);
+        this.job.processQueue();
+        verify(this.rightsSynchronizationManager).synchronizeRights(updates);
+        assertEquals(RightsSynchronizationJob.GROUP_PATH, this.job.getGroupPath());
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.listeners;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.xwiki.contrib.changerequest.ChangeRequest;
+import org.xwiki.contrib.changerequest.events.ChangeRequestMergedEvent;
+import org.xwiki.contrib.changerequest.events.ChangeRequestMergingEvent;
+import org.xwiki.contrib.changerequest.internal.remote.ChangeRequestRemoteEventsBatchEvent;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.remote.LocalEventData;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link ChangeRequestRemoteEventsBatchListener}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class ChangeRequestRemoteEventsBatchListenerTest
+{
+    @InjectMockComponents
+    private ChangeRequestRemoteEventsBatchListener listener;
+
+    @MockComponent
+    private ObservationManager observationManager;
+
+    @Test
+    void onEvent()
+    {
+        String changeRequestId = "cr42";
+        ChangeRequestMergingEvent mergingEvent = new ChangeRequestMergingEvent();
+        ChangeRequestMergedEvent mergedEvent = new ChangeRequestMergedEvent();
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+
+        this.listener.onEvent(new ChangeRequestRemoteEventsBatchEvent(), changeRequestId, List.of(
+            new LocalEventData(mergingEvent, changeRequestId, null),
+            new LocalEventData(mergedEvent, changeRequestId, changeRequest)));
+
+        InOrder inOrder = inOrder(this.observationManager);
+        inOrder.verify(this.observationManager).notify(mergingEvent, changeRequestId, null);
+        inOrder.verify(this.observationManager).notify(mergedEvent, changeRequestId, changeRequest);
+        inOrder.verifyNoMoreInteractions();
+    }
+}
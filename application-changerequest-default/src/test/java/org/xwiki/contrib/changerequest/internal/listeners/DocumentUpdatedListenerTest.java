@@ -26,11 +26,14 @@ import javax.inject.Provider;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
 import org.xwiki.bridge.event.DocumentUpdatedEvent;
 import org.xwiki.contrib.changerequest.ChangeRequest;
 import org.xwiki.contrib.changerequest.ChangeRequestException;
 import org.xwiki.contrib.changerequest.ChangeRequestManager;
 import org.xwiki.contrib.changerequest.ChangeRequestStatus;
+import org.xwiki.contrib.changerequest.internal.cache.DocumentVersionCacheManager;
+import org.xwiki.contrib.changerequest.internal.cache.MergeCacheManager;
 import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
 import org.xwiki.job.Job;
 import org.xwiki.job.event.status.JobStatus;
@@ -70,6 +73,12 @@ class DocumentUpdatedListenerTest
     @MockComponent
     private Provider<XWikiContext> contextProvider;
 
+    @MockComponent
+    private MergeCacheManager mergeCacheManager;
+
+    @MockComponent
+    private DocumentVersionCacheManager documentVersionCacheManager;
+
     private XWikiContext context;
 
     @BeforeEach
@@ -133,4 +142,21 @@ class DocumentUpdatedListenerTest
         verify(this.changeRequestManager, never()).computeReadyForMergingStatus(changeRequest1);
         verify(this.changeRequestManager, times(2)).computeReadyForMergingStatus(changeRequest2);
     }
+
+    @Test
+    void onEventInvalidatesCaches()
+    {
+        XWikiDocument sourceDoc = mock(XWikiDocument.class);
+        DocumentReference documentReference = new DocumentReference("foo", "XWiki", "Document");
+        when(sourceDoc.getDocumentReferenceWithLocale()).thenReturn(documentReference);
+        when(this.context.getMainXWiki()).thenReturn("foo");
+
+        this.listener.onEvent(new DocumentUpdatedEvent(), sourceDoc, null);
+        verify(this.mergeCacheManager).invalidate(documentReference);
+        verify(this.documentVersionCacheManager, never()).invalidate(documentReference);
+
+        this.listener.onEvent(new DocumentDeletedEvent(), sourceDoc, null);
+        verify(this.mergeCacheManager, times(2)).invalidate(documentReference);
+        verify(this.documentVersionCacheManager).invalidate(documentReference);
+    }
 }
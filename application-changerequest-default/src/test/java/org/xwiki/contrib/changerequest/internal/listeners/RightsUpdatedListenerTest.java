@@ -20,38 +20,21 @@
 package org.xwiki.contrib.changerequest.internal.listeners;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
-import javax.inject.Inject;
 
 import org.junit.jupiter.api.Test;
-import org.xwiki.contrib.changerequest.ChangeRequest;
 import org.xwiki.contrib.changerequest.ChangeRequestConfiguration;
-import org.xwiki.contrib.changerequest.ChangeRequestException;
-import org.xwiki.contrib.changerequest.ChangeRequestRightsManager;
-import org.xwiki.contrib.changerequest.ChangeRequestStatus;
-import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
+import org.xwiki.contrib.changerequest.internal.RightsSynchronizationManager;
 import org.xwiki.contrib.rights.RightUpdatedEvent;
 import org.xwiki.contrib.rights.SecurityRuleDiff;
-import org.xwiki.model.EntityType;
-import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.SpaceReference;
 import org.xwiki.model.reference.WikiReference;
-import org.xwiki.security.authorization.ReadableSecurityRule;
-import org.xwiki.security.authorization.Right;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
 
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -68,17 +51,14 @@ class RightsUpdatedListenerTest
     @InjectMockComponents
     private RightsUpdatedListener listener;
 
-    @MockComponent
-    private ChangeRequestStorageManager changeRequestStorageManager;
-
     @MockComponent
     private ChangeRequestConfiguration configuration;
 
     @MockComponent
-    private ChangeRequestRightsManager changeRequestRightsManager;
+    private RightsSynchronizationManager rightsSynchronizationManager;
 
     @Test
-    void processLocalEvents() throws ChangeRequestException
+    void processLocalEvents()
     {
         RightUpdatedEvent event = new RightUpdatedEvent();
         EntityReference source = new WikiReference("foo");
@@ -87,99 +67,22 @@ class RightsUpdatedListenerTest
         this.listener.processLocalEvent(event, source, data);
 
         verifyNoInteractions(this.configuration);
-        verifyNoInteractions(this.changeRequestStorageManager);
-        verifyNoInteractions(this.changeRequestRightsManager);
+        verifyNoInteractions(this.rightsSynchronizationManager);
 
         SpaceReference changeRequestSpaceReference = mock(SpaceReference.class);
         when(this.configuration.getChangeRequestSpaceLocation()).thenReturn(changeRequestSpaceReference);
         source = mock(SpaceReference.class);
         when(source.hasParent(changeRequestSpaceReference)).thenReturn(true);
+        data = List.of(mock(SecurityRuleDiff.class));
 
         this.listener.processLocalEvent(event, source, data);
-
-        verifyNoInteractions(this.changeRequestStorageManager);
-        verifyNoInteractions(this.changeRequestRightsManager);
+        verifyNoInteractions(this.rightsSynchronizationManager);
 
         source = new SpaceReference("Something", new WikiReference("foo"));
-
-        DocumentReference expectedRef = new DocumentReference("WebHome", (SpaceReference) source);
-        when(this.changeRequestStorageManager.findChangeRequestTargeting((SpaceReference) source))
-            .thenReturn(Collections.emptyList());
-        this.listener.processLocalEvent(event, source, data);
-        verifyNoInteractions(this.changeRequestRightsManager);
-
-        ChangeRequest changeRequest1 = mock(ChangeRequest.class);
-        ChangeRequest changeRequest2 = mock(ChangeRequest.class);
-        ChangeRequest changeRequest3 = mock(ChangeRequest.class);
-
-        when(this.changeRequestStorageManager.findChangeRequestTargeting((SpaceReference) source))
-            .thenReturn(Arrays.asList(changeRequest1, changeRequest2, changeRequest3));
-        this.listener.processLocalEvent(event, source, data);
-        verifyNoInteractions(this.changeRequestRightsManager);
-
-        SecurityRuleDiff diff1 = mock(SecurityRuleDiff.class);
-        SecurityRuleDiff diff2 = mock(SecurityRuleDiff.class);
-        SecurityRuleDiff diff3 = mock(SecurityRuleDiff.class);
-        data = Arrays.asList(diff1, diff2, diff3);
-        when(this.changeRequestStorageManager.findChangeRequestTargeting((SpaceReference) source))
-            .thenReturn(Collections.emptyList());
-
-        this.listener.processLocalEvent(event, source, data);
-        verifyNoInteractions(this.changeRequestRightsManager);
-
-        when(this.changeRequestStorageManager.findChangeRequestTargeting((SpaceReference) source))
-            .thenReturn(Arrays.asList(changeRequest1, changeRequest2, changeRequest3));
-
-        // rule subjects
-        DocumentReference user1 = mock(DocumentReference.class);
-        DocumentReference user2 = mock(DocumentReference.class);
-
-        DocumentReference groupA = mock(DocumentReference.class);
-        DocumentReference groupB = mock(DocumentReference.class);
-
-        ReadableSecurityRule ruleDiff1 = mock(ReadableSecurityRule.class);
-        ReadableSecurityRule ruleDiff2 = mock(ReadableSecurityRule.class);
-
-        ReadableSecurityRule rule1Diff3 = mock(ReadableSecurityRule.class);
-        ReadableSecurityRule rule2Diff3 = mock(ReadableSecurityRule.class);
-
-        when(diff1.getCurrentRule()).thenReturn(ruleDiff1);
-        when(diff2.getPreviousRule()).thenReturn(ruleDiff2);
-        when(diff3.getPreviousRule()).thenReturn(rule1Diff3);
-        when(diff3.getCurrentRule()).thenReturn(rule2Diff3);
-
-        when(ruleDiff1.match(Right.VIEW)).thenReturn(true);
-        when(ruleDiff2.match(Right.VIEW)).thenReturn(false);
-        when(rule1Diff3.match(Right.VIEW)).thenReturn(true);
-        when(rule2Diff3.match(Right.VIEW)).thenReturn(false);
-
-        // should never be used
-        when(ruleDiff2.getGroups()).thenReturn(Collections.singletonList(mock(DocumentReference.class)));
-
-        when(ruleDiff1.getGroups()).thenReturn(Collections.singletonList(groupA));
-        when(rule1Diff3.getUsers()).thenReturn(Arrays.asList(user1, user2));
-        when(rule2Diff3.getUsers()).thenReturn(Collections.singletonList(user1));
-        when(rule2Diff3.getGroups()).thenReturn(Collections.singletonList(groupB));
-
-        when(changeRequest1.getStatus()).thenReturn(ChangeRequestStatus.READY_FOR_REVIEW);
-        when(changeRequest2.getStatus()).thenReturn(ChangeRequestStatus.MERGED);
-        when(changeRequest3.getStatus()).thenReturn(ChangeRequestStatus.CLOSED);
-
-        when(this.changeRequestRightsManager.isViewAccessStillConsistent(changeRequest1,
-            Stream.of(user1, user2, groupA, groupB).collect(Collectors.toSet())))
-            .thenReturn(false);
-        ChangeRequest splitted1 = mock(ChangeRequest.class);
-        ChangeRequest splitted2 = mock(ChangeRequest.class);
-        when(this.changeRequestStorageManager.split(changeRequest1)).thenReturn(Arrays.asList(splitted1, splitted2));
-        when(splitted2.getModifiedDocuments()).thenReturn(Collections.singleton(expectedRef));
+        this.listener.processLocalEvent(event, source, List.of());
+        verifyNoInteractions(this.rightsSynchronizationManager);
 
         this.listener.processLocalEvent(event, source, data);
-        verify(this.changeRequestRightsManager).isViewAccessStillConsistent(changeRequest1,
-            Stream.of(user1, user2, groupA, groupB).collect(Collectors.toSet()));
-        verify(this.changeRequestRightsManager).applyChanges(changeRequest3, data);
-        verify(this.changeRequestRightsManager).copyViewRights(splitted2, source);
-        verify(this.changeRequestStorageManager).split(changeRequest1);
-        verify(this.changeRequestRightsManager, never()).copyViewRights(eq(changeRequest2), any());
-        verify(this.changeRequestStorageManager, never()).split(changeRequest2);
+        verify(this.rightsSynchronizationManager).addRightsUpdate(source, data);
     }
 }
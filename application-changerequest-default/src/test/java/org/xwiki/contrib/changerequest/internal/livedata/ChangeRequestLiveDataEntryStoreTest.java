@@ -0,0 +1,301 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.livedata;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.xwiki.contrib.changerequest.ChangeRequestStatus;
+import org.xwiki.contrib.changerequest.internal.search.ChangeRequestDatabaseSearcher;
+import org.xwiki.contrib.changerequest.internal.search.ChangeRequestSearchQuery;
+import org.xwiki.contrib.changerequest.internal.search.ChangeRequestSearchResult;
+import org.xwiki.contrib.changerequest.internal.search.ChangeRequestSolrSearcher;
+import org.xwiki.contrib.changerequest.internal.storage.ChangeRequestXClassInitializer;
+import org.xwiki.livedata.LiveData;
+import org.xwiki.livedata.LiveDataException;
+import org.xwiki.livedata.LiveDataQuery;
+import org.xwiki.localization.ContextualLocalizationManager;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ChangeRequestLiveDataEntryStore}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class ChangeRequestLiveDataEntryStoreTest
+{
+    @InjectMockComponents
+    private ChangeRequestLiveDataEntryStore entryStore;
+
+    @MockComponent
+    private Provider<ChangeRequestSolrSearcher> solrSearcherProvider;
+
+    @MockComponent
+    private Provider<XWikiContext> contextProvider;
+
+    @MockComponent
+    private ContextualAuthorizationManager authorizationManager;
+
+    @MockComponent
+    @Named("current")
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @MockComponent
+    @Named("changerequestid")
+    private DocumentReferenceResolver<String> changeRequestIdDocumentReferenceResolver;
+
+    @MockComponent
+    private ContextualLocalizationManager localizationManager;
+
+    @MockComponent
+    private Provider<ChangeRequestDatabaseSearcher> databaseSearcherProvider;
+
+    private ChangeRequestSolrSearcher solrSearcher;
+
+    private ChangeRequestDatabaseSearcher databaseSearcher;
+
+    private XWikiContext context;
+
+    private XWiki wiki;
+
+    @BeforeEach
+    void setup()
+    {
+        this.solrSearcher = mock(ChangeRequestSolrSearcher.class);
+        when(this.solrSearcherProvider.get()).thenReturn(this.solrSearcher);
+        this.databaseSearcher = mock(ChangeRequestDatabaseSearcher.class);
+        when(this.databaseSearcherProvider.get()).thenReturn(this.databaseSearcher);
+        this.context = mock(XWikiContext.class);
+        when(this.contextProvider.get()).thenReturn(this.context);
+        when(this.context.getWikiId()).thenReturn("foo");
+        this.wiki = mock(XWiki.class);
+        when(this.context.getWiki()).thenReturn(this.wiki);
+    }
+
+    @Test
+    void getWithoutSolr() throws Exception
+    {
+        when(this.solrSearcher.isAvailable()).thenReturn(false);
+        LiveDataQuery query = new LiveDataQuery();
+        query.setSource(new LiveDataQuery.Source(ChangeRequestLiveDataSource.ID));
+        query.setFilters(List.of(
+            new LiveDataQuery.Filter(ChangeRequestLiveDataPropertyStore.AUTHORS, "startsWith", "XWiki.F")));
+        query.setSort(List.of());
+
+        DocumentReference cr1 = new DocumentReference("foo", List.of("ChangeRequest", "cr1"), "WebHome");
+        ChangeRequestSearchQuery expectedQuery = new ChangeRequestSearchQuery()
+            .addAuthor("XWiki.F", ChangeRequestSearchQuery.MatchType.PREFIX);
+        when(this.databaseSearcher.search(expectedQuery)).thenReturn(new ChangeRequestSearchResult(1, List.of(cr1)));
+
+        LiveData liveData = this.entryStore.get(query);
+        assertEquals(1, liveData.getCount());
+        assertEquals(List.of(Map.of(ChangeRequestLiveDataPropertyStore.VIEWABLE, false)), liveData.getEntries());
+        verify(this.solrSearcher, never()).search(any());
+        verify(this.context, never()).setWikiId("bar");
+    }
+
+    @Test
+    void getWithUnsupportedFilter()
+    {
+        when(this.solrSearcher.isAvailable()).thenReturn(true);
+        LiveDataQuery query = new LiveDataQuery();
+        query.setSource(new LiveDataQuery.Source(ChangeRequestLiveDataSource.ID));
+        query.setFilters(List.of(new LiveDataQuery.Filter("doc.date", "contains", "2022")));
+        query.setSort(List.of());
+
+        LiveDataException exception = assertThrows(LiveDataException.class, () -> this.entryStore.get(query));
+        assertEquals("Filtering on property [doc.date] is not supported.", exception.getMessage());
+    }
+
+    @Test
+    void get() throws Exception
+    {
+        when(this.solrSearcher.isAvailable()).thenReturn(true);
+        LiveDataQuery query = new LiveDataQuery();
+        LiveDataQuery.Source source = new LiveDataQuery.Source(ChangeRequestLiveDataSource.ID);
+        source.getParameters().put("wiki", "bar");
+        query.setSource(source);
+        query.setOffset(20L);
+        query.setLimit(10);
+        query.setFilters(List.of(
+            new LiveDataQuery.Filter(ChangeRequestLiveDataPropertyStore.TITLE, "contains", "my cr"),
+            new LiveDataQuery.Filter(ChangeRequestLiveDataPropertyStore.STATUS, "equals", "ready_for_review"),
+            new LiveDataQuery.Filter(ChangeRequestLiveDataPropertyStore.AUTHORS, "equals", "xwiki:XWiki.Foo"),
+            new LiveDataQuery.Filter(ChangeRequestLiveDataPropertyStore.CHANGED_DOCUMENTS, "contains", "Page")
+        ));
+        query.setSort(List.of(new LiveDataQuery.SortEntry(ChangeRequestLiveDataPropertyStore.DATE, true)));
+
+        DocumentReference cr1 = new DocumentReference("bar", List.of("ChangeRequest", "cr1"), "WebHome");
+        DocumentReference cr2 = new DocumentReference("bar", List.of("ChangeRequest", "cr2"), "WebHome");
+        ChangeRequestSearchQuery expectedQuery = new ChangeRequestSearchQuery()
+            .setTitle("my cr")
+            .setStatuses(List.of(ChangeRequestStatus.READY_FOR_REVIEW))
+            .addAuthor("xwiki:XWiki.Foo")
+            .addChangedDocument("Page", ChangeRequestSearchQuery.MatchType.CONTAINS)
+            .setSort(ChangeRequestSearchQuery.SortField.UPDATE_DATE, true)
+            .setOffset(20)
+            .setLimit(10);
+        when(this.solrSearcher.search(expectedQuery))
+            .thenReturn(new ChangeRequestSearchResult(42, List.of(cr1, cr2)));
+
+        when(this.authorizationManager.hasAccess(Right.VIEW, cr1)).thenReturn(true);
+        when(this.authorizationManager.hasAccess(Right.VIEW, cr2)).thenReturn(true);
+        XWikiDocument doc1 = mockChangeRequestDocument(cr1, "CR 1", "XWiki.Foo,XWiki.Bar");
+        XWikiDocument doc2 = mockChangeRequestDocument(cr2, "CR 2", "XWiki.Foo");
+
+        DocumentReference fooReference = new DocumentReference("bar", "XWiki", "Foo");
+        DocumentReference barReference = new DocumentReference("bar", "XWiki", "Bar");
+        when(this.documentReferenceResolver.resolve("XWiki.Foo")).thenReturn(fooReference);
+        when(this.documentReferenceResolver.resolve("XWiki.Bar")).thenReturn(barReference);
+        when(this.wiki.getURL(fooReference, "view", this.context)).thenReturn("/Foo");
+        when(this.wiki.getURL(barReference, "view", this.context)).thenReturn("/Bar");
+        when(this.wiki.getPlainUserName(fooReference, this.context)).thenReturn("Foo");
+        when(this.wiki.getPlainUserName(barReference, this.context)).thenReturn("Bar & co");
+
+        // Both change requests modify the same page.
+        DocumentReference pageReference = new DocumentReference("bar", "Space", "Page");
+        when(this.documentReferenceResolver.resolve("Space.Page")).thenReturn(pageReference);
+        when(this.authorizationManager.hasAccess(Right.VIEW, pageReference)).thenReturn(true);
+        XWikiDocument page = mock(XWikiDocument.class);
+        when(this.wiki.getDocument(pageReference, this.context)).thenReturn(page);
+        when(page.getRenderedTitle(Syntax.PLAIN_1_0, this.context)).thenReturn("My page");
+        when(this.wiki.getURL(pageReference, "view", this.context)).thenReturn("/Page");
+
+        when(this.localizationManager.getTranslationPlain("ChangeRequest.Code.ChangeRequestClass_status_draft"))
+            .thenReturn("Draft");
+
+        LiveData liveData = this.entryStore.get(query);
+        assertEquals(42, liveData.getCount());
+        assertEquals(2, liveData.getEntries().size());
+
+        Map<String, Object> entry = liveData.getEntries().get(0);
+        assertEquals(true, entry.get(ChangeRequestLiveDataPropertyStore.VIEWABLE));
+        assertEquals("CR 1", entry.get(ChangeRequestLiveDataPropertyStore.TITLE));
+        assertEquals("/cr1", entry.get(ChangeRequestLiveDataPropertyStore.URL));
+        assertEquals(1000L, entry.get(ChangeRequestLiveDataPropertyStore.DATE));
+        assertEquals(10L, entry.get(ChangeRequestLiveDataPropertyStore.CREATION_DATE));
+        assertEquals("Draft", entry.get(ChangeRequestLiveDataPropertyStore.STATUS));
+        assertEquals("<a href=\"/Foo\">Foo</a>, <a href=\"/Bar\">Bar &#38; co</a>",
+            entry.get(ChangeRequestLiveDataPropertyStore.AUTHORS));
+        assertEquals("<a href=\"/Page\">My page</a>", entry.get(ChangeRequestLiveDataPropertyStore.CHANGED_DOCUMENTS));
+
+        entry = liveData.getEntries().get(1);
+        assertEquals("CR 2", entry.get(ChangeRequestLiveDataPropertyStore.TITLE));
+        assertEquals("<a href=\"/Foo\">Foo</a>", entry.get(ChangeRequestLiveDataPropertyStore.AUTHORS));
+        assertEquals("<a href=\"/Page\">My page</a>", entry.get(ChangeRequestLiveDataPropertyStore.CHANGED_DOCUMENTS));
+
+        // The title of the changed page is only computed once.
+        verify(page, times(1)).getRenderedTitle(Syntax.PLAIN_1_0, this.context);
+        verify(doc1).getXObject(ChangeRequestXClassInitializer.CHANGE_REQUEST_XCLASS);
+        verify(doc2).getXObject(ChangeRequestXClassInitializer.CHANGE_REQUEST_XCLASS);
+
+        InOrder inOrder = inOrder(this.context, this.solrSearcher);
+        inOrder.verify(this.context).setWikiId("bar");
+        inOrder.verify(this.solrSearcher).search(expectedQuery);
+        inOrder.verify(this.context).setWikiId("foo");
+    }
+
+    @Test
+    void getWithoutViewRight() throws Exception
+    {
+        when(this.solrSearcher.isAvailable()).thenReturn(true);
+        LiveDataQuery query = new LiveDataQuery();
+        query.setSource(new LiveDataQuery.Source(ChangeRequestLiveDataSource.ID));
+        query.setFilters(List.of());
+        query.setSort(List.of());
+
+        DocumentReference cr1 = new DocumentReference("foo", List.of("ChangeRequest", "cr1"), "WebHome");
+        when(this.solrSearcher.search(new ChangeRequestSearchQuery()))
+            .thenReturn(new ChangeRequestSearchResult(1, List.of(cr1)));
+        when(this.authorizationManager.hasAccess(Right.VIEW, cr1)).thenReturn(false);
+
+        LiveData liveData = this.entryStore.get(query);
+        assertEquals(1, liveData.getCount());
+        assertEquals(List.of(Map.of(ChangeRequestLiveDataPropertyStore.VIEWABLE, false)), liveData.getEntries());
+        verify(this.wiki, never()).getDocument(cr1, this.context);
+        verify(this.context, never()).setWikiId("bar");
+        verify(this.context).setWikiId("foo");
+    }
+
+    @Test
+    void getEntry() throws Exception
+    {
+        DocumentReference cr1 = new DocumentReference("foo", List.of("ChangeRequest", "cr1"), "WebHome");
+        when(this.changeRequestIdDocumentReferenceResolver.resolve("cr1")).thenReturn(cr1);
+        when(this.authorizationManager.hasAccess(Right.VIEW, cr1)).thenReturn(true);
+        mockChangeRequestDocument(cr1, "CR 1", "");
+        when(this.localizationManager.getTranslationPlain("ChangeRequest.Code.ChangeRequestClass_status_draft"))
+            .thenReturn(null);
+
+        Map<String, Object> entry = this.entryStore.get("cr1").get();
+        assertEquals("CR 1", entry.get(ChangeRequestLiveDataPropertyStore.TITLE));
+        assertEquals("draft", entry.get(ChangeRequestLiveDataPropertyStore.STATUS));
+        assertEquals("", entry.get(ChangeRequestLiveDataPropertyStore.AUTHORS));
+    }
+
+    private XWikiDocument mockChangeRequestDocument(DocumentReference reference, String title, String authors)
+        throws Exception
+    {
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(this.wiki.getDocument(reference, this.context)).thenReturn(document);
+        when(document.getTitle()).thenReturn(title);
+        when(document.getURL("view", this.context)).thenReturn("/" + reference.getLastSpaceReference().getName());
+        when(document.getDate()).thenReturn(new Date(1000));
+        when(document.getCreationDate()).thenReturn(new Date(10));
+        BaseObject xObject = mock(BaseObject.class);
+        when(document.getXObject(ChangeRequestXClassInitializer.CHANGE_REQUEST_XCLASS)).thenReturn(xObject);
+        when(xObject.getStringValue(ChangeRequestXClassInitializer.STATUS_FIELD)).thenReturn("draft");
+        when(xObject.getLargeStringValue(ChangeRequestXClassInitializer.AUTHORS_FIELD)).thenReturn(authors);
+        when(xObject.getListValue(ChangeRequestXClassInitializer.CHANGED_DOCUMENTS_FIELD))
+            .thenReturn(List.of("Space.Page"));
+        return document;
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.livedata;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.contrib.changerequest.ChangeRequest;
+import org.xwiki.contrib.changerequest.ChangeRequestConfiguration;
+import org.xwiki.contrib.changerequest.ChangeRequestManager;
+import org.xwiki.contrib.changerequest.ChangeRequestMergeDocumentResult;
+import org.xwiki.contrib.changerequest.ChangeRequestMergeManager;
+import org.xwiki.contrib.changerequest.ChangeRequestReference;
+import org.xwiki.contrib.changerequest.ChangeRequestRightsManager;
+import org.xwiki.contrib.changerequest.FileChange;
+import org.xwiki.contrib.changerequest.internal.UserReferenceConverter;
+import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
+import org.xwiki.livedata.LiveData;
+import org.xwiki.livedata.LiveDataException;
+import org.xwiki.livedata.LiveDataQuery;
+import org.xwiki.localization.ContextualLocalizationManager;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.resource.ResourceReferenceSerializer;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.url.ExtendedURL;
+import org.xwiki.user.CurrentUserReference;
+import org.xwiki.user.UserReference;
+import org.xwiki.user.UserReferenceResolver;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link FileChangeLiveDataEntryStore}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class FileChangeLiveDataEntryStoreTest
+{
+    @InjectMockComponents
+    private FileChangeLiveDataEntryStore entryStore;
+
+    @MockComponent
+    private ChangeRequestStorageManager changeRequestStorageManager;
+
+    @MockComponent
+    private ChangeRequestRightsManager changeRequestRightsManager;
+
+    @MockComponent
+    private ChangeRequestMergeManager changeRequestMergeManager;
+
+    @MockComponent
+    private ChangeRequestManager changeRequestManager;
+
+    @MockComponent
+    private ChangeRequestConfiguration configuration;
+
+    @MockComponent
+    private UserReferenceResolver<CurrentUserReference> currentUserReferenceResolver;
+
+    @MockComponent
+    private UserReferenceConverter userReferenceConverter;
+
+    @MockComponent
+    private ContextualAuthorizationManager authorizationManager;
+
+    @MockComponent
+    private ContextualLocalizationManager localizationManager;
+
+    @MockComponent
+    @Named("local")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
+    @MockComponent
+    private ResourceReferenceSerializer<ChangeRequestReference, ExtendedURL> urlResourceReferenceSerializer;
+
+    @MockComponent
+    private DocumentReferenceResolver<ChangeRequest> changeRequestDocumentReferenceResolver;
+
+    @MockComponent
+    private Provider<XWikiContext> contextProvider;
+
+    private XWikiContext context;
+
+    private XWiki wiki;
+
+    private ChangeRequest changeRequest;
+
+    private UserReference currentUser;
+
+    private FileChange editionChange;
+
+    private FileChange deletionChange;
+
+    @BeforeEach
+    void setup() throws Exception
+    {
+        this.context = mock(XWikiContext.class);
+        when(this.contextProvider.get()).thenReturn(this.context);
+        this.wiki = mock(XWiki.class);
+        when(this.context.getWiki()).thenReturn(this.wiki);
+        WikiReference wikiReference = new WikiReference("foo");
+        when(this.context.getWikiReference()).thenReturn(wikiReference);
+        when(this.wiki.getURL(any(DocumentReference.class), eq("view"), eq(this.context))).thenAnswer(invocation -> {
+            DocumentReference reference = invocation.getArgument(0);
+            return "/" + reference.getLastSpaceReference().getName() + "/" + reference.getName();
+        });
+        when(this.localEntityReferenceSerializer.serialize(any())).thenAnswer(invocation -> {
+            DocumentReference reference = invocation.getArgument(0);
+            return reference.getLastSpaceReference().getName() + "." + reference.getName();
+        });
+
+        this.changeRequest = mock(ChangeRequest.class);
+        when(this.changeRequest.getId()).thenReturn("cr1");
+        when(this.changeRequestStorageManager.load("cr1")).thenReturn(Optional.of(this.changeRequest));
+        this.currentUser = mock(UserReference.class);
+        when(this.currentUserReferenceResolver.resolve(CurrentUserReference.INSTANCE)).thenReturn(this.currentUser);
+
+        ExtendedURL rebaseURL = mock(ExtendedURL.class);
+        when(rebaseURL.serialize()).thenReturn("/changerequest/rebase/cr1");
+        when(this.urlResourceReferenceSerializer.serialize(any(ChangeRequestReference.class))).thenReturn(rebaseURL);
+
+        DocumentReference pageA = new DocumentReference("foo", "Space", "A");
+        DocumentReference pageB = new DocumentReference("foo", "Other", "B");
+        when(this.changeRequest.getModifiedDocuments()).thenReturn(new LinkedHashSet<>(List.of(pageA, pageB)));
+        this.editionChange = mockFileChange(pageA, FileChange.FileChangeType.EDITION, "Page A", "Alice");
+        this.deletionChange = mockFileChange(pageB, FileChange.FileChangeType.DELETION, "Page B", "Bob");
+        when(this.authorizationManager.hasAccess(eq(Right.VIEW), any())).thenReturn(true);
+    }
+
+    private FileChange mockFileChange(DocumentReference reference, FileChange.FileChangeType type, String title,
+        String author)
+    {
+        FileChange fileChange = mock(FileChange.class);
+        when(this.changeRequest.getLatestFileChangeFor(reference)).thenReturn(Optional.of(fileChange));
+        when(fileChange.getId()).thenReturn(reference.getName());
+        when(fileChange.getTargetEntity()).thenReturn(reference);
+        when(fileChange.getType()).thenReturn(type);
+        when(fileChange.getVersion()).thenReturn("filechange-1.1");
+        when(fileChange.getPreviousPublishedVersion()).thenReturn("2.1");
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getRenderedTitle(Syntax.PLAIN_1_0, this.context)).thenReturn(title);
+        when(fileChange.getModifiedDocument()).thenReturn(document);
+
+        UserReference userReference = mock(UserReference.class);
+        when(fileChange.getAuthor()).thenReturn(userReference);
+        DocumentReference authorReference = new DocumentReference("foo", "XWiki", author);
+        when(this.userReferenceConverter.convert(userReference)).thenReturn(authorReference);
+        when(this.wiki.getPlainUserName(authorReference, this.context)).thenReturn(author);
+        return fileChange;
+    }
+
+    private LiveDataQuery createQuery(LiveDataQuery.Filter... filters)
+    {
+        LiveDataQuery query = new LiveDataQuery();
+        LiveDataQuery.Source source = new LiveDataQuery.Source(FileChangeLiveDataSource.ID);
+        source.getParameters().put(FileChangeLiveDataEntryStore.CHANGE_REQUEST_PARAMETER, "cr1");
+        query.setSource(source);
+        query.setFilters(List.of(filters));
+        query.setSort(List.of());
+        return query;
+    }
+
+    @Test
+    void getWithoutChangeRequest()
+    {
+        LiveDataQuery query = new LiveDataQuery();
+        query.setSource(new LiveDataQuery.Source(FileChangeLiveDataSource.ID));
+        query.setFilters(List.of());
+
+        LiveDataException exception = assertThrows(LiveDataException.class, () -> this.entryStore.get(query));
+        assertEquals("The change request parameter is mandatory.", exception.getMessage());
+    }
+
+    @Test
+    void getWithUnknownChangeRequest() throws Exception
+    {
+        when(this.changeRequestStorageManager.load("cr1")).thenReturn(Optional.empty());
+
+        LiveDataException exception =
+            assertThrows(LiveDataException.class, () -> this.entryStore.get(createQuery()));
+        assertEquals("Change request [cr1] cannot be found.", exception.getMessage());
+    }
+
+    @Test
+    void getWithEditRights() throws Exception
+    {
+        when(this.changeRequestRightsManager.isAuthorizedToEdit(this.currentUser, this.changeRequest))
+            .thenReturn(true);
+        when(this.authorizationManager.hasAccess(any(Right.class), eq(this.editionChange.getTargetEntity())))
+            .thenReturn(true);
+        when(this.configuration.getMinimumApprovers()).thenReturn(1);
+        ChangeRequestMergeDocumentResult mergeResult = mock(ChangeRequestMergeDocumentResult.class);
+        when(this.changeRequestMergeManager.getMergeDocumentResult(any())).thenReturn(mergeResult);
+        when(this.changeRequestManager.isFileChangeOutdated(this.editionChange)).thenReturn(true);
+        when(this.wiki.getURL(any(DocumentReference.class), eq("editcr"), any(String.class), eq(this.context)))
+            .thenAnswer(invocation -> "/editcr?" + invocation.getArgument(2));
+
+        LiveData liveData = this.entryStore.get(createQuery());
+        assertEquals(2, liveData.getCount());
+
+        Map<String, Object> entry = liveData.getEntries().get(0);
+        assertEquals("Page A", entry.get(FileChangeLiveDataPropertyStore.TITLE));
+        assertEquals("<a href=\"/Space/WebHome\">Space</a>", entry.get(FileChangeLiveDataPropertyStore.LOCATION));
+        assertEquals("<a href=\"/XWiki/Alice\">Alice</a>", entry.get(FileChangeLiveDataPropertyStore.AUTHOR));
+        assertEquals("filechange-1.1", entry.get(FileChangeLiveDataPropertyStore.VERSION));
+        assertEquals("2.1", entry.get(FileChangeLiveDataPropertyStore.DOCUMENT_VERSION));
+        assertEquals(true, entry.get("doc.hasedit"));
+        assertEquals("/editcr?changerequest=cr1&realtime=false", entry.get("doc.edit_url"));
+        assertEquals(false, entry.get("doc.hasfixconflict"));
+        assertEquals(true, entry.get("doc.hasrebase"));
+        assertEquals("/changerequest/rebase/cr1?referenceParameter=Space.A&locale=", entry.get("doc.rebase_url"));
+        assertEquals(true, entry.get("doc.haseditapprovers"));
+        assertEquals("/editcr?changerequest=cr1&editor=object", entry.get("doc.editapprovers_url"));
+
+        // The deleted page cannot be edited.
+        entry = liveData.getEntries().get(1);
+        assertEquals("Page B", entry.get(FileChangeLiveDataPropertyStore.TITLE));
+        assertEquals(false, entry.get("doc.hasedit"));
+        assertFalse(entry.containsKey("doc.haseditapprovers"));
+
+        // The rights on the change request are only checked once.
+        verify(this.changeRequestRightsManager).isAuthorizedToEdit(this.currentUser, this.changeRequest);
+        verify(this.configuration).getMinimumApprovers();
+    }
+
+    @Test
+    void getWithConflicts() throws Exception
+    {
+        when(this.changeRequestRightsManager.isAuthorizedToEdit(this.currentUser, this.changeRequest))
+            .thenReturn(true);
+        ChangeRequestMergeDocumentResult mergeResult = mock(ChangeRequestMergeDocumentResult.class);
+        when(mergeResult.hasConflicts()).thenReturn(true);
+        when(this.changeRequestMergeManager.getMergeDocumentResult(this.editionChange)).thenReturn(mergeResult);
+        when(this.changeRequestMergeManager.getMergeDocumentResult(this.deletionChange))
+            .thenReturn(mock(ChangeRequestMergeDocumentResult.class));
+
+        LiveData liveData = this.entryStore.get(createQuery());
+        Map<String, Object> entry = liveData.getEntries().get(0);
+        assertEquals(true, entry.get("doc.hasfixconflict"));
+        assertEquals("&reference=Space.A&locale=", entry.get("doc.fixconflict_url"));
+        assertEquals(false, entry.get("doc.hasrebase"));
+        verify(this.changeRequestManager, never()).isFileChangeOutdated(this.editionChange);
+    }
+
+    @Test
+    void getWithoutEditRights() throws Exception
+    {
+        when(this.changeRequestRightsManager.isAuthorizedToEdit(this.currentUser, this.changeRequest))
+            .thenReturn(false);
+
+        LiveData liveData = this.entryStore.get(createQuery());
+        assertEquals(2, liveData.getCount());
+        for (Map<String, Object> entry : liveData.getEntries()) {
+            assertEquals(false, entry.get("doc.hasedit"));
+            assertEquals(false, entry.get("doc.hasfixconflict"));
+            assertEquals(false, entry.get("doc.hasrebase"));
+        }
+
+        // Merge results are expensive: they are not computed for users who cannot fix the conflicts.
+        verify(this.changeRequestMergeManager, never()).getMergeDocumentResult(any());
+        verify(this.changeRequestManager, never()).isFileChangeOutdated(any());
+    }
+
+    @Test
+    void getWithoutViewRightOnChangeRequest() throws Exception
+    {
+        DocumentReference changeRequestDocument = new DocumentReference("foo", List.of("ChangeRequest", "cr1"),
+            "WebHome");
+        when(this.changeRequestDocumentReferenceResolver.resolve(this.changeRequest))
+            .thenReturn(changeRequestDocument);
+        when(this.authorizationManager.hasAccess(Right.VIEW, changeRequestDocument)).thenReturn(false);
+
+        LiveData liveData = this.entryStore.get(createQuery());
+        assertEquals(0, liveData.getCount());
+        assertTrue(liveData.getEntries().isEmpty());
+        verify((XWikiDocument) this.editionChange.getModifiedDocument(), never()).getRenderedTitle(any(), any());
+    }
+
+    @Test
+    void getWithoutViewRightOnDocument() throws Exception
+    {
+        when(this.authorizationManager.hasAccess(Right.VIEW, this.deletionChange.getTargetEntity()))
+            .thenReturn(false);
+
+        LiveData liveData = this.entryStore.get(createQuery());
+        assertEquals(1, liveData.getCount());
+        assertEquals("Page A", liveData.getEntries().get(0).get(FileChangeLiveDataPropertyStore.TITLE));
+        verify((XWikiDocument) this.deletionChange.getModifiedDocument(), never()).getRenderedTitle(any(), any());
+    }
+
+    @Test
+    void getWithFiltersSortAndPagination() throws Exception
+    {
+        LiveDataQuery query = createQuery(
+            new LiveDataQuery.Filter(FileChangeLiveDataPropertyStore.TITLE, "contains", "page"));
+        query.setSort(List.of(new LiveDataQuery.SortEntry(FileChangeLiveDataPropertyStore.LOCATION, false)));
+        query.setOffset(1L);
+        query.setLimit(1);
+
+        LiveData liveData = this.entryStore.get(query);
+        assertEquals(2, liveData.getCount());
+        assertEquals(1, liveData.getEntries().size());
+        // Sorted on the full name: Other.B comes before Space.A.
+        assertEquals("Page A", liveData.getEntries().get(0).get(FileChangeLiveDataPropertyStore.TITLE));
+
+        query = createQuery(new LiveDataQuery.Filter(FileChangeLiveDataPropertyStore.AUTHOR, "contains", "bob"));
+        liveData = this.entryStore.get(query);
+        assertEquals(1, liveData.getCount());
+        assertEquals("Page B", liveData.getEntries().get(0).get(FileChangeLiveDataPropertyStore.TITLE));
+    }
+
+    @Test
+    void getWithChangeRequestFilter() throws Exception
+    {
+        LiveDataQuery query = new LiveDataQuery();
+        query.setSource(new LiveDataQuery.Source(FileChangeLiveDataSource.ID));
+        query.setFilters(List.of(
+            new LiveDataQuery.Filter(FileChangeLiveDataEntryStore.CHANGE_REQUEST_PARAMETER, "equals", "cr1")));
+        query.setSort(List.of());
+
+        LiveData liveData = this.entryStore.get(query);
+        assertEquals(2, liveData.getCount());
+        assertTrue(liveData.getEntries().stream().allMatch(entry -> "cr1".equals(entry.get("changerequest"))));
+    }
+}
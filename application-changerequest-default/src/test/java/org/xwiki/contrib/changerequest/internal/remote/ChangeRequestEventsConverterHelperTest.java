@@ -19,22 +19,50 @@
  */
 package org.xwiki.contrib.changerequest.internal.remote;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
+import javax.inject.Named;
+
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.xwiki.bridge.DocumentModelBridge;
 import org.xwiki.contrib.changerequest.ChangeRequest;
 import org.xwiki.contrib.changerequest.ChangeRequestException;
+import org.xwiki.contrib.changerequest.ChangeRequestReview;
+import org.xwiki.contrib.changerequest.ChangeRequestStatus;
 import org.xwiki.contrib.changerequest.FileChange;
+import org.xwiki.contrib.changerequest.ReviewInvalidationReason;
 import org.xwiki.contrib.changerequest.internal.cache.ChangeRequestStorageCacheManager;
 import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
+import org.xwiki.contrib.changerequest.storage.FileChangeStorageManager;
+import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.observation.remote.RemoteEventData;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.user.UserReference;
+import org.xwiki.user.UserReferenceResolver;
+import org.xwiki.user.UserReferenceSerializer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -56,6 +84,19 @@ class ChangeRequestEventsConverterHelperTest
     @MockComponent
     private ChangeRequestStorageManager changeRequestStorageManager;
 
+    @MockComponent
+    private FileChangeStorageManager fileChangeStorageManager;
+
+    @MockComponent
+    private UserReferenceSerializer<String> userReferenceSerializer;
+
+    @MockComponent
+    @Named("current")
+    private UserReferenceResolver<String> userReferenceResolver;
+
+    @RegisterExtension
+    LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
     @Test
     void getChangeRequest() throws ChangeRequestException, ChangeRequestEventsConverterException
     {
@@ -89,6 +130,7 @@ class ChangeRequestEventsConverterHelperTest
         String fileChangeId = "someFilechange";
         RemoteEventData event = mock(RemoteEventData.class, "remoteEvent");
         ChangeRequest changeRequest = mock(ChangeRequest.class);
+        when(changeRequest.getId()).thenReturn(changeRequestId);
         when(this.changeRequestStorageManager.load(changeRequestId)).thenReturn(Optional.of(changeRequest));
         FileChange fileChange = mock(FileChange.class);
         when(changeRequest.getFileChangeById(fileChangeId)).thenReturn(Optional.of(fileChange));
@@ -106,4 +148,155 @@ class ChangeRequestEventsConverterHelperTest
             () -> this.helper.getFileChange(changeRequestId, fileChangeId, event));
         assertEquals("Cannot find change request [someCR42] to convert event [remoteEvent]", exception.getMessage());
     }
+
+    @Test
+    void snapshotRoundTrip() throws Exception
+    {
+        UserReference creator = mock(UserReference.class, "creator");
+        UserReference author = mock(UserReference.class, "author");
+        UserReference reviewer = mock(UserReference.class, "reviewer");
+        when(this.userReferenceSerializer.serialize(creator)).thenReturn("XWiki.Creator");
+        when(this.userReferenceSerializer.serialize(author)).thenReturn("XWiki.Author");
+        when(this.userReferenceSerializer.serialize(reviewer)).thenReturn("XWiki.Reviewer");
+        when(this.userReferenceResolver.resolve("XWiki.Creator")).thenReturn(creator);
+        when(this.userReferenceResolver.resolve("XWiki.Author")).thenReturn(author);
+        when(this.userReferenceResolver.resolve("XWiki.Reviewer")).thenReturn(reviewer);
+
+        ChangeRequest changeRequest = new ChangeRequest()
+            .setId("cr42")
+            .setTitle("My CR")
+            .setDescription("Some description")
+            .setCreator(creator)
+            .setStatus(ChangeRequestStatus.READY_FOR_REVIEW)
+            .setCreationDate(new Date(10))
+            .setUpdateDate(new Date(20));
+        DocumentReference pageReference = new DocumentReference("xwiki", "Space", "Page", Locale.ROOT);
+        DocumentModelBridge modifiedDocument = mock(DocumentModelBridge.class);
+        FileChange fileChange1 = new FileChange(changeRequest, FileChange.FileChangeType.EDITION)
+            .setId("fc1")
+            .setTargetEntity(pageReference)
+            .setPreviousVersion("1.1")
+            .setPreviousPublishedVersion("1.1", new Date(5))
+            .setVersion("filechange-2.1")
+            .setCreationDate(new Date(11))
+            .setAuthor(author)
+            .setModifiedDocument(modifiedDocument)
+            .setSaved(true);
+        FileChange fileChange2 = fileChange1.clone()
+            .setId("fc2")
+            .setVersion("filechange-2.2")
+            .setMinorChange(true);
+        changeRequest.addFileChange(fileChange1).addFileChange(fileChange2);
+        ChangeRequestReview review = new ChangeRequestReview(changeRequest, true, reviewer)
+            .setId("review1")
+            .setReviewDate(new Date(15))
+            .setValid(false)
+            .setSaved(true)
+            .setReviewInvalidationReason(ReviewInvalidationReason.NEW_CHANGE)
+            .setNew(false);
+        review.setOriginalApprover(author);
+        changeRequest.setReviews(List.of(review));
+
+        ChangeRequestSnapshot snapshot = this.helper.createSnapshot(changeRequest);
+        assertEquals(ChangeRequestSnapshot.FORMAT_VERSION, snapshot.getFormatVersion());
+
+        // The snapshot must survive the serialization of the remote events.
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream)) {
+            objectOutputStream.writeObject(snapshot);
+        }
+        ChangeRequestSnapshot receivedSnapshot;
+        try (ObjectInputStream objectInputStream =
+            new ObjectInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            receivedSnapshot = (ChangeRequestSnapshot) objectInputStream.readObject();
+        }
+
+        RemoteEventData event = mock(RemoteEventData.class);
+        ChangeRequest result = this.helper.getChangeRequest(receivedSnapshot, event);
+        verify(this.changeRequestCacheManager).invalidate("cr42");
+        verify(this.changeRequestStorageManager, never()).load(any());
+
+        assertEquals("cr42", result.getId());
+        assertEquals("My CR", result.getTitle());
+        assertEquals("Some description", result.getDescription());
+        assertSame(creator, result.getCreator());
+        assertEquals(ChangeRequestStatus.READY_FOR_REVIEW, result.getStatus());
+        assertEquals(new Date(10), result.getCreationDate());
+        assertEquals(new Date(20), result.getUpdateDate());
+
+        List<FileChange> fileChanges = result.getAllFileChanges();
+        assertEquals(2, fileChanges.size());
+        FileChange resultFileChange = fileChanges.get(0);
+        assertTrue(resultFileChange instanceof SnapshotFileChange);
+        assertEquals("fc1", resultFileChange.getId());
+        assertSame(result, resultFileChange.getChangeRequest());
+        assertEquals(pageReference, resultFileChange.getTargetEntity());
+        assertEquals("1.1", resultFileChange.getPreviousVersion());
+        assertEquals("1.1", resultFileChange.getPreviousPublishedVersion());
+        assertEquals(new Date(5), resultFileChange.getPreviousPublishedVersionDate());
+        assertEquals("filechange-2.1", resultFileChange.getVersion());
+        assertEquals(new Date(11), resultFileChange.getCreationDate());
+        assertSame(author, resultFileChange.getAuthor());
+        assertTrue(resultFileChange.isSaved());
+        assertFalse(resultFileChange.isMinorChange());
+        assertEquals("fc2", fileChanges.get(1).getId());
+        assertTrue(fileChanges.get(1).isMinorChange());
+        assertEquals(Optional.of(fileChanges.get(1)), result.getLatestFileChangeFor(pageReference));
+
+        assertEquals(1, result.getReviews().size());
+        ChangeRequestReview resultReview = result.getReviews().get(0);
+        assertEquals("review1", resultReview.getId());
+        assertTrue(resultReview.isApproved());
+        assertSame(reviewer, resultReview.getAuthor());
+        assertSame(author, resultReview.getOriginalApprover());
+        assertEquals(new Date(15), resultReview.getReviewDate());
+        assertFalse(resultReview.isValid());
+        assertTrue(resultReview.isSaved());
+        assertFalse(resultReview.isNew());
+        assertEquals(ReviewInvalidationReason.NEW_CHANGE, resultReview.getReviewInvalidationReason());
+
+        // The modified documents are only loaded when needed, and only once.
+        verify(this.fileChangeStorageManager, never()).load(any(), any());
+        FileChange storedFileChange = mock(FileChange.class);
+        when(storedFileChange.getId()).thenReturn("fc1");
+        when(storedFileChange.getModifiedDocument()).thenReturn(modifiedDocument);
+        when(this.fileChangeStorageManager.load(result, pageReference)).thenReturn(List.of(storedFileChange));
+        assertSame(modifiedDocument, resultFileChange.getModifiedDocument());
+        assertSame(modifiedDocument, resultFileChange.getModifiedDocument());
+        verify(this.fileChangeStorageManager, times(1)).load(result, pageReference);
+    }
+
+    @Test
+    void getChangeRequestWithUnsupportedSnapshotFormat() throws Exception
+    {
+        ChangeRequestSnapshot snapshot = mock(ChangeRequestSnapshot.class);
+        when(snapshot.getFormatVersion()).thenReturn(ChangeRequestSnapshot.FORMAT_VERSION + 1);
+        when(snapshot.getId()).thenReturn("cr42");
+        RemoteEventData event = mock(RemoteEventData.class);
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+        when(this.changeRequestStorageManager.load("cr42")).thenReturn(Optional.of(changeRequest));
+
+        assertSame(changeRequest, this.helper.getChangeRequest(snapshot, event));
+    }
+
+    @Test
+    void loadModifiedDocumentNotFound() throws Exception
+    {
+        ChangeRequest changeRequest = new ChangeRequest().setId("cr42");
+        DocumentReference pageReference = new DocumentReference("xwiki", "Space", "Page");
+        SnapshotFileChange fileChange =
+            new SnapshotFileChange(changeRequest, FileChange.FileChangeType.EDITION, this.helper);
+        fileChange.setId("fc1").setTargetEntity(pageReference);
+        when(this.fileChangeStorageManager.load(changeRequest, pageReference)).thenReturn(List.of());
+
+        assertNull(fileChange.getModifiedDocument());
+        assertEquals("Cannot find file change [fc1] in the storage of change request [cr42].",
+            this.logCapture.getMessage(0));
+
+        ChangeRequestException exception = new ChangeRequestException("Storage error");
+        when(this.fileChangeStorageManager.load(changeRequest, pageReference)).thenThrow(exception);
+        assertNull(this.helper.loadModifiedDocument(fileChange));
+        assertEquals("Error while loading the modified document of file change [fc1]: "
+            + "[ChangeRequestException: Storage error]", this.logCapture.getMessage(1));
+    }
 }
@@ -26,6 +26,7 @@ import java.util.List;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.xwiki.contrib.changerequest.ChangeRequest;
 import org.xwiki.contrib.changerequest.ChangeRequestReview;
 import org.xwiki.contrib.changerequest.ChangeRequestStatus;
@@ -45,14 +46,18 @@ import org.xwiki.contrib.changerequest.events.ChangeRequestUpdatingFileChangeEve
 import org.xwiki.contrib.changerequest.events.FileChangeDocumentSavedEvent;
 import org.xwiki.contrib.changerequest.events.FileChangeDocumentSavingEvent;
 import org.xwiki.contrib.changerequest.events.FileChangeRebasedEvent;
+import org.xwiki.contrib.changerequest.events.FileChangeReferenceRenamedEvent;
 import org.xwiki.contrib.changerequest.events.SplitBeginChangeRequestEvent;
 import org.xwiki.contrib.changerequest.events.SplitEndChangeRequestEvent;
 import org.xwiki.contrib.changerequest.events.StaleChangeRequestEvent;
+import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.observation.event.Event;
 import org.xwiki.observation.remote.LocalEventData;
 import org.xwiki.observation.remote.RemoteEventData;
 import org.xwiki.observation.remote.converter.LocalEventConverter;
 import org.xwiki.observation.remote.converter.RemoteEventConverter;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
@@ -60,7 +65,10 @@ import org.xwiki.test.junit5.mockito.MockComponent;
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.doc.XWikiDocument;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -90,6 +98,12 @@ class ChangeRequestEventsConverterTest
     @MockComponent
     private XWikiDocumentEventConverterSerializer serializer;
 
+    @MockComponent
+    private ChangeRequestRemoteEventsBatcher batcher;
+
+    @RegisterExtension
+    LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
     @Test
     void toRemoteChangeRequestCreatedEvent()
     {
@@ -107,6 +121,27 @@ class ChangeRequestEventsConverterTest
         verify(remoteEvent, never()).setData(any());
     }
 
+    @Test
+    void toRemoteChangeRequestCreatedEventWithSnapshot()
+    {
+        LocalEventData localEvent = mock(LocalEventData.class);
+        RemoteEventData remoteEvent = mock(RemoteEventData.class);
+
+        ChangeRequestCreatedEvent event = new ChangeRequestCreatedEvent();
+        when(localEvent.getEvent()).thenReturn(event);
+        String source = "someCr43";
+        when(localEvent.getSource()).thenReturn(source);
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+        when(localEvent.getData()).thenReturn(changeRequest);
+        ChangeRequestSnapshot snapshot = mock(ChangeRequestSnapshot.class);
+        when(this.helper.createSnapshot(changeRequest)).thenReturn(snapshot);
+
+        assertTrue(this.converterToRemote.toRemote(localEvent, remoteEvent));
+        verify(remoteEvent).setEvent(event);
+        verify(remoteEvent).setSource(source);
+        verify(remoteEvent).setData(snapshot);
+    }
+
     @Test
     void toRemoteChangeRequestMergedEvent()
     {
@@ -243,6 +278,25 @@ class ChangeRequestEventsConverterTest
         verify(remoteEvent, never()).setData(any());
     }
 
+    @Test
+    void toRemoteFileChangeReferenceRenamedEvent()
+    {
+        LocalEventData localEvent = mock(LocalEventData.class);
+        RemoteEventData remoteEvent = mock(RemoteEventData.class);
+
+        FileChangeReferenceRenamedEvent event =
+            new FileChangeReferenceRenamedEvent(new DocumentReference("xwiki", "Space", "Source"),
+                new DocumentReference("xwiki", "Space", "Target"), false);
+        when(localEvent.getEvent()).thenReturn(event);
+        String source = "someCrRenamed";
+        when(localEvent.getSource()).thenReturn(source);
+
+        assertTrue(this.converterToRemote.toRemote(localEvent, remoteEvent));
+        verify(remoteEvent).setEvent(event);
+        verify(remoteEvent).setSource(source);
+        verify(remoteEvent, never()).setData(any());
+    }
+
     @Test
     void toRemoteChangeRequestFileChangeAddedEvent()
     {
@@ -257,11 +311,15 @@ class ChangeRequestEventsConverterTest
         when(localEvent.getData()).thenReturn(fileChange);
         String fileChangeId = "someFileChangeId";
         when(fileChange.getId()).thenReturn(fileChangeId);
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+        when(fileChange.getChangeRequest()).thenReturn(changeRequest);
+        ChangeRequestSnapshot snapshot = mock(ChangeRequestSnapshot.class);
+        when(this.helper.createSnapshot(changeRequest)).thenReturn(snapshot);
 
         assertTrue(this.converterToRemote.toRemote(localEvent, remoteEvent));
         verify(remoteEvent).setEvent(event);
         verify(remoteEvent).setSource(source);
-        verify(remoteEvent).setData(fileChangeId);
+        verify(remoteEvent).setData(Pair.of(fileChangeId, snapshot));
     }
 
     @Test
@@ -278,11 +336,15 @@ class ChangeRequestEventsConverterTest
         when(localEvent.getData()).thenReturn(fileChange);
         String fileChangeId = "someFileChangeId28";
         when(fileChange.getId()).thenReturn(fileChangeId);
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+        when(fileChange.getChangeRequest()).thenReturn(changeRequest);
+        ChangeRequestSnapshot snapshot = mock(ChangeRequestSnapshot.class);
+        when(this.helper.createSnapshot(changeRequest)).thenReturn(snapshot);
 
         assertTrue(this.converterToRemote.toRemote(localEvent, remoteEvent));
         verify(remoteEvent).setEvent(event);
         verify(remoteEvent).setSource(source);
-        verify(remoteEvent).setData(fileChangeId);
+        verify(remoteEvent).setData(Pair.of(fileChangeId, snapshot));
     }
 
     @Test
@@ -330,11 +392,22 @@ class ChangeRequestEventsConverterTest
         when(localEvent.getData()).thenReturn(fileChange);
         String fileChangeId = "someFileChangeId2836";
         when(fileChange.getId()).thenReturn(fileChangeId);
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+        when(fileChange.getChangeRequest()).thenReturn(changeRequest);
+        ChangeRequestSnapshot snapshot = mock(ChangeRequestSnapshot.class);
+        when(this.helper.createSnapshot(changeRequest)).thenReturn(snapshot);
 
         assertTrue(this.converterToRemote.toRemote(localEvent, remoteEvent));
         verify(remoteEvent, times(2)).setEvent(event);
         verify(remoteEvent, times(2)).setSource(source);
-        verify(remoteEvent).setData(fileChangeId);
+        verify(remoteEvent).setData(Pair.of(fileChangeId, snapshot));
+
+        when(localEvent.getData()).thenReturn(changeRequest);
+
+        assertTrue(this.converterToRemote.toRemote(localEvent, remoteEvent));
+        verify(remoteEvent, times(3)).setEvent(event);
+        verify(remoteEvent, times(3)).setSource(source);
+        verify(remoteEvent).setData(snapshot);
     }
 
     @Test
@@ -352,11 +425,15 @@ class ChangeRequestEventsConverterTest
 
         String reviewId = "someReview";
         when(review.getId()).thenReturn(reviewId);
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+        when(review.getChangeRequest()).thenReturn(changeRequest);
+        ChangeRequestSnapshot snapshot = mock(ChangeRequestSnapshot.class);
+        when(this.helper.createSnapshot(changeRequest)).thenReturn(snapshot);
 
         assertTrue(this.converterToRemote.toRemote(localEvent, remoteEvent));
         verify(remoteEvent).setEvent(event);
         verify(remoteEvent).setSource(source);
-        verify(remoteEvent).setData(reviewId);
+        verify(remoteEvent).setData(Pair.of(reviewId, snapshot));
     }
 
     @Test
@@ -403,13 +480,15 @@ class ChangeRequestEventsConverterTest
         String fileChangeId = "fooFileChange";
         when(fileChange.getId()).thenReturn(fileChangeId);
         when(fileChange.getChangeRequest()).thenReturn(changeRequest);
+        ChangeRequestSnapshot snapshot = mock(ChangeRequestSnapshot.class);
+        when(this.helper.createSnapshot(changeRequest)).thenReturn(snapshot);
 
         String serializedDoc = "fooXWikiDocument";
         when(this.serializer.serializeXWikiDocument(document)).thenReturn(serializedDoc);
 
         assertTrue(this.converterToRemote.toRemote(localEvent, remoteEvent));
         verify(remoteEvent).setEvent(event);
-        verify(remoteEvent).setSource(Pair.of(changeRequestId, fileChangeId));
+        verify(remoteEvent).setSource(Pair.of(fileChangeId, snapshot));
         verify(remoteEvent).setData(serializedDoc);
     }
 
@@ -429,17 +508,17 @@ class ChangeRequestEventsConverterTest
         ChangeRequest cr3 = mock(ChangeRequest.class);
         when(localEvent.getData()).thenReturn(List.of(cr1, cr2, cr3));
 
-        String cr1Id = "cr1Id";
-        String cr2Id = "cr2Id";
-        String cr3Id = "cr3Id";
-        when(cr1.getId()).thenReturn(cr1Id);
-        when(cr2.getId()).thenReturn(cr2Id);
-        when(cr3.getId()).thenReturn(cr3Id);
+        ChangeRequestSnapshot snapshot1 = mock(ChangeRequestSnapshot.class);
+        ChangeRequestSnapshot snapshot2 = mock(ChangeRequestSnapshot.class);
+        ChangeRequestSnapshot snapshot3 = mock(ChangeRequestSnapshot.class);
+        when(this.helper.createSnapshot(cr1)).thenReturn(snapshot1);
+        when(this.helper.createSnapshot(cr2)).thenReturn(snapshot2);
+        when(this.helper.createSnapshot(cr3)).thenReturn(snapshot3);
 
         assertTrue(this.converterToRemote.toRemote(localEvent, remoteEvent));
         verify(remoteEvent).setEvent(event);
         verify(remoteEvent).setSource(source);
-        verify(remoteEvent).setData(new ArrayList<>(List.of(cr1Id, cr2Id, cr3Id)));
+        verify(remoteEvent).setData(new ArrayList<>(List.of(snapshot1, snapshot2, snapshot3)));
     }
 
     @Test
@@ -481,7 +560,29 @@ class ChangeRequestEventsConverterTest
         when(this.helper.getChangeRequest(source, remoteEvent)).thenReturn(changeRequest);
         assertTrue(this.converterFromRemote.fromRemote(remoteEvent, localEvent));
 
-        verify(remoteEvent, never()).getData();
+        verify(localEvent).setEvent(event);
+        verify(localEvent).setSource(source);
+        verify(localEvent).setData(changeRequest);
+    }
+
+    @Test
+    void fromRemoteChangeRequestCreatedEventWithSnapshot() throws ChangeRequestEventsConverterException
+    {
+        RemoteEventData remoteEvent = mock(RemoteEventData.class);
+        LocalEventData localEvent = mock(LocalEventData.class);
+
+        ChangeRequestCreatedEvent event = new ChangeRequestCreatedEvent();
+        when(remoteEvent.getEvent()).thenReturn(event);
+        String source = "someCr43";
+        when(remoteEvent.getSource()).thenReturn(source);
+        ChangeRequestSnapshot snapshot = mock(ChangeRequestSnapshot.class);
+        when(remoteEvent.getData()).thenReturn(snapshot);
+
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+        when(this.helper.getChangeRequest(snapshot, remoteEvent)).thenReturn(changeRequest);
+        assertTrue(this.converterFromRemote.fromRemote(remoteEvent, localEvent));
+
+        verify(this.helper, never()).getChangeRequest(source, remoteEvent);
         verify(localEvent).setEvent(event);
         verify(localEvent).setSource(source);
         verify(localEvent).setData(changeRequest);
@@ -502,7 +603,6 @@ class ChangeRequestEventsConverterTest
         when(this.helper.getChangeRequest(source, remoteEvent)).thenReturn(changeRequest);
         assertTrue(this.converterFromRemote.fromRemote(remoteEvent, localEvent));
 
-        verify(remoteEvent, never()).getData();
         verify(localEvent).setEvent(event);
         verify(localEvent).setSource(source);
         verify(localEvent).setData(changeRequest);
@@ -523,7 +623,6 @@ class ChangeRequestEventsConverterTest
         when(this.helper.getChangeRequest(source, remoteEvent)).thenReturn(changeRequest);
         assertTrue(this.converterFromRemote.fromRemote(remoteEvent, localEvent));
 
-        verify(remoteEvent, never()).getData();
         verify(localEvent).setEvent(event);
         verify(localEvent).setSource(source);
         verify(localEvent).setData(changeRequest);
@@ -544,7 +643,6 @@ class ChangeRequestEventsConverterTest
         when(this.helper.getChangeRequest(source, remoteEvent)).thenReturn(changeRequest);
         assertTrue(this.converterFromRemote.fromRemote(remoteEvent, localEvent));
 
-        verify(remoteEvent, never()).getData();
         verify(localEvent).setEvent(event);
         verify(localEvent).setSource(source);
         verify(localEvent).setData(changeRequest);
@@ -565,7 +663,6 @@ class ChangeRequestEventsConverterTest
         when(this.helper.getChangeRequest(source, remoteEvent)).thenReturn(changeRequest);
         assertTrue(this.converterFromRemote.fromRemote(remoteEvent, localEvent));
 
-        verify(remoteEvent, never()).getData();
         verify(localEvent).setEvent(event);
         verify(localEvent).setSource(source);
         verify(localEvent).setData(changeRequest);
@@ -586,7 +683,6 @@ class ChangeRequestEventsConverterTest
         when(this.helper.getChangeRequest(source, remoteEvent)).thenReturn(changeRequest);
         assertTrue(this.converterFromRemote.fromRemote(remoteEvent, localEvent));
 
-        verify(remoteEvent, never()).getData();
         verify(localEvent).setEvent(event);
         verify(localEvent).setSource(source);
         verify(localEvent).setData(changeRequest);
@@ -614,6 +710,29 @@ class ChangeRequestEventsConverterTest
         verify(localEvent).setData(fileChange);
     }
 
+    @Test
+    void fromRemoteChangeRequestFileChangeAddedEventWithSnapshot() throws ChangeRequestEventsConverterException
+    {
+        RemoteEventData remoteEvent = mock(RemoteEventData.class);
+        LocalEventData localEvent = mock(LocalEventData.class);
+
+        ChangeRequestFileChangeAddedEvent event = new ChangeRequestFileChangeAddedEvent();
+        when(remoteEvent.getEvent()).thenReturn(event);
+        String source = "someCr422FileChangeAdded";
+        when(remoteEvent.getSource()).thenReturn(source);
+        String fileChangeId = "fileChangeAdded";
+        ChangeRequestSnapshot snapshot = mock(ChangeRequestSnapshot.class);
+        when(remoteEvent.getData()).thenReturn(Pair.of(fileChangeId, snapshot));
+
+        FileChange fileChange = mock(FileChange.class);
+        when(this.helper.getFileChange(snapshot, fileChangeId, remoteEvent)).thenReturn(fileChange);
+        assertTrue(this.converterFromRemote.fromRemote(remoteEvent, localEvent));
+
+        verify(localEvent).setEvent(event);
+        verify(localEvent).setSource(source);
+        verify(localEvent).setData(fileChange);
+    }
+
     @Test
     void fromRemoteFileChangeRebasedEvent() throws ChangeRequestEventsConverterException
     {
@@ -693,6 +812,27 @@ class ChangeRequestEventsConverterTest
         verify(localEvent, never()).setData(any());
     }
 
+    @Test
+    void fromRemoteFileChangeReferenceRenamedEvent() throws ChangeRequestEventsConverterException
+    {
+        RemoteEventData remoteEvent = mock(RemoteEventData.class);
+        LocalEventData localEvent = mock(LocalEventData.class);
+
+        FileChangeReferenceRenamedEvent event =
+            new FileChangeReferenceRenamedEvent(new DocumentReference("xwiki", "Space", "Source"),
+                new DocumentReference("xwiki", "Space", "Target"), true);
+        when(remoteEvent.getEvent()).thenReturn(event);
+        String source = "someCrRenamed";
+        when(remoteEvent.getSource()).thenReturn(source);
+
+        assertTrue(this.converterFromRemote.fromRemote(remoteEvent, localEvent));
+
+        verify(remoteEvent, never()).getData();
+        verify(localEvent).setEvent(event);
+        verify(localEvent).setSource(source);
+        verify(localEvent, never()).setData(any());
+    }
+
     @Test
     void fromRemoteApproversUpdatedEvent() throws ChangeRequestEventsConverterException, XWikiException
     {
@@ -780,6 +920,35 @@ class ChangeRequestEventsConverterTest
         verify(localEvent).setData(review2);
     }
 
+    @Test
+    void fromRemoteChangeRequestReviewAddedEventWithSnapshot() throws ChangeRequestEventsConverterException
+    {
+        RemoteEventData remoteEvent = mock(RemoteEventData.class);
+        LocalEventData localEvent = mock(LocalEventData.class);
+
+        ChangeRequestReviewAddedEvent event = new ChangeRequestReviewAddedEvent();
+        when(remoteEvent.getEvent()).thenReturn(event);
+        String source = "reviewAddedUpdatedCR";
+        when(remoteEvent.getSource()).thenReturn(source);
+        String reviewId = "reviewId43";
+        ChangeRequestSnapshot snapshot = mock(ChangeRequestSnapshot.class);
+        when(remoteEvent.getData()).thenReturn(Pair.of(reviewId, snapshot));
+
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+        when(this.helper.getChangeRequest(snapshot, remoteEvent)).thenReturn(changeRequest);
+        ChangeRequestReview review1 = mock(ChangeRequestReview.class);
+        ChangeRequestReview review2 = mock(ChangeRequestReview.class);
+        when(review1.getId()).thenReturn("f");
+        when(review2.getId()).thenReturn(reviewId);
+        when(changeRequest.getReviews()).thenReturn(List.of(review1, review2));
+        assertTrue(this.converterFromRemote.fromRemote(remoteEvent, localEvent));
+
+        verify(this.helper, never()).getChangeRequest(source, remoteEvent);
+        verify(localEvent).setEvent(event);
+        verify(localEvent).setSource(source);
+        verify(localEvent).setData(review2);
+    }
+
     @Test
     void fromRemoteChangeRequestStatusChangedEvent() throws ChangeRequestEventsConverterException
     {
@@ -830,6 +999,59 @@ class ChangeRequestEventsConverterTest
         verify(localEvent).setData(document);
     }
 
+    @Test
+    void fromRemoteFileChangeDocumentSavedEventWithSnapshot()
+        throws ChangeRequestEventsConverterException, XWikiException
+    {
+        RemoteEventData remoteEvent = mock(RemoteEventData.class);
+        LocalEventData localEvent = mock(LocalEventData.class);
+
+        FileChangeDocumentSavedEvent event = new FileChangeDocumentSavedEvent();
+        when(remoteEvent.getEvent()).thenReturn(event);
+        String fileChangeId = "fileChangeId888";
+        ChangeRequestSnapshot snapshot = mock(ChangeRequestSnapshot.class);
+        when(remoteEvent.getSource()).thenReturn(Pair.of(fileChangeId, snapshot));
+        String data = "serializedDoc988";
+        when(remoteEvent.getData()).thenReturn(data);
+
+        FileChange fileChange = mock(FileChange.class);
+        when(this.helper.getFileChange(snapshot, fileChangeId, remoteEvent)).thenReturn(fileChange);
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(this.serializer.unserializeDocument(data)).thenReturn(document);
+
+        assertTrue(this.converterFromRemote.fromRemote(remoteEvent, localEvent));
+
+        verify(localEvent).setEvent(event);
+        verify(localEvent).setSource(fileChange);
+        verify(localEvent).setData(document);
+    }
+
+    @Test
+    void fromRemoteSplitEndChangeRequestEventWithSnapshots() throws ChangeRequestEventsConverterException
+    {
+        RemoteEventData remoteEvent = mock(RemoteEventData.class);
+        LocalEventData localEvent = mock(LocalEventData.class);
+
+        SplitEndChangeRequestEvent event = new SplitEndChangeRequestEvent();
+        when(remoteEvent.getEvent()).thenReturn(event);
+        String source = "originalBeforeSplitCR";
+        when(remoteEvent.getSource()).thenReturn(source);
+        ChangeRequestSnapshot snapshot1 = mock(ChangeRequestSnapshot.class);
+        ChangeRequestSnapshot snapshot2 = mock(ChangeRequestSnapshot.class);
+        when(remoteEvent.getData()).thenReturn(new ArrayList<>(List.of(snapshot1, snapshot2)));
+
+        ChangeRequest changeRequest1 = mock(ChangeRequest.class);
+        ChangeRequest changeRequest2 = mock(ChangeRequest.class);
+        when(this.helper.getChangeRequest(snapshot1, remoteEvent)).thenReturn(changeRequest1);
+        when(this.helper.getChangeRequest(snapshot2, remoteEvent)).thenReturn(changeRequest2);
+
+        assertTrue(this.converterFromRemote.fromRemote(remoteEvent, localEvent));
+
+        verify(localEvent).setEvent(event);
+        verify(localEvent).setSource(source);
+        verify(localEvent).setData(new ArrayList<>(List.of(changeRequest1, changeRequest2)));
+    }
+
     @Test
     void fromRemoteSplitEndChangeRequestEvent() throws ChangeRequestEventsConverterException
     {
@@ -877,4 +1099,156 @@ class ChangeRequestEventsConverterTest
         verify(localEvent, never()).setSource(any());
         verify(localEvent, never()).setData(any());
     }
+
+    @Test
+    void toRemoteBatchedEvent()
+    {
+        LocalEventData localEvent = mock(LocalEventData.class);
+        RemoteEventData remoteEvent = mock(RemoteEventData.class);
+
+        ChangeRequestMergedEvent event = new ChangeRequestMergedEvent();
+        when(localEvent.getEvent()).thenReturn(event);
+        String source = "someCr43";
+        when(localEvent.getSource()).thenReturn(source);
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+        when(localEvent.getData()).thenReturn(changeRequest);
+        ChangeRequestSnapshot snapshot = mock(ChangeRequestSnapshot.class);
+        when(this.helper.createSnapshot(changeRequest)).thenReturn(snapshot);
+        when(this.batcher.add(source, remoteEvent)).thenReturn(true);
+
+        // the event is not accepted so that it's not sent now, and is left untouched
+        assertFalse(this.converterToRemote.toRemote(localEvent, remoteEvent));
+        verify(remoteEvent).setEvent(event);
+        verify(remoteEvent).setSource(source);
+        verify(remoteEvent).setData(snapshot);
+        verify(this.batcher).add(source, remoteEvent);
+        verify(this.batcher, never()).flush();
+        verify(localEvent, never()).setEvent(any());
+        verify(localEvent, never()).setSource(any());
+        verify(localEvent, never()).setData(any());
+    }
+
+    @Test
+    void toRemoteEventWithSerializableDataIsNotBatched()
+    {
+        LocalEventData localEvent = mock(LocalEventData.class);
+        RemoteEventData remoteEvent = mock(RemoteEventData.class);
+
+        // the generic serializable converter would send this event if it was not accepted
+        ChangeRequestMergingEvent event = new ChangeRequestMergingEvent();
+        when(localEvent.getEvent()).thenReturn(event);
+        when(localEvent.getSource()).thenReturn("someCr43");
+
+        assertTrue(this.converterToRemote.toRemote(localEvent, remoteEvent));
+        verify(remoteEvent).setEvent(event);
+        verify(remoteEvent).setSource("someCr43");
+        verify(this.batcher, never()).add(any(), any());
+        verify(this.batcher).flush();
+    }
+
+    @Test
+    void toRemoteOtherEventFlushesPendingEvents()
+    {
+        LocalEventData localEvent = mock(LocalEventData.class);
+        RemoteEventData remoteEvent = mock(RemoteEventData.class);
+        when(localEvent.getEvent()).thenReturn(mock(Event.class));
+
+        // the event is sent by another converter, after the pending events
+        assertFalse(this.converterToRemote.toRemote(localEvent, remoteEvent));
+        verify(this.batcher, never()).add(any(), any());
+        verify(this.batcher).flush();
+        verify(localEvent, never()).setEvent(any());
+    }
+
+    @Test
+    void getPriority()
+    {
+        // the converter must be executed before the generic converters which could send the batched events
+        assertTrue(this.converterToRemote.getPriority() < 1000);
+    }
+
+    @Test
+    void toRemoteNotBatchedEventFlushesPendingEvents()
+    {
+        LocalEventData localEvent = mock(LocalEventData.class);
+        RemoteEventData remoteEvent = mock(RemoteEventData.class);
+
+        FileChangeDocumentSavingEvent event = new FileChangeDocumentSavingEvent();
+        when(localEvent.getEvent()).thenReturn(event);
+
+        assertTrue(this.converterToRemote.toRemote(localEvent, remoteEvent));
+        verify(this.batcher, never()).add(any(), any());
+        verify(this.batcher).flush();
+    }
+
+    @Test
+    void toRemoteBatchEvent()
+    {
+        LocalEventData localEvent = mock(LocalEventData.class);
+        RemoteEventData remoteEvent = mock(RemoteEventData.class);
+
+        ChangeRequestRemoteEventsBatchEvent event = new ChangeRequestRemoteEventsBatchEvent();
+        when(localEvent.getEvent()).thenReturn(event);
+        String source = "someCr43";
+        when(localEvent.getSource()).thenReturn(source);
+        ArrayList<RemoteEventData> data = new ArrayList<>(List.of(mock(RemoteEventData.class)));
+        when(localEvent.getData()).thenReturn(data);
+
+        assertTrue(this.converterToRemote.toRemote(localEvent, remoteEvent));
+        verify(remoteEvent).setEvent(event);
+        verify(remoteEvent).setSource(source);
+        verify(remoteEvent).setData(data);
+        verify(this.batcher, never()).add(any(), any());
+        verify(this.batcher, never()).flush();
+    }
+
+    @Test
+    void fromRemoteBatchEvent() throws ChangeRequestEventsConverterException
+    {
+        String source = "someCr43";
+
+        RemoteEventData mergingEvent = new RemoteEventData();
+        ChangeRequestMergingEvent event1 = new ChangeRequestMergingEvent();
+        mergingEvent.setEvent(event1);
+        mergingEvent.setSource(source);
+
+        RemoteEventData mergedEvent = new RemoteEventData();
+        ChangeRequestMergedEvent event2 = new ChangeRequestMergedEvent();
+        mergedEvent.setEvent(event2);
+        mergedEvent.setSource(source);
+        ChangeRequestSnapshot snapshot = mock(ChangeRequestSnapshot.class);
+        mergedEvent.setData(snapshot);
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+        when(this.helper.getChangeRequest(snapshot, mergedEvent)).thenReturn(changeRequest);
+
+        // Event that cannot be converted: it's skipped.
+        RemoteEventData reviewEvent = new RemoteEventData();
+        reviewEvent.setEvent(new ChangeRequestReviewAddedEvent());
+        reviewEvent.setSource(source);
+        reviewEvent.setData("unknownReview");
+        ChangeRequest otherChangeRequest = mock(ChangeRequest.class);
+        when(this.helper.getChangeRequest(source, reviewEvent)).thenReturn(otherChangeRequest);
+
+        RemoteEventData remoteEvent = mock(RemoteEventData.class);
+        ChangeRequestRemoteEventsBatchEvent event = new ChangeRequestRemoteEventsBatchEvent();
+        when(remoteEvent.getEvent()).thenReturn(event);
+        when(remoteEvent.getSource()).thenReturn(source);
+        when(remoteEvent.getData()).thenReturn(new ArrayList<>(List.of(mergingEvent, reviewEvent, mergedEvent)));
+
+        LocalEventData localEvent = new LocalEventData();
+        assertTrue(this.converterFromRemote.fromRemote(remoteEvent, localEvent));
+        assertSame(event, localEvent.getEvent());
+        assertEquals(source, localEvent.getSource());
+
+        List<LocalEventData> localEvents = (List<LocalEventData>) localEvent.getData();
+        assertEquals(2, localEvents.size());
+        assertSame(event1, localEvents.get(0).getEvent());
+        assertEquals(source, localEvents.get(0).getSource());
+        assertNull(localEvents.get(0).getData());
+        assertSame(event2, localEvents.get(1).getEvent());
+        assertEquals(source, localEvents.get(1).getSource());
+        assertSame(changeRequest, localEvents.get(1).getData());
+        assertEquals("Cannot find review with id [unknownReview] in the change request reviews to properly convert "
+            + "remote event [" + reviewEvent + "]", this.logCapture.getMessage(0));
+    }
 }
@@ -0,0 +1,139 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.remote;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xwiki.contrib.changerequest.ChangeRequestConfiguration;
+import org.xwiki.observation.remote.LocalEventData;
+import org.xwiki.observation.remote.RemoteEventData;
+import org.xwiki.observation.remote.RemoteObservationManager;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ChangeRequestRemoteEventsBatcher}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class ChangeRequestRemoteEventsBatcherTest
+{
+    @InjectMockComponents
+    private ChangeRequestRemoteEventsBatcher batcher;
+
+    @MockComponent
+    private ChangeRequestConfiguration configuration;
+
+    @MockComponent
+    private RemoteObservationManager remoteObservationManager;
+
+    @AfterEach
+    void afterEach() throws Exception
+    {
+        this.batcher.dispose();
+    }
+
+    @Test
+    void addWhenDisabled()
+    {
+        when(this.configuration.getRemoteEventsBatchWindow()).thenReturn(0L);
+
+        assertFalse(this.batcher.add("cr1", mock(RemoteEventData.class)));
+        this.batcher.flush();
+        verify(this.remoteObservationManager, never()).notify(any(LocalEventData.class));
+    }
+
+    @Test
+    void addAndFlushAfterWindow()
+    {
+        when(this.configuration.getRemoteEventsBatchWindow()).thenReturn(10L);
+
+        RemoteEventData event1 = mock(RemoteEventData.class, "event1");
+        RemoteEventData event2 = mock(RemoteEventData.class, "event2");
+        RemoteEventData event3 = mock(RemoteEventData.class, "event3");
+        assertTrue(this.batcher.add("cr1", event1));
+        assertTrue(this.batcher.add("cr2", event2));
+        assertTrue(this.batcher.add("cr1", event3));
+
+        ArgumentCaptor<LocalEventData> captor = ArgumentCaptor.forClass(LocalEventData.class);
+        verify(this.remoteObservationManager, timeout(1000).times(2)).notify(captor.capture());
+
+        List<LocalEventData> batches = captor.getAllValues();
+        assertTrue(batches.get(0).getEvent() instanceof ChangeRequestRemoteEventsBatchEvent);
+        assertEquals("cr1", batches.get(0).getSource());
+        assertEquals(List.of(event1, event3), batches.get(0).getData());
+        assertTrue(batches.get(1).getEvent() instanceof ChangeRequestRemoteEventsBatchEvent);
+        assertEquals("cr2", batches.get(1).getSource());
+        assertEquals(List.of(event2), batches.get(1).getData());
+
+        // The scheduled flush doesn't send anything again.
+        verify(this.remoteObservationManager, after(50).times(2)).notify(any(LocalEventData.class));
+    }
+
+    @Test
+    void flush()
+    {
+        when(this.configuration.getRemoteEventsBatchWindow()).thenReturn(60000L);
+
+        RemoteEventData event = mock(RemoteEventData.class);
+        assertTrue(this.batcher.add("cr1", event));
+        verify(this.remoteObservationManager, never()).notify(any(LocalEventData.class));
+
+        this.batcher.flush();
+        ArgumentCaptor<LocalEventData> captor = ArgumentCaptor.forClass(LocalEventData.class);
+        verify(this.remoteObservationManager).notify(captor.capture());
+        assertEquals("cr1", captor.getValue().getSource());
+        assertEquals(List.of(event), captor.getValue().getData());
+
+        // Nothing left to send.
+        this.batcher.flush();
+        verify(this.remoteObservationManager, times(1)).notify(any(LocalEventData.class));
+    }
+
+    @Test
+    void dispose() throws Exception
+    {
+        when(this.configuration.getRemoteEventsBatchWindow()).thenReturn(60000L);
+
+        RemoteEventData event = mock(RemoteEventData.class);
+        assertTrue(this.batcher.add("cr1", event));
+
+        this.batcher.dispose();
+        verify(this.remoteObservationManager).notify(any(LocalEventData.class));
+    }
+}
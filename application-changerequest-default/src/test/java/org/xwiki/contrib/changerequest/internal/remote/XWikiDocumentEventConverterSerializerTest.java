@@ -0,0 +1,156 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.remote;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.contrib.changerequest.internal.cache.DocumentVersionCacheManager;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.store.XWikiStoreInterface;
+import com.xpn.xwiki.store.XWikiVersioningStoreInterface;
+import com.xpn.xwiki.util.XWikiStubContextProvider;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link XWikiDocumentEventConverterSerializer}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class XWikiDocumentEventConverterSerializerTest
+{
+    private static final DocumentReference DOCUMENT_REFERENCE = new DocumentReference("xwiki", "Space", "Page");
+
+    @InjectMockComponents
+    private XWikiDocumentEventConverterSerializer serializer;
+
+    @MockComponent
+    private Execution execution;
+
+    @MockComponent
+    private XWikiStubContextProvider stubContextProvider;
+
+    @MockComponent
+    private DocumentVersionCacheManager documentVersionCacheManager;
+
+    private XWikiContext context;
+
+    private XWikiStoreInterface store;
+
+    private XWikiVersioningStoreInterface versioningStore;
+
+    @BeforeEach
+    void setup()
+    {
+        ExecutionContext executionContext = mock(ExecutionContext.class);
+        when(this.execution.getContext()).thenReturn(executionContext);
+        this.context = mock(XWikiContext.class);
+        when(executionContext.getProperty(XWikiContext.EXECUTIONCONTEXT_KEY)).thenReturn(this.context);
+
+        XWiki wiki = mock(XWiki.class);
+        when(this.context.getWiki()).thenReturn(wiki);
+        this.store = mock(XWikiStoreInterface.class);
+        when(wiki.getNotCacheStore()).thenReturn(this.store);
+        this.versioningStore = mock(XWikiVersioningStoreInterface.class);
+        when(wiki.getVersioningStore()).thenReturn(this.versioningStore);
+    }
+
+    private Serializable getRemoteData(String version, String originalVersion)
+    {
+        Map<String, Serializable> remoteData = new HashMap<>();
+        remoteData.put(XWikiDocumentEventConverterSerializer.DOC_NAME, DOCUMENT_REFERENCE);
+        remoteData.put(XWikiDocumentEventConverterSerializer.DOC_VERSION, version);
+        remoteData.put(XWikiDocumentEventConverterSerializer.DOC_LANGUAGE, "");
+        remoteData.put(XWikiDocumentEventConverterSerializer.ORIGDOC_VERSION, originalVersion);
+        remoteData.put(XWikiDocumentEventConverterSerializer.ORIGDOC_LANGUAGE, "");
+        return (Serializable) remoteData;
+    }
+
+    @Test
+    void unserializeDocumentFromStorage() throws XWikiException
+    {
+        XWikiDocument currentDocument = mock(XWikiDocument.class, "current");
+        when(currentDocument.getVersion()).thenReturn("2.1");
+        when(this.store.loadXWikiDoc(any(XWikiDocument.class), eq(this.context))).thenReturn(currentDocument);
+        XWikiDocument originalDocument = mock(XWikiDocument.class, "original");
+        when(originalDocument.getVersion()).thenReturn("1.1");
+        when(this.versioningStore.loadXWikiDoc(any(XWikiDocument.class), eq("1.1"), eq(this.context)))
+            .thenReturn(originalDocument);
+
+        assertSame(currentDocument, this.serializer.unserializeDocument(getRemoteData("2.1", "1.1")));
+
+        verify(currentDocument).setOriginalDocument(originalDocument);
+        verify(this.documentVersionCacheManager).setDocument(currentDocument);
+        verify(this.documentVersionCacheManager).setDocument(originalDocument);
+    }
+
+    @Test
+    void unserializeDocumentFromCache() throws XWikiException
+    {
+        XWikiDocument currentDocument = mock(XWikiDocument.class, "current");
+        when(this.documentVersionCacheManager.getDocument(DOCUMENT_REFERENCE, "", "2.1")).thenReturn(currentDocument);
+        XWikiDocument originalDocument = mock(XWikiDocument.class, "original");
+        when(this.documentVersionCacheManager.getDocument(DOCUMENT_REFERENCE, "", "1.1"))
+            .thenReturn(originalDocument);
+
+        assertSame(currentDocument, this.serializer.unserializeDocument(getRemoteData("2.1", "1.1")));
+
+        verify(currentDocument).setOriginalDocument(originalDocument);
+        verifyNoInteractions(this.store);
+        verifyNoInteractions(this.versioningStore);
+        verify(this.documentVersionCacheManager, never()).setDocument(any());
+    }
+
+    @Test
+    void unserializeDocumentNotCachedWhenNotFound() throws XWikiException
+    {
+        XWikiDocument newDocument = mock(XWikiDocument.class, "new");
+        when(newDocument.isNew()).thenReturn(true);
+        when(newDocument.getVersion()).thenReturn("1.1");
+        when(this.store.loadXWikiDoc(any(XWikiDocument.class), eq(this.context))).thenReturn(newDocument);
+
+        assertSame(newDocument, this.serializer.unserializeDocument(getRemoteData("1.1", "1.1")));
+
+        verify(this.documentVersionCacheManager, never()).setDocument(any());
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.search;
+
+import java.util.List;
+
+import javax.inject.Named;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.contrib.changerequest.ChangeRequestStatus;
+import org.xwiki.contrib.changerequest.internal.storage.ChangeRequestXClassInitializer;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryFilter;
+import org.xwiki.query.QueryManager;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ChangeRequestDatabaseSearcher}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class ChangeRequestDatabaseSearcherTest
+{
+    private static final String BASE_STATEMENT = ", BaseObject as obj, StringProperty as obj_status"
+        + "%s where doc.fullName = obj.name and obj.className = :className"
+        + " and obj_status.id.id = obj.id and obj_status.id.name = 'status'";
+
+    @InjectMockComponents
+    private ChangeRequestDatabaseSearcher searcher;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    @Named("count")
+    private QueryFilter countQueryFilter;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    @MockComponent
+    @Named("current")
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @BeforeEach
+    void setup()
+    {
+        when(this.entityReferenceSerializer.serialize(ChangeRequestXClassInitializer.CHANGE_REQUEST_XCLASS))
+            .thenReturn("ChangeRequest.Code.ChangeRequestClass");
+    }
+
+    @Test
+    void search() throws Exception
+    {
+        String statement = String.format(BASE_STATEMENT, ", LargeStringProperty as obj_authors")
+            + " and obj_status.value in ('draft', 'ready_for_review')"
+            + " and lower(doc.title) like :title0 escape '!' and lower(doc.title) like :title1 escape '!'"
+            + " and obj_authors.id.id = obj.id and obj_authors.id.name = 'authors'"
+            + " and (obj_authors.value like :authors0_0 escape '!' or obj_authors.value like :authors0_1 escape '!'"
+            + " or obj_authors.value like :authors0_2 escape '!' or obj_authors.value like :authors0_3 escape '!')"
+            + " and (obj_authors.value like :authors1 escape '!')"
+            + " and (obj_authors.value like :authors2_0 escape '!' or obj_authors.value like :authors2_1 escape '!')";
+        Query countQuery = mock(Query.class, "count");
+        when(this.queryManager.createQuery(statement, Query.HQL)).thenReturn(countQuery);
+        when(countQuery.addFilter(this.countQueryFilter)).thenReturn(countQuery);
+        when(countQuery.execute()).thenReturn(List.of(12L));
+        Query query = mock(Query.class, "query");
+        when(this.queryManager.createQuery(statement + " order by obj_status.value asc", Query.HQL))
+            .thenReturn(query);
+        when(query.execute()).thenReturn(List.of("ChangeRequest.mycr.WebHome"));
+        DocumentReference crReference = mock(DocumentReference.class);
+        when(this.documentReferenceResolver.resolve("ChangeRequest.mycr.WebHome")).thenReturn(crReference);
+
+        ChangeRequestSearchQuery searchQuery = new ChangeRequestSearchQuery()
+            .setTitle(" My  CR ")
+            .setStatuses(List.of(ChangeRequestStatus.DRAFT, ChangeRequestStatus.READY_FOR_REVIEW))
+            .addAuthor("XWiki.Foo")
+            .addAuthor("Bar", ChangeRequestSearchQuery.MatchType.CONTAINS)
+            .addAuthor("XWiki.B", ChangeRequestSearchQuery.MatchType.PREFIX)
+            .setSort(ChangeRequestSearchQuery.SortField.STATUS, false)
+            .setOffset(10)
+            .setLimit(5);
+
+        ChangeRequestSearchResult searchResult = this.searcher.search(searchQuery);
+        assertEquals(12, searchResult.getTotalCount());
+        assertEquals(List.of(crReference), searchResult.getReferences());
+
+        for (Query executedQuery : List.of(countQuery, query)) {
+            verify(executedQuery).bindValue("className", "ChangeRequest.Code.ChangeRequestClass");
+            verify(executedQuery).bindValue("title0", "%my%");
+            verify(executedQuery).bindValue("title1", "%cr%");
+            verify(executedQuery).bindValue("authors0_0", "XWiki.Foo");
+            verify(executedQuery).bindValue("authors0_1", "XWiki.Foo,%");
+            verify(executedQuery).bindValue("authors0_2", "%,XWiki.Foo");
+            verify(executedQuery).bindValue("authors0_3", "%,XWiki.Foo,%");
+            verify(executedQuery).bindValue("authors1", "%Bar%");
+            verify(executedQuery).bindValue("authors2_0", "XWiki.B%");
+            verify(executedQuery).bindValue("authors2_1", "%,XWiki.B%");
+        }
+        verify(query).setOffset(10);
+        verify(query).setLimit(5);
+    }
+
+    @Test
+    void searchWithoutCriteria() throws Exception
+    {
+        String statement = String.format(BASE_STATEMENT, "");
+        Query countQuery = mock(Query.class, "count");
+        when(this.queryManager.createQuery(statement, Query.HQL)).thenReturn(countQuery);
+        when(countQuery.addFilter(this.countQueryFilter)).thenReturn(countQuery);
+        when(countQuery.execute()).thenReturn(List.of(0L));
+        Query query = mock(Query.class, "query");
+        when(this.queryManager.createQuery(statement + " order by doc.date desc", Query.HQL)).thenReturn(query);
+        when(query.execute()).thenReturn(List.of());
+
+        ChangeRequestSearchResult searchResult = this.searcher.search(new ChangeRequestSearchQuery());
+        assertEquals(0, searchResult.getTotalCount());
+        assertEquals(List.of(), searchResult.getReferences());
+        verify(query, never()).setLimit(0);
+    }
+
+    @Test
+    void searchChangedDocuments() throws Exception
+    {
+        String join = ", DBStringListProperty as obj_changedDocuments%1$s"
+            + " join obj_changedDocuments%1$s.list as obj_changedDocuments%1$s_item";
+        String statement = String.format(BASE_STATEMENT,
+            String.format(join, 0) + String.format(join, 1) + String.format(join, 2))
+            + " and obj_changedDocuments0.id.id = obj.id and obj_changedDocuments0.id.name = 'changedDocuments'"
+            + " and obj_changedDocuments0_item = :changedDocuments0"
+            + " and obj_changedDocuments1.id.id = obj.id and obj_changedDocuments1.id.name = 'changedDocuments'"
+            + " and obj_changedDocuments1_item like :changedDocuments1 escape '!'"
+            + " and obj_changedDocuments2.id.id = obj.id and obj_changedDocuments2.id.name = 'changedDocuments'"
+            + " and obj_changedDocuments2_item like :changedDocuments2 escape '!'";
+        Query countQuery = mock(Query.class, "count");
+        when(this.queryManager.createQuery(statement, Query.HQL)).thenReturn(countQuery);
+        when(countQuery.addFilter(this.countQueryFilter)).thenReturn(countQuery);
+        when(countQuery.execute()).thenReturn(List.of(0L));
+        Query query = mock(Query.class, "query");
+        when(this.queryManager.createQuery(statement + " order by doc.date desc", Query.HQL)).thenReturn(query);
+        when(query.execute()).thenReturn(List.of());
+
+        ChangeRequestSearchQuery searchQuery = new ChangeRequestSearchQuery()
+            .addChangedDocument("Space.Page_1")
+            .addChangedDocument("Space.", ChangeRequestSearchQuery.MatchType.PREFIX)
+            .addChangedDocument("100%_done!", ChangeRequestSearchQuery.MatchType.CONTAINS);
+
+        this.searcher.search(searchQuery);
+
+        for (Query executedQuery : List.of(countQuery, query)) {
+            // The exact value is compared with an equality: it doesn't need to be escaped.
+            verify(executedQuery).bindValue("changedDocuments0", "Space.Page_1");
+            verify(executedQuery).bindValue("changedDocuments1", "Space.%");
+            verify(executedQuery).bindValue("changedDocuments2", "%100!%!_done!!%");
+        }
+    }
+}
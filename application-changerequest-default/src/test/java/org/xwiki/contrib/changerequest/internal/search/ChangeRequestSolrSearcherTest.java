@@ -0,0 +1,207 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.search;
+
+import java.util.List;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.contrib.changerequest.ChangeRequestConfiguration;
+import org.xwiki.contrib.changerequest.ChangeRequestStatus;
+import org.xwiki.contrib.changerequest.internal.storage.ChangeRequestXClassInitializer;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWikiContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ChangeRequestSolrSearcher}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class ChangeRequestSolrSearcherTest
+{
+    private static final String STATUS_FIELD = "property.ChangeRequest.Code.ChangeRequestClass.status";
+
+    @InjectMockComponents
+    private ChangeRequestSolrSearcher searcher;
+
+    @MockComponent
+    private Provider<QueryManager> queryManagerProvider;
+
+    @MockComponent
+    private Provider<XWikiContext> contextProvider;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    @MockComponent
+    @Named("current")
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    @MockComponent
+    @Named("compactwiki")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
+    @MockComponent
+    private ChangeRequestConfiguration configuration;
+
+    private QueryManager queryManager;
+
+    @BeforeEach
+    void setup()
+    {
+        this.queryManager = mock(QueryManager.class);
+        when(this.queryManagerProvider.get()).thenReturn(this.queryManager);
+        XWikiContext context = mock(XWikiContext.class);
+        when(this.contextProvider.get()).thenReturn(context);
+        when(context.getWikiId()).thenReturn("foo");
+        when(this.entityReferenceSerializer.serialize(ChangeRequestXClassInitializer.CHANGE_REQUEST_XCLASS))
+            .thenReturn("ChangeRequest.Code.ChangeRequestClass");
+    }
+
+    @Test
+    void isAvailable()
+    {
+        when(this.queryManager.getLanguages()).thenReturn(List.of("hql", "xwql"));
+        assertFalse(this.searcher.isAvailable());
+
+        when(this.queryManager.getLanguages()).thenReturn(List.of("hql", "xwql", "solr"));
+        assertTrue(this.searcher.isAvailable());
+    }
+
+    @Test
+    void search() throws Exception
+    {
+        Query query = mock(Query.class);
+        when(this.queryManager.createQuery("my* cr\\:2*", "solr")).thenReturn(query);
+        QueryResponse response = mock(QueryResponse.class);
+        when(query.execute()).thenReturn(List.of(response));
+
+        SolrDocumentList results = new SolrDocumentList();
+        results.setNumFound(12);
+        SolrDocument result = new SolrDocument();
+        result.setField("wiki", "foo");
+        result.setField("fullname", "ChangeRequest.mycr.WebHome");
+        results.add(result);
+        when(response.getResults()).thenReturn(results);
+
+        DocumentReference crReference = new DocumentReference("foo", List.of("ChangeRequest", "mycr"), "WebHome");
+        when(this.documentReferenceResolver.resolve("ChangeRequest.mycr.WebHome", new WikiReference("foo")))
+            .thenReturn(crReference);
+
+        ChangeRequestSearchQuery searchQuery = new ChangeRequestSearchQuery()
+            .setTitle(" my  cr:2 ")
+            .setStatuses(List.of(ChangeRequestStatus.DRAFT, ChangeRequestStatus.READY_FOR_REVIEW))
+            .addAuthor("xwiki:XWiki.Foo")
+            .addAuthor("Ba r", ChangeRequestSearchQuery.MatchType.CONTAINS)
+            .addChangedDocument("Space.Page")
+            .addChangedDocument("Other", ChangeRequestSearchQuery.MatchType.PREFIX)
+            .setSort(ChangeRequestSearchQuery.SortField.STATUS, false)
+            .setOffset(10)
+            .setLimit(5);
+
+        ChangeRequestSearchResult searchResult = this.searcher.search(searchQuery);
+        assertEquals(12, searchResult.getTotalCount());
+        assertEquals(List.of(crReference), searchResult.getReferences());
+
+        verify(query).bindValue("fq", List.of(
+            "type:DOCUMENT",
+            "wiki:foo",
+            "class:ChangeRequest.Code.ChangeRequestClass",
+            STATUS_FIELD + "_string:(draft OR ready_for_review)",
+            "property.ChangeRequest.Code.ChangeRequestClass.authors_string:xwiki\\:XWiki.Foo",
+            "property.ChangeRequest.Code.ChangeRequestClass.authors_string:*Ba\\ r*",
+            "property.ChangeRequest.Code.ChangeRequestClass.changedDocuments_string:Space.Page",
+            "property.ChangeRequest.Code.ChangeRequestClass.changedDocuments_string:Other*"));
+        verify(query).bindValue("fl", "wiki,fullname");
+        verify(query).bindValue("sort", STATUS_FIELD + "_sortString asc");
+        verify(query).bindValue("defType", "edismax");
+        verify(query).bindValue("qf", "title");
+        verify(query).bindValue("q.op", "AND");
+        verify(query).setOffset(10);
+        verify(query).setLimit(5);
+    }
+
+    @Test
+    void searchWithTitleOrName() throws Exception
+    {
+        SpaceReference changeRequestSpace = new SpaceReference("foo", "ChangeRequest");
+        when(this.configuration.getChangeRequestSpaceLocation()).thenReturn(changeRequestSpace);
+        when(this.localEntityReferenceSerializer.serialize(changeRequestSpace)).thenReturn("ChangeRequest");
+
+        Query query = mock(Query.class);
+        when(this.queryManager.createQuery("(my* cr*) OR (fullname:ChangeRequest.*my\\ cr*)", "solr"))
+            .thenReturn(query);
+        QueryResponse response = mock(QueryResponse.class);
+        when(query.execute()).thenReturn(List.of(response));
+        when(response.getResults()).thenReturn(new SolrDocumentList());
+
+        this.searcher.search(new ChangeRequestSearchQuery().setTitle("my cr").setName(" my cr "));
+
+        verify(query).bindValue("defType", "edismax");
+        verify(query).bindValue("qf", "title");
+        verify(query).bindValue("q.op", "AND");
+    }
+
+    @Test
+    void searchWithoutCriteria() throws Exception
+    {
+        Query query = mock(Query.class);
+        when(this.queryManager.createQuery("*:*", "solr")).thenReturn(query);
+        QueryResponse response = mock(QueryResponse.class);
+        when(query.execute()).thenReturn(List.of(response));
+        when(response.getResults()).thenReturn(new SolrDocumentList());
+
+        ChangeRequestSearchResult searchResult = this.searcher.search(new ChangeRequestSearchQuery());
+        assertEquals(0, searchResult.getTotalCount());
+        assertEquals(List.of(), searchResult.getReferences());
+
+        verify(query).bindValue("fq", List.of("type:DOCUMENT", "wiki:foo",
+            "class:ChangeRequest.Code.ChangeRequestClass"));
+        verify(query).bindValue("sort", "date desc");
+        verify(query, never()).bindValue("defType", "edismax");
+        verify(query, never()).setLimit(0);
+    }
+}
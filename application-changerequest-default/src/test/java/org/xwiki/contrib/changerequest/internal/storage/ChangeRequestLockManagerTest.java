@@ -0,0 +1,121 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.contrib.changerequest.ChangeRequestException;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link ChangeRequestLockManager}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class ChangeRequestLockManagerTest
+{
+    private static final String CHANGE_REQUEST_ID = "cr1";
+
+    private static final int THREADS = 16;
+
+    private static final int ITERATIONS = 1000;
+
+    @InjectMockComponents
+    private ChangeRequestLockManager lockManager;
+
+    private int counter;
+
+    @Test
+    void lockWithContention() throws Exception
+    {
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executorService.submit(() -> {
+                    startLatch.await();
+                    for (int j = 0; j < ITERATIONS; j++) {
+                        this.lockManager.lock(CHANGE_REQUEST_ID);
+                        try {
+                            // Non atomic read-modify-write, as performed when saving a change request document.
+                            int value = this.counter;
+                            Thread.yield();
+                            this.counter = value + 1;
+                        } finally {
+                            this.lockManager.unlock(CHANGE_REQUEST_ID);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            startLatch.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertEquals(THREADS * ITERATIONS, this.counter);
+    }
+
+    @Test
+    void lockIsReentrant() throws Exception
+    {
+        this.lockManager.lock(CHANGE_REQUEST_ID);
+        try {
+            this.lockManager.lock(CHANGE_REQUEST_ID);
+            this.lockManager.unlock(CHANGE_REQUEST_ID);
+        } finally {
+            this.lockManager.unlock(CHANGE_REQUEST_ID);
+        }
+    }
+
+    @Test
+    void lockTimeout() throws Exception
+    {
+        this.lockManager.lockTimeout = 10;
+        this.lockManager.lock(CHANGE_REQUEST_ID);
+        try {
+            ExecutorService executorService = Executors.newSingleThreadExecutor();
+            try {
+                Future<ChangeRequestException> future = executorService.submit(
+                    () -> assertThrows(ChangeRequestException.class, () -> this.lockManager.lock(CHANGE_REQUEST_ID)));
+                assertEquals("Timeout while waiting for the lock of change request [cr1]", future.get().getMessage());
+            } finally {
+                executorService.shutdownNow();
+            }
+        } finally {
+            this.lockManager.unlock(CHANGE_REQUEST_ID);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.storage;
+
+import java.util.List;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.bridge.event.WikiReadyEvent;
+import org.xwiki.contrib.changerequest.internal.jobs.ChangedSpacesMigrationRequest;
+import org.xwiki.job.Job;
+import org.xwiki.job.JobExecutor;
+import org.xwiki.job.JobStatusStore;
+import org.xwiki.job.event.status.JobStatus;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ChangedSpacesMigrationListener}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class ChangedSpacesMigrationListenerTest
+{
+    private static final List<String> JOB_ID = List.of("changerequest", "changedSpacesMigration", "foo");
+
+    @InjectMockComponents
+    private ChangedSpacesMigrationListener listener;
+
+    @MockComponent
+    private Provider<JobExecutor> jobExecutorProvider;
+
+    @MockComponent
+    private Provider<JobStatusStore> jobStatusStoreProvider;
+
+    private JobExecutor jobExecutor;
+
+    private JobStatusStore jobStatusStore;
+
+    @BeforeEach
+    void setup()
+    {
+        this.jobExecutor = mock(JobExecutor.class);
+        when(this.jobExecutorProvider.get()).thenReturn(this.jobExecutor);
+        this.jobStatusStore = mock(JobStatusStore.class);
+        when(this.jobStatusStoreProvider.get()).thenReturn(this.jobStatusStore);
+    }
+
+    @Test
+    void processLocalEvent() throws Exception
+    {
+        when(this.jobExecutor.execute(eq(ChangedSpacesMigrationRequest.CHANGED_SPACES_MIGRATION_JOB), any()))
+            .then(invocation -> {
+                ChangedSpacesMigrationRequest request = invocation.getArgument(1);
+                assertEquals(JOB_ID, request.getId());
+                assertEquals("foo", request.getWikiId());
+                return mock(Job.class);
+            });
+
+        this.listener.processLocalEvent(new WikiReadyEvent("foo"), "foo", null);
+
+        verify(this.jobExecutor).execute(eq(ChangedSpacesMigrationRequest.CHANGED_SPACES_MIGRATION_JOB), any());
+    }
+
+    @Test
+    void processLocalEventWhenFailed() throws Exception
+    {
+        JobStatus jobStatus = mock(JobStatus.class);
+        when(jobStatus.getState()).thenReturn(JobStatus.State.FINISHED);
+        when(jobStatus.getError()).thenReturn(new Exception());
+        when(this.jobStatusStore.getJobStatus(JOB_ID)).thenReturn(jobStatus);
+
+        this.listener.processLocalEvent(new WikiReadyEvent("foo"), "foo", null);
+
+        verify(this.jobExecutor).execute(eq(ChangedSpacesMigrationRequest.CHANGED_SPACES_MIGRATION_JOB), any());
+    }
+
+    @Test
+    void processLocalEventWhenMigrated() throws Exception
+    {
+        JobStatus jobStatus = mock(JobStatus.class);
+        when(jobStatus.getState()).thenReturn(JobStatus.State.FINISHED);
+        when(this.jobStatusStore.getJobStatus(JOB_ID)).thenReturn(jobStatus);
+
+        this.listener.processLocalEvent(new WikiReadyEvent("foo"), "foo", null);
+
+        verify(this.jobExecutor, never()).execute(any(), any());
+    }
+
+    @Test
+    void processLocalEventWhenRunning() throws Exception
+    {
+        when(this.jobExecutor.getJob(JOB_ID)).thenReturn(mock(Job.class));
+
+        this.listener.processLocalEvent(new WikiReadyEvent("foo"), "foo", null);
+
+        verify(this.jobExecutor, never()).execute(any(), any());
+    }
+}
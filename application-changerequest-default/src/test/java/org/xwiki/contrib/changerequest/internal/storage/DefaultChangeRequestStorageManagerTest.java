@@ -25,11 +25,18 @@ import java.util.Date;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Named;
 import javax.inject.Provider;
@@ -47,6 +54,9 @@ import org.xwiki.contrib.changerequest.discussions.ChangeRequestDiscussionServic
 import org.xwiki.contrib.changerequest.events.SplitEndChangeRequestEvent;
 import org.xwiki.contrib.changerequest.internal.UserReferenceConverter;
 import org.xwiki.contrib.changerequest.internal.cache.ChangeRequestStorageCacheManager;
+import org.xwiki.contrib.changerequest.internal.search.ChangeRequestSearchQuery;
+import org.xwiki.contrib.changerequest.internal.search.ChangeRequestSearchResult;
+import org.xwiki.contrib.changerequest.internal.search.ChangeRequestSolrSearcher;
 import org.xwiki.contrib.changerequest.storage.ChangeRequestIDGenerator;
 import org.xwiki.contrib.changerequest.storage.FileChangeStorageManager;
 import org.xwiki.contrib.changerequest.storage.ReviewStorageManager;
@@ -84,7 +94,9 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -169,6 +181,12 @@ class DefaultChangeRequestStorageManagerTest
     @Named("count")
     private QueryFilter countQueryFilter;
 
+    @MockComponent
+    private Provider<ChangeRequestSolrSearcher> solrSearcherProvider;
+
+    @MockComponent
+    private ChangeRequestLockManager lockManager;
+
     private XWikiContext context;
     private XWiki wiki;
 
@@ -195,6 +213,16 @@ class DefaultChangeRequestStorageManagerTest
         FileChange fileChange2 = mock(FileChange.class);
         when(changeRequest.getAllFileChanges()).thenReturn(Arrays.asList(fileChange1, fileChange2));
 
+        DocumentReference modifiedDoc1 = new DocumentReference("xwiki", Arrays.asList("Foo", "Bar"), "Page1");
+        DocumentReference modifiedDoc2 = new DocumentReference("xwiki", "Foo", "Page2");
+        when(changeRequest.getModifiedDocuments()).thenReturn(new LinkedHashSet<>(List.of(modifiedDoc1,
+            modifiedDoc2)));
+        when(this.localEntityReferenceSerializer.serialize(modifiedDoc1)).thenReturn("Foo.Bar.Page1");
+        when(this.localEntityReferenceSerializer.serialize(modifiedDoc2)).thenReturn("Foo.Page2");
+        when(this.localEntityReferenceSerializer.serialize(modifiedDoc1.getLastSpaceReference()))
+            .thenReturn("Foo.Bar");
+        when(this.localEntityReferenceSerializer.serialize(modifiedDoc2.getLastSpaceReference())).thenReturn("Foo");
+
         UserReference userReference = mock(UserReference.class);
         when(changeRequest.getCreator()).thenReturn(userReference);
 
@@ -228,6 +256,8 @@ class DefaultChangeRequestStorageManagerTest
         verify(documentAuthors).setCreator(userReference);
         verify(documentAuthors).setOriginalMetadataAuthor(userReference);
         verify(xobject).set("status", "draft", this.context);
+        verify(xobject).set("changedDocuments", List.of("Foo.Bar.Page1", "Foo.Page2"), this.context);
+        verify(xobject).set("changedSpaces", List.of("Foo", "Foo.Bar"), this.context);
         verify(this.fileChangeStorageManager).save(fileChange1);
         verify(this.fileChangeStorageManager).save(fileChange2);
         verify(this.wiki).saveDocument(document, "Creation of change request", this.context);
@@ -235,6 +265,83 @@ class DefaultChangeRequestStorageManagerTest
         verify(document).clone();
     }
 
+    @Test
+    void saveFromDocumentListeners() throws Exception
+    {
+        // Use actual locks: the lock of a change request is held while saving its document, so the document listeners
+        // saving the same change request or another one must not be blocked.
+        ChangeRequestLockManager actualLockManager = new ChangeRequestLockManager();
+        doAnswer(invocation -> {
+            actualLockManager.lock(invocation.getArgument(0));
+            return null;
+        }).when(this.lockManager).lock(any());
+        doAnswer(invocation -> {
+            actualLockManager.unlock(invocation.getArgument(0));
+            return null;
+        }).when(this.lockManager).unlock(any());
+
+        ChangeRequest changeRequest1 = mockChangeRequestForSave("cr1");
+        ChangeRequest changeRequest2 = mockChangeRequestForSave("cr2");
+        XWikiDocument document1 = mockChangeRequestDocument(changeRequest1);
+        XWikiDocument document2 = mockChangeRequestDocument(changeRequest2);
+
+        // Simulate listeners of the document events of the first change request saving it again, and the other one.
+        AtomicInteger nestedSaves = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (nestedSaves.getAndIncrement() == 0) {
+                this.storageManager.save(changeRequest1);
+                this.storageManager.save(changeRequest2);
+            }
+            return null;
+        }).when(this.wiki).saveDocument(eq(document1), any(), eq(this.context));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        try {
+            Future<Void> future1 = executorService.submit(() -> {
+                startLatch.await();
+                this.storageManager.save(changeRequest1);
+                return null;
+            });
+            Future<Void> future2 = executorService.submit(() -> {
+                startLatch.await();
+                for (int i = 0; i < 100; i++) {
+                    this.storageManager.save(changeRequest2);
+                }
+                return null;
+            });
+            startLatch.countDown();
+            future1.get(10, TimeUnit.SECONDS);
+            future2.get(10, TimeUnit.SECONDS);
+        } finally {
+            executorService.shutdownNow();
+        }
+        verify(this.wiki, times(2)).saveDocument(eq(document1), any(), eq(this.context));
+        verify(this.wiki, times(101)).saveDocument(eq(document2), any(), eq(this.context));
+    }
+
+    private ChangeRequest mockChangeRequestForSave(String id)
+    {
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+        when(changeRequest.getId()).thenReturn(id);
+        when(changeRequest.getStatus()).thenReturn(ChangeRequestStatus.READY_FOR_REVIEW);
+        return changeRequest;
+    }
+
+    private XWikiDocument mockChangeRequestDocument(ChangeRequest changeRequest) throws XWikiException
+    {
+        DocumentReference documentReference =
+            new DocumentReference("xwiki", List.of("ChangeRequest", changeRequest.getId()), "WebHome");
+        when(this.changeRequestDocumentReferenceResolver.resolve(changeRequest)).thenReturn(documentReference);
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.clone()).thenReturn(document);
+        when(document.getAuthors()).thenReturn(mock(DocumentAuthors.class));
+        when(document.getXObject(CHANGE_REQUEST_XCLASS, 0, true, this.context)).thenReturn(mock(BaseObject.class));
+        when(document.isMetaDataDirty()).thenReturn(true);
+        when(this.wiki.getDocument(documentReference, this.context)).thenReturn(document);
+        return document;
+    }
+
     @Test
     void load() throws Exception
     {
@@ -308,6 +415,40 @@ class DefaultChangeRequestStorageManagerTest
         verify(this.changeRequestStorageCacheManager, times(3)).getChangeRequest(id);
     }
 
+    @Test
+    void getOpenChangeRequestMatchingName() throws Exception
+    {
+        ChangeRequestSolrSearcher solrSearcher = mock(ChangeRequestSolrSearcher.class);
+        when(this.solrSearcherProvider.get()).thenReturn(solrSearcher);
+        when(solrSearcher.isAvailable()).thenReturn(true);
+
+        DocumentReference ref1 = mock(DocumentReference.class);
+        DocumentReference ref2 = mock(DocumentReference.class);
+        ChangeRequestSearchQuery expectedQuery = new ChangeRequestSearchQuery()
+            .setTitle("foo bar")
+            .setName("foo bar")
+            .setStatuses(List.of(ChangeRequestStatus.DRAFT, ChangeRequestStatus.READY_FOR_REVIEW,
+                ChangeRequestStatus.READY_FOR_MERGING))
+            .setLimit(30);
+        when(solrSearcher.search(expectedQuery)).thenReturn(new ChangeRequestSearchResult(42, List.of(ref1, ref2)));
+
+        assertEquals(List.of(ref1, ref2), this.storageManager.getOpenChangeRequestMatchingName("foo bar"));
+        verify(this.queryManager, never()).createQuery(any(), any());
+
+        when(solrSearcher.isAvailable()).thenReturn(false);
+        SpaceReference changeRequestSpace = mock(SpaceReference.class);
+        when(this.configuration.getChangeRequestSpaceLocation()).thenReturn(changeRequestSpace);
+        when(this.localEntityReferenceSerializer.serialize(changeRequestSpace)).thenReturn("ChangeRequest");
+        Query query = mock(Query.class);
+        when(this.queryManager.createQuery(any(), eq(Query.HQL))).thenReturn(query);
+        when(query.execute()).thenReturn(List.of("ChangeRequest.foobar.WebHome"));
+        when(this.documentReferenceResolver.resolve("ChangeRequest.foobar.WebHome")).thenReturn(ref1);
+
+        assertEquals(List.of(ref1), this.storageManager.getOpenChangeRequestMatchingName("foo bar"));
+        verify(query).bindValue("reference", "ChangeRequest.%foo bar%");
+        verify(query).bindValue("title", "%foo bar%");
+    }
+
     @Test
     void findChangeRequestTargetingDocument() throws Exception
     {
@@ -420,11 +561,10 @@ class DefaultChangeRequestStorageManagerTest
 
         when(this.entityReferenceSerializer.serialize(CHANGE_REQUEST_XCLASS))
             .thenReturn("ChangeRequest.ChangeRequestClass");
-        String expectedStatement = ", BaseObject as obj, DBStringListProperty as prop join prop.list list "
-            + "where obj.name=doc.fullName and obj.className='ChangeRequest.ChangeRequestClass' and obj.id=prop.id.id "
-            + "and prop.id.name='changedDocuments' and list like :reference order by doc.creationDate desc";
+        String expectedStatement = "from doc.object(ChangeRequest.ChangeRequestClass) as obj where "
+            + ":reference member of obj.changedSpaces order by doc.creationDate desc";
         Query query = mock(Query.class);
-        when(queryManager.createQuery(expectedStatement, Query.HQL)).thenReturn(query);
+        when(queryManager.createQuery(expectedStatement, Query.XWQL)).thenReturn(query);
 
         when(query.execute()).thenReturn(Arrays.asList("Space1.ref1", "Space2.ref2", "Space3.ref3"));
         DocumentReference ref1 = new DocumentReference("xwiki", "Space1", "ref1");
@@ -513,7 +653,7 @@ class DefaultChangeRequestStorageManagerTest
             .setUpdateDate(new Date(18));
 
         assertEquals(Arrays.asList(cr2, cr3), this.storageManager.findChangeRequestTargeting(targetReference));
-        verify(query).bindValue("reference", "%Foo.MySpace%");
+        verify(query).bindValue("reference", "Foo.MySpace");
     }
 
     @Test
@@ -830,13 +970,25 @@ class DefaultChangeRequestStorageManagerTest
             .thenReturn(Collections.singleton(approverGroupDoc3));
 
         // Handle deletion
-        DocumentReference originalCRDocRef = mock(DocumentReference.class, "originalCRDocRef");
+        DocumentReference originalCRDocRef =
+            new DocumentReference("xwiki", List.of("ChangeRequest", "originalCR"), "WebHome");
         when(this.changeRequestDocumentReferenceResolver.resolve(changeRequest)).thenReturn(originalCRDocRef);
-        EntityRequest deleteRequest = mock(EntityRequest.class, "deleteRequest");
-        when(this.refactoringRequestFactory.createDeleteRequest(Collections.singletonList(originalCRDocRef)))
-            .thenReturn(deleteRequest);
-        Job deletionJob = mock(Job.class);
-        when(this.jobExecutor.execute(RefactoringJobs.DELETE, deleteRequest)).thenReturn(deletionJob);
+        XWikiDocument originalCRDoc = mock(XWikiDocument.class, "originalCRDoc");
+        when(this.wiki.getDocument(originalCRDocRef, this.context)).thenReturn(originalCRDoc);
+        SpaceReference discussionsSpaceRef =
+            new SpaceReference("Discussions", originalCRDocRef.getLastSpaceReference());
+        when(this.localEntityReferenceSerializer.serialize(discussionsSpaceRef))
+            .thenReturn("ChangeRequest.originalCR.Discussions");
+        Query discussionsQuery = mock(Query.class, "discussionsQuery");
+        when(this.queryManager.createQuery("where doc.space = :space or doc.space like :spacePrefix escape '!'",
+            Query.HQL)).thenReturn(discussionsQuery);
+        String discussionDocName = "ChangeRequest.originalCR.Discussions.Discussion.D1";
+        when(discussionsQuery.execute()).thenReturn(List.of(discussionDocName));
+        DocumentReference discussionDocRef = mock(DocumentReference.class, "discussionDocRef");
+        when(this.documentReferenceResolver.resolve(discussionDocName, originalCRDocRef))
+            .thenReturn(discussionDocRef);
+        XWikiDocument discussionDoc = mock(XWikiDocument.class, "discussionDoc");
+        when(this.wiki.getDocument(discussionDocRef, this.context)).thenReturn(discussionDoc);
 
         when(cr1Doc.isMetaDataDirty()).thenReturn(true);
         when(cr2Doc.isMetaDataDirty()).thenReturn(true);
@@ -884,49 +1036,46 @@ class DefaultChangeRequestStorageManagerTest
         verify(review1CloneCR1).setValid(false);
         verify(review1CloneCR1).setId(review1Id);
         verify(changeRequest1).addReview(review1CloneCR1);
-        verify(this.reviewStorageManager).save(review1CloneCR1);
 
         verify(review2CloneCR1).setValid(false);
         verify(review2CloneCR1).setId(review2Id);
         verify(changeRequest1).addReview(review2CloneCR1);
-        verify(this.reviewStorageManager).save(review2CloneCR1);
 
         verify(review3CloneCR1).setValid(false);
         verify(review3CloneCR1).setId(review3Id);
         verify(changeRequest1).addReview(review3CloneCR1);
-        verify(this.reviewStorageManager).save(review3CloneCR1);
+        verify(this.reviewStorageManager).saveReviews(changeRequest1,
+            List.of(review1CloneCR1, review2CloneCR1, review3CloneCR1));
 
         // CR2
         verify(review1CloneCR2).setValid(false);
         verify(review1CloneCR2).setId(review1Id);
         verify(changeRequest2).addReview(review1CloneCR2);
-        verify(this.reviewStorageManager).save(review1CloneCR2);
 
         verify(review2CloneCR2).setValid(false);
         verify(review2CloneCR2).setId(review2Id);
         verify(changeRequest2).addReview(review2CloneCR2);
-        verify(this.reviewStorageManager).save(review2CloneCR2);
 
         verify(review3CloneCR2).setValid(false);
         verify(review3CloneCR2).setId(review3Id);
         verify(changeRequest2).addReview(review3CloneCR2);
-        verify(this.reviewStorageManager).save(review3CloneCR2);
+        verify(this.reviewStorageManager).saveReviews(changeRequest2,
+            List.of(review1CloneCR2, review2CloneCR2, review3CloneCR2));
 
         // CR3
         verify(review1CloneCR3).setValid(false);
         verify(review1CloneCR3).setId(review1Id);
         verify(changeRequest3).addReview(review1CloneCR3);
-        verify(this.reviewStorageManager).save(review1CloneCR3);
 
         verify(review2CloneCR3).setValid(false);
         verify(review2CloneCR3).setId(review2Id);
         verify(changeRequest3).addReview(review2CloneCR3);
-        verify(this.reviewStorageManager).save(review2CloneCR3);
 
         verify(review3CloneCR3).setValid(false);
         verify(review3CloneCR3).setId(review3Id);
         verify(changeRequest3).addReview(review3CloneCR3);
-        verify(this.reviewStorageManager).save(review3CloneCR3);
+        verify(this.reviewStorageManager).saveReviews(changeRequest3,
+            List.of(review1CloneCR3, review2CloneCR3, review3CloneCR3));
 
         verify(this.discussionService).moveDiscussions(changeRequest,
             List.of(changeRequest1, changeRequest2, changeRequest3, changeRequest4));
@@ -941,12 +1090,16 @@ class DefaultChangeRequestStorageManagerTest
         verify(this.approversManager).setGroupsApprovers(Collections.singleton(approverGroupDoc3), changeRequest3);
 
         // verify deletion
-        verify(deleteRequest).setDeep(true);
-        verify(deleteRequest).setCheckRights(false);
-        verify(deleteRequest).setCheckAuthorRights(false);
-
-        verify(this.jobExecutor).execute(RefactoringJobs.DELETE, deleteRequest);
-        verify(deletionJob).join();
+        verify(this.fileChangeStorageManager).deleteFileChangeStorageDocumentFor(changeRequest, doc1);
+        verify(this.fileChangeStorageManager).deleteFileChangeStorageDocumentFor(changeRequest, doc2);
+        verify(this.fileChangeStorageManager).deleteFileChangeStorageDocumentFor(changeRequest, doc3);
+        verify(this.fileChangeStorageManager).deleteFileChangeStorageDocumentFor(changeRequest, doc4);
+        verify(discussionsQuery).bindValue("space", "ChangeRequest.originalCR.Discussions");
+        verify(discussionsQuery).bindValue("spacePrefix", "ChangeRequest.originalCR.Discussions.%");
+        verify(this.wiki).deleteDocument(discussionDoc, this.context);
+        verify(this.wiki).deleteDocument(originalCRDoc, this.context);
+        verify(this.changeRequestStorageCacheManager).invalidate(changeRequestId);
+        verify(this.jobExecutor, never()).execute(eq(RefactoringJobs.DELETE), any());
 
         verify(this.observationManager).notify(any(SplitEndChangeRequestEvent.class), eq(changeRequestId),
             eq(List.of(changeRequest1, changeRequest2, changeRequest3, changeRequest4)));
@@ -1187,13 +1340,25 @@ class DefaultChangeRequestStorageManagerTest
             .thenReturn(Collections.singleton(approverGroupDoc3));
 
         // Handle deletion
-        DocumentReference originalCRDocRef = mock(DocumentReference.class, "originalCRDocRef");
+        DocumentReference originalCRDocRef =
+            new DocumentReference("xwiki", List.of("ChangeRequest", "originalCR"), "WebHome");
         when(this.changeRequestDocumentReferenceResolver.resolve(changeRequest)).thenReturn(originalCRDocRef);
-        EntityRequest deleteRequest = mock(EntityRequest.class, "deleteRequest");
-        when(this.refactoringRequestFactory.createDeleteRequest(Collections.singletonList(originalCRDocRef)))
-            .thenReturn(deleteRequest);
-        Job deletionJob = mock(Job.class);
-        when(this.jobExecutor.execute(RefactoringJobs.DELETE, deleteRequest)).thenReturn(deletionJob);
+        XWikiDocument originalCRDoc = mock(XWikiDocument.class, "originalCRDoc");
+        when(this.wiki.getDocument(originalCRDocRef, this.context)).thenReturn(originalCRDoc);
+        SpaceReference discussionsSpaceRef =
+            new SpaceReference("Discussions", originalCRDocRef.getLastSpaceReference());
+        when(this.localEntityReferenceSerializer.serialize(discussionsSpaceRef))
+            .thenReturn("ChangeRequest.originalCR.Discussions");
+        Query discussionsQuery = mock(Query.class, "discussionsQuery");
+        when(this.queryManager.createQuery("where doc.space = :space or doc.space like :spacePrefix escape '!'",
+            Query.HQL)).thenReturn(discussionsQuery);
+        String discussionDocName = "ChangeRequest.originalCR.Discussions.Discussion.D1";
+        when(discussionsQuery.execute()).thenReturn(List.of(discussionDocName));
+        DocumentReference discussionDocRef = mock(DocumentReference.class, "discussionDocRef");
+        when(this.documentReferenceResolver.resolve(discussionDocName, originalCRDocRef))
+            .thenReturn(discussionDocRef);
+        XWikiDocument discussionDoc = mock(XWikiDocument.class, "discussionDoc");
+        when(this.wiki.getDocument(discussionDocRef, this.context)).thenReturn(discussionDoc);
 
         when(cr1Doc.isMetaDataDirty()).thenReturn(true);
         when(cr3Doc.isMetaDataDirty()).thenReturn(true);
@@ -1236,33 +1401,31 @@ class DefaultChangeRequestStorageManagerTest
         verify(review1CloneCR1).setValid(false);
         verify(review1CloneCR1).setId(review1Id);
         verify(changeRequest1).addReview(review1CloneCR1);
-        verify(this.reviewStorageManager).save(review1CloneCR1);
 
         verify(review2CloneCR1).setValid(false);
         verify(review2CloneCR1).setId(review2Id);
         verify(changeRequest1).addReview(review2CloneCR1);
-        verify(this.reviewStorageManager).save(review2CloneCR1);
 
         verify(review3CloneCR1).setValid(false);
         verify(review3CloneCR1).setId(review3Id);
         verify(changeRequest1).addReview(review3CloneCR1);
-        verify(this.reviewStorageManager).save(review3CloneCR1);
+        verify(this.reviewStorageManager).saveReviews(changeRequest1,
+            List.of(review1CloneCR1, review2CloneCR1, review3CloneCR1));
 
         // CR3
         verify(review1CloneCR3).setValid(false);
         verify(review1CloneCR3).setId(review1Id);
         verify(changeRequest3).addReview(review1CloneCR3);
-        verify(this.reviewStorageManager).save(review1CloneCR3);
 
         verify(review2CloneCR3).setValid(false);
         verify(review2CloneCR3).setId(review2Id);
         verify(changeRequest3).addReview(review2CloneCR3);
-        verify(this.reviewStorageManager).save(review2CloneCR3);
 
         verify(review3CloneCR3).setValid(false);
         verify(review3CloneCR3).setId(review3Id);
         verify(changeRequest3).addReview(review3CloneCR3);
-        verify(this.reviewStorageManager).save(review3CloneCR3);
+        verify(this.reviewStorageManager).saveReviews(changeRequest3,
+            List.of(review1CloneCR3, review2CloneCR3, review3CloneCR3));
 
         verify(this.discussionService).moveDiscussions(changeRequest,
             List.of(changeRequest1, changeRequest3, changeRequest4));
@@ -1275,12 +1438,16 @@ class DefaultChangeRequestStorageManagerTest
         verify(this.approversManager).setGroupsApprovers(Collections.singleton(approverGroupDoc3), changeRequest3);
 
         // verify deletion
-        verify(deleteRequest).setDeep(true);
-        verify(deleteRequest).setCheckRights(false);
-        verify(deleteRequest).setCheckAuthorRights(false);
-
-        verify(this.jobExecutor).execute(RefactoringJobs.DELETE, deleteRequest);
-        verify(deletionJob).join();
+        verify(this.fileChangeStorageManager).deleteFileChangeStorageDocumentFor(changeRequest, doc1);
+        verify(this.fileChangeStorageManager).deleteFileChangeStorageDocumentFor(changeRequest, doc2);
+        verify(this.fileChangeStorageManager).deleteFileChangeStorageDocumentFor(changeRequest, doc3);
+        verify(this.fileChangeStorageManager).deleteFileChangeStorageDocumentFor(changeRequest, doc4);
+        verify(discussionsQuery).bindValue("space", "ChangeRequest.originalCR.Discussions");
+        verify(discussionsQuery).bindValue("spacePrefix", "ChangeRequest.originalCR.Discussions.%");
+        verify(this.wiki).deleteDocument(discussionDoc, this.context);
+        verify(this.wiki).deleteDocument(originalCRDoc, this.context);
+        verify(this.changeRequestStorageCacheManager).invalidate(changeRequestId);
+        verify(this.jobExecutor, never()).execute(eq(RefactoringJobs.DELETE), any());
 
         verify(this.observationManager).notify(any(SplitEndChangeRequestEvent.class), eq(changeRequestId),
             eq(List.of(changeRequest1, changeRequest3, changeRequest4)));
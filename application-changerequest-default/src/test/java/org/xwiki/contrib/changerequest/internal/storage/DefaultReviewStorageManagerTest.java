@@ -49,6 +49,7 @@ import com.xpn.xwiki.objects.BaseObject;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -75,6 +76,10 @@ class DefaultReviewStorageManagerTest
     @Named("current")
     private UserReferenceResolver<String> userReferenceResolver;
 
+    @MockComponent
+    @Named("document")
+    private UserReferenceResolver<DocumentReference> documentUserReferenceResolver;
+
     @MockComponent
     private UserReferenceConverter userReferenceConverter;
 
@@ -145,6 +150,58 @@ class DefaultReviewStorageManagerTest
         verify(xWikiDocument, times(2)).clone();
     }
 
+    @Test
+    void saveReviews() throws Exception
+    {
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+        DocumentReference changeRequestDocRef = mock(DocumentReference.class);
+        when(this.changeRequestDocumentReferenceResolver.resolve(changeRequest)).thenReturn(changeRequestDocRef);
+
+        XWikiDocument xWikiDocument = mock(XWikiDocument.class);
+        when(xWikiDocument.clone()).thenReturn(xWikiDocument);
+        XWiki xWiki = mock(XWiki.class);
+        when(this.context.getWiki()).thenReturn(xWiki);
+        when(xWiki.getDocument(changeRequestDocRef, this.context)).thenReturn(xWikiDocument);
+
+        ChangeRequestReview review1 = mock(ChangeRequestReview.class, "review1");
+        ChangeRequestReview review2 = mock(ChangeRequestReview.class, "review2");
+        ChangeRequestReview review3 = mock(ChangeRequestReview.class, "review3");
+        when(review3.isSaved()).thenReturn(true);
+
+        when(review1.getId()).thenReturn("");
+        when(xWikiDocument.createXObject(ReviewXClassInitializer.REVIEW_XCLASS, this.context)).thenReturn(2);
+        BaseObject baseObject1 = mock(BaseObject.class, "obj1");
+        when(xWikiDocument.getXObject(ReviewXClassInitializer.REVIEW_XCLASS, 2)).thenReturn(baseObject1);
+
+        when(review2.getId()).thenReturn("xobject_1");
+        when(review2.isNew()).thenReturn(true);
+        BaseObject baseObject2 = mock(BaseObject.class, "obj2");
+        when(xWikiDocument.getXObject(ReviewXClassInitializer.REVIEW_XCLASS, 1, true, this.context))
+            .thenReturn(baseObject2);
+        when(review2.isApproved()).thenReturn(true);
+
+        DocumentReference currentUserDocRef = mock(DocumentReference.class, "currentUserDocRef");
+        when(this.context.getUserReference()).thenReturn(currentUserDocRef);
+        UserReference currentUser = mock(UserReference.class, "currentUser");
+        when(this.documentUserReferenceResolver.resolve(currentUserDocRef)).thenReturn(currentUser);
+
+        DocumentAuthors documentAuthors = mock(DocumentAuthors.class);
+        when(xWikiDocument.getAuthors()).thenReturn(documentAuthors);
+        when(xWikiDocument.isMetaDataDirty()).thenReturn(true);
+
+        this.storageManager.saveReviews(changeRequest, List.of(review1, review2, review3));
+
+        verify(review1).setId("xobject_2");
+        verify(baseObject1).set(ReviewXClassInitializer.APPROVED_PROPERTY, 0, this.context);
+        verify(baseObject2).set(ReviewXClassInitializer.APPROVED_PROPERTY, 1, this.context);
+        verify(review1).setSaved(true);
+        verify(review2).setSaved(true);
+        verify(review3, never()).setSaved(true);
+        verify(documentAuthors).setOriginalMetadataAuthor(currentUser);
+        verify(xWiki, times(1)).saveDocument(xWikiDocument, "Save reviews", this.context);
+        verify(xWikiDocument, times(1)).clone();
+    }
+
     @Test
     void load() throws Exception
     {
@@ -0,0 +1,115 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.discussions.internal;
+
+import java.util.Locale;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.user.UserReference;
+
+/**
+ * Cache of the creators of the change request main documents, used to compute the discussion store configuration
+ * parameters without loading the change request document each time a discussion or a context is retrieved.
+ * <p>
+ * The entries are invalidated by {@link ChangeRequestDiscussionCreatorCacheListener} whenever the main document of
+ * a change request is deleted or created again, which also covers the moves of change requests.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component(roles = ChangeRequestDiscussionCreatorCache.class)
+@Singleton
+public class ChangeRequestDiscussionCreatorCache implements Initializable, Disposable
+{
+    @Inject
+    private CacheManager cacheManager;
+
+    @Inject
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    private Cache<UserReference> creatorCache;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            this.creatorCache =
+                this.cacheManager.createNewCache(new LRUCacheConfiguration("changerequest.discussionCreators", 500));
+        } catch (CacheException e) {
+            throw new InitializationException("Error while creating cache", e);
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.creatorCache.dispose();
+    }
+
+    /**
+     * Retrieve the creator kept in cache for the given change request main document.
+     *
+     * @param crHomeReference the reference of the main document of the change request
+     * @return the creator of the document, or {@code null} if it's not in cache
+     */
+    public UserReference getCreator(DocumentReference crHomeReference)
+    {
+        return this.creatorCache.get(getKey(crHomeReference));
+    }
+
+    /**
+     * Record in cache the creator of the given change request main document.
+     *
+     * @param crHomeReference the reference of the main document of the change request
+     * @param creator the creator of the document
+     */
+    public void setCreator(DocumentReference crHomeReference, UserReference creator)
+    {
+        this.creatorCache.set(getKey(crHomeReference), creator);
+    }
+
+    /**
+     * Invalidate the creator kept for the given document, if any.
+     *
+     * @param documentReference the reference of a document that has been deleted or created
+     */
+    public void invalidate(DocumentReference documentReference)
+    {
+        this.creatorCache.remove(getKey(documentReference));
+    }
+
+    private String getKey(DocumentReference documentReference)
+    {
+        return this.entityReferenceSerializer.serialize(new DocumentReference(documentReference, (Locale) null));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.discussions.internal;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.xwiki.bridge.event.DocumentCreatedEvent;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+
+/**
+ * Listener in charge of invalidating the {@link ChangeRequestDiscussionCreatorCache} when a document is deleted or
+ * created. Remote events are also handled so that the cache stays consistent in a cluster.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component
+@Named(ChangeRequestDiscussionCreatorCacheListener.NAME)
+@Singleton
+public class ChangeRequestDiscussionCreatorCacheListener extends AbstractEventListener
+{
+    static final String NAME =
+        "org.xwiki.contrib.changerequest.discussions.internal.ChangeRequestDiscussionCreatorCacheListener";
+
+    private static final List<Event> EVENT_LIST = Arrays.asList(
+        new DocumentCreatedEvent(),
+        new DocumentDeletedEvent()
+    );
+
+    @Inject
+    private Provider<ChangeRequestDiscussionCreatorCache> creatorCacheProvider;
+
+    /**
+     * Default constructor.
+     */
+    public ChangeRequestDiscussionCreatorCacheListener()
+    {
+        super(NAME, EVENT_LIST);
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        XWikiDocument sourceDoc = (XWikiDocument) source;
+        this.creatorCacheProvider.get().invalidate(sourceDoc.getDocumentReference());
+    }
+}
@@ -25,7 +25,9 @@ import java.util.List;
 
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.StringUtils;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.contrib.changerequest.discussions.ChangeRequestDiscussionException;
 import org.xwiki.diff.display.InlineDiffChunk;
 import org.xwiki.diff.display.UnifiedDiffBlock;
 import org.xwiki.diff.display.UnifiedDiffElement;
@@ -47,7 +49,8 @@ import static com.fasterxml.jackson.databind.MapperFeature.SORT_PROPERTIES_ALPHA
 
 /**
  * Utility component for manipulating {@link UnifiedDiffBlock}.
- * This component mainly provides helpers to serialize/deserialize to/from JSON.
+ * This component mainly provides helpers to serialize/deserialize to/from JSON, and to encode/decode the compact
+ * representation used to store the blocks (see {@link #encode(UnifiedDiffBlock)}).
  *
  * @version $Id$
  * @since 1.5
@@ -58,6 +61,21 @@ public class ChangeRequestDiscussionDiffUtils
 {
     private static final String TYPE_FIELD = "type";
 
+    /**
+     * Header of the compact encoding, used to distinguish it from the JSON serialization stored before 1.24.
+     */
+    private static final String ENCODING_HEADER = "crdiff1";
+
+    private static final char LINE_SEPARATOR = '\n';
+
+    private static final char FIELD_SEPARATOR = '\t';
+
+    private static final char CHUNK_SEPARATOR = ',';
+
+    private static final char ESCAPE = '\\';
+
+    private static final String NULL_CHUNKS = "-";
+
     private ObjectMapper objectMapper;
 
     /**
@@ -199,4 +217,190 @@ public class ChangeRequestDiscussionDiffUtils
     {
         return getObjectMapper().readValue(jsonSerialization, UnifiedDiffBlock.class);
     }
+
+    /**
+     * Encode the given block in a compact representation: each element is stored on its own line with its type, its
+     * index, and the chunks as ranges of its value (type and length of each chunk) instead of lists of characters.
+     * The characters of the chunks are only stored when they don't match the value of the element.
+     *
+     * @param unifiedDiffBlock the block to encode
+     * @return the compact representation of the block
+     * @since 1.24
+     */
+    public String encode(UnifiedDiffBlock<String, Character> unifiedDiffBlock)
+    {
+        StringBuilder result = new StringBuilder(ENCODING_HEADER);
+        for (UnifiedDiffElement<String, Character> element : unifiedDiffBlock) {
+            result.append(LINE_SEPARATOR)
+                .append(element.getType().name().charAt(0))
+                .append(element.getIndex())
+                .append(FIELD_SEPARATOR);
+
+            List<InlineDiffChunk<Character>> chunks = element.getChunks();
+            StringBuilder chunksText = new StringBuilder();
+            if (chunks == null) {
+                result.append(NULL_CHUNKS);
+            } else {
+                for (int i = 0; i < chunks.size(); i++) {
+                    InlineDiffChunk<Character> chunk = chunks.get(i);
+                    if (i > 0) {
+                        result.append(CHUNK_SEPARATOR);
+                    }
+                    result.append(chunk.getType().name().charAt(0)).append(chunk.getElements().size());
+                    for (Character character : chunk.getElements()) {
+                        chunksText.append(character);
+                    }
+                }
+            }
+
+            result.append(FIELD_SEPARATOR);
+            escape(element.getValue(), result);
+            if (chunks != null && !chunksText.toString().equals(element.getValue())) {
+                result.append(FIELD_SEPARATOR);
+                escape(chunksText.toString(), result);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Decode a block stored with {@link #encode(UnifiedDiffBlock)}, or with {@link #serialize(UnifiedDiffBlock)}
+     * before 1.24.
+     *
+     * @param encodedBlock the stored block
+     * @return the decoded block
+     * @throws ChangeRequestDiscussionException in case of problem during decoding
+     * @since 1.24
+     */
+    public UnifiedDiffBlock<String, Character> decode(String encodedBlock) throws ChangeRequestDiscussionException
+    {
+        if (isLegacyEncoding(encodedBlock)) {
+            try {
+                return deserialize(encodedBlock);
+            } catch (JsonProcessingException e) {
+                throw new ChangeRequestDiscussionException("Error when parsing json serialization of diff block", e);
+            }
+        }
+
+        UnifiedDiffBlock<String, Character> result = new UnifiedDiffBlock<>();
+        String[] lines = StringUtils.split(encodedBlock, LINE_SEPARATOR);
+        if (lines.length == 0 || !ENCODING_HEADER.equals(lines[0])) {
+            throw new ChangeRequestDiscussionException(
+                String.format("Unsupported encoding of diff block: [%s]", StringUtils.abbreviate(encodedBlock, 50)));
+        }
+        for (int i = 1; i < lines.length; i++) {
+            result.add(decodeElement(lines[i]));
+        }
+        return result;
+    }
+
+    /**
+     * @param encodedBlock a stored block
+     * @return {@code true} if the block has been stored with the JSON serialization used before 1.24 and should be
+     *     migrated to the compact encoding
+     * @since 1.24
+     */
+    public boolean isLegacyEncoding(String encodedBlock)
+    {
+        return StringUtils.startsWith(StringUtils.stripStart(encodedBlock, null), "[");
+    }
+
+    private UnifiedDiffElement<String, Character> decodeElement(String line) throws ChangeRequestDiscussionException
+    {
+        // Don't use StringUtils#split which would ignore the empty values.
+        String[] fields = StringUtils.splitPreserveAllTokens(line, FIELD_SEPARATOR);
+        if (fields.length < 3 || fields[0].length() < 2) {
+            throw new ChangeRequestDiscussionException(String.format("Invalid encoding of diff element: [%s]", line));
+        }
+        try {
+            UnifiedDiffElement.Type type = getType(UnifiedDiffElement.Type.values(), fields[0].charAt(0));
+            int index = Integer.parseInt(fields[0].substring(1));
+            String value = unescape(fields[2]);
+            UnifiedDiffElement<String, Character> element = new UnifiedDiffElement<>(index, type, value);
+
+            if (!NULL_CHUNKS.equals(fields[1])) {
+                String chunksText = (fields.length > 3) ? unescape(fields[3]) : value;
+                List<InlineDiffChunk<Character>> chunks = new ArrayList<>();
+                int offset = 0;
+                for (String chunkRange : StringUtils.split(fields[1], CHUNK_SEPARATOR)) {
+                    InlineDiffChunk.Type chunkType = getType(InlineDiffChunk.Type.values(), chunkRange.charAt(0));
+                    int length = Integer.parseInt(chunkRange.substring(1));
+                    List<Character> characters = new ArrayList<>(length);
+                    for (int i = offset; i < offset + length; i++) {
+                        characters.add(chunksText.charAt(i));
+                    }
+                    offset += length;
+                    chunks.add(new InlineDiffChunk<>(chunkType, characters));
+                }
+                element.setChunks(chunks);
+            }
+            return element;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new ChangeRequestDiscussionException(String.format("Invalid encoding of diff element: [%s]", line),
+                e);
+        }
+    }
+
+    private static <E extends Enum<E>> E getType(E[] values, char initial)
+    {
+        for (E value : values) {
+            if (value.name().charAt(0) == initial) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown type [%s]", initial));
+    }
+
+    private static void escape(String value, StringBuilder builder)
+    {
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            switch (character) {
+                case ESCAPE:
+                    builder.append(ESCAPE).append(ESCAPE);
+                    break;
+                case LINE_SEPARATOR:
+                    builder.append(ESCAPE).append('n');
+                    break;
+                case FIELD_SEPARATOR:
+                    builder.append(ESCAPE).append('t');
+                    break;
+                case '\r':
+                    builder.append(ESCAPE).append('r');
+                    break;
+                default:
+                    builder.append(character);
+            }
+        }
+    }
+
+    private static String unescape(String value)
+    {
+        if (value.indexOf(ESCAPE) < 0) {
+            return value;
+        }
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            if (character == ESCAPE && i + 1 < value.length()) {
+                i++;
+                switch (value.charAt(i)) {
+                    case 'n':
+                        builder.append(LINE_SEPARATOR);
+                        break;
+                    case 't':
+                        builder.append(FIELD_SEPARATOR);
+                        break;
+                    case 'r':
+                        builder.append('\r');
+                        break;
+                    default:
+                        builder.append(value.charAt(i));
+                }
+            } else {
+                builder.append(character);
+            }
+        }
+        return builder.toString();
+    }
 }
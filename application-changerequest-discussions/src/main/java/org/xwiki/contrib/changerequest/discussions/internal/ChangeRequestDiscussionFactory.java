@@ -19,6 +19,7 @@
  */
 package org.xwiki.contrib.changerequest.discussions.internal;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -27,6 +28,7 @@ import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.contrib.changerequest.discussions.ChangeRequestDiscussionException;
@@ -44,6 +46,7 @@ import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
 import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.user.UserReference;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
@@ -79,6 +82,9 @@ public class ChangeRequestDiscussionFactory
     @Inject
     private Provider<XWikiContext> contextProvider;
 
+    @Inject
+    private ChangeRequestDiscussionCreatorCache creatorCache;
+
     @Inject
     private Logger logger;
 
@@ -124,14 +130,23 @@ public class ChangeRequestDiscussionFactory
         SpaceReference crSpaceReference = new SpaceReference(crReference.getName(),
             crReference.getLastSpaceReference());
         DocumentReference crHomeReference = new DocumentReference("WebHome", crSpaceReference);
-        XWikiContext context = this.contextProvider.get();
-        try {
-            XWikiDocument crDocument = context.getWiki().getDocument(crHomeReference, context);
-            configurationParameters.put(DiscussionStoreConfigurationParameters.CREATOR_PARAMETER_KEY,
-                crDocument.getAuthors().getCreator());
-        } catch (XWikiException e) {
-            this.logger.error("Error while trying to load the CR main document [{}] in order to set the creator of "
-                + "discussion documents.", crHomeReference, e);
+        UserReference creator = this.creatorCache.getCreator(crHomeReference);
+        if (creator != null) {
+            configurationParameters.put(DiscussionStoreConfigurationParameters.CREATOR_PARAMETER_KEY, creator);
+        } else {
+            XWikiContext context = this.contextProvider.get();
+            try {
+                XWikiDocument crDocument = context.getWiki().getDocument(crHomeReference, context);
+                creator = crDocument.getAuthors().getCreator();
+                configurationParameters.put(DiscussionStoreConfigurationParameters.CREATOR_PARAMETER_KEY, creator);
+                // The main document might not be saved yet when the change request is being created.
+                if (creator != null && !crDocument.isNew()) {
+                    this.creatorCache.setCreator(crHomeReference, creator);
+                }
+            } catch (XWikiException e) {
+                this.logger.error("Error while trying to load the CR main document [{}] in order to set the creator "
+                    + "of discussion documents.", crHomeReference, e);
+            }
         }
         configurationParameters.put("redirection", this.entityReferenceSerializer.serialize(crReference));
         return configurationParameters;
@@ -187,22 +202,46 @@ public class ChangeRequestDiscussionFactory
     public void copyMessages(Discussion originalDiscussion, Discussion newDiscussion,
         AbstractChangeRequestDiscussionContextReference newReference) throws ChangeRequestDiscussionException
     {
+        this.copyMessages(originalDiscussion, List.of(Pair.of(newDiscussion, newReference)));
+    }
+
+    /**
+     * Allow to copy messages from the given discussion to several new discussions: the messages are only loaded once
+     * and the discussion store parameters are only computed once for each new discussion.
+     *
+     * @param originalDiscussion the discussion from which to get the messages to copy.
+     * @param targets the targets for the copied messages, along with the reference to use for their discussion store
+     *     parameters.
+     * @since 1.24
+     */
+    public void copyMessages(Discussion originalDiscussion,
+        List<Pair<Discussion, AbstractChangeRequestDiscussionContextReference>> targets)
+        throws ChangeRequestDiscussionException
+    {
+        if (targets.isEmpty()) {
+            return;
+        }
+        List<DiscussionStoreConfigurationParameters> storeConfigurationParameters = new ArrayList<>(targets.size());
+        for (Pair<Discussion, AbstractChangeRequestDiscussionContextReference> target : targets) {
+            storeConfigurationParameters.add(this.createDiscussionStoreConfigurationParametersFor(target.getRight()));
+        }
+
         long limit = this.messageService.countByDiscussion(originalDiscussion);
         for (int offset = 0; offset < limit; offset += 100) {
             List<Message> messages =
                 this.messageService.getByDiscussion(originalDiscussion.getReference(), offset, 100);
 
             for (Message message : messages) {
-                this.copyMessage(message, newDiscussion, newReference);
+                for (int i = 0; i < targets.size(); i++) {
+                    this.copyMessage(message, targets.get(i).getLeft(), storeConfigurationParameters.get(i));
+                }
             }
         }
     }
 
     private void copyMessage(Message message, Discussion newDiscussion,
-        AbstractChangeRequestDiscussionContextReference newReference) throws ChangeRequestDiscussionException
+        DiscussionStoreConfigurationParameters storeConfigurationParameters) throws ChangeRequestDiscussionException
     {
-        DiscussionStoreConfigurationParameters storeConfigurationParameters =
-            this.createDiscussionStoreConfigurationParametersFor(newReference);
         try {
             this.messageService.create(
                 message.getContent(),
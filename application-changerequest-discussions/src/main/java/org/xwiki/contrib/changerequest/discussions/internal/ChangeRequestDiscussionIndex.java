@@ -0,0 +1,135 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.discussions.internal;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.contrib.changerequest.discussions.references.AbstractChangeRequestDiscussionContextReference;
+import org.xwiki.contrib.changerequest.discussions.references.ChangeRequestDiscussionReferenceType;
+import org.xwiki.contrib.discussions.domain.references.DiscussionReference;
+
+/**
+ * Index of the change request references of the discussions, to avoid loading and parsing all the contexts of a
+ * discussion each time its reference is needed.
+ * <p>
+ * Only the references that cannot change anymore once the discussion is created are indexed: a discussion of the
+ * reviews is for example attached later to the context of a specific review, which changes its reference. The
+ * references of the file and line diffs are changed when the file of the change request is renamed, so the
+ * discussions involved must be invalidated when it happens.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component(roles = ChangeRequestDiscussionIndex.class)
+@Singleton
+public class ChangeRequestDiscussionIndex implements Initializable, Disposable
+{
+    private static final Set<ChangeRequestDiscussionReferenceType> INDEXED_TYPES = EnumSet.of(
+        ChangeRequestDiscussionReferenceType.CHANGE_REQUEST_COMMENT,
+        ChangeRequestDiscussionReferenceType.REVIEW,
+        ChangeRequestDiscussionReferenceType.FILE_DIFF,
+        ChangeRequestDiscussionReferenceType.LINE_DIFF
+    );
+
+    private static final char KEY_SEPARATOR = ':';
+
+    @Inject
+    private CacheManager cacheManager;
+
+    private Cache<AbstractChangeRequestDiscussionContextReference> referenceCache;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            this.referenceCache = this.cacheManager.createNewCache(
+                new LRUCacheConfiguration("changerequest.discussionReferences", 1000));
+        } catch (CacheException e) {
+            throw new InitializationException("Error while creating cache", e);
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.referenceCache.dispose();
+    }
+
+    /**
+     * Retrieve the indexed change request reference of the given discussion.
+     *
+     * @param discussionReference the reference of the discussion
+     * @return the change request reference of the discussion, or {@code null} if it's not indexed
+     */
+    public AbstractChangeRequestDiscussionContextReference getReference(DiscussionReference discussionReference)
+    {
+        return this.referenceCache.get(getKey(discussionReference));
+    }
+
+    /**
+     * Index the change request reference of the given discussion, if its type allows it.
+     *
+     * @param discussionReference the reference of the discussion
+     * @param reference the change request reference computed for the discussion
+     */
+    public void index(DiscussionReference discussionReference,
+        AbstractChangeRequestDiscussionContextReference reference)
+    {
+        if (INDEXED_TYPES.contains(reference.getType())) {
+            this.referenceCache.set(getKey(discussionReference), reference);
+        }
+    }
+
+    /**
+     * Remove the given discussion from the index.
+     *
+     * @param discussionReference the reference of the discussion whose change request reference changed
+     */
+    public void invalidate(DiscussionReference discussionReference)
+    {
+        this.referenceCache.remove(getKey(discussionReference));
+    }
+
+    /**
+     * Remove all discussions from the index.
+     */
+    public void invalidateAll()
+    {
+        this.referenceCache.removeAll();
+    }
+
+    private String getKey(DiscussionReference discussionReference)
+    {
+        return discussionReference.getApplicationHint() + KEY_SEPARATOR + discussionReference.getReference();
+    }
+}
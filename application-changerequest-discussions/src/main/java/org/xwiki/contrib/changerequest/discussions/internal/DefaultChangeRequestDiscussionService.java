@@ -35,6 +35,7 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.contrib.changerequest.ChangeRequest;
@@ -65,8 +66,6 @@ import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.EntityReferenceResolver;
 import org.xwiki.model.reference.EntityReferenceSerializer;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-
 /**
  * Default implementation of {@link ChangeRequestDiscussionService}.
  *
@@ -103,35 +102,39 @@ public class DefaultChangeRequestDiscussionService implements ChangeRequestDiscu
     @Inject
     private ChangeRequestDiscussionDiffUtils changeRequestDiscussionDiffUtils;
 
+    @Inject
+    private ChangeRequestDiscussionIndex discussionIndex;
+
     @Inject
     private Logger logger;
 
     private <T extends AbstractChangeRequestDiscussionContextReference> List<DiscussionContext> getContextListFor(
-        T reference) throws ChangeRequestDiscussionException
+        T reference, Map<AbstractChangeRequestDiscussionContextReference, DiscussionContext> contextCache)
+        throws ChangeRequestDiscussionException
     {
         List<DiscussionContext> contextList = new ArrayList<>();
 
-        contextList.add(this.changeRequestDiscussionFactory.getOrCreateContextFor(
-            new ChangeRequestReference(reference.getChangeRequestId())));
+        contextList.add(getOrCreateContextFor(new ChangeRequestReference(reference.getChangeRequestId()),
+            contextCache));
         switch (reference.getType()) {
             case CHANGE_REQUEST_COMMENT:
             case REVIEWS:
             case FILE_DIFF:
-                contextList.add(this.changeRequestDiscussionFactory.getOrCreateContextFor(reference));
+                contextList.add(getOrCreateContextFor(reference, contextCache));
                 break;
 
             case REVIEW:
-                contextList.add(this.changeRequestDiscussionFactory.getOrCreateContextFor(reference));
-                contextList.add(this.changeRequestDiscussionFactory.getOrCreateContextFor(
-                    new ChangeRequestReviewsReference(reference.getChangeRequestId())));
+                contextList.add(getOrCreateContextFor(reference, contextCache));
+                contextList.add(getOrCreateContextFor(
+                    new ChangeRequestReviewsReference(reference.getChangeRequestId()), contextCache));
                 break;
 
             case LINE_DIFF:
-                contextList.add(this.changeRequestDiscussionFactory.getOrCreateContextFor(reference));
+                contextList.add(getOrCreateContextFor(reference, contextCache));
                 ChangeRequestLineDiffReference lineDiffReference = (ChangeRequestLineDiffReference) reference;
-                contextList.add(this.changeRequestDiscussionFactory.getOrCreateContextFor(
+                contextList.add(getOrCreateContextFor(
                     new ChangeRequestFileDiffReference(lineDiffReference.getChangeRequestId(),
-                        lineDiffReference.getLineDiffLocation().getFileDiffLocation())));
+                        lineDiffReference.getLineDiffLocation().getFileDiffLocation()), contextCache));
                 break;
 
             case CHANGE_REQUEST:
@@ -141,6 +144,23 @@ public class DefaultChangeRequestDiscussionService implements ChangeRequestDiscu
         return contextList;
     }
 
+    /**
+     * Get or create the context of the given reference, reusing the one from the given cache if it's already been
+     * retrieved: the cache is local to an operation involving many discussions, like
+     * {@link #moveDiscussions(ChangeRequest, List)}.
+     */
+    private DiscussionContext getOrCreateContextFor(AbstractChangeRequestDiscussionContextReference reference,
+        Map<AbstractChangeRequestDiscussionContextReference, DiscussionContext> contextCache)
+        throws ChangeRequestDiscussionException
+    {
+        DiscussionContext context = contextCache.get(reference);
+        if (context == null) {
+            context = this.changeRequestDiscussionFactory.getOrCreateContextFor(reference);
+            contextCache.put(reference, context);
+        }
+        return context;
+    }
+
     @Override
     public void refactorDiscussionFileReference(String changeRequestId, DocumentReference source,
         DocumentReference target, boolean isDeep)
@@ -156,6 +176,8 @@ public class DefaultChangeRequestDiscussionService implements ChangeRequestDiscu
             List<DiscussionContext> discussionContexts =
                 this.discussionContextService.findByDiscussionReference(crDiscussion.getReference());
             contextSet.addAll(discussionContexts);
+            // The references of the discussions might change with the update of their contexts.
+            this.discussionIndex.invalidate(crDiscussion.getReference());
         }
 
         for (DiscussionContext discussionContext : contextSet) {
@@ -255,7 +277,14 @@ public class DefaultChangeRequestDiscussionService implements ChangeRequestDiscu
     public <T extends AbstractChangeRequestDiscussionContextReference> Discussion getOrCreateDiscussionFor(T reference)
         throws ChangeRequestDiscussionException
     {
-        List<DiscussionContext> contextList = this.getContextListFor(reference);
+        return this.getOrCreateDiscussionFor(reference, new HashMap<>());
+    }
+
+    private <T extends AbstractChangeRequestDiscussionContextReference> Discussion getOrCreateDiscussionFor(
+        T reference, Map<AbstractChangeRequestDiscussionContextReference, DiscussionContext> contextCache)
+        throws ChangeRequestDiscussionException
+    {
+        List<DiscussionContext> contextList = this.getContextListFor(reference, contextCache);
 
         try {
             return this.discussionService.getOrCreate(
@@ -277,7 +306,7 @@ public class DefaultChangeRequestDiscussionService implements ChangeRequestDiscu
     public <T extends AbstractChangeRequestDiscussionContextReference> Discussion createDiscussionFor(T reference)
         throws ChangeRequestDiscussionException
     {
-        List<DiscussionContext> contextList = this.getContextListFor(reference);
+        List<DiscussionContext> contextList = this.getContextListFor(reference, new HashMap<>());
         if (reference.isUniqueDiscussion()) {
             List<Discussion> discussions = this.discussionService.findByDiscussionContexts(
                 contextList.stream()
@@ -300,6 +329,7 @@ public class DefaultChangeRequestDiscussionService implements ChangeRequestDiscu
             for (DiscussionContext discussionContext : contextList) {
                 this.discussionContextService.link(discussionContext, discussion);
             }
+            this.discussionIndex.index(discussion.getReference(), reference);
             return discussion;
         } catch (DiscussionException e) {
             throw new ChangeRequestDiscussionException(
@@ -324,15 +354,20 @@ public class DefaultChangeRequestDiscussionService implements ChangeRequestDiscu
     public AbstractChangeRequestDiscussionContextReference getReferenceFrom(Discussion discussion)
         throws ChangeRequestDiscussionException
     {
+        AbstractChangeRequestDiscussionContextReference reference =
+            this.discussionIndex.getReference(discussion.getReference());
+        if (reference != null) {
+            return reference;
+        }
+
         List<DiscussionContext> discussionContexts =
             this.discussionContextService.findByDiscussionReference(discussion.getReference());
-        AbstractChangeRequestDiscussionContextReference reference = null;
-
         for (DiscussionContext discussionContext : discussionContexts) {
             reference = this.discussionReferenceUtils.computeReferenceFromContext(discussionContext, reference);
         }
 
         if (reference != null) {
+            this.discussionIndex.index(discussion.getReference(), reference);
             return reference;
         } else {
             throw new ChangeRequestDiscussionException(
@@ -346,22 +381,28 @@ public class DefaultChangeRequestDiscussionService implements ChangeRequestDiscu
         throws ChangeRequestDiscussionException
     {
         ChangeRequestReference changeRequestReference = new ChangeRequestReference(originalChangeRequest.getId());
-        Map<List<String>, ChangeRequest> changeRequestMap = new HashMap<>();
+
+        // Index the splitted change requests by the serialized references of their documents, to find directly the
+        // change request of each file diff discussion.
+        Map<String, ChangeRequest> changeRequestByTarget = new HashMap<>();
         for (ChangeRequest splittedChangeRequest : splittedChangeRequests) {
-            List<String> fileChangeIdList =
-                splittedChangeRequest.getModifiedDocuments().stream()
-                    .map(reference -> stringEntityReferenceSerializer.serialize(reference))
-                    .collect(Collectors.toList());
-            changeRequestMap.put(fileChangeIdList, splittedChangeRequest);
+            for (DocumentReference modifiedDocument : splittedChangeRequest.getModifiedDocuments()) {
+                changeRequestByTarget.putIfAbsent(this.stringEntityReferenceSerializer.serialize(modifiedDocument),
+                    splittedChangeRequest);
+            }
         }
 
+        // The same contexts are needed by many discussions of a same splitted change request.
+        Map<AbstractChangeRequestDiscussionContextReference, DiscussionContext> contextCache = new HashMap<>();
         List<Discussion> allDiscussions = this.getDiscussionsFrom(changeRequestReference);
         for (Discussion discussion : allDiscussions) {
-            this.moveDiscussion(discussion, changeRequestMap);
+            this.moveDiscussion(discussion, splittedChangeRequests, changeRequestByTarget, contextCache);
         }
     }
 
-    private void moveDiscussion(Discussion discussion, Map<List<String>, ChangeRequest> splittedChangeRequests)
+    private void moveDiscussion(Discussion discussion, List<ChangeRequest> splittedChangeRequests,
+        Map<String, ChangeRequest> changeRequestByTarget,
+        Map<AbstractChangeRequestDiscussionContextReference, DiscussionContext> contextCache)
         throws ChangeRequestDiscussionException
     {
         AbstractChangeRequestDiscussionContextReference reference = this.getReferenceFrom(discussion);
@@ -373,9 +414,9 @@ public class DefaultChangeRequestDiscussionService implements ChangeRequestDiscu
             case FILE_DIFF:
                 ChangeRequestFileDiffReference fileDiffReference = (ChangeRequestFileDiffReference) reference;
                 fileDiffLocation = fileDiffReference.getFileDiffLocation();
-                newChangeRequest = findChangeRequest(splittedChangeRequests, fileDiffLocation);
+                newChangeRequest = changeRequestByTarget.get(fileDiffLocation.getTargetReference());
                 if (newChangeRequest != null) {
-                    this.moveFileDiffDiscussion(fileDiffReference, discussion, newChangeRequest);
+                    this.moveFileDiffDiscussion(fileDiffReference, discussion, newChangeRequest, contextCache);
                 } else {
                     this.logger.error(lostDiscussionLoggerMsg, fileDiffLocation.getTargetReference());
                 }
@@ -384,9 +425,9 @@ public class DefaultChangeRequestDiscussionService implements ChangeRequestDiscu
             case LINE_DIFF:
                 ChangeRequestLineDiffReference lineDiffReference = (ChangeRequestLineDiffReference) reference;
                 fileDiffLocation = lineDiffReference.getLineDiffLocation().getFileDiffLocation();
-                newChangeRequest = findChangeRequest(splittedChangeRequests, fileDiffLocation);
+                newChangeRequest = changeRequestByTarget.get(fileDiffLocation.getTargetReference());
                 if (newChangeRequest != null) {
-                    this.moveLineDiffDiscussion(lineDiffReference, discussion, newChangeRequest);
+                    this.moveLineDiffDiscussion(lineDiffReference, discussion, newChangeRequest, contextCache);
                 } else {
                     this.logger.error(lostDiscussionLoggerMsg, fileDiffLocation.getTargetReference());
                 }
@@ -397,45 +438,39 @@ public class DefaultChangeRequestDiscussionService implements ChangeRequestDiscu
             case CHANGE_REQUEST:
             case CHANGE_REQUEST_COMMENT:
             default:
-                this.moveGlobalDiscussion(reference, discussion, splittedChangeRequests.values());
-        }
-    }
-
-    private ChangeRequest findChangeRequest(Map<List<String>, ChangeRequest> splittedChangeRequests,
-        FileDiffLocation fileDiffLocation)
-    {
-        ChangeRequest result = null;
-        for (Map.Entry<List<String>, ChangeRequest> entry : splittedChangeRequests.entrySet()) {
-            if (entry.getKey().contains(fileDiffLocation.getTargetReference())) {
-                result = entry.getValue();
-                break;
-            }
+                this.moveGlobalDiscussion(reference, discussion, splittedChangeRequests, contextCache);
         }
-        return result;
     }
 
     private void moveLineDiffDiscussion(ChangeRequestLineDiffReference lineDiffReference, Discussion discussion,
-        ChangeRequest newChangeRequest) throws ChangeRequestDiscussionException
+        ChangeRequest newChangeRequest,
+        Map<AbstractChangeRequestDiscussionContextReference, DiscussionContext> contextCache)
+        throws ChangeRequestDiscussionException
     {
         ChangeRequestLineDiffReference newReference = new ChangeRequestLineDiffReference(newChangeRequest.getId(),
             lineDiffReference.getLineDiffLocation()
         );
-        Discussion newDiscussion = this.getOrCreateDiscussionFor(newReference);
+        Discussion newDiscussion = this.getOrCreateDiscussionFor(newReference, contextCache);
         this.changeRequestDiscussionFactory.copyMessages(discussion, newDiscussion, newReference);
     }
 
     private void moveFileDiffDiscussion(ChangeRequestFileDiffReference fileDiffReference, Discussion discussion,
-        ChangeRequest newChangeRequest) throws ChangeRequestDiscussionException
+        ChangeRequest newChangeRequest,
+        Map<AbstractChangeRequestDiscussionContextReference, DiscussionContext> contextCache)
+        throws ChangeRequestDiscussionException
     {
         ChangeRequestFileDiffReference newReference = new ChangeRequestFileDiffReference(newChangeRequest.getId(),
             fileDiffReference.getFileDiffLocation());
-        Discussion newDiscussion = this.getOrCreateDiscussionFor(newReference);
+        Discussion newDiscussion = this.getOrCreateDiscussionFor(newReference, contextCache);
         this.changeRequestDiscussionFactory.copyMessages(discussion, newDiscussion, newReference);
     }
 
     private void moveGlobalDiscussion(AbstractChangeRequestDiscussionContextReference reference, Discussion discussion,
-        Collection<ChangeRequest> splittedChangeRequests) throws ChangeRequestDiscussionException
+        Collection<ChangeRequest> splittedChangeRequests,
+        Map<AbstractChangeRequestDiscussionContextReference, DiscussionContext> contextCache)
+        throws ChangeRequestDiscussionException
     {
+        List<Pair<Discussion, AbstractChangeRequestDiscussionContextReference>> targets = new ArrayList<>();
         for (ChangeRequest splittedChangeRequest : splittedChangeRequests) {
             AbstractChangeRequestDiscussionContextReference newReference = null;
 
@@ -450,9 +485,10 @@ public class DefaultChangeRequestDiscussionService implements ChangeRequestDiscu
                 newReference = new ChangeRequestReviewReference(reviewReference.getReviewId(),
                     splittedChangeRequest.getId());
             }
-            Discussion newDiscussion = this.getOrCreateDiscussionFor(newReference);
-            this.changeRequestDiscussionFactory.copyMessages(discussion, newDiscussion, newReference);
+            targets.add(Pair.of(this.getOrCreateDiscussionFor(newReference, contextCache), newReference));
         }
+        // Load the messages only once for all the splitted change requests
+        this.changeRequestDiscussionFactory.copyMessages(discussion, targets);
     }
 
     @Override
@@ -474,13 +510,9 @@ public class DefaultChangeRequestDiscussionService implements ChangeRequestDiscu
                 DiscussionContext discussionContext =
                     this.changeRequestDiscussionFactory.getOrCreateContextFor(reference);
 
-                try {
-                    this.discussionContextService.saveMetadata(discussionContext,
-                        Collections.singletonMap(DIFF_CONTEXT_METADATA_KEY,
-                            this.changeRequestDiscussionDiffUtils.serialize(contextBlock)));
-                } catch (JsonProcessingException e) {
-                    throw new ChangeRequestDiscussionException("Error when trying to serialize the context block", e);
-                }
+                this.discussionContextService.saveMetadata(discussionContext,
+                    Collections.singletonMap(DIFF_CONTEXT_METADATA_KEY,
+                        this.changeRequestDiscussionDiffUtils.encode(contextBlock)));
                 result = true;
             } else {
                 logger.error("Trying to attach a diff context to a reference not of type line diff: [{}]", reference);
@@ -503,14 +535,11 @@ public class DefaultChangeRequestDiscussionService implements ChangeRequestDiscu
             for (DiscussionContext discussionContext : discussionContexts) {
                 Map<String, String> metadata = discussionContext.getMetadata();
                 if (metadata.containsKey(DIFF_CONTEXT_METADATA_KEY)) {
-                    String jsonDiffBlockSerialization = metadata.get(DIFF_CONTEXT_METADATA_KEY);
-                    try {
-                        UnifiedDiffBlock<String, Character> unifiedDiffBlock =
-                            this.changeRequestDiscussionDiffUtils.deserialize(jsonDiffBlockSerialization);
-                        result = Optional.of(new ChangeRequestDiscussionDiffBlock(unifiedDiffBlock, lineDiffReference));
-                    } catch (JsonProcessingException e) {
-                        throw new ChangeRequestException("Error when parsing json serialization of diff block", e);
-                    }
+                    // The diff blocks stored before 1.24 are migrated when a message is added to the discussion, see
+                    // MessageCreationListener.
+                    UnifiedDiffBlock<String, Character> unifiedDiffBlock =
+                        this.changeRequestDiscussionDiffUtils.decode(metadata.get(DIFF_CONTEXT_METADATA_KEY));
+                    result = Optional.of(new ChangeRequestDiscussionDiffBlock(unifiedDiffBlock, lineDiffReference));
                     break;
                 }
             }
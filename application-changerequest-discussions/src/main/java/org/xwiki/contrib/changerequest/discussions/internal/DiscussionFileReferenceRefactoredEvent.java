@@ -0,0 +1,48 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.discussions.internal;
+
+import java.io.Serializable;
+
+import org.xwiki.observation.event.Event;
+
+/**
+ * Event triggered once the discussions of a change request have been refactored after the rename of one of its file
+ * changes. The source sent along with this event is the ID of the change request. This event is sent to the other
+ * instances of the cluster so that they can invalidate their own discussions.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+public class DiscussionFileReferenceRefactoredEvent implements Event, Serializable
+{
+    /**
+     * Default constructor.
+     */
+    public DiscussionFileReferenceRefactoredEvent()
+    {
+    }
+
+    @Override
+    public boolean matches(Object otherEvent)
+    {
+        return otherEvent instanceof DiscussionFileReferenceRefactoredEvent;
+    }
+}
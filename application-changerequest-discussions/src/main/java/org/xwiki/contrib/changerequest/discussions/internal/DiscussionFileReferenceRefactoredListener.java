@@ -0,0 +1,74 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.discussions.internal;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+import org.xwiki.observation.remote.RemoteObservationManagerContext;
+
+/**
+ * Listener in charge of invalidating the {@link ChangeRequestDiscussionIndex} when discussions have been refactored
+ * by another instance of the cluster: the instance performing the refactoring invalidates the discussions directly.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component
+@Named(DiscussionFileReferenceRefactoredListener.NAME)
+@Singleton
+public class DiscussionFileReferenceRefactoredListener extends AbstractEventListener
+{
+    static final String NAME =
+        "org.xwiki.contrib.changerequest.discussions.internal.DiscussionFileReferenceRefactoredListener";
+
+    private static final List<Event> EVENT_LIST =
+        Collections.singletonList(new DiscussionFileReferenceRefactoredEvent());
+
+    @Inject
+    private Provider<ChangeRequestDiscussionIndex> discussionIndexProvider;
+
+    @Inject
+    private RemoteObservationManagerContext remoteObservationManagerContext;
+
+    /**
+     * Default constructor.
+     */
+    public DiscussionFileReferenceRefactoredListener()
+    {
+        super(NAME, EVENT_LIST);
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        if (this.remoteObservationManagerContext.isRemoteState()) {
+            this.discussionIndexProvider.get().invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.discussions.internal;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.xwiki.model.reference.DocumentReference;
+
+/**
+ * Represents a pending refactoring of the discussions of a change request after one of its file changes has been
+ * renamed.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+public class DiscussionFileReferenceRefactoring
+{
+    private final String changeRequestId;
+    private final DocumentReference source;
+    private final DocumentReference target;
+    private final boolean isDeep;
+
+    /**
+     * Default constructor.
+     *
+     * @param changeRequestId the identifier of the change request whose discussions should be refactored
+     * @param source the former reference of the file change
+     * @param target the new reference of the file change
+     * @param isDeep {@code true} if the children of the source should be refactored too
+     */
+    public DiscussionFileReferenceRefactoring(String changeRequestId, DocumentReference source,
+        DocumentReference target, boolean isDeep)
+    {
+        this.changeRequestId = changeRequestId;
+        this.source = source;
+        this.target = target;
+        this.isDeep = isDeep;
+    }
+
+    /**
+     * @return the identifier of the change request whose discussions should be refactored
+     */
+    public String getChangeRequestId()
+    {
+        return changeRequestId;
+    }
+
+    /**
+     * @return the former reference of the file change
+     */
+    public DocumentReference getSource()
+    {
+        return source;
+    }
+
+    /**
+     * @return the new reference of the file change
+     */
+    public DocumentReference getTarget()
+    {
+        return target;
+    }
+
+    /**
+     * @return {@code true} if the children of the source should be refactored too
+     */
+    public boolean isDeep()
+    {
+        return isDeep;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        DiscussionFileReferenceRefactoring that = (DiscussionFileReferenceRefactoring) o;
+
+        return new EqualsBuilder()
+            .append(isDeep, that.isDeep)
+            .append(changeRequestId, that.changeRequestId)
+            .append(source, that.source)
+            .append(target, that.target)
+            .isEquals();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return new HashCodeBuilder(17, 37)
+            .append(changeRequestId)
+            .append(source)
+            .append(target)
+            .append(isDeep)
+            .toHashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this)
+            .append("changeRequestId", changeRequestId)
+            .append("source", source)
+            .append("target", target)
+            .append("isDeep", isDeep)
+            .toString();
+    }
+}
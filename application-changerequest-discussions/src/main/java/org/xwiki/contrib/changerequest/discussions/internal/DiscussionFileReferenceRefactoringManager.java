@@ -0,0 +1,129 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.discussions.internal;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.contrib.changerequest.discussions.ChangeRequestDiscussionException;
+import org.xwiki.contrib.changerequest.discussions.ChangeRequestDiscussionService;
+import org.xwiki.contrib.changerequest.discussions.internal.jobs.DiscussionFileReferenceRefactoringRequest;
+import org.xwiki.contrib.changerequest.jobs.AbstractDelayedQueueManager;
+import org.xwiki.contrib.changerequest.jobs.AbstractDelayedQueueRequest;
+import org.xwiki.observation.ObservationManager;
+
+/**
+ * Component in charge of refactoring the discussions of change requests whose file changes have been renamed.
+ * The refactorings are not performed during the rename: they are queued and processed in background by a
+ * {@link org.xwiki.contrib.changerequest.discussions.internal.jobs.DiscussionFileReferenceRefactoringJob}, so that
+ * all the refactorings of a deep move are handled at once. Identical refactorings are only queued once, and failing
+ * refactorings are queued again a limited number of times: a refactoring only updates the contexts still referencing
+ * the source, so it can be safely retried.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component(roles = DiscussionFileReferenceRefactoringManager.class)
+@Singleton
+public class DiscussionFileReferenceRefactoringManager
+    extends AbstractDelayedQueueManager<DiscussionFileReferenceRefactoring, Integer>
+{
+    /**
+     * Delay in milliseconds during which refactorings are accumulated before being processed.
+     */
+    static final long REFACTORING_DELAY = 1000;
+
+    /**
+     * Maximum number of attempts for a refactoring.
+     */
+    static final int MAX_ATTEMPTS = 3;
+
+    @Inject
+    private Provider<ChangeRequestDiscussionService> discussionServiceProvider;
+
+    @Inject
+    private ObservationManager observationManager;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * Default constructor.
+     */
+    public DiscussionFileReferenceRefactoringManager()
+    {
+        super(DiscussionFileReferenceRefactoringRequest.DISCUSSION_REFACTORING_JOB, REFACTORING_DELAY);
+    }
+
+    /**
+     * Queue the given refactoring, and start a refactoring job if none is already waiting for being executed.
+     *
+     * @param refactoring the refactoring to perform
+     */
+    public void addRefactoring(DiscussionFileReferenceRefactoring refactoring)
+    {
+        this.addRefactoring(refactoring, 0);
+    }
+
+    private void addRefactoring(DiscussionFileReferenceRefactoring refactoring, int attempts)
+    {
+        // Keep the pending refactoring with the number of attempts already performed.
+        this.addPendingItem(refactoring, attempts, Math::max);
+    }
+
+    @Override
+    protected AbstractDelayedQueueRequest createRequest()
+    {
+        return new DiscussionFileReferenceRefactoringRequest();
+    }
+
+    /**
+     * Perform the given refactoring. In case of error the refactoring is queued again, unless the maximum number of
+     * attempts is reached.
+     *
+     * @param refactoring the refactoring to perform
+     * @param attempts the number of attempts already performed for this refactoring
+     */
+    public void refactor(DiscussionFileReferenceRefactoring refactoring, int attempts)
+    {
+        try {
+            this.discussionServiceProvider.get().refactorDiscussionFileReference(refactoring.getChangeRequestId(),
+                refactoring.getSource(), refactoring.getTarget(), refactoring.isDeep());
+            this.observationManager.notify(new DiscussionFileReferenceRefactoredEvent(),
+                refactoring.getChangeRequestId());
+        } catch (ChangeRequestDiscussionException e) {
+            if (attempts + 1 < MAX_ATTEMPTS) {
+                this.logger.warn("Error while trying to refactor discussions of change request [{}] for the move "
+                    + "from [{}] to [{}] (isDeep: [{}]), the refactoring will be retried: [{}]",
+                    refactoring.getChangeRequestId(), refactoring.getSource(), refactoring.getTarget(),
+                    refactoring.isDeep(), ExceptionUtils.getRootCauseMessage(e));
+                this.addRefactoring(refactoring, attempts + 1);
+            } else {
+                this.logger.error("Error while trying to refactor discussions of change request [{}] for the move "
+                    + "from [{}] to [{}] (isDeep: [{}])", refactoring.getChangeRequestId(), refactoring.getSource(),
+                    refactoring.getTarget(), refactoring.isDeep(), e);
+            }
+        }
+    }
+}
@@ -26,10 +26,7 @@ import javax.inject.Named;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
-import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
-import org.xwiki.contrib.changerequest.discussions.ChangeRequestDiscussionException;
-import org.xwiki.contrib.changerequest.discussions.ChangeRequestDiscussionService;
 import org.xwiki.contrib.changerequest.events.FileChangeReferenceRenamedEvent;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.observation.event.AbstractLocalEventListener;
@@ -51,10 +48,7 @@ public class FileChangeReferenceRenamedListener extends AbstractLocalEventListen
         "org.xwiki.contrib.changerequest.discussions.internal.FileChangeReferenceRenamedListener";
 
     @Inject
-    private Provider<ChangeRequestDiscussionService> discussionServiceProvider;
-
-    @Inject
-    private Logger logger;
+    private Provider<DiscussionFileReferenceRefactoringManager> refactoringManagerProvider;
 
     /**
      * Default constructor.
@@ -68,15 +62,10 @@ public class FileChangeReferenceRenamedListener extends AbstractLocalEventListen
     public void processLocalEvent(Event event, Object source, Object data)
     {
         FileChangeReferenceRenamedEvent fileChangeEvent = (FileChangeReferenceRenamedEvent) event;
-        try {
-            discussionServiceProvider.get().refactorDiscussionFileReference(String.valueOf(source),
-                denormalizedReference(fileChangeEvent.getSource()), denormalizedReference(fileChangeEvent.getTarget()),
-                fileChangeEvent.isDeep());
-        } catch (ChangeRequestDiscussionException e) {
-            this.logger.error("Error while trying to refactor discussions of change request [{}] for the move from "
-                + "[{}] to [{}] (isDeep: [{}])", source, fileChangeEvent.getSource(), fileChangeEvent.getTarget(),
-                fileChangeEvent.isDeep(), e);
-        }
+        // The refactoring is performed in background to not slow down the move of the documents.
+        this.refactoringManagerProvider.get().addRefactoring(new DiscussionFileReferenceRefactoring(
+            String.valueOf(source), denormalizedReference(fileChangeEvent.getSource()),
+            denormalizedReference(fileChangeEvent.getTarget()), fileChangeEvent.isDeep()));
     }
 
     private DocumentReference denormalizedReference(DocumentReference documentReference)
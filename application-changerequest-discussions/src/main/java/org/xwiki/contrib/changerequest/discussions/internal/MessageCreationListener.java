@@ -34,9 +34,14 @@ import org.xwiki.contrib.changerequest.discussions.ChangeRequestDiscussionEvent;
 import org.xwiki.contrib.changerequest.discussions.ChangeRequestDiscussionException;
 import org.xwiki.contrib.changerequest.discussions.ChangeRequestDiscussionService;
 import org.xwiki.contrib.changerequest.discussions.references.AbstractChangeRequestDiscussionContextReference;
+import org.xwiki.contrib.changerequest.discussions.references.ChangeRequestLineDiffReference;
+import org.xwiki.contrib.discussions.DiscussionContextService;
+import org.xwiki.contrib.discussions.domain.Discussion;
+import org.xwiki.contrib.discussions.domain.DiscussionContext;
 import org.xwiki.contrib.discussions.domain.Message;
 import org.xwiki.contrib.discussions.events.ActionType;
 import org.xwiki.contrib.discussions.events.MessageEvent;
+import org.xwiki.diff.display.UnifiedDiffBlock;
 import org.xwiki.observation.AbstractEventListener;
 import org.xwiki.observation.ObservationManager;
 import org.xwiki.observation.event.Event;
@@ -44,6 +49,10 @@ import org.xwiki.observation.remote.RemoteObservationManagerContext;
 
 /**
  * Listener whose purpose is to check for message creation and to trigger {@link ChangeRequestDiscussionEvent}.
+ * <p>
+ * It's also in charge of migrating to the compact encoding the diff block stored before 1.24 in the context of line
+ * diff discussions (see {@link ChangeRequestDiscussionDiffUtils#encode(UnifiedDiffBlock)}) when a message is added to
+ * them, so that the diff blocks are never written when displaying a discussion.
  *
  * @version $Id$
  * @since 0.6
@@ -69,6 +78,12 @@ public class MessageCreationListener extends AbstractEventListener
     @Inject
     private RemoteObservationManagerContext remoteObservationManagerContext;
 
+    @Inject
+    private DiscussionContextService discussionContextService;
+
+    @Inject
+    private ChangeRequestDiscussionDiffUtils changeRequestDiscussionDiffUtils;
+
     /**
      * Default constructor.
      */
@@ -88,10 +103,35 @@ public class MessageCreationListener extends AbstractEventListener
                     this.changeRequestDiscussionServiceProvider.get().getReferenceFrom(message.getDiscussion());
                 this.observationManager
                     .notify(new ChangeRequestDiscussionEvent(), reference.getChangeRequestId(), message);
+                if (reference instanceof ChangeRequestLineDiffReference) {
+                    this.migrateDiffBlockMetadata(message.getDiscussion());
+                }
             } catch (ChangeRequestDiscussionException e) {
                 logger.warn("Error while computing reference for message [{}]: [{}]", message,
                     ExceptionUtils.getRootCauseMessage(e));
             }
         }
     }
+
+    private void migrateDiffBlockMetadata(Discussion discussion)
+    {
+        for (DiscussionContext discussionContext
+            : this.discussionContextService.findByDiscussionReference(discussion.getReference())) {
+            String encodedDiffBlock = discussionContext.getMetadata()
+                .get(ChangeRequestDiscussionService.DIFF_CONTEXT_METADATA_KEY);
+            if (encodedDiffBlock != null && this.changeRequestDiscussionDiffUtils.isLegacyEncoding(encodedDiffBlock)) {
+                try {
+                    UnifiedDiffBlock<String, Character> diffBlock =
+                        this.changeRequestDiscussionDiffUtils.decode(encodedDiffBlock);
+                    this.discussionContextService.saveMetadata(discussionContext, Collections.singletonMap(
+                        ChangeRequestDiscussionService.DIFF_CONTEXT_METADATA_KEY,
+                        this.changeRequestDiscussionDiffUtils.encode(diffBlock)));
+                } catch (ChangeRequestDiscussionException e) {
+                    this.logger.warn("Error while migrating the diff block metadata of discussion context [{}]: [{}]",
+                        discussionContext.getReference(), ExceptionUtils.getRootCauseMessage(e));
+                    this.logger.debug("Full stack trace of the migration error: ", e);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,82 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.discussions.internal.jobs;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.contrib.changerequest.discussions.internal.DiscussionFileReferenceRefactoring;
+import org.xwiki.contrib.changerequest.discussions.internal.DiscussionFileReferenceRefactoringManager;
+import org.xwiki.contrib.changerequest.jobs.AbstractDelayedQueueJob;
+import org.xwiki.job.JobGroupPath;
+
+/**
+ * Job processing the discussion refactorings queued in {@link DiscussionFileReferenceRefactoringManager}, so that all
+ * the renames of a deep move are handled at once.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component
+@Named(DiscussionFileReferenceRefactoringRequest.DISCUSSION_REFACTORING_JOB)
+public class DiscussionFileReferenceRefactoringJob
+    extends AbstractDelayedQueueJob<DiscussionFileReferenceRefactoringRequest>
+{
+    /**
+     * Group of the jobs refactoring discussions: those jobs are executed sequentially.
+     */
+    static final JobGroupPath GROUP_PATH = new JobGroupPath(List.of("changerequest", "discussions", "refactoring"));
+
+    @Inject
+    private DiscussionFileReferenceRefactoringManager refactoringManager;
+
+    @Override
+    protected void processQueue()
+    {
+        Map<DiscussionFileReferenceRefactoring, Integer> refactorings =
+            this.refactoringManager.consumePendingItems(getRequest());
+        this.progressManager.pushLevelProgress(refactorings.size(), this);
+        try {
+            for (Map.Entry<DiscussionFileReferenceRefactoring, Integer> entry : refactorings.entrySet()) {
+                this.progressManager.startStep(this);
+                this.refactoringManager.refactor(entry.getKey(), entry.getValue());
+                this.progressManager.endStep(this);
+            }
+        } finally {
+            this.progressManager.popLevelProgress(this);
+        }
+    }
+
+    @Override
+    public JobGroupPath getGroupPath()
+    {
+        return GROUP_PATH;
+    }
+
+    @Override
+    public String getType()
+    {
+        return DiscussionFileReferenceRefactoringRequest.DISCUSSION_REFACTORING_JOB;
+    }
+}
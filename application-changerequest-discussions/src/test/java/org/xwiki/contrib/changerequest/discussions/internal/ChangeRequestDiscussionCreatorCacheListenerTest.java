@@ -0,0 +1,71 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.discussions.internal;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.bridge.event.DocumentCreatedEvent;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ChangeRequestDiscussionCreatorCacheListener}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class ChangeRequestDiscussionCreatorCacheListenerTest
+{
+    @InjectMockComponents
+    private ChangeRequestDiscussionCreatorCacheListener listener;
+
+    @MockComponent
+    private Provider<ChangeRequestDiscussionCreatorCache> creatorCacheProvider;
+
+    @Test
+    void onEvent()
+    {
+        ChangeRequestDiscussionCreatorCache creatorCache = mock(ChangeRequestDiscussionCreatorCache.class);
+        when(this.creatorCacheProvider.get()).thenReturn(creatorCache);
+
+        DocumentReference deletedReference = new DocumentReference("xwiki", "ChangeRequest", "WebHome");
+        XWikiDocument deletedDocument = mock(XWikiDocument.class);
+        when(deletedDocument.getDocumentReference()).thenReturn(deletedReference);
+        this.listener.onEvent(new DocumentDeletedEvent(), deletedDocument, null);
+        verify(creatorCache).invalidate(deletedReference);
+
+        DocumentReference createdReference = new DocumentReference("xwiki", "MovedChangeRequest", "WebHome");
+        XWikiDocument createdDocument = mock(XWikiDocument.class);
+        when(createdDocument.getDocumentReference()).thenReturn(createdReference);
+        this.listener.onEvent(new DocumentCreatedEvent(), createdDocument, null);
+        verify(creatorCache).invalidate(createdReference);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.discussions.internal;
+
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.user.UserReference;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ChangeRequestDiscussionCreatorCache}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class ChangeRequestDiscussionCreatorCacheTest
+{
+    private static final DocumentReference CR_HOME_REFERENCE =
+        new DocumentReference("xwiki", "ChangeRequest", "WebHome");
+
+    @InjectMockComponents
+    private ChangeRequestDiscussionCreatorCache creatorCache;
+
+    @MockComponent
+    private CacheManager cacheManager;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    private Cache<UserReference> cache;
+
+    @BeforeComponent
+    void beforeComponent() throws CacheException
+    {
+        this.cache = mock(Cache.class);
+        when(this.cacheManager.createNewCache(any())).thenReturn((Cache) this.cache);
+    }
+
+    @Test
+    void getCreator()
+    {
+        when(this.entityReferenceSerializer.serialize(CR_HOME_REFERENCE)).thenReturn("xwiki:ChangeRequest.WebHome");
+        assertNull(this.creatorCache.getCreator(CR_HOME_REFERENCE));
+
+        UserReference creator = mock(UserReference.class);
+        when(this.cache.get("xwiki:ChangeRequest.WebHome")).thenReturn(creator);
+        assertSame(creator, this.creatorCache.getCreator(CR_HOME_REFERENCE));
+    }
+
+    @Test
+    void setCreator()
+    {
+        when(this.entityReferenceSerializer.serialize(CR_HOME_REFERENCE)).thenReturn("xwiki:ChangeRequest.WebHome");
+        UserReference creator = mock(UserReference.class);
+        this.creatorCache.setCreator(CR_HOME_REFERENCE, creator);
+        verify(this.cache).set("xwiki:ChangeRequest.WebHome", creator);
+    }
+
+    @Test
+    void invalidateIgnoresLocale()
+    {
+        when(this.entityReferenceSerializer.serialize(CR_HOME_REFERENCE)).thenReturn("xwiki:ChangeRequest.WebHome");
+        this.creatorCache.invalidate(new DocumentReference(CR_HOME_REFERENCE, Locale.FRENCH));
+        verify(this.cache).remove("xwiki:ChangeRequest.WebHome");
+    }
+}
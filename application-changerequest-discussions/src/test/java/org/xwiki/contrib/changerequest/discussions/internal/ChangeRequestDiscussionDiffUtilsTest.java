@@ -25,6 +25,7 @@ import java.util.List;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.junit.jupiter.api.Test;
+import org.xwiki.contrib.changerequest.discussions.ChangeRequestDiscussionException;
 import org.xwiki.diff.display.InlineDiffChunk;
 import org.xwiki.diff.display.UnifiedDiffBlock;
 import org.xwiki.diff.display.UnifiedDiffElement;
@@ -78,6 +79,15 @@ class ChangeRequestDiscussionDiffUtilsTest
             + "\"value\":\"Lorem ipsum dolor sit amet, consectetur adipiscing elit\"},"
             + "{\"added\":false,\"chunks\":null,\"deleted\":true,\"index\":19,\"type\":\"DELETED\",\"value\":\"\"}]";
 
+    private static final String ENCODED_EXAMPLE = "crdiff1\n"
+        + "C14\t-\tLorem ipsum dolor sit amet, consectetur\n"
+        + "C15\t-\t\n"
+        + "D16\tD3,U1,D3,U9,D3\t== Sub-paragraph ==\n"
+        + "A18\tU1,A20,U9,A1\tSome changes in this paragraph.\n"
+        + "C17\t-\t\n"
+        + "D18\t-\tLorem ipsum dolor sit amet, consectetur adipiscing elit\n"
+        + "D19\t-\t";
+
     private List<Character> stringToListChar(String string)
     {
         return Arrays.asList(ArrayUtils.toObject(string.toCharArray()));
@@ -154,4 +164,84 @@ class ChangeRequestDiscussionDiffUtilsTest
         String serializedJson = this.discussionDiffUtils.serialize(diffBlock);
         assertEquals(JSON_EXAMPLE, serializedJson);
     }
-}
\ No newline at end of file
+
+    @Test
+    void encode()
+    {
+        assertEquals(ENCODED_EXAMPLE, this.discussionDiffUtils.encode(getUnidifiedDiffBlock()));
+        assertEquals("crdiff1", this.discussionDiffUtils.encode(new UnifiedDiffBlock<>()));
+    }
+
+    @Test
+    void decode() throws Exception
+    {
+        UnifiedDiffBlock<String, Character> diffBlock = this.discussionDiffUtils.decode(ENCODED_EXAMPLE);
+        assertEquals(JSON_EXAMPLE, this.discussionDiffUtils.serialize(diffBlock));
+        assertTrue(this.discussionDiffUtils.decode("crdiff1").isEmpty());
+    }
+
+    @Test
+    void decodeLegacyEncoding() throws Exception
+    {
+        assertTrue(this.discussionDiffUtils.isLegacyEncoding(JSON_EXAMPLE));
+        assertFalse(this.discussionDiffUtils.isLegacyEncoding(ENCODED_EXAMPLE));
+
+        UnifiedDiffBlock<String, Character> diffBlock = this.discussionDiffUtils.decode(JSON_EXAMPLE);
+        assertEquals(JSON_EXAMPLE, this.discussionDiffUtils.serialize(diffBlock));
+        // The migrated encoding is the same as the one of the original block
+        assertEquals(ENCODED_EXAMPLE, this.discussionDiffUtils.encode(diffBlock));
+    }
+
+    @Test
+    void encodeAndDecodeSpecialCharacters() throws Exception
+    {
+        UnifiedDiffBlock<String, Character> block = new UnifiedDiffBlock<>();
+        UnifiedDiffElement<String, Character> element =
+            new UnifiedDiffElement<>(1, UnifiedDiffElement.Type.ADDED, "a\tb\\c\nd\r");
+        // Chunks which don't match the value
+        element.setChunks(List.of(new InlineDiffChunk<>(InlineDiffChunk.Type.ADDED, stringToListChar("x\ty"))));
+        block.add(element);
+        element = new UnifiedDiffElement<>(2, UnifiedDiffElement.Type.CONTEXT, "foo");
+        element.setChunks(new ArrayList<>());
+        block.add(element);
+
+        String encoded = this.discussionDiffUtils.encode(block);
+        assertEquals("crdiff1\nA1\tA3\ta\\tb\\\\c\\nd\\r\tx\\ty\nC2\t\tfoo", encoded);
+
+        UnifiedDiffBlock<String, Character> decoded = this.discussionDiffUtils.decode(encoded);
+        assertEquals(2, decoded.size());
+        assertEquals("a\tb\\c\nd\r", decoded.get(0).getValue());
+        assertEquals(1, decoded.get(0).getIndex());
+        assertEquals(UnifiedDiffElement.Type.ADDED, decoded.get(0).getType());
+        assertEquals(1, decoded.get(0).getChunks().size());
+        assertEquals(InlineDiffChunk.Type.ADDED, decoded.get(0).getChunks().get(0).getType());
+        assertEquals(stringToListChar("x\ty"), decoded.get(0).getChunks().get(0).getElements());
+        assertEquals("foo", decoded.get(1).getValue());
+        assertEquals(List.of(), decoded.get(1).getChunks());
+        assertEquals(this.discussionDiffUtils.serialize(block), this.discussionDiffUtils.serialize(decoded));
+    }
+
+    @Test
+    void decodeInvalidEncoding()
+    {
+        ChangeRequestDiscussionException exception = assertThrows(ChangeRequestDiscussionException.class,
+            () -> this.discussionDiffUtils.decode("foo"));
+        assertEquals("Unsupported encoding of diff block: [foo]", exception.getMessage());
+
+        exception = assertThrows(ChangeRequestDiscussionException.class,
+            () -> this.discussionDiffUtils.decode("crdiff1\nX1\t-\tfoo"));
+        assertEquals("Invalid encoding of diff element: [X1\t-\tfoo]", exception.getMessage());
+
+        exception = assertThrows(ChangeRequestDiscussionException.class,
+            () -> this.discussionDiffUtils.decode("crdiff1\nA1\tA5\tfoo"));
+        assertEquals("Invalid encoding of diff element: [A1\tA5\tfoo]", exception.getMessage());
+
+        exception = assertThrows(ChangeRequestDiscussionException.class,
+            () -> this.discussionDiffUtils.decode("crdiff1\nA1\tfoo"));
+        assertEquals("Invalid encoding of diff element: [A1\tfoo]", exception.getMessage());
+
+        exception = assertThrows(ChangeRequestDiscussionException.class,
+            () -> this.discussionDiffUtils.decode("[{\"index\":"));
+        assertEquals("Error when parsing json serialization of diff block", exception.getMessage());
+    }
+}
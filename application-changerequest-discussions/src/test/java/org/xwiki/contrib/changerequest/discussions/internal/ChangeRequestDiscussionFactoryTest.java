@@ -19,12 +19,14 @@
  */
 package org.xwiki.contrib.changerequest.discussions.internal;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import javax.inject.Named;
 import javax.inject.Provider;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.xwiki.contrib.changerequest.discussions.ChangeRequestDiscussionException;
@@ -41,13 +43,18 @@ import org.xwiki.contrib.discussions.DiscussionContextService;
 import org.xwiki.contrib.discussions.DiscussionException;
 import org.xwiki.contrib.discussions.DiscussionStoreConfigurationParameters;
 import org.xwiki.contrib.discussions.MessageService;
+import org.xwiki.contrib.discussions.domain.Discussion;
 import org.xwiki.contrib.discussions.domain.DiscussionContext;
+import org.xwiki.contrib.discussions.domain.Message;
+import org.xwiki.contrib.discussions.domain.references.ActorReference;
 import org.xwiki.contrib.discussions.domain.references.DiscussionContextEntityReference;
+import org.xwiki.contrib.discussions.domain.references.DiscussionReference;
 import org.xwiki.model.document.DocumentAuthors;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
 import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.rendering.syntax.Syntax;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
@@ -60,7 +67,16 @@ import com.xpn.xwiki.doc.XWikiDocument;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -94,6 +110,9 @@ class ChangeRequestDiscussionFactoryTest
     @MockComponent
     private Provider<XWikiContext> contextProvider;
 
+    @MockComponent
+    private ChangeRequestDiscussionCreatorCache creatorCache;
+
     private XWiki wiki;
     private XWikiContext context;
 
@@ -133,6 +152,58 @@ class ChangeRequestDiscussionFactoryTest
         parameters.put("redirection",  serializedCRDoc);
         parameters.put(DiscussionStoreConfigurationParameters.CREATOR_PARAMETER_KEY, creator);
         assertEquals(parameters, this.factory.createDiscussionStoreConfigurationParametersFor(reference));
+        verify(this.creatorCache).setCreator(new DocumentReference("WebHome", crSpaceReference), creator);
+    }
+
+    @Test
+    void createDiscussionStoreConfigurationParametersForWithCachedCreator()
+    {
+        String changeRequestId = "someId";
+        ChangeRequestCommentReference reference = mock(ChangeRequestCommentReference.class);
+        when(reference.getChangeRequestId()).thenReturn(changeRequestId);
+
+        DocumentReference crDocRef = new DocumentReference("xwiki", List.of("Space","CR","Data"), "crId");
+        when(this.changeRequestIdDocumentReferenceResolver.resolve(changeRequestId)).thenReturn(crDocRef);
+        String serializedCRDoc = "CR.Doc";
+        when(this.entityReferenceSerializer.serialize(crDocRef)).thenReturn(serializedCRDoc);
+
+        SpaceReference crSpaceReference =
+            new SpaceReference("crId", new SpaceReference("xwiki", "Space", "CR", "Data"));
+        UserReference creator = mock(UserReference.class);
+        when(this.creatorCache.getCreator(new DocumentReference("WebHome", crSpaceReference))).thenReturn(creator);
+
+        DiscussionStoreConfigurationParameters parameters = new DiscussionStoreConfigurationParameters();
+        parameters.put(DefaultChangeRequestDiscussionStoreConfiguration.CHANGE_REQUEST_ID_PARAMETER_KEY,
+            changeRequestId);
+        parameters.put("redirection",  serializedCRDoc);
+        parameters.put(DiscussionStoreConfigurationParameters.CREATOR_PARAMETER_KEY, creator);
+        assertEquals(parameters, this.factory.createDiscussionStoreConfigurationParametersFor(reference));
+        verifyNoInteractions(this.wiki);
+    }
+
+    @Test
+    void createDiscussionStoreConfigurationParametersForWithNewDocument() throws XWikiException
+    {
+        String changeRequestId = "someId";
+        ChangeRequestCommentReference reference = mock(ChangeRequestCommentReference.class);
+        when(reference.getChangeRequestId()).thenReturn(changeRequestId);
+
+        DocumentReference crDocRef = new DocumentReference("xwiki", List.of("Space","CR","Data"), "crId");
+        when(this.changeRequestIdDocumentReferenceResolver.resolve(changeRequestId)).thenReturn(crDocRef);
+
+        SpaceReference crSpaceReference =
+            new SpaceReference("crId", new SpaceReference("xwiki", "Space", "CR", "Data"));
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(this.wiki.getDocument(new DocumentReference("WebHome", crSpaceReference), context)).thenReturn(document);
+        when(document.isNew()).thenReturn(true);
+        DocumentAuthors documentAuthors = mock(DocumentAuthors.class);
+        UserReference creator = mock(UserReference.class);
+        when(document.getAuthors()).thenReturn(documentAuthors);
+        when(documentAuthors.getCreator()).thenReturn(creator);
+
+        assertSame(creator, this.factory.createDiscussionStoreConfigurationParametersFor(reference)
+            .get(DiscussionStoreConfigurationParameters.CREATOR_PARAMETER_KEY));
+        verify(this.creatorCache, never()).setCreator(any(), any());
     }
 
     @Test
@@ -438,4 +509,58 @@ class ChangeRequestDiscussionFactoryTest
 
         assertSame(expectedContext, this.factory.getOrCreateContextFor(changeRequestReference));
     }
+
+    @Test
+    void copyMessagesToSeveralDiscussions() throws Exception
+    {
+        Discussion originalDiscussion = mock(Discussion.class, "original");
+        DiscussionReference originalReference = new DiscussionReference("changerequest", "original");
+        when(originalDiscussion.getReference()).thenReturn(originalReference);
+
+        Discussion newDiscussion1 = mock(Discussion.class, "new1");
+        DiscussionReference newDiscussionReference1 = new DiscussionReference("changerequest", "new1");
+        when(newDiscussion1.getReference()).thenReturn(newDiscussionReference1);
+        Discussion newDiscussion2 = mock(Discussion.class, "new2");
+        DiscussionReference newDiscussionReference2 = new DiscussionReference("changerequest", "new2");
+        when(newDiscussion2.getReference()).thenReturn(newDiscussionReference2);
+
+        ChangeRequestCommentReference reference1 = new ChangeRequestCommentReference("cr1");
+        ChangeRequestCommentReference reference2 = new ChangeRequestCommentReference("cr2");
+        ChangeRequestDiscussionFactory spyFactory = spy(this.factory);
+        DiscussionStoreConfigurationParameters parameters1 = new DiscussionStoreConfigurationParameters();
+        parameters1.put("id", "cr1");
+        DiscussionStoreConfigurationParameters parameters2 = new DiscussionStoreConfigurationParameters();
+        parameters2.put("id", "cr2");
+        doReturn(parameters1).when(spyFactory).createDiscussionStoreConfigurationParametersFor(reference1);
+        doReturn(parameters2).when(spyFactory).createDiscussionStoreConfigurationParametersFor(reference2);
+
+        List<Message> firstPage = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            firstPage.add(mock(Message.class));
+        }
+        Message lastMessage = mock(Message.class, "last");
+        when(lastMessage.getContent()).thenReturn("content");
+        when(lastMessage.getSyntax()).thenReturn(Syntax.XWIKI_2_1);
+        ActorReference actorReference = mock(ActorReference.class);
+        when(lastMessage.getActorReference()).thenReturn(actorReference);
+
+        when(this.messageService.countByDiscussion(originalDiscussion)).thenReturn(101L);
+        when(this.messageService.getByDiscussion(originalReference, 0, 100)).thenReturn(firstPage);
+        when(this.messageService.getByDiscussion(originalReference, 100, 100)).thenReturn(List.of(lastMessage));
+
+        spyFactory.copyMessages(originalDiscussion,
+            List.of(Pair.of(newDiscussion1, reference1), Pair.of(newDiscussion2, reference2)));
+
+        verify(this.messageService).getByDiscussion(originalReference, 0, 100);
+        verify(this.messageService).getByDiscussion(originalReference, 100, 100);
+        verify(this.messageService, times(101)).create(any(), any(), eq(newDiscussionReference1), any(),
+            same(parameters1));
+        verify(this.messageService, times(101)).create(any(), any(), eq(newDiscussionReference2), any(),
+            same(parameters2));
+        verify(this.messageService).create("content", Syntax.XWIKI_2_1, newDiscussionReference1, actorReference,
+            parameters1);
+        // The store parameters are computed only once per target
+        verify(spyFactory).createDiscussionStoreConfigurationParametersFor(reference1);
+        verify(spyFactory).createDiscussionStoreConfigurationParametersFor(reference2);
+    }
 }
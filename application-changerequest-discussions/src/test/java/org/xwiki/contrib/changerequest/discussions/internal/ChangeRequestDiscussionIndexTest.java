@@ -0,0 +1,110 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.discussions.internal;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.contrib.changerequest.discussions.references.AbstractChangeRequestDiscussionContextReference;
+import org.xwiki.contrib.changerequest.discussions.references.ChangeRequestLineDiffReference;
+import org.xwiki.contrib.changerequest.discussions.references.ChangeRequestReviewsReference;
+import org.xwiki.contrib.changerequest.discussions.references.difflocation.FileDiffLocation;
+import org.xwiki.contrib.changerequest.discussions.references.difflocation.LineDiffLocation;
+import org.xwiki.contrib.discussions.domain.references.DiscussionReference;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ChangeRequestDiscussionIndex}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class ChangeRequestDiscussionIndexTest
+{
+    private static final DiscussionReference DISCUSSION_REFERENCE =
+        new DiscussionReference("changerequest", "discussion1");
+
+    @InjectMockComponents
+    private ChangeRequestDiscussionIndex discussionIndex;
+
+    @MockComponent
+    private CacheManager cacheManager;
+
+    private Cache<AbstractChangeRequestDiscussionContextReference> cache;
+
+    @BeforeComponent
+    void beforeComponent() throws CacheException
+    {
+        this.cache = mock(Cache.class);
+        when(this.cacheManager.createNewCache(any())).thenReturn((Cache) this.cache);
+    }
+
+    @Test
+    void getReference()
+    {
+        assertNull(this.discussionIndex.getReference(DISCUSSION_REFERENCE));
+
+        AbstractChangeRequestDiscussionContextReference reference =
+            mock(AbstractChangeRequestDiscussionContextReference.class);
+        when(this.cache.get("changerequest:discussion1")).thenReturn(reference);
+        assertSame(reference, this.discussionIndex.getReference(DISCUSSION_REFERENCE));
+    }
+
+    @Test
+    void index()
+    {
+        ChangeRequestLineDiffReference lineDiffReference = new ChangeRequestLineDiffReference("CR1",
+            new LineDiffLocation(new FileDiffLocation("diff1", "xwiki:Space.Page"),
+                LineDiffLocation.DiffDocumentPart.METADATA, "_", "content", 12, LineDiffLocation.LineChange.ADDED));
+        this.discussionIndex.index(DISCUSSION_REFERENCE, lineDiffReference);
+        verify(this.cache).set("changerequest:discussion1", lineDiffReference);
+    }
+
+    @Test
+    void indexIgnoresReferencesThatMightChange()
+    {
+        this.discussionIndex.index(DISCUSSION_REFERENCE, new ChangeRequestReviewsReference("CR1"));
+        verify(this.cache, never()).set(anyString(), any());
+    }
+
+    @Test
+    void invalidate()
+    {
+        this.discussionIndex.invalidate(DISCUSSION_REFERENCE);
+        verify(this.cache).remove("changerequest:discussion1");
+
+        this.discussionIndex.invalidateAll();
+        verify(this.cache).removeAll();
+    }
+}
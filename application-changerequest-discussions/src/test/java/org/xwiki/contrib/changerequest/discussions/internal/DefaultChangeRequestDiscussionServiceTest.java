@@ -27,6 +27,7 @@ import java.util.Set;
 
 import javax.inject.Named;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.xwiki.contrib.changerequest.ChangeRequest;
@@ -63,10 +64,9 @@ import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -105,6 +105,9 @@ class DefaultChangeRequestDiscussionServiceTest
     @MockComponent
     private ChangeRequestDiscussionDiffUtils changeRequestDiscussionDiffUtils;
 
+    @MockComponent
+    private ChangeRequestDiscussionIndex discussionIndex;
+
     @MockComponent
     @Named("compactwiki")
     private EntityReferenceSerializer<String> stringEntityReferenceSerializer;
@@ -167,6 +170,27 @@ class DefaultChangeRequestDiscussionServiceTest
         assertEquals(fileDiffReference, this.changeRequestDiscussionService.getReferenceFrom(discussion));
     }
 
+    @Test
+    void getReferenceFromIndex() throws Exception
+    {
+        Discussion discussion = mock(Discussion.class);
+        DiscussionReference discussionReference = new DiscussionReference("changerequest", "discussion1");
+        when(discussion.getReference()).thenReturn(discussionReference);
+
+        DiscussionContext crContext = mock(DiscussionContext.class);
+        ChangeRequestLineDiffReference lineDiffReference = mock(ChangeRequestLineDiffReference.class);
+        when(this.discussionContextService.findByDiscussionReference(discussionReference))
+            .thenReturn(List.of(crContext));
+        when(this.discussionReferenceUtils.computeReferenceFromContext(crContext, null)).thenReturn(lineDiffReference);
+
+        assertSame(lineDiffReference, this.changeRequestDiscussionService.getReferenceFrom(discussion));
+        verify(this.discussionIndex).index(discussionReference, lineDiffReference);
+
+        when(this.discussionIndex.getReference(discussionReference)).thenReturn(lineDiffReference);
+        assertSame(lineDiffReference, this.changeRequestDiscussionService.getReferenceFrom(discussion));
+        verify(this.discussionContextService).findByDiscussionReference(discussionReference);
+    }
+
     @Test
     void getOrCreateDiscussionForChangeRequestReference() throws Exception
     {
@@ -358,6 +382,7 @@ class DefaultChangeRequestDiscussionServiceTest
 
         verify(this.discussionContextService).link(crContext, expectedDiscussion);
         verify(this.discussionService, never()).findByDiscussionContexts(any());
+        verify(this.discussionIndex).index(expectedDiscussion.getReference(), reference);
     }
 
     @Test
@@ -546,45 +571,13 @@ class DefaultChangeRequestDiscussionServiceTest
             .thenReturn(contextForReference);
 
         UnifiedDiffBlock<String, Character> block = mock(UnifiedDiffBlock.class);
-        when(this.changeRequestDiscussionDiffUtils.serialize(block)).thenReturn("{\"serialized\":true}");
+        when(this.changeRequestDiscussionDiffUtils.encode(block)).thenReturn("crdiff1\nC42\t-\tfoo");
 
         assertTrue(this.changeRequestDiscussionService.attachDiffBlockMetadata(discussionReference, block));
 
         verify(this.discussionContextService).saveMetadata(contextForReference,
             Collections.singletonMap(ChangeRequestDiscussionService.DIFF_CONTEXT_METADATA_KEY,
-                "{\"serialized\":true}"));
-    }
-
-    @Test
-    void attachDiffBlockMetadataSerializationErrorWrapsException() throws Exception
-    {
-        DiscussionReference discussionReference = new DiscussionReference("changerequest", "discussion1");
-        Discussion discussion = mock(Discussion.class);
-        when(discussion.getReference()).thenReturn(discussionReference);
-        when(this.discussionService.get(discussionReference)).thenReturn(Optional.of(discussion));
-
-        DiscussionContext lineDiffDiscussionContext = mock(DiscussionContext.class);
-        when(this.discussionContextService.findByDiscussionReference(discussionReference))
-            .thenReturn(List.of(lineDiffDiscussionContext));
-
-        FileDiffLocation fileDiffLocation = new FileDiffLocation("diff1", "xwiki:Space.Doc");
-        LineDiffLocation lineDiffLocation = new LineDiffLocation(fileDiffLocation,
-            LineDiffLocation.DiffDocumentPart.METADATA, "xwiki:Space.Doc", "content", 42,
-            LineDiffLocation.LineChange.ADDED);
-        ChangeRequestLineDiffReference lineDiffReference = new ChangeRequestLineDiffReference("CR1",
-            lineDiffLocation);
-        when(this.discussionReferenceUtils.computeReferenceFromContext(lineDiffDiscussionContext, null))
-            .thenReturn(lineDiffReference);
-        when(this.changeRequestDiscussionFactory.getOrCreateContextFor(lineDiffReference))
-            .thenReturn(mock(DiscussionContext.class));
-
-        UnifiedDiffBlock<String, Character> block = mock(UnifiedDiffBlock.class);
-        JsonProcessingException jsonException = mock(JsonProcessingException.class);
-        when(this.changeRequestDiscussionDiffUtils.serialize(block)).thenThrow(jsonException);
-
-        ChangeRequestDiscussionException exception = assertThrows(ChangeRequestDiscussionException.class,
-            () -> this.changeRequestDiscussionService.attachDiffBlockMetadata(discussionReference, block));
-        assertEquals(jsonException, exception.getCause());
+                "crdiff1\nC42\t-\tfoo"));
     }
 
     @Test
@@ -648,7 +641,7 @@ class DefaultChangeRequestDiscussionServiceTest
             new DiscussionContextEntityReference("changerequest-line_diff", "CR1__CRREF__nomethingrelevant");
         DiscussionContext lineDiffContext = new DiscussionContext(contextRef, "name", "desc", entityReference);
         lineDiffContext.getMetadata().put(ChangeRequestDiscussionService.DIFF_CONTEXT_METADATA_KEY,
-            "{\"serialized\":true}");
+            "crdiff1\nC42\t-\tfoo");
 
         when(this.discussionContextService.findByDiscussionReference(discussionReference))
             .thenReturn(List.of(lineDiffContext));
@@ -656,13 +649,52 @@ class DefaultChangeRequestDiscussionServiceTest
             .thenReturn(lineDiffReference);
 
         UnifiedDiffBlock<String, Character> block = mock(UnifiedDiffBlock.class);
-        when(this.changeRequestDiscussionDiffUtils.deserialize("{\"serialized\":true}")).thenReturn(block);
+        when(this.changeRequestDiscussionDiffUtils.decode("crdiff1\nC42\t-\tfoo")).thenReturn(block);
 
         Optional<ChangeRequestDiscussionDiffBlock> result =
             this.changeRequestDiscussionService.getDiffBlockMetadata(discussion);
         assertTrue(result.isPresent());
         assertEquals(block, result.get().getDiffBlock());
         assertEquals(lineDiffReference, result.get().getReference());
+        verify(this.discussionContextService, never()).saveMetadata(any(), any());
+    }
+
+    @Test
+    void getDiffBlockMetadataLegacyEncoding() throws Exception
+    {
+        Discussion discussion = mock(Discussion.class);
+        DiscussionReference discussionReference = new DiscussionReference("changerequest", "discussion1");
+        when(discussion.getReference()).thenReturn(discussionReference);
+
+        FileDiffLocation fileDiffLocation = new FileDiffLocation("diff1", "xwiki:Space.Doc");
+        LineDiffLocation lineDiffLocation = new LineDiffLocation(fileDiffLocation,
+            LineDiffLocation.DiffDocumentPart.METADATA, "xwiki:Space.Doc", "content", 42,
+            LineDiffLocation.LineChange.ADDED);
+        ChangeRequestLineDiffReference lineDiffReference = new ChangeRequestLineDiffReference("CR1",
+            lineDiffLocation);
+
+        DiscussionContextReference contextRef = new DiscussionContextReference("changerequest", "ctx1");
+        DiscussionContextEntityReference entityReference =
+            new DiscussionContextEntityReference("changerequest-line_diff", "CR1__CRREF__nomethingrelevant");
+        DiscussionContext lineDiffContext = new DiscussionContext(contextRef, "name", "desc", entityReference);
+        String legacySerialization = "[{\"serialized\":true}]";
+        lineDiffContext.getMetadata().put(ChangeRequestDiscussionService.DIFF_CONTEXT_METADATA_KEY,
+            legacySerialization);
+
+        when(this.discussionContextService.findByDiscussionReference(discussionReference))
+            .thenReturn(List.of(lineDiffContext));
+        when(this.discussionReferenceUtils.computeReferenceFromContext(lineDiffContext, null))
+            .thenReturn(lineDiffReference);
+
+        UnifiedDiffBlock<String, Character> block = mock(UnifiedDiffBlock.class);
+        when(this.changeRequestDiscussionDiffUtils.decode(legacySerialization)).thenReturn(block);
+
+        Optional<ChangeRequestDiscussionDiffBlock> result =
+            this.changeRequestDiscussionService.getDiffBlockMetadata(discussion);
+        assertTrue(result.isPresent());
+        assertEquals(block, result.get().getDiffBlock());
+        // the legacy encoding is never migrated when reading it
+        verify(this.discussionContextService, never()).saveMetadata(any(), any());
     }
 
     @Test
@@ -691,12 +723,12 @@ class DefaultChangeRequestDiscussionServiceTest
         when(this.discussionReferenceUtils.computeReferenceFromContext(lineDiffContext, null))
             .thenReturn(lineDiffReference);
 
-        JsonProcessingException jsonException = mock(JsonProcessingException.class);
-        when(this.changeRequestDiscussionDiffUtils.deserialize("{\"serialized\":true}")).thenThrow(jsonException);
+        ChangeRequestDiscussionException decodingException = new ChangeRequestDiscussionException("Decoding error");
+        when(this.changeRequestDiscussionDiffUtils.decode("{\"serialized\":true}")).thenThrow(decodingException);
 
         ChangeRequestException exception = assertThrows(ChangeRequestException.class,
             () -> this.changeRequestDiscussionService.getDiffBlockMetadata(discussion));
-        assertEquals(jsonException, exception.getCause());
+        assertSame(decodingException, exception);
     }
 
     @Test
@@ -745,6 +777,7 @@ class DefaultChangeRequestDiscussionServiceTest
         this.changeRequestDiscussionService.refactorDiscussionFileReference(changeRequestId, source, target, false);
 
         verify(this.discussionContextService).update(fileDiffContext, "name1", "desc1", newEntityReference);
+        verify(this.discussionIndex).invalidate(discussionRef);
     }
 
     @Test
@@ -988,10 +1021,10 @@ class DefaultChangeRequestDiscussionServiceTest
 
         this.changeRequestDiscussionService.moveDiscussions(originalChangeRequest, splittedList);
 
-        verify(this.changeRequestDiscussionFactory).copyMessages(eq(globalDiscussion), any(Discussion.class),
-            eq(newCommentReference1));
-        verify(this.changeRequestDiscussionFactory).copyMessages(eq(globalDiscussion), any(Discussion.class),
-            eq(newCommentReference2));
+        // The messages are copied at once to all the splitted change requests
+        List<Pair<Discussion, AbstractChangeRequestDiscussionContextReference>> expectedTargets =
+            List.of(Pair.of(newDiscussion, newCommentReference1), Pair.of(newDiscussion, newCommentReference2));
+        verify(this.changeRequestDiscussionFactory).copyMessages(globalDiscussion, expectedTargets);
     }
 
     @Test
@@ -1165,4 +1198,66 @@ class DefaultChangeRequestDiscussionServiceTest
         assertEquals("Cannot find change request associated with file [xwiki:Space.DocNotFound] "
             + "the discussion might be lost", logCapture.getMessage(0));
     }
+
+    @Test
+    void moveDiscussionsReusesContextsOfSplittedChangeRequest() throws Exception
+    {
+        ChangeRequest originalChangeRequest = mock(ChangeRequest.class);
+        when(originalChangeRequest.getId()).thenReturn("CR1");
+
+        ChangeRequest splitted = mock(ChangeRequest.class);
+        when(splitted.getId()).thenReturn("CR1-1");
+        DocumentReference doc1 = new DocumentReference("xwiki", "Space", "Doc1");
+        DocumentReference doc2 = new DocumentReference("xwiki", "Space", "Doc2");
+        when(splitted.getModifiedDocuments()).thenReturn(Set.of(doc1, doc2));
+        when(this.stringEntityReferenceSerializer.serialize(doc1)).thenReturn("xwiki:Space.Doc1");
+        when(this.stringEntityReferenceSerializer.serialize(doc2)).thenReturn("xwiki:Space.Doc2");
+
+        when(this.changeRequestDiscussionFactory.getOrCreateContextFor(any())).thenReturn(mock(
+            DiscussionContext.class));
+
+        ChangeRequestReference crReference = new ChangeRequestReference("CR1");
+        when(this.changeRequestDiscussionFactory.isContextExistingFor(crReference)).thenReturn(true);
+        DiscussionContext crContext = mock(DiscussionContext.class);
+        DiscussionContextReference crContextRef = new DiscussionContextReference("changerequest", "crContextRef");
+        when(crContext.getReference()).thenReturn(crContextRef);
+        when(this.changeRequestDiscussionFactory.getOrCreateContextFor(crReference)).thenReturn(crContext);
+
+        Discussion discussion1 = mock(Discussion.class, "discussion1");
+        DiscussionReference discussionRef1 = new DiscussionReference("changerequest", "discussion1");
+        when(discussion1.getReference()).thenReturn(discussionRef1);
+        Discussion discussion2 = mock(Discussion.class, "discussion2");
+        DiscussionReference discussionRef2 = new DiscussionReference("changerequest", "discussion2");
+        when(discussion2.getReference()).thenReturn(discussionRef2);
+        when(this.discussionService.findByDiscussionContexts(Collections.singletonList(crContextRef)))
+            .thenReturn(List.of(discussion1, discussion2));
+
+        FileDiffLocation fileDiffLocation1 = new FileDiffLocation("diff1", "xwiki:Space.Doc1");
+        FileDiffLocation fileDiffLocation2 = new FileDiffLocation("diff2", "xwiki:Space.Doc2");
+        DiscussionContext context1 = mock(DiscussionContext.class, "context1");
+        DiscussionContext context2 = mock(DiscussionContext.class, "context2");
+        when(this.discussionContextService.findByDiscussionReference(discussionRef1)).thenReturn(List.of(context1));
+        when(this.discussionContextService.findByDiscussionReference(discussionRef2)).thenReturn(List.of(context2));
+        when(this.discussionReferenceUtils.computeReferenceFromContext(context1, null))
+            .thenReturn(new ChangeRequestFileDiffReference("CR1", fileDiffLocation1));
+        when(this.discussionReferenceUtils.computeReferenceFromContext(context2, null))
+            .thenReturn(new ChangeRequestFileDiffReference("CR1", fileDiffLocation2));
+
+        when(this.discussionReferenceUtils.getTitleTranslation(any(), any())).thenReturn("title");
+        when(this.discussionReferenceUtils.getDescriptionTranslation(any(), any())).thenReturn("description");
+        when(this.changeRequestDiscussionFactory.createDiscussionStoreConfigurationParametersFor(any()))
+            .thenReturn(new DiscussionStoreConfigurationParameters());
+        Discussion newDiscussion = mock(Discussion.class, "newDiscussion");
+        when(this.discussionService.getOrCreate(eq(ChangeRequestDiscussionService.APPLICATION_HINT), any(), any(),
+            any(), any())).thenReturn(newDiscussion);
+
+        this.changeRequestDiscussionService.moveDiscussions(originalChangeRequest, List.of(splitted));
+
+        ChangeRequestFileDiffReference newReference1 = new ChangeRequestFileDiffReference("CR1-1", fileDiffLocation1);
+        ChangeRequestFileDiffReference newReference2 = new ChangeRequestFileDiffReference("CR1-1", fileDiffLocation2);
+        verify(this.changeRequestDiscussionFactory).copyMessages(discussion1, newDiscussion, newReference1);
+        verify(this.changeRequestDiscussionFactory).copyMessages(discussion2, newDiscussion, newReference2);
+        // The context of the splitted change request is only retrieved once for both discussions
+        verify(this.changeRequestDiscussionFactory).getOrCreateContextFor(new ChangeRequestReference("CR1-1"));
+    }
 }
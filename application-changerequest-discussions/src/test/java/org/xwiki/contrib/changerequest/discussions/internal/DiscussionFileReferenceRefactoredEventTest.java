@@ -0,0 +1,61 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.discussions.internal;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.observation.remote.LocalEventData;
+import org.xwiki.observation.remote.RemoteEventData;
+import org.xwiki.observation.remote.converter.LocalEventConverter;
+import org.xwiki.observation.remote.internal.converter.SerializableEventConverter;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link DiscussionFileReferenceRefactoredEvent}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class DiscussionFileReferenceRefactoredEventTest
+{
+    @InjectMockComponents(role = LocalEventConverter.class)
+    private SerializableEventConverter serializableEventConverter;
+
+    @Test
+    void toRemote()
+    {
+        DiscussionFileReferenceRefactoredEvent event = new DiscussionFileReferenceRefactoredEvent();
+        LocalEventData localEvent = new LocalEventData();
+        localEvent.setEvent(event);
+        localEvent.setSource("CR1");
+
+        RemoteEventData remoteEvent = new RemoteEventData();
+        assertTrue(this.serializableEventConverter.toRemote(localEvent, remoteEvent));
+        assertSame(event, remoteEvent.getEvent());
+        assertEquals("CR1", remoteEvent.getSource());
+        assertNull(remoteEvent.getData());
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.discussions.internal;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.observation.remote.RemoteObservationManagerContext;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link DiscussionFileReferenceRefactoredListener}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class DiscussionFileReferenceRefactoredListenerTest
+{
+    @InjectMockComponents
+    private DiscussionFileReferenceRefactoredListener listener;
+
+    @MockComponent
+    private Provider<ChangeRequestDiscussionIndex> discussionIndexProvider;
+
+    @MockComponent
+    private RemoteObservationManagerContext remoteObservationManagerContext;
+
+    @Test
+    void onEvent()
+    {
+        this.listener.onEvent(new DiscussionFileReferenceRefactoredEvent(), "CR1", null);
+        verifyNoInteractions(this.discussionIndexProvider);
+
+        ChangeRequestDiscussionIndex discussionIndex = mock(ChangeRequestDiscussionIndex.class);
+        when(this.discussionIndexProvider.get()).thenReturn(discussionIndex);
+        when(this.remoteObservationManagerContext.isRemoteState()).thenReturn(true);
+        this.listener.onEvent(new DiscussionFileReferenceRefactoredEvent(), "CR1", null);
+        verify(discussionIndex).invalidateAll();
+    }
+}
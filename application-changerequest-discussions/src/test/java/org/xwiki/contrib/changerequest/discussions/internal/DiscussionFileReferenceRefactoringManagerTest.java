@@ -0,0 +1,193 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.discussions.internal;
+
+import java.util.Map;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.xwiki.contrib.changerequest.discussions.ChangeRequestDiscussionException;
+import org.xwiki.contrib.changerequest.discussions.ChangeRequestDiscussionService;
+import org.xwiki.contrib.changerequest.discussions.internal.jobs.DiscussionFileReferenceRefactoringRequest;
+import org.xwiki.job.JobExecutor;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWikiContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link DiscussionFileReferenceRefactoringManager}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class DiscussionFileReferenceRefactoringManagerTest
+{
+    private static final DocumentReference SOURCE = new DocumentReference("xwiki", "Space", "Source");
+
+    private static final DocumentReference TARGET = new DocumentReference("xwiki", "Space", "Target");
+
+    @InjectMockComponents
+    private DiscussionFileReferenceRefactoringManager refactoringManager;
+
+    @MockComponent
+    private Provider<ChangeRequestDiscussionService> discussionServiceProvider;
+
+    @MockComponent
+    private JobExecutor jobExecutor;
+
+    @MockComponent
+    private ObservationManager observationManager;
+
+    @MockComponent
+    private Provider<XWikiContext> contextProvider;
+
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    private ChangeRequestDiscussionService discussionService;
+
+    private XWikiContext context;
+
+    private DiscussionFileReferenceRefactoringRequest request;
+
+    @BeforeEach
+    void setup()
+    {
+        this.discussionService = mock(ChangeRequestDiscussionService.class);
+        when(this.discussionServiceProvider.get()).thenReturn(this.discussionService);
+        this.context = mock(XWikiContext.class);
+        when(this.contextProvider.get()).thenReturn(this.context);
+        when(this.context.getWikiId()).thenReturn("xwiki");
+        DocumentReference currentUser = new DocumentReference("xwiki", "XWiki", "CurrentUser");
+        when(this.context.getUserReference()).thenReturn(currentUser);
+
+        this.request = new DiscussionFileReferenceRefactoringRequest();
+        this.request.setWikiId("xwiki");
+        this.request.setUserReference(currentUser);
+    }
+
+    @Test
+    void addRefactoringAndConsume() throws Exception
+    {
+        DiscussionFileReferenceRefactoring refactoring1 =
+            new DiscussionFileReferenceRefactoring("CR1", SOURCE, TARGET, false);
+        DiscussionFileReferenceRefactoring refactoring2 =
+            new DiscussionFileReferenceRefactoring("CR2", SOURCE, TARGET, true);
+
+        when(this.jobExecutor.execute(eq(DiscussionFileReferenceRefactoringRequest.DISCUSSION_REFACTORING_JOB),
+            any())).then(invocationOnMock -> {
+                DiscussionFileReferenceRefactoringRequest jobRequest = invocationOnMock.getArgument(1);
+                assertEquals(DiscussionFileReferenceRefactoringManager.REFACTORING_DELAY, jobRequest.getDelay());
+                assertEquals(this.request.getWikiId(), jobRequest.getWikiId());
+                assertEquals(this.request.getUserReference(), jobRequest.getUserReference());
+                return null;
+            });
+
+        this.refactoringManager.addRefactoring(refactoring1);
+        this.refactoringManager.addRefactoring(refactoring2);
+        this.refactoringManager.addRefactoring(new DiscussionFileReferenceRefactoring("CR1", SOURCE, TARGET, false));
+        verify(this.jobExecutor).execute(eq(DiscussionFileReferenceRefactoringRequest.DISCUSSION_REFACTORING_JOB),
+            any());
+
+        assertEquals(Map.of(refactoring1, 0, refactoring2, 0),
+            this.refactoringManager.consumePendingItems(this.request));
+        assertEquals(Map.of(), this.refactoringManager.consumePendingItems(this.request));
+
+        this.refactoringManager.addRefactoring(refactoring1);
+        verify(this.jobExecutor, times(2))
+            .execute(eq(DiscussionFileReferenceRefactoringRequest.DISCUSSION_REFACTORING_JOB), any());
+    }
+
+    @Test
+    void addRefactoringInSeveralWikis() throws Exception
+    {
+        DiscussionFileReferenceRefactoring refactoring1 =
+            new DiscussionFileReferenceRefactoring("CR1", SOURCE, TARGET, false);
+        DiscussionFileReferenceRefactoring refactoring2 =
+            new DiscussionFileReferenceRefactoring("CR2", SOURCE, TARGET, false);
+
+        this.refactoringManager.addRefactoring(refactoring1);
+        when(this.context.getWikiId()).thenReturn("subwiki");
+        this.refactoringManager.addRefactoring(refactoring2);
+
+        // one job is started for each wiki
+        verify(this.jobExecutor, times(2))
+            .execute(eq(DiscussionFileReferenceRefactoringRequest.DISCUSSION_REFACTORING_JOB), any());
+        assertEquals(Map.of(refactoring1, 0), this.refactoringManager.consumePendingItems(this.request));
+        this.request.setWikiId("subwiki");
+        assertEquals(Map.of(refactoring2, 0), this.refactoringManager.consumePendingItems(this.request));
+    }
+
+    @Test
+    void refactor() throws Exception
+    {
+        this.refactoringManager.refactor(new DiscussionFileReferenceRefactoring("CR1", SOURCE, TARGET, true), 0);
+
+        verify(this.discussionService).refactorDiscussionFileReference("CR1", SOURCE, TARGET, true);
+        verify(this.observationManager).notify(any(DiscussionFileReferenceRefactoredEvent.class), eq("CR1"));
+        verify(this.jobExecutor, never()).execute(any(), any());
+    }
+
+    @Test
+    void refactorWithErrorIsRetried() throws Exception
+    {
+        DiscussionFileReferenceRefactoring refactoring =
+            new DiscussionFileReferenceRefactoring("CR1", SOURCE, TARGET, false);
+        doThrow(new ChangeRequestDiscussionException("error"))
+            .when(this.discussionService).refactorDiscussionFileReference("CR1", SOURCE, TARGET, false);
+
+        this.refactoringManager.refactor(refactoring, 0);
+
+        verify(this.jobExecutor).execute(eq(DiscussionFileReferenceRefactoringRequest.DISCUSSION_REFACTORING_JOB),
+            any());
+        assertEquals(Map.of(refactoring, 1), this.refactoringManager.consumePendingItems(this.request));
+        verify(this.observationManager, never()).notify(any(), any());
+        assertEquals(1, this.logCapture.size());
+        assertEquals("Error while trying to refactor discussions of change request [CR1] for the move from "
+            + "[xwiki:Space.Source] to [xwiki:Space.Target] (isDeep: [false]), the refactoring will be retried: "
+            + "[ChangeRequestDiscussionException: error]", this.logCapture.getMessage(0));
+
+        this.refactoringManager.refactor(refactoring, DiscussionFileReferenceRefactoringManager.MAX_ATTEMPTS - 1);
+        assertEquals(Map.of(), this.refactoringManager.consumePendingItems(this.request));
+        assertEquals(2, this.logCapture.size());
+        assertEquals("Error while trying to refactor discussions of change request [CR1] for the move from "
+            + "[xwiki:Space.Source] to [xwiki:Space.Target] (isDeep: [false])", this.logCapture.getMessage(1));
+    }
+}
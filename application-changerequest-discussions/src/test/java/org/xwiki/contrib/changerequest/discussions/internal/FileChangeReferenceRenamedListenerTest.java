@@ -24,21 +24,13 @@ import java.util.Locale;
 import javax.inject.Provider;
 
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.RegisterExtension;
-import org.xwiki.contrib.changerequest.discussions.ChangeRequestDiscussionException;
-import org.xwiki.contrib.changerequest.discussions.ChangeRequestDiscussionService;
 import org.xwiki.contrib.changerequest.events.FileChangeReferenceRenamedEvent;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.observation.remote.RemoteObservationManagerContext;
-import org.xwiki.test.LogLevel;
-import org.xwiki.test.junit5.LogCaptureExtension;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -56,28 +48,26 @@ class FileChangeReferenceRenamedListenerTest
     private FileChangeReferenceRenamedListener listener;
 
     @MockComponent
-    private Provider<ChangeRequestDiscussionService> discussionServiceProvider;
+    private Provider<DiscussionFileReferenceRefactoringManager> refactoringManagerProvider;
 
     @MockComponent
     private RemoteObservationManagerContext remoteObservationManagerContext;
 
-    @RegisterExtension
-    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.ERROR);
-
     @Test
     void onEventWhenRemoteStateDoesNothing()
     {
         when(this.remoteObservationManagerContext.isRemoteState()).thenReturn(true);
         this.listener.onEvent(new FileChangeReferenceRenamedEvent(), "CRID", null);
-        verifyNoInteractions(this.discussionServiceProvider);
+        verifyNoInteractions(this.refactoringManagerProvider);
     }
 
     @Test
-    void onEventRefactorsDiscussionFileReference() throws ChangeRequestDiscussionException
+    void onEventQueuesRefactoring()
     {
         when(this.remoteObservationManagerContext.isRemoteState()).thenReturn(false);
-        ChangeRequestDiscussionService discussionService = mock(ChangeRequestDiscussionService.class);
-        when(this.discussionServiceProvider.get()).thenReturn(discussionService);
+        DiscussionFileReferenceRefactoringManager refactoringManager =
+            mock(DiscussionFileReferenceRefactoringManager.class);
+        when(this.refactoringManagerProvider.get()).thenReturn(refactoringManager);
 
         DocumentReference source = new DocumentReference("wiki", "Space", "Source");
         DocumentReference target = new DocumentReference("wiki", "Space", "Target", Locale.ROOT);
@@ -86,28 +76,7 @@ class FileChangeReferenceRenamedListenerTest
         this.listener.onEvent(event, "CRID", null);
 
         DocumentReference expectedTarget = new DocumentReference(target, (Locale) null);
-        verify(discussionService).refactorDiscussionFileReference("CRID", source, expectedTarget, true);
-    }
-
-    @Test
-    void onEventWhenExceptionDoesNotThrow() throws ChangeRequestDiscussionException
-    {
-        when(this.remoteObservationManagerContext.isRemoteState()).thenReturn(false);
-        ChangeRequestDiscussionService discussionService = mock(ChangeRequestDiscussionService.class);
-        when(this.discussionServiceProvider.get()).thenReturn(discussionService);
-
-        DocumentReference source = new DocumentReference("wiki", "Space", "Source");
-        DocumentReference target = new DocumentReference("wiki", "Space", "Target");
-        FileChangeReferenceRenamedEvent event = new FileChangeReferenceRenamedEvent(source, target, false);
-
-        doThrow(new ChangeRequestDiscussionException("error"))
-            .when(discussionService).refactorDiscussionFileReference(eq("CRID"), eq(source), eq(target), eq(false));
-
-        this.listener.onEvent(event, "CRID", null);
-
-        verify(discussionService).refactorDiscussionFileReference("CRID", source, target, false);
-        assertEquals(1, this.logCapture.size());
-        assertEquals("Error while trying to refactor discussions of change request [CRID] for the move from "
-            + "[wiki:Space.Source] to [wiki:Space.Target] (isDeep: [false])", this.logCapture.getMessage(0));
+        verify(refactoringManager)
+            .addRefactoring(new DiscussionFileReferenceRefactoring("CRID", source, expectedTarget, true));
     }
 }
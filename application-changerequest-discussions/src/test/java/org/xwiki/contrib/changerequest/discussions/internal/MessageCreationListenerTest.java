@@ -19,27 +19,42 @@
  */
 package org.xwiki.contrib.changerequest.discussions.internal;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 import javax.inject.Inject;
 import javax.inject.Provider;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.slf4j.Logger;
 import org.xwiki.contrib.changerequest.discussions.ChangeRequestDiscussionEvent;
 import org.xwiki.contrib.changerequest.discussions.ChangeRequestDiscussionException;
 import org.xwiki.contrib.changerequest.discussions.ChangeRequestDiscussionService;
 import org.xwiki.contrib.changerequest.discussions.references.AbstractChangeRequestDiscussionContextReference;
+import org.xwiki.contrib.changerequest.discussions.references.ChangeRequestLineDiffReference;
+import org.xwiki.contrib.discussions.DiscussionContextService;
 import org.xwiki.contrib.discussions.domain.Discussion;
+import org.xwiki.contrib.discussions.domain.DiscussionContext;
+import org.xwiki.contrib.discussions.domain.references.DiscussionContextReference;
+import org.xwiki.contrib.discussions.domain.references.DiscussionReference;
 import org.xwiki.contrib.discussions.domain.Message;
 import org.xwiki.contrib.discussions.events.MessageEvent;
+import org.xwiki.diff.display.UnifiedDiffBlock;
 import org.xwiki.observation.ObservationManager;
 import org.xwiki.observation.remote.RemoteObservationManagerContext;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -64,6 +79,15 @@ class MessageCreationListenerTest
     @MockComponent
     private RemoteObservationManagerContext remoteObservationManagerContext;
 
+    @MockComponent
+    private DiscussionContextService discussionContextService;
+
+    @MockComponent
+    private ChangeRequestDiscussionDiffUtils changeRequestDiscussionDiffUtils;
+
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
     @Test
     void onEvent() throws ChangeRequestDiscussionException
     {
@@ -92,5 +116,79 @@ class MessageCreationListenerTest
         when(reference.getChangeRequestId()).thenReturn("CRID");
         this.listener.onEvent(event, hint, message);
         verify(this.observationManager).notify(any(ChangeRequestDiscussionEvent.class), eq("CRID"), eq(message));
+        verifyNoInteractions(this.discussionContextService);
+    }
+
+    @Test
+    void onEventMigratesDiffBlock() throws ChangeRequestDiscussionException
+    {
+        MessageEvent event = mock(MessageEvent.class);
+        Message message = mock(Message.class);
+        Discussion discussion = mock(Discussion.class);
+        when(message.getDiscussion()).thenReturn(discussion);
+        DiscussionReference discussionReference = new DiscussionReference("changerequest", "discussion1");
+        when(discussion.getReference()).thenReturn(discussionReference);
+        ChangeRequestDiscussionService changeRequestDiscussionService = mock(ChangeRequestDiscussionService.class);
+        when(this.changeRequestDiscussionServiceProvider.get()).thenReturn(changeRequestDiscussionService);
+        ChangeRequestLineDiffReference reference = mock(ChangeRequestLineDiffReference.class);
+        when(changeRequestDiscussionService.getReferenceFrom(discussion)).thenReturn(reference);
+        when(reference.getChangeRequestId()).thenReturn("CRID");
+
+        DiscussionContext legacyContext = mock(DiscussionContext.class);
+        String legacySerialization = "[{\"serialized\":true}]";
+        when(legacyContext.getMetadata()).thenReturn(
+            Map.of(ChangeRequestDiscussionService.DIFF_CONTEXT_METADATA_KEY, legacySerialization));
+        DiscussionContext migratedContext = mock(DiscussionContext.class);
+        String encoding = "crdiff1\nC42\t-\tfoo";
+        when(migratedContext.getMetadata()).thenReturn(
+            Map.of(ChangeRequestDiscussionService.DIFF_CONTEXT_METADATA_KEY, encoding));
+        DiscussionContext otherContext = mock(DiscussionContext.class);
+        when(this.discussionContextService.findByDiscussionReference(discussionReference))
+            .thenReturn(List.of(otherContext, migratedContext, legacyContext));
+
+        when(this.changeRequestDiscussionDiffUtils.isLegacyEncoding(legacySerialization)).thenReturn(true);
+        UnifiedDiffBlock<String, Character> block = mock(UnifiedDiffBlock.class);
+        when(this.changeRequestDiscussionDiffUtils.decode(legacySerialization)).thenReturn(block);
+        when(this.changeRequestDiscussionDiffUtils.encode(block)).thenReturn(encoding);
+
+        this.listener.onEvent(event, ChangeRequestDiscussionService.APPLICATION_HINT, message);
+        verify(this.observationManager).notify(any(ChangeRequestDiscussionEvent.class), eq("CRID"), eq(message));
+        verify(this.discussionContextService).saveMetadata(legacyContext,
+            Collections.singletonMap(ChangeRequestDiscussionService.DIFF_CONTEXT_METADATA_KEY, encoding));
+        verify(this.discussionContextService, never()).saveMetadata(eq(migratedContext), any());
+        verify(this.discussionContextService, never()).saveMetadata(eq(otherContext), any());
+    }
+
+    @Test
+    void onEventDiffBlockMigrationError() throws ChangeRequestDiscussionException
+    {
+        MessageEvent event = mock(MessageEvent.class);
+        Message message = mock(Message.class);
+        Discussion discussion = mock(Discussion.class);
+        when(message.getDiscussion()).thenReturn(discussion);
+        DiscussionReference discussionReference = new DiscussionReference("changerequest", "discussion1");
+        when(discussion.getReference()).thenReturn(discussionReference);
+        ChangeRequestDiscussionService changeRequestDiscussionService = mock(ChangeRequestDiscussionService.class);
+        when(this.changeRequestDiscussionServiceProvider.get()).thenReturn(changeRequestDiscussionService);
+        ChangeRequestLineDiffReference reference = mock(ChangeRequestLineDiffReference.class);
+        when(changeRequestDiscussionService.getReferenceFrom(discussion)).thenReturn(reference);
+
+        DiscussionContextReference contextReference = new DiscussionContextReference("changerequest", "ctx1");
+        DiscussionContext legacyContext = mock(DiscussionContext.class);
+        when(legacyContext.getReference()).thenReturn(contextReference);
+        String legacySerialization = "[{\"serialized\":true}]";
+        when(legacyContext.getMetadata()).thenReturn(
+            Map.of(ChangeRequestDiscussionService.DIFF_CONTEXT_METADATA_KEY, legacySerialization));
+        when(this.discussionContextService.findByDiscussionReference(discussionReference))
+            .thenReturn(List.of(legacyContext));
+        when(this.changeRequestDiscussionDiffUtils.isLegacyEncoding(legacySerialization)).thenReturn(true);
+        when(this.changeRequestDiscussionDiffUtils.decode(legacySerialization))
+            .thenThrow(new ChangeRequestDiscussionException("Decoding error"));
+
+        this.listener.onEvent(event, ChangeRequestDiscussionService.APPLICATION_HINT, message);
+        verify(this.discussionContextService, never()).saveMetadata(any(), any());
+        assertEquals(1, this.logCapture.size());
+        assertEquals(String.format("Error while migrating the diff block metadata of discussion context [%s]: "
+            + "[ChangeRequestDiscussionException: Decoding error]", contextReference), this.logCapture.getMessage(0));
     }
 }
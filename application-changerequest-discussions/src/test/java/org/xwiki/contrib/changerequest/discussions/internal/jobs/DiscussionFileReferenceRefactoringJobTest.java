@@ -0,0 +1,84 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.discussions.internal.jobs;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.xwiki.contrib.changerequest.discussions.internal.DiscussionFileReferenceRefactoring;
+import org.xwiki.contrib.changerequest.discussions.internal.DiscussionFileReferenceRefactoringManager;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link DiscussionFileReferenceRefactoringJob}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class DiscussionFileReferenceRefactoringJobTest
+{
+    @InjectMockComponents
+    private DiscussionFileReferenceRefactoringJob job;
+
+    @MockComponent
+    private DiscussionFileReferenceRefactoringManager refactoringManager;
+
+    @Test
+    void processQueue()
+    {
+        DiscussionFileReferenceRefactoringRequest request = new DiscussionFileReferenceRefactoringRequest();
+        this.job.initialize(request);
+
+        when(this.refactoringManager.consumePendingItems(request)).thenReturn(Map.of());
+        this.job.processQueue();
+        verify(this.refactoringManager, never()).refactor(any(), anyInt());
+
+        DocumentReference source = new DocumentReference("xwiki", "Space", "Source");
+        DocumentReference target = new DocumentReference("xwiki", "Space", "Target");
+        DiscussionFileReferenceRefactoring refactoring1 =
+            new DiscussionFileReferenceRefactoring("CR1", source, target, true);
+        DiscussionFileReferenceRefactoring refactoring2 =
+            new DiscussionFileReferenceRefactoring("CR2", source, target, true);
+        Map<DiscussionFileReferenceRefactoring, Integer> refactorings = new LinkedHashMap<>();
+        refactorings.put(refactoring1, 0);
+        refactorings.put(refactoring2, 1);
+        when(this.refactoringManager.consumePendingItems(request)).thenReturn(refactorings);
+
+        this.job.processQueue();
+        InOrder inOrder = inOrder(this.refactoringManager);
+        inOrder.verify(this.refactoringManager).refactor(refactoring1, 0);
+        inOrder.verify(this.refactoringManager).refactor(refactoring2, 1);
+        assertEquals(DiscussionFileReferenceRefactoringJob.GROUP_PATH, this.job.getGroupPath());
+    }
+}
@@ -23,12 +23,11 @@ import java.util.HashMap;
 import java.util.Map;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 
-import org.xwiki.contrib.changerequest.ChangeRequest;
 import org.xwiki.contrib.changerequest.internal.converters.AbstractChangeRequestRecordableEventConverter;
 import org.xwiki.eventstream.Event;
 import org.xwiki.model.reference.DocumentReference;
-import org.xwiki.model.reference.DocumentReferenceResolver;
 import org.xwiki.notifications.CompositeEvent;
 import org.xwiki.notifications.NotificationException;
 
@@ -43,12 +42,13 @@ public abstract class AbstractChangeRequestNotificationRenderer
     protected static final String CHANGE_REQUEST_REFERENCES_BINDING_NAME = "changeRequestReferences";
 
     @Inject
-    private DocumentReferenceResolver<ChangeRequest> changeRequestDocumentReferenceResolver;
+    private Provider<ChangeRequestSpaceLocationCache> spaceLocationCacheProvider;
 
     protected Map<Event, DocumentReference> getChangeRequestReferences(CompositeEvent compositeEvent)
         throws NotificationException
     {
         Map<Event, DocumentReference> result = new HashMap<>();
+        ChangeRequestSpaceLocationCache spaceLocationCache = this.spaceLocationCacheProvider.get();
         for (Event event : compositeEvent.getEvents()) {
             Map<String, Object> parameters = event.getCustom();
             if (parameters.containsKey(AbstractChangeRequestRecordableEventConverter.CHANGE_REQUEST_ID_PARAMETER_KEY)) {
@@ -56,11 +56,7 @@ public abstract class AbstractChangeRequestNotificationRenderer
                     .get(AbstractChangeRequestRecordableEventConverter.CHANGE_REQUEST_ID_PARAMETER_KEY);
                 // We don't load the change request on purpose here:
                 // we still want it to be resolved even if it has been deleted, so that the notifications are displayed.
-                ChangeRequest changeRequest = new ChangeRequest();
-                changeRequest.setId(crId);
-                DocumentReference changeRequestDocReference =
-                    this.changeRequestDocumentReferenceResolver.resolve(changeRequest);
-                result.put(event, changeRequestDocReference);
+                result.put(event, spaceLocationCache.getChangeRequestDocumentReference(crId));
             } else {
                 throw new NotificationException(
                     String.format("The event [%s] did not have the appropriate parameter to retrieve "
@@ -19,6 +19,13 @@
  */
 package org.xwiki.contrib.changerequest.internal;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -75,7 +82,11 @@ public class ChangeRequestAutoWatchHandler
      */
     public boolean hasAutoWatchEnabled(UserReference userReference)
     {
-        AutomaticWatchMode automaticWatchMode = this.getAutomaticWatchMode(userReference);
+        return isAutoWatchEnabled(this.getAutomaticWatchMode(userReference));
+    }
+
+    private static boolean isAutoWatchEnabled(AutomaticWatchMode automaticWatchMode)
+    {
         return automaticWatchMode == AutomaticWatchMode.ALL
             || automaticWatchMode == AutomaticWatchMode.MAJOR
             || automaticWatchMode == AutomaticWatchMode.NEW;
@@ -134,4 +145,73 @@ public class ChangeRequestAutoWatchHandler
                 String.format("Error when trying to automatically watch document [%s]", documentReference), e);
         }
     }
+
+    /**
+     * Create and register new watch entities for all the given users who have autowatch enabled, to automatically
+     * receive notifications on the change request.
+     *
+     * @param changeRequest the change request for which to create new watch entities.
+     * @param userReferences the users who should watch the change request if they have autowatch enabled.
+     * @throws ChangeRequestException in case of problem when saving the watch entities.
+     * @see #watchDocuments(Collection, Collection, Predicate)
+     * @since 1.24
+     */
+    public void watchChangeRequest(ChangeRequest changeRequest, Collection<UserReference> userReferences)
+        throws ChangeRequestException
+    {
+        DocumentReference changeRequestDoc = this.changeRequestDocumentReferenceResolver.resolve(changeRequest);
+        this.watchDocuments(Set.of(changeRequestDoc), userReferences,
+            ChangeRequestAutoWatchHandler::isAutoWatchEnabled);
+    }
+
+    /**
+     * Ensure that the given users watch the given locations, depending on their automatic watch mode. The automatic
+     * watch mode is only resolved once per user, and the watched entities are only created once per document,
+     * whatever the number of users.
+     * Note that all the watch entities are handled even if one of them cannot be saved: in such case an exception is
+     * thrown once everything has been handled.
+     *
+     * @param documentReferences the references that the users should watch
+     * @param userReferences the users for whom to add the watch
+     * @param watchModePredicate the predicate that the automatic watch mode of a user should match to add the watch
+     * @throws ChangeRequestException in case of problem for watching one of the documents
+     * @since 1.24
+     */
+    public void watchDocuments(Collection<DocumentReference> documentReferences,
+        Collection<UserReference> userReferences, Predicate<AutomaticWatchMode> watchModePredicate)
+        throws ChangeRequestException
+    {
+        if (documentReferences.isEmpty() || userReferences.isEmpty()) {
+            return;
+        }
+        Map<DocumentReference, WatchedLocationReference> watchedLocations = new LinkedHashMap<>();
+        for (DocumentReference documentReference : documentReferences) {
+            watchedLocations.computeIfAbsent(documentReference,
+                reference -> this.watchedEntityFactory.createWatchedLocationReference(reference));
+        }
+
+        ChangeRequestException exception = null;
+        for (UserReference userReference : new LinkedHashSet<>(userReferences)) {
+            if (watchModePredicate.test(this.getAutomaticWatchMode(userReference))) {
+                DocumentReference userDoc = this.userReferenceSerializer.serialize(userReference);
+                for (Map.Entry<DocumentReference, WatchedLocationReference> entry : watchedLocations.entrySet()) {
+                    try {
+                        this.watchedEntitiesManager.watchEntity(entry.getValue(), userDoc);
+                    } catch (NotificationException e) {
+                        ChangeRequestException watchException = new ChangeRequestException(
+                            String.format("Error when trying to automatically watch document [%s] for [%s]",
+                                entry.getKey(), userDoc), e);
+                        if (exception == null) {
+                            exception = watchException;
+                        } else {
+                            exception.addSuppressed(watchException);
+                        }
+                    }
+                }
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
 }
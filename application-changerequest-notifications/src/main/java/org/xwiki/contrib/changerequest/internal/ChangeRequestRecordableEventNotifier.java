@@ -19,8 +19,6 @@
  */
 package org.xwiki.contrib.changerequest.internal;
 
-import java.util.Optional;
-
 import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.inject.Singleton;
@@ -29,10 +27,8 @@ import org.slf4j.Logger;
 import org.xwiki.bridge.DocumentAccessBridge;
 import org.xwiki.bridge.DocumentModelBridge;
 import org.xwiki.component.annotation.Component;
-import org.xwiki.contrib.changerequest.ChangeRequest;
-import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
 import org.xwiki.eventstream.RecordableEvent;
-import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.observation.ObservationManager;
 
 /**
@@ -54,10 +50,7 @@ public class ChangeRequestRecordableEventNotifier
     private ObservationManager observationManager;
 
     @Inject
-    private Provider<ChangeRequestStorageManager> changeRequestStorageManager;
-
-    @Inject
-    private DocumentReferenceResolver<ChangeRequest> changeRequestDocumentReferenceResolver;
+    private Provider<ChangeRequestSpaceLocationCache> spaceLocationCacheProvider;
 
     @Inject
     private DocumentAccessBridge documentAccessBridge;
@@ -78,20 +71,21 @@ public class ChangeRequestRecordableEventNotifier
 
     /**
      * Retrieve the document instance holding the given change request identifier.
+     * Note that the change request is not loaded: only its document is retrieved.
      *
      * @param changeRequestId the identifier for which to retrieve the change request.
      * @return the instance of the document holding the change request or {@code null} if no change request can be found
      *         matching the given identifier.
-     * @throws Exception in case of problem to load the change request or to load the document.
+     * @throws Exception in case of problem to load the document.
      */
     public DocumentModelBridge getChangeRequestDocument(String changeRequestId) throws Exception
     {
-        Optional<ChangeRequest> optionalChangeRequest =
-            this.changeRequestStorageManager.get().load(changeRequestId);
-        if (optionalChangeRequest.isPresent()) {
-            ChangeRequest changeRequest = optionalChangeRequest.get();
-            return this.documentAccessBridge.getTranslatedDocumentInstance(
-                this.changeRequestDocumentReferenceResolver.resolve(changeRequest));
+        // The reference of the change request document only depends on its identifier, so we don't need to load the
+        // whole change request with all its file changes and reviews to resolve it.
+        DocumentReference changeRequestDocumentReference =
+            this.spaceLocationCacheProvider.get().getChangeRequestDocumentReference(changeRequestId);
+        if (this.documentAccessBridge.exists(changeRequestDocumentReference)) {
+            return this.documentAccessBridge.getTranslatedDocumentInstance(changeRequestDocumentReference);
         } else {
             logger.error("Cannot find change request with identifier [{}]", changeRequestId);
             return null;
@@ -0,0 +1,113 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.contrib.changerequest.ChangeRequest;
+import org.xwiki.contrib.changerequest.ChangeRequestConfiguration;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.WikiReference;
+
+import com.xpn.xwiki.XWikiContext;
+
+/**
+ * Keep the location of the change requests of each wiki, to avoid switching the context wiki each time the location
+ * of another wiki is needed. The locations of a wiki are invalidated whenever the change request configuration of
+ * that wiki is modified.
+ * This cache is also used to resolve the references of the change request documents from their identifiers, without
+ * reading the configuration each time: the cached location is given to the change request document reference
+ * resolver.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component(roles = ChangeRequestSpaceLocationCache.class)
+@Singleton
+public class ChangeRequestSpaceLocationCache
+{
+    @Inject
+    private Provider<ChangeRequestConfiguration> configurationProvider;
+
+    @Inject
+    private Provider<XWikiContext> contextProvider;
+
+    @Inject
+    private Provider<DocumentReferenceResolver<ChangeRequest>> changeRequestDocumentReferenceResolverProvider;
+
+    private final Map<String, SpaceReference> spaceLocations = new ConcurrentHashMap<>();
+
+    /**
+     * Retrieve the location of the change requests of the given wiki.
+     *
+     * @param wikiReference the wiki for which to retrieve the location
+     * @return the space containing the change requests of the given wiki
+     */
+    public SpaceReference getChangeRequestSpaceLocation(WikiReference wikiReference)
+    {
+        return this.spaceLocations.computeIfAbsent(wikiReference.getName(),
+            wikiName -> computeChangeRequestSpaceLocation(wikiReference));
+    }
+
+    /**
+     * Resolve the reference of the document holding the given change request in the current wiki. Note that the
+     * change request is not loaded, so the reference is resolved even if the change request has been deleted.
+     *
+     * @param changeRequestId the identifier of the change request
+     * @return the reference of the document holding the change request
+     */
+    public DocumentReference getChangeRequestDocumentReference(String changeRequestId)
+    {
+        SpaceReference location = getChangeRequestSpaceLocation(this.contextProvider.get().getWikiReference());
+        return this.changeRequestDocumentReferenceResolverProvider.get()
+            .resolve(new ChangeRequest().setId(changeRequestId), location);
+    }
+
+    private SpaceReference computeChangeRequestSpaceLocation(WikiReference wikiReference)
+    {
+        XWikiContext context = this.contextProvider.get();
+        WikiReference currentWiki = context.getWikiReference();
+        // We need to set the wiki reference to obtain the proper location
+        context.setWikiReference(wikiReference);
+        try {
+            return this.configurationProvider.get().getChangeRequestSpaceLocation();
+        } finally {
+            context.setWikiReference(currentWiki);
+        }
+    }
+
+    /**
+     * Invalidate the location kept for the given wiki.
+     *
+     * @param wikiReference the wiki whose configuration has been modified
+     */
+    public void invalidate(WikiReference wikiReference)
+    {
+        this.spaceLocations.remove(wikiReference.getName());
+    }
+}
@@ -19,34 +19,46 @@
  */
 package org.xwiki.contrib.changerequest.internal;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
-import org.xwiki.contrib.changerequest.ChangeRequestConfiguration;
 import org.xwiki.eventstream.Event;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.model.reference.WikiReference;
 import org.xwiki.notifications.NotificationFormat;
 import org.xwiki.notifications.filters.NotificationFilter;
 import org.xwiki.notifications.filters.NotificationFilterPreference;
 import org.xwiki.notifications.filters.NotificationFilterType;
+import org.xwiki.notifications.filters.expression.EventProperty;
 import org.xwiki.notifications.filters.expression.ExpressionNode;
+import org.xwiki.notifications.filters.expression.generics.AbstractOperatorNode;
 import org.xwiki.notifications.filters.internal.ToggleableNotificationFilter;
 import org.xwiki.notifications.preferences.NotificationPreference;
-
-import com.xpn.xwiki.XWikiContext;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+import org.xwiki.wiki.manager.WikiManagerException;
 
 import static java.util.Arrays.asList;
+import static org.xwiki.notifications.filters.expression.generics.ExpressionBuilder.not;
+import static org.xwiki.notifications.filters.expression.generics.ExpressionBuilder.value;
 
 /**
  * Filter dedicated to ignore standard update / create / addComment events that might be triggered in change request
  * pages, since those are redundant with the change request events.
+ * <p>
+ * The filter is also provided as an expression, so that those events are directly excluded by the notification
+ * queries instead of being loaded and then dropped.
  *
  * @version $Id$
  * @since 1.4.5
@@ -63,22 +75,27 @@ public class ChangeRequestStandardPageNotificationFilter implements Notification
 
     private static final List<String> XWIKI_EVENT_TYPES = asList("create", "update", "addComment");
 
+    private static final String SPACE_SEPARATOR = ".";
+
+    @Inject
+    private Provider<ChangeRequestSpaceLocationCache> spaceLocationCacheProvider;
+
     @Inject
-    private Provider<ChangeRequestConfiguration> configurationProvider;
+    private Provider<WikiDescriptorManager> wikiDescriptorManagerProvider;
 
     @Inject
-    private Provider<XWikiContext> contextProvider;
+    @Named("local")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
+    @Inject
+    private Logger logger;
 
     private boolean isDocumentPartOfChangeRequestData(DocumentReference documentReference, WikiReference eventWiki)
     {
         boolean result = false;
         if (documentReference != null) {
-            XWikiContext context = contextProvider.get();
-            WikiReference currentWiki = context.getWikiReference();
-            // We need to set the wiki reference to obtain the proper location
-            context.setWikiReference(eventWiki);
-            result = documentReference.hasParent(this.configurationProvider.get().getChangeRequestSpaceLocation());
-            context.setWikiReference(currentWiki);
+            result = documentReference.hasParent(
+                this.spaceLocationCacheProvider.get().getChangeRequestSpaceLocation(eventWiki));
         }
         return result;
     }
@@ -112,7 +129,44 @@ public class ChangeRequestStandardPageNotificationFilter implements Notification
         Collection<NotificationFilterPreference> filterPreferences, NotificationFilterType type,
         NotificationFormat format)
     {
-        return null;
+        ExpressionNode result = null;
+        if (type == NotificationFilterType.EXCLUSIVE) {
+            AbstractOperatorNode locationNode = this.getChangeRequestLocationNode();
+            if (locationNode != null) {
+                result = not(value(EventProperty.TYPE).inStrings(XWIKI_EVENT_TYPES).and(locationNode));
+            }
+        }
+        return result;
+    }
+
+    private AbstractOperatorNode getChangeRequestLocationNode()
+    {
+        // Group the wikis by location, since most of them use the default location.
+        Map<String, List<String>> wikisByLocation = new LinkedHashMap<>();
+        try {
+            for (String wikiId : this.wikiDescriptorManagerProvider.get().getAllIds()) {
+                String location = this.localEntityReferenceSerializer.serialize(
+                    this.spaceLocationCacheProvider.get().getChangeRequestSpaceLocation(new WikiReference(wikiId)));
+                wikisByLocation.computeIfAbsent(location, key -> new ArrayList<>()).add(wikiId);
+            }
+        } catch (WikiManagerException e) {
+            // The events are still filtered one by one with filterEvent.
+            this.logger.warn("Error while computing the change request locations of the wikis: [{}]",
+                ExceptionUtils.getRootCauseMessage(e));
+            return null;
+        }
+
+        AbstractOperatorNode result = null;
+        for (Map.Entry<String, List<String>> entry : wikisByLocation.entrySet()) {
+            String location = entry.getKey();
+            AbstractOperatorNode node = value(EventProperty.SPACE).eq(value(location))
+                .or(value(EventProperty.SPACE).startsWith(value(location + SPACE_SEPARATOR)));
+            if (wikisByLocation.size() > 1) {
+                node = value(EventProperty.WIKI).inStrings(entry.getValue()).and(node);
+            }
+            result = (result == null) ? node : result.or(node);
+        }
+        return result;
     }
 
     @Override
@@ -22,13 +22,22 @@ package org.xwiki.contrib.changerequest.internal.converters;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.contrib.changerequest.ChangeRequestException;
+import org.xwiki.contrib.changerequest.ChangeRequestManager;
+import org.xwiki.contrib.changerequest.FileChange;
 import org.xwiki.contrib.changerequest.notifications.events.AbstractChangeRequestRecordableEvent;
+import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
 import org.xwiki.eventstream.Event;
 import org.xwiki.eventstream.RecordableEvent;
 import org.xwiki.eventstream.RecordableEventConverter;
+import org.xwiki.model.reference.EntityReferenceSerializer;
 
 /**
  * Abstract component for converting {@link AbstractChangeRequestRecordableEvent}.
@@ -52,11 +61,40 @@ public abstract class AbstractChangeRequestRecordableEventConverter<T extends Ab
      */
     public static final String CHANGE_REQUEST_ID_PARAMETER_KEY = CHANGE_REQUEST_PREFIX_PARAMETER_KEY + "id";
 
+    /**
+     * Key used for event parameter to store the title of the document targeted by a file change, computed when the
+     * event is stored so that templates don't have to load the change request to display it.
+     *
+     * @since 1.24
+     */
+    public static final String FILECHANGE_TITLE_PARAMETER_KEY =
+        CHANGE_REQUEST_PREFIX_PARAMETER_KEY + "filechange.title";
+
+    /**
+     * Key used for event parameter to store the serialized reference of the document targeted by a file change.
+     *
+     * @since 1.24
+     */
+    public static final String FILECHANGE_TARGET_PARAMETER_KEY =
+        CHANGE_REQUEST_PREFIX_PARAMETER_KEY + "filechange.target";
+
     private final List<RecordableEvent> supportedEvents;
 
     @Inject
     private RecordableEventConverter defaultConverter;
 
+    @Inject
+    private Provider<ChangeRequestManager> changeRequestManagerProvider;
+
+    @Inject
+    private Provider<ChangeRequestStorageManager> changeRequestStorageManagerProvider;
+
+    @Inject
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    @Inject
+    private Logger logger;
+
     protected AbstractChangeRequestRecordableEventConverter(List<RecordableEvent> supportedEvents)
     {
         this.supportedEvents = supportedEvents;
@@ -89,4 +127,33 @@ public abstract class AbstractChangeRequestRecordableEventConverter<T extends Ab
     }
 
     protected abstract Map<String, String> getSpecificParameters(T event);
+
+    /**
+     * Compute the display information of the given file change: its title and the reference of the document it
+     * targets. Those are stored with the event so that the notification templates can be rendered without accessing
+     * the change request storage.
+     *
+     * @param changeRequestId the identifier of the change request containing the file change
+     * @param fileChangeId the identifier of the file change for which to compute the display information
+     * @return a map of parameters to add to the event, possibly empty if the information cannot be computed
+     * @since 1.24
+     */
+    protected Map<String, String> getFileChangeDisplayParameters(String changeRequestId, String fileChangeId)
+    {
+        Map<String, String> result = new HashMap<>();
+        String title = this.changeRequestManagerProvider.get().getTitle(changeRequestId, fileChangeId);
+        if (title != null) {
+            result.put(FILECHANGE_TITLE_PARAMETER_KEY, title);
+        }
+        try {
+            Optional<FileChange> fileChangeOpt = this.changeRequestStorageManagerProvider.get().load(changeRequestId)
+                .flatMap(changeRequest -> changeRequest.getFileChangeById(fileChangeId));
+            fileChangeOpt.ifPresent(fileChange -> result.put(FILECHANGE_TARGET_PARAMETER_KEY,
+                this.entityReferenceSerializer.serialize(fileChange.getTargetEntity())));
+        } catch (ChangeRequestException e) {
+            this.logger.warn("Error while loading change request [{}] to compute the display parameters of file "
+                + "change [{}]: [{}]", changeRequestId, fileChangeId, ExceptionUtils.getRootCauseMessage(e));
+        }
+        return result;
+    }
 }
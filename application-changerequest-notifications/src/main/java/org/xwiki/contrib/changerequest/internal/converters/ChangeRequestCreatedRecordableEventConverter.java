@@ -61,6 +61,7 @@ public class ChangeRequestCreatedRecordableEventConverter extends
         result.put(IS_FROM_SPLIT_PARAMETER, Boolean.toString(event.isFromSplit()));
         result.put(ChangeRequestFileChangeAddedRecordableEventConverter.FILECHANGE_ID_PARAMETER_KEY,
             event.getFileChangeId());
+        result.putAll(getFileChangeDisplayParameters(event.getChangeRequestId(), event.getFileChangeId()));
         return result;
     }
 }
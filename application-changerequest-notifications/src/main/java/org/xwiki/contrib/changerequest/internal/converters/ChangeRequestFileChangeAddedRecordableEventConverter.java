@@ -20,6 +20,7 @@
 package org.xwiki.contrib.changerequest.internal.converters;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 import javax.inject.Named;
@@ -56,6 +57,9 @@ public class ChangeRequestFileChangeAddedRecordableEventConverter extends
     @Override
     protected Map<String, String> getSpecificParameters(ChangeRequestFileChangeAddedRecordableEvent event)
     {
-        return Collections.singletonMap(FILECHANGE_ID_PARAMETER_KEY, event.getFileChangeId());
+        Map<String, String> result = new HashMap<>();
+        result.put(FILECHANGE_ID_PARAMETER_KEY, event.getFileChangeId());
+        result.putAll(getFileChangeDisplayParameters(event.getChangeRequestId(), event.getFileChangeId()));
+        return result;
     }
 }
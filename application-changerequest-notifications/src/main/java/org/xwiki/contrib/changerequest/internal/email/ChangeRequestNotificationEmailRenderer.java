@@ -19,6 +19,7 @@
  */
 package org.xwiki.contrib.changerequest.internal.email;
 
+import java.util.List;
 import java.util.Map;
 
 import javax.inject.Inject;
@@ -80,11 +81,14 @@ public class ChangeRequestNotificationEmailRenderer extends AbstractChangeReques
     private Block executeTemplate(CompositeEvent event, String userId, Template template, Syntax syntax)
         throws NotificationException
     {
+        // All the grouped events are rendered in the same rendering session, with the same references.
         GroupBlock groupBlock = new GroupBlock();
-        for (CompositeEvent compositeEvent : this.groupingStrategy.groupEvents(event)) {
-            groupBlock.addChild(this.emailTemplateRenderer.executeTemplate(compositeEvent, userId, template, syntax,
-                Map.of(CHANGE_REQUEST_REFERENCES_BINDING_NAME, getChangeRequestReferences(event))
-            ));
+        Map<String, Object> bindings =
+            Map.of(CHANGE_REQUEST_REFERENCES_BINDING_NAME, getChangeRequestReferences(event));
+        List<Block> blocks = this.emailTemplateRenderer.executeTemplate(this.groupingStrategy.groupEvents(event),
+            userId, template, syntax, bindings);
+        for (Block block : blocks) {
+            groupBlock.addChild(block);
         }
         return groupBlock;
     }
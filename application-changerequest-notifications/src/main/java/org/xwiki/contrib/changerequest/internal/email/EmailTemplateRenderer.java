@@ -19,6 +19,9 @@
  */
 package org.xwiki.contrib.changerequest.internal.email;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.inject.Inject;
@@ -27,6 +30,7 @@ import javax.inject.Provider;
 import javax.inject.Singleton;
 import javax.script.ScriptContext;
 
+import org.apache.velocity.VelocityContext;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.context.Execution;
 import org.xwiki.context.ExecutionContextException;
@@ -44,6 +48,7 @@ import org.xwiki.rendering.transformation.RenderingContext;
 import org.xwiki.script.ScriptContextManager;
 import org.xwiki.template.Template;
 import org.xwiki.template.TemplateManager;
+import org.xwiki.velocity.VelocityManager;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.web.ExternalServletURLFactory;
@@ -92,6 +97,9 @@ public class EmailTemplateRenderer
     @Inject
     private ExecutionContextManager executionManager;
 
+    @Inject
+    private VelocityManager velocityManager;
+
     /**
      * Execute a template.
      *
@@ -105,6 +113,26 @@ public class EmailTemplateRenderer
      */
     public Block executeTemplate(CompositeEvent event, String userId, Template template, Syntax syntax,
         Map<String, Object> customBindings) throws NotificationException
+    {
+        return executeTemplate(List.of(event), userId, template, syntax, customBindings).get(0);
+    }
+
+    /**
+     * Execute a template for each of the given events. The execution context, the URL factory, the rendering context
+     * and the common bindings are prepared only once for all events: only the event binding changes between two
+     * executions, and the velocity variables set while rendering an event are reset before rendering the next one.
+     *
+     * @param events the composite events to render
+     * @param userId id of the user who will receive the email
+     * @param template the template to use
+     * @param syntax syntax of the template and of the output
+     * @param customBindings the specific bindings to use in the template for all events
+     * @return the rendered template for each event, in the same order as the events
+     * @throws NotificationException if something wrong happens
+     * @since 1.24
+     */
+    public List<Block> executeTemplate(List<CompositeEvent> events, String userId, Template template, Syntax syntax,
+        Map<String, Object> customBindings) throws NotificationException
     {
         // Push a new execution context.
         try {
@@ -114,7 +142,7 @@ public class EmailTemplateRenderer
         }
 
         try {
-            return executeTemplateInContext(event, userId, template, syntax, customBindings);
+            return executeTemplateInContext(events, userId, template, syntax, customBindings);
         } finally {
             // Restore parent execution context
             this.execution.popContext();
@@ -124,15 +152,15 @@ public class EmailTemplateRenderer
     /**
      * Execute a template in the current context.
      *
-     * @param event composite event to render
+     * @param events composite events to render
      * @param userId id of the user who will receive the email
      * @param template the template to use
      * @param syntax syntax of the template and of the output
-     * @return the rendered template
+     * @return the rendered template for each event
      * @throws NotificationException if something wrong happens
      */
-    private Block executeTemplateInContext(CompositeEvent event, String userId, Template template, Syntax syntax,
-        Map<String, Object> customBindings) throws NotificationException
+    private List<Block> executeTemplateInContext(List<CompositeEvent> events, String userId, Template template,
+        Syntax syntax, Map<String, Object> customBindings) throws NotificationException
     {
         XWikiContext context = contextProvider.get();
         DocumentReference currentUser = context.getUserReference();
@@ -144,8 +172,7 @@ public class EmailTemplateRenderer
             // Actually, templates should be using xwiki.getDocumentAsAuthor(), but many notifications templates does
             // not and I don't want to break them.
             context.setUserReference(template.getContent().getAuthorReference());
-            // Bind the event to some variable in the velocity context
-            scriptContext.setAttribute(EVENT_BINDING_NAME, event, ScriptContext.ENGINE_SCOPE);
+            // Bind the user and the custom bindings to some variable in the velocity context
             scriptContext.setAttribute(USER_BINDING_NAME, userId, ScriptContext.ENGINE_SCOPE);
             for (Map.Entry<String, Object> entry : customBindings.entrySet()) {
                 scriptContext.setAttribute(entry.getKey(), entry.getValue(), ScriptContext.ENGINE_SCOPE);
@@ -157,8 +184,13 @@ public class EmailTemplateRenderer
             if (renderingContext instanceof MutableRenderingContext) {
                 ((MutableRenderingContext) renderingContext).push(null, null, syntax, null, false, syntax);
             }
-            // Render the template or fallback to the default one
-            return templateManager.execute(template);
+            List<Block> result = new ArrayList<>(events.size());
+            for (CompositeEvent event : events) {
+                // Bind the event to some variable in the velocity context
+                scriptContext.setAttribute(EVENT_BINDING_NAME, event, ScriptContext.ENGINE_SCOPE);
+                result.add(executeTemplateForEvent(template));
+            }
+            return result;
         } catch (Exception e) {
             throw new NotificationException("Failed to render the notification.", e);
         } finally {
@@ -180,6 +212,27 @@ public class EmailTemplateRenderer
         }
     }
 
+    private Block executeTemplateForEvent(Template template) throws Exception
+    {
+        VelocityContext velocityContext = this.velocityManager.getVelocityContext();
+        Map<String, Object> initialVariables = new HashMap<>();
+        for (String key : velocityContext.getKeys()) {
+            initialVariables.put(key, velocityContext.get(key));
+        }
+        try {
+            // Render the template or fallback to the default one
+            return templateManager.execute(template);
+        } finally {
+            // Reset the variables set by the template so that they don't leak in the rendering of the next event.
+            for (String key : velocityContext.getKeys()) {
+                if (!initialVariables.containsKey(key)) {
+                    velocityContext.remove(key);
+                }
+            }
+            initialVariables.forEach(velocityContext::put);
+        }
+    }
+
     /**
      * Render a block to HTML syntax.
      * 
@@ -19,7 +19,9 @@
  */
 package org.xwiki.contrib.changerequest.internal.listeners;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -32,6 +34,7 @@ import org.xwiki.contrib.changerequest.ChangeRequestException;
 import org.xwiki.contrib.changerequest.FileChange;
 import org.xwiki.contrib.changerequest.events.ChangeRequestMergedEvent;
 import org.xwiki.contrib.changerequest.internal.ChangeRequestAutoWatchHandler;
+import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.notifications.filters.watch.AutomaticWatchMode;
 import org.xwiki.observation.AbstractEventListener;
 import org.xwiki.observation.event.Event;
@@ -68,26 +71,25 @@ public class ChangeRequestMergedEventListener extends AbstractEventListener
     public void onEvent(Event event, Object source, Object data)
     {
         ChangeRequest changeRequest = (ChangeRequest) data;
-        List<FileChange> lastFileChanges = changeRequest.getLastFileChanges();
-        for (FileChange fileChange : lastFileChanges) {
+        List<DocumentReference> createdDocuments = new ArrayList<>();
+        List<DocumentReference> editedDocuments = new ArrayList<>();
+        for (FileChange fileChange : changeRequest.getLastFileChanges()) {
             FileChange.FileChangeType type = fileChange.getType();
-            for (UserReference author : changeRequest.getAuthors()) {
-                AutomaticWatchMode watchMode = this.autoWatchHandler.getAutomaticWatchMode(author);
-                boolean createWatch = false;
-                if (type == FileChange.FileChangeType.CREATION) {
-                    createWatch = watchMode != AutomaticWatchMode.NONE;
-                } else if (type == FileChange.FileChangeType.EDITION) {
-                    createWatch = (watchMode == AutomaticWatchMode.ALL || watchMode == AutomaticWatchMode.MAJOR);
-                }
-                if (createWatch) {
-                    try {
-                        this.autoWatchHandler.watchDocument(fileChange.getTargetEntity(), author);
-                    } catch (ChangeRequestException e) {
-                        this.logger.error("Error while trying to autowatch [{}] after merge of change request "
-                            + "[{}]", fileChange.getTargetEntity(), changeRequest.getId(), e);
-                    }
-                }
+            if (type == FileChange.FileChangeType.CREATION) {
+                createdDocuments.add(fileChange.getTargetEntity());
+            } else if (type == FileChange.FileChangeType.EDITION) {
+                editedDocuments.add(fileChange.getTargetEntity());
             }
         }
+        Set<UserReference> authors = changeRequest.getAuthors();
+        try {
+            this.autoWatchHandler.watchDocuments(createdDocuments, authors,
+                watchMode -> watchMode != AutomaticWatchMode.NONE);
+            this.autoWatchHandler.watchDocuments(editedDocuments, authors,
+                watchMode -> watchMode == AutomaticWatchMode.ALL || watchMode == AutomaticWatchMode.MAJOR);
+        } catch (ChangeRequestException e) {
+            this.logger.error("Error while trying to autowatch documents after merge of change request [{}]",
+                changeRequest.getId(), e);
+        }
     }
 }
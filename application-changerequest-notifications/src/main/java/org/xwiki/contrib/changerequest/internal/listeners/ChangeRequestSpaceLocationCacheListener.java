@@ -0,0 +1,88 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.listeners;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.xwiki.bridge.event.DocumentCreatedEvent;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.contrib.changerequest.internal.ChangeRequestSpaceLocationCache;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+
+/**
+ * Listener in charge of invalidating the {@link ChangeRequestSpaceLocationCache} when the change request
+ * configuration of a wiki is modified. Remote events are also handled so that the cache stays consistent in a
+ * cluster.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component
+@Named(ChangeRequestSpaceLocationCacheListener.NAME)
+@Singleton
+public class ChangeRequestSpaceLocationCacheListener extends AbstractEventListener
+{
+    static final String NAME = "ChangeRequestSpaceLocationCacheListener";
+
+    /**
+     * Reference of the document holding the change request configuration of a wiki.
+     */
+    static final LocalDocumentReference CONFIGURATION_REFERENCE =
+        new LocalDocumentReference(Arrays.asList("ChangeRequest", "Code"), "Configuration");
+
+    private static final List<Event> EVENT_LIST = Arrays.asList(
+        new DocumentCreatedEvent(),
+        new DocumentUpdatedEvent(),
+        new DocumentDeletedEvent()
+    );
+
+    @Inject
+    private Provider<ChangeRequestSpaceLocationCache> spaceLocationCacheProvider;
+
+    /**
+     * Default constructor.
+     */
+    public ChangeRequestSpaceLocationCacheListener()
+    {
+        super(NAME, EVENT_LIST);
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        DocumentReference documentReference = ((XWikiDocument) source).getDocumentReference();
+        if (CONFIGURATION_REFERENCE.equals(documentReference.getLocalDocumentReference())) {
+            this.spaceLocationCacheProvider.get().invalidate(documentReference.getWikiReference());
+        }
+    }
+}
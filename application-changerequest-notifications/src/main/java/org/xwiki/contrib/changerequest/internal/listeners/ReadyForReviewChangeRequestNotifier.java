@@ -20,6 +20,7 @@
 package org.xwiki.contrib.changerequest.internal.listeners;
 
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -43,9 +44,9 @@ import org.xwiki.contrib.changerequest.notifications.events.ChangeRequestReadyFo
 import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.observation.event.AbstractLocalEventListener;
 import org.xwiki.observation.event.Event;
-import org.xwiki.user.UserReference;
 import org.xwiki.user.UserReferenceSerializer;
 
 /**
@@ -71,6 +72,9 @@ public class ReadyForReviewChangeRequestNotifier extends AbstractLocalEventListe
     @Inject
     private UserReferenceSerializer<String> userReferenceSerializer;
 
+    @Inject
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
     @Inject
     private ChangeRequestRecordableEventNotifier recordableEventNotifier;
 
@@ -118,13 +122,17 @@ public class ReadyForReviewChangeRequestNotifier extends AbstractLocalEventListe
     private void notifyChangeRequestApprovers(ChangeRequest changeRequest)
     {
         try {
-            Set<UserReference> allApprovers = this.changeRequestApproversManager.getAllApprovers(changeRequest, true);
-            if (!allApprovers.isEmpty()) {
-                Set<String> serializedApprovers = allApprovers.stream()
-                    .map(this.userReferenceSerializer::serialize)
-                    .collect(Collectors.toSet());
+            // We don't expand the groups approvers here since it might be very costly for big groups: the groups are
+            // given as targets of the event and the notification system takes care of resolving their members.
+            Set<String> targets = this.changeRequestApproversManager.getAllApprovers(changeRequest, false).stream()
+                .map(this.userReferenceSerializer::serialize)
+                .collect(Collectors.toCollection(HashSet::new));
+            this.changeRequestApproversManager.getGroupsApprovers(changeRequest).stream()
+                .map(this.entityReferenceSerializer::serialize)
+                .forEach(targets::add);
+            if (!targets.isEmpty()) {
                 ChangeRequestReadyForReviewTargetableEvent event =
-                    new ChangeRequestReadyForReviewTargetableEvent(serializedApprovers);
+                    new ChangeRequestReadyForReviewTargetableEvent(targets);
                 DocumentReference documentReference =
                     this.changeRequestDocumentReferenceResolver.resolve(changeRequest);
                 DocumentModelBridge document =
@@ -19,6 +19,9 @@
  */
 package org.xwiki.contrib.changerequest.internal;
 
+import java.util.List;
+import java.util.Set;
+
 import javax.inject.Named;
 
 import org.junit.jupiter.api.Test;
@@ -38,9 +41,16 @@ import org.xwiki.test.junit5.mockito.MockComponent;
 import org.xwiki.user.UserReference;
 import org.xwiki.user.UserReferenceSerializer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -116,4 +126,88 @@ class ChangeRequestAutoWatchHandlerTest
         this.autoWatchHandler.watchChangeRequest(changeRequest, creator);
         verify(this.watchedEntitiesManager).watchEntity(watchedLocationReference, userDoc);
     }
+
+    @Test
+    void watchDocuments() throws Exception
+    {
+        UserReference user1 = mock(UserReference.class, "user1");
+        UserReference user2 = mock(UserReference.class, "user2");
+        DocumentReference userDoc1 = mock(DocumentReference.class, "userDoc1");
+        DocumentReference userDoc2 = mock(DocumentReference.class, "userDoc2");
+        when(this.userReferenceSerializer.serialize(user1)).thenReturn(userDoc1);
+        when(this.userReferenceSerializer.serialize(user2)).thenReturn(userDoc2);
+        when(this.watchedEntitiesConfiguration.getAutomaticWatchMode(userDoc1)).thenReturn(AutomaticWatchMode.ALL);
+        when(this.watchedEntitiesConfiguration.getAutomaticWatchMode(userDoc2)).thenReturn(AutomaticWatchMode.NONE);
+
+        DocumentReference doc1 = mock(DocumentReference.class, "doc1");
+        DocumentReference doc2 = mock(DocumentReference.class, "doc2");
+        WatchedLocationReference location1 = mock(WatchedLocationReference.class, "location1");
+        WatchedLocationReference location2 = mock(WatchedLocationReference.class, "location2");
+        when(this.watchedEntityFactory.createWatchedLocationReference(doc1)).thenReturn(location1);
+        when(this.watchedEntityFactory.createWatchedLocationReference(doc2)).thenReturn(location2);
+
+        this.autoWatchHandler.watchDocuments(List.of(doc1, doc2, doc1), List.of(user1, user2, user1),
+            watchMode -> watchMode != AutomaticWatchMode.NONE);
+
+        verify(this.watchedEntitiesConfiguration).getAutomaticWatchMode(userDoc1);
+        verify(this.watchedEntitiesConfiguration).getAutomaticWatchMode(userDoc2);
+        verify(this.watchedEntityFactory).createWatchedLocationReference(doc1);
+        verify(this.watchedEntityFactory).createWatchedLocationReference(doc2);
+        verify(this.watchedEntitiesManager).watchEntity(location1, userDoc1);
+        verify(this.watchedEntitiesManager).watchEntity(location2, userDoc1);
+        verify(this.watchedEntitiesManager, never()).watchEntity(any(), eq(userDoc2));
+    }
+
+    @Test
+    void watchDocumentsWithErrors() throws Exception
+    {
+        UserReference user = mock(UserReference.class);
+        DocumentReference userDoc = mock(DocumentReference.class);
+        when(this.userReferenceSerializer.serialize(user)).thenReturn(userDoc);
+        when(this.watchedEntitiesConfiguration.getAutomaticWatchMode(userDoc)).thenReturn(AutomaticWatchMode.NEW);
+
+        DocumentReference doc1 = new DocumentReference("xwiki", "Space", "Doc1");
+        DocumentReference doc2 = new DocumentReference("xwiki", "Space", "Doc2");
+        DocumentReference doc3 = new DocumentReference("xwiki", "Space", "Doc3");
+        WatchedLocationReference location1 = mock(WatchedLocationReference.class, "location1");
+        WatchedLocationReference location2 = mock(WatchedLocationReference.class, "location2");
+        WatchedLocationReference location3 = mock(WatchedLocationReference.class, "location3");
+        when(this.watchedEntityFactory.createWatchedLocationReference(doc1)).thenReturn(location1);
+        when(this.watchedEntityFactory.createWatchedLocationReference(doc2)).thenReturn(location2);
+        when(this.watchedEntityFactory.createWatchedLocationReference(doc3)).thenReturn(location3);
+        doThrow(new NotificationException("Error 1")).when(this.watchedEntitiesManager).watchEntity(location1, userDoc);
+        doThrow(new NotificationException("Error 3")).when(this.watchedEntitiesManager).watchEntity(location3, userDoc);
+
+        ChangeRequestException exception = assertThrows(ChangeRequestException.class,
+            () -> this.autoWatchHandler.watchDocuments(List.of(doc1, doc2, doc3), Set.of(user),
+                watchMode -> true));
+        assertEquals(String.format("Error when trying to automatically watch document [%s] for [%s]", doc1, userDoc),
+            exception.getMessage());
+        assertEquals(1, exception.getSuppressed().length);
+        verify(this.watchedEntitiesManager, times(3)).watchEntity(any(), eq(userDoc));
+    }
+
+    @Test
+    void watchChangeRequestForUsers() throws Exception
+    {
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+        UserReference user1 = mock(UserReference.class, "user1");
+        UserReference user2 = mock(UserReference.class, "user2");
+        DocumentReference userDoc1 = mock(DocumentReference.class, "userDoc1");
+        DocumentReference userDoc2 = mock(DocumentReference.class, "userDoc2");
+        when(this.userReferenceSerializer.serialize(user1)).thenReturn(userDoc1);
+        when(this.userReferenceSerializer.serialize(user2)).thenReturn(userDoc2);
+        when(this.watchedEntitiesConfiguration.getAutomaticWatchMode(userDoc1)).thenReturn(AutomaticWatchMode.NEW);
+        when(this.watchedEntitiesConfiguration.getAutomaticWatchMode(userDoc2)).thenReturn(AutomaticWatchMode.NONE);
+
+        DocumentReference changeRequestDoc = mock(DocumentReference.class);
+        when(this.changeRequestDocumentReferenceResolver.resolve(changeRequest)).thenReturn(changeRequestDoc);
+        WatchedLocationReference watchedLocationReference = mock(WatchedLocationReference.class);
+        when(this.watchedEntityFactory.createWatchedLocationReference(changeRequestDoc))
+            .thenReturn(watchedLocationReference);
+
+        this.autoWatchHandler.watchChangeRequest(changeRequest, Set.of(user1, user2));
+        verify(this.watchedEntitiesManager).watchEntity(watchedLocationReference, userDoc1);
+        verify(this.watchedEntitiesManager, never()).watchEntity(watchedLocationReference, userDoc2);
+    }
 }
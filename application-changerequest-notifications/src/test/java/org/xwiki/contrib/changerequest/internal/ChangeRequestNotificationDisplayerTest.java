@@ -25,12 +25,10 @@ import java.util.Map;
 import javax.script.ScriptContext;
 
 import org.junit.jupiter.api.Test;
-import org.xwiki.contrib.changerequest.ChangeRequest;
 import org.xwiki.contrib.changerequest.notifications.events.ChangeRequestCreatedRecordableEvent;
 import org.xwiki.contrib.changerequest.notifications.events.ChangeRequestFileChangeAddedRecordableEvent;
 import org.xwiki.eventstream.Event;
 import org.xwiki.model.reference.DocumentReference;
-import org.xwiki.model.reference.DocumentReferenceResolver;
 import org.xwiki.notifications.CompositeEvent;
 import org.xwiki.rendering.block.Block;
 import org.xwiki.rendering.block.GroupBlock;
@@ -43,7 +41,6 @@ import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -61,7 +58,7 @@ class ChangeRequestNotificationDisplayerTest
     private ChangeRequestNotificationDisplayer displayer;
 
     @MockComponent
-    private DocumentReferenceResolver<ChangeRequest> changeRequestDocumentReferenceResolver;
+    private ChangeRequestSpaceLocationCache spaceLocationCache;
 
     @MockComponent
     private TemplateManager templateManager;
@@ -92,17 +89,8 @@ class ChangeRequestNotificationDisplayerTest
 
         DocumentReference crRef1 = mock(DocumentReference.class, "crRef1");
         DocumentReference crRef2 = mock(DocumentReference.class, "crRef2");
-        when(this.changeRequestDocumentReferenceResolver.resolve(any())).thenAnswer(invocation -> {
-            ChangeRequest changeRequest = invocation.getArgument(0);
-            if (changeRequest.getId().equals(cr1)) {
-                return crRef1;
-            } else if (changeRequest.getId().equals(cr2)) {
-                return crRef2;
-            } else {
-                fail("Wrong change request id: " + changeRequest.getId());
-                return null;
-            }
-        });
+        when(this.spaceLocationCache.getChangeRequestDocumentReference(cr1)).thenReturn(crRef1);
+        when(this.spaceLocationCache.getChangeRequestDocumentReference(cr2)).thenReturn(crRef2);
 
         Map<Event, DocumentReference> expectedMap = Map.of(
             event1, crRef1,
@@ -152,17 +140,8 @@ class ChangeRequestNotificationDisplayerTest
 
         DocumentReference crRef1 = mock(DocumentReference.class, "crRef1");
         DocumentReference crRef2 = mock(DocumentReference.class, "crRef2");
-        when(this.changeRequestDocumentReferenceResolver.resolve(any())).thenAnswer(invocation -> {
-            ChangeRequest changeRequest = invocation.getArgument(0);
-            if (changeRequest.getId().equals(cr1)) {
-                return crRef1;
-            } else if (changeRequest.getId().equals(cr2)) {
-                return crRef2;
-            } else {
-                fail("Wrong change request id: " + changeRequest.getId());
-                return null;
-            }
-        });
+        when(this.spaceLocationCache.getChangeRequestDocumentReference(cr1)).thenReturn(crRef1);
+        when(this.spaceLocationCache.getChangeRequestDocumentReference(cr2)).thenReturn(crRef2);
 
         Template template = mock(Template.class);
         when(this.templateManager.getTemplate("changerequest/alert/create.vm")).thenReturn(template);
@@ -0,0 +1,91 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.bridge.DocumentModelBridge;
+import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ChangeRequestRecordableEventNotifier}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class ChangeRequestRecordableEventNotifierTest
+{
+    @InjectMockComponents
+    private ChangeRequestRecordableEventNotifier notifier;
+
+    @MockComponent
+    private ChangeRequestSpaceLocationCache spaceLocationCache;
+
+    @MockComponent
+    private DocumentAccessBridge documentAccessBridge;
+
+    @MockComponent
+    private ChangeRequestStorageManager changeRequestStorageManager;
+
+    @RegisterExtension
+    LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @Test
+    void getChangeRequestDocument() throws Exception
+    {
+        DocumentReference crDocReference = new DocumentReference("xwiki", "ChangeRequest", "WebHome");
+        when(this.spaceLocationCache.getChangeRequestDocumentReference("cr42")).thenReturn(crDocReference);
+        when(this.documentAccessBridge.exists(crDocReference)).thenReturn(true);
+        DocumentModelBridge document = mock(DocumentModelBridge.class);
+        when(this.documentAccessBridge.getTranslatedDocumentInstance(crDocReference)).thenReturn(document);
+
+        assertSame(document, this.notifier.getChangeRequestDocument("cr42"));
+        verifyNoInteractions(this.changeRequestStorageManager);
+    }
+
+    @Test
+    void getChangeRequestDocumentNotExisting() throws Exception
+    {
+        DocumentReference crDocReference = new DocumentReference("xwiki", "ChangeRequest", "WebHome");
+        when(this.spaceLocationCache.getChangeRequestDocumentReference("cr43")).thenReturn(crDocReference);
+
+        assertNull(this.notifier.getChangeRequestDocument("cr43"));
+        verify(this.documentAccessBridge, never()).getTranslatedDocumentInstance(crDocReference);
+        assertEquals(1, this.logCapture.size());
+        assertEquals("Cannot find change request with identifier [cr43]", this.logCapture.getMessage(0));
+    }
+}
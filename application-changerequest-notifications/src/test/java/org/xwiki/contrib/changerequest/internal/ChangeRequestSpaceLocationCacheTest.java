@@ -0,0 +1,115 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal;
+
+import java.util.List;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.contrib.changerequest.ChangeRequest;
+import org.xwiki.contrib.changerequest.ChangeRequestConfiguration;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWikiContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ChangeRequestSpaceLocationCache}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class ChangeRequestSpaceLocationCacheTest
+{
+    @InjectMockComponents
+    private ChangeRequestSpaceLocationCache spaceLocationCache;
+
+    @MockComponent
+    private ChangeRequestConfiguration configuration;
+
+    @MockComponent
+    private Provider<XWikiContext> contextProvider;
+
+    @MockComponent
+    private DocumentReferenceResolver<ChangeRequest> changeRequestDocumentReferenceResolver;
+
+    private XWikiContext context;
+
+    @BeforeEach
+    void setup()
+    {
+        this.context = mock(XWikiContext.class);
+        when(this.contextProvider.get()).thenReturn(this.context);
+    }
+
+    @Test
+    void getChangeRequestSpaceLocation()
+    {
+        WikiReference currentWiki = new WikiReference("foo");
+        WikiReference subwiki = new WikiReference("subwiki");
+        when(this.context.getWikiReference()).thenReturn(currentWiki);
+        SpaceReference location = new SpaceReference("subwiki", "ChangeRequest", "Data");
+        when(this.configuration.getChangeRequestSpaceLocation()).thenReturn(location);
+
+        assertEquals(location, this.spaceLocationCache.getChangeRequestSpaceLocation(subwiki));
+        assertEquals(location, this.spaceLocationCache.getChangeRequestSpaceLocation(subwiki));
+        verify(this.context).setWikiReference(subwiki);
+        verify(this.context).setWikiReference(currentWiki);
+        verify(this.configuration).getChangeRequestSpaceLocation();
+
+        this.spaceLocationCache.invalidate(subwiki);
+        assertEquals(location, this.spaceLocationCache.getChangeRequestSpaceLocation(subwiki));
+        verify(this.configuration, times(2)).getChangeRequestSpaceLocation();
+    }
+
+    @Test
+    void getChangeRequestDocumentReference()
+    {
+        WikiReference currentWiki = new WikiReference("foo");
+        when(this.context.getWikiReference()).thenReturn(currentWiki);
+        SpaceReference location = new SpaceReference("foo", "ChangeRequest", "Data");
+        when(this.configuration.getChangeRequestSpaceLocation()).thenReturn(location);
+        when(this.changeRequestDocumentReferenceResolver.resolve(any(ChangeRequest.class), eq(location)))
+            .then(invocation -> new DocumentReference("WebHome",
+                new SpaceReference(invocation.<ChangeRequest>getArgument(0).getId(), location)));
+
+        assertEquals(new DocumentReference("foo", List.of("ChangeRequest", "Data", "cr1"), "WebHome"),
+            this.spaceLocationCache.getChangeRequestDocumentReference("cr1"));
+        assertEquals(new DocumentReference("foo", List.of("ChangeRequest", "Data", "cr2"), "WebHome"),
+            this.spaceLocationCache.getChangeRequestDocumentReference("cr2"));
+        verify(this.configuration).getChangeRequestSpaceLocation();
+    }
+}
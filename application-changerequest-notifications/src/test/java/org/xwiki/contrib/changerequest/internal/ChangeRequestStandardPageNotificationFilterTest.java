@@ -20,27 +20,35 @@
 package org.xwiki.contrib.changerequest.internal;
 
 import java.util.Arrays;
+import java.util.List;
 
-import javax.inject.Provider;
+import javax.inject.Named;
 
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.xwiki.contrib.changerequest.ChangeRequestConfiguration;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.xwiki.eventstream.Event;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.model.reference.SpaceReference;
 import org.xwiki.model.reference.WikiReference;
+import org.xwiki.notifications.NotificationFormat;
 import org.xwiki.notifications.filters.NotificationFilter;
+import org.xwiki.notifications.filters.NotificationFilterType;
+import org.xwiki.notifications.filters.expression.EventProperty;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
-
-import com.xpn.xwiki.XWikiContext;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+import org.xwiki.wiki.manager.WikiManagerException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.xwiki.notifications.filters.expression.generics.ExpressionBuilder.not;
+import static org.xwiki.notifications.filters.expression.generics.ExpressionBuilder.value;
 
 /**
  * Tests for {@link ChangeRequestStandardPageNotificationFilter}.
@@ -51,23 +59,23 @@ import static org.mockito.Mockito.when;
 @ComponentTest
 public class ChangeRequestStandardPageNotificationFilterTest
 {
+    private static final List<String> XWIKI_EVENT_TYPES = List.of("create", "update", "addComment");
+
     @InjectMockComponents
     private ChangeRequestStandardPageNotificationFilter notificationFilter;
 
     @MockComponent
-    private ChangeRequestConfiguration configuration;
+    private ChangeRequestSpaceLocationCache spaceLocationCache;
 
     @MockComponent
-    private Provider<XWikiContext> contextProvider;
+    private WikiDescriptorManager wikiDescriptorManager;
 
-    private XWikiContext context;
+    @MockComponent
+    @Named("local")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
 
-    @BeforeEach
-    void setup()
-    {
-        this.context = mock(XWikiContext.class);
-        when(this.contextProvider.get()).thenReturn(this.context);
-    }
+    @RegisterExtension
+    private LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
 
     @Test
     void filterEvent()
@@ -84,34 +92,30 @@ public class ChangeRequestStandardPageNotificationFilterTest
             new DocumentReference("subwiki", Arrays.asList("ChangeRequest", "Data", "MyCR"), "WebHome");
         when(event.getDocument()).thenReturn(documentReference);
 
-        WikiReference currentWiki = new WikiReference("foo");
-        when(context.getWikiReference()).thenReturn(currentWiki);
         WikiReference eventWiki = new WikiReference("subwiki");
         when(event.getWiki()).thenReturn(eventWiki);
 
-        when(this.configuration.getChangeRequestSpaceLocation()).thenReturn(
+        when(this.spaceLocationCache.getChangeRequestSpaceLocation(eventWiki)).thenReturn(
             new SpaceReference(eventWiki.getName(), Arrays.asList("ChangeRequest", "Data")));
         assertEquals(NotificationFilter.FilterPolicy.FILTER,
             this.notificationFilter.filterEvent(event, null, null, null));
-        verify(this.context).setWikiReference(eventWiki);
-        verify(this.context).setWikiReference(currentWiki);
 
         when(event.getType()).thenReturn("changerequest.create");
         assertEquals(NotificationFilter.FilterPolicy.NO_EFFECT,
             this.notificationFilter.filterEvent(event, null, null, null));
 
         when(event.getType()).thenReturn("create");
-        when(this.configuration.getChangeRequestSpaceLocation()).thenReturn(
+        when(this.spaceLocationCache.getChangeRequestSpaceLocation(eventWiki)).thenReturn(
             new SpaceReference(eventWiki.getName(), Arrays.asList("Foo", "Data")));
         assertEquals(NotificationFilter.FilterPolicy.NO_EFFECT,
             this.notificationFilter.filterEvent(event, null, null, null));
 
-        when(this.configuration.getChangeRequestSpaceLocation()).thenReturn(
+        when(this.spaceLocationCache.getChangeRequestSpaceLocation(eventWiki)).thenReturn(
             new SpaceReference(eventWiki.getName(), Arrays.asList("ChangeRequest")));
         assertEquals(NotificationFilter.FilterPolicy.FILTER,
             this.notificationFilter.filterEvent(event, null, null, null));
 
-        when(this.configuration.getChangeRequestSpaceLocation()).thenReturn(
+        when(this.spaceLocationCache.getChangeRequestSpaceLocation(eventWiki)).thenReturn(
             new SpaceReference(eventWiki.getName(), Arrays.asList("ChangeRequest", "Data")));
         documentReference =
             new DocumentReference("subwiki", Arrays.asList("ChangeRequest", "SomePage"), "WebHome");
@@ -119,4 +123,63 @@ public class ChangeRequestStandardPageNotificationFilterTest
         assertEquals(NotificationFilter.FilterPolicy.NO_EFFECT,
             this.notificationFilter.filterEvent(event, null, null, null));
     }
+
+    @Test
+    void filterExpressionWithSameLocation() throws Exception
+    {
+        assertNull(this.notificationFilter.filterExpression(null, null, NotificationFilterType.INCLUSIVE,
+            NotificationFormat.ALERT));
+
+        when(this.wikiDescriptorManager.getAllIds()).thenReturn(List.of("xwiki", "subwiki"));
+        SpaceReference mainLocation = new SpaceReference("xwiki", "ChangeRequest", "Data");
+        SpaceReference subwikiLocation = new SpaceReference("subwiki", "ChangeRequest", "Data");
+        when(this.spaceLocationCache.getChangeRequestSpaceLocation(new WikiReference("xwiki")))
+            .thenReturn(mainLocation);
+        when(this.spaceLocationCache.getChangeRequestSpaceLocation(new WikiReference("subwiki")))
+            .thenReturn(subwikiLocation);
+        when(this.localEntityReferenceSerializer.serialize(mainLocation)).thenReturn("ChangeRequest.Data");
+        when(this.localEntityReferenceSerializer.serialize(subwikiLocation)).thenReturn("ChangeRequest.Data");
+
+        assertEquals(not(value(EventProperty.TYPE).inStrings(XWIKI_EVENT_TYPES)
+                .and(value(EventProperty.SPACE).eq(value("ChangeRequest.Data"))
+                    .or(value(EventProperty.SPACE).startsWith(value("ChangeRequest.Data."))))),
+            this.notificationFilter.filterExpression(null, null, NotificationFilterType.EXCLUSIVE,
+                NotificationFormat.ALERT));
+    }
+
+    @Test
+    void filterExpressionWithDifferentLocations() throws Exception
+    {
+        when(this.wikiDescriptorManager.getAllIds()).thenReturn(List.of("xwiki", "subwiki"));
+        SpaceReference mainLocation = new SpaceReference("xwiki", "ChangeRequest", "Data");
+        SpaceReference subwikiLocation = new SpaceReference("subwiki", "CR");
+        when(this.spaceLocationCache.getChangeRequestSpaceLocation(new WikiReference("xwiki")))
+            .thenReturn(mainLocation);
+        when(this.spaceLocationCache.getChangeRequestSpaceLocation(new WikiReference("subwiki")))
+            .thenReturn(subwikiLocation);
+        when(this.localEntityReferenceSerializer.serialize(mainLocation)).thenReturn("ChangeRequest.Data");
+        when(this.localEntityReferenceSerializer.serialize(subwikiLocation)).thenReturn("CR");
+
+        assertEquals(not(value(EventProperty.TYPE).inStrings(XWIKI_EVENT_TYPES)
+                .and(value(EventProperty.WIKI).inStrings(List.of("xwiki"))
+                    .and(value(EventProperty.SPACE).eq(value("ChangeRequest.Data"))
+                        .or(value(EventProperty.SPACE).startsWith(value("ChangeRequest.Data."))))
+                    .or(value(EventProperty.WIKI).inStrings(List.of("subwiki"))
+                        .and(value(EventProperty.SPACE).eq(value("CR"))
+                            .or(value(EventProperty.SPACE).startsWith(value("CR."))))))),
+            this.notificationFilter.filterExpression(null, null, NotificationFilterType.EXCLUSIVE,
+                NotificationFormat.EMAIL));
+    }
+
+    @Test
+    void filterExpressionWithWikiError() throws Exception
+    {
+        when(this.wikiDescriptorManager.getAllIds()).thenThrow(new WikiManagerException("error"));
+
+        assertNull(this.notificationFilter.filterExpression(null, null, NotificationFilterType.EXCLUSIVE,
+            NotificationFormat.ALERT));
+        assertEquals(1, this.logCapture.size());
+        assertEquals("Error while computing the change request locations of the wikis: "
+            + "[WikiManagerException: error]", this.logCapture.getMessage(0));
+    }
 }
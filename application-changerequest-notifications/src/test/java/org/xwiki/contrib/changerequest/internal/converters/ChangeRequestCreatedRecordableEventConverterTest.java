@@ -24,7 +24,9 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
+import org.xwiki.contrib.changerequest.ChangeRequestManager;
 import org.xwiki.contrib.changerequest.notifications.events.ChangeRequestCreatedRecordableEvent;
+import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
 import org.xwiki.eventstream.Event;
 import org.xwiki.eventstream.RecordableEventConverter;
 import org.xwiki.test.junit5.mockito.ComponentTest;
@@ -45,6 +47,12 @@ class ChangeRequestCreatedRecordableEventConverterTest
     @MockComponent
     private RecordableEventConverter defaultConverter;
 
+    @MockComponent
+    private ChangeRequestManager changeRequestManager;
+
+    @MockComponent
+    private ChangeRequestStorageManager changeRequestStorageManager;
+
     @Test
     void convert() throws Exception
     {
@@ -73,6 +81,9 @@ class ChangeRequestCreatedRecordableEventConverterTest
         expectedParameters.put(ChangeRequestCreatedRecordableEventConverter.IS_FROM_SPLIT_PARAMETER, "true");
         expectedParameters.put(ChangeRequestFileChangeAddedRecordableEventConverter.FILECHANGE_ID_PARAMETER_KEY,
             fileChangeId);
+        when(this.changeRequestManager.getTitle(crId, fileChangeId)).thenReturn("Some title");
+        expectedParameters.put(ChangeRequestCreatedRecordableEventConverter.FILECHANGE_TITLE_PARAMETER_KEY,
+            "Some title");
 
         assertSame(event, this.converter.convert(recordableEvent, source, data));
         verify(event).setType(eventName);
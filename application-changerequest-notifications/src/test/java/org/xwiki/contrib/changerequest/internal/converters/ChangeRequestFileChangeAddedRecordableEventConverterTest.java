@@ -22,15 +22,27 @@ package org.xwiki.contrib.changerequest.internal.converters;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.xwiki.contrib.changerequest.ChangeRequest;
+import org.xwiki.contrib.changerequest.ChangeRequestException;
+import org.xwiki.contrib.changerequest.ChangeRequestManager;
+import org.xwiki.contrib.changerequest.FileChange;
 import org.xwiki.contrib.changerequest.notifications.events.ChangeRequestFileChangeAddedRecordableEvent;
+import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
 import org.xwiki.eventstream.Event;
 import org.xwiki.eventstream.RecordableEventConverter;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -52,6 +64,18 @@ class ChangeRequestFileChangeAddedRecordableEventConverterTest
     @MockComponent
     private RecordableEventConverter defaultConverter;
 
+    @MockComponent
+    private ChangeRequestManager changeRequestManager;
+
+    @MockComponent
+    private ChangeRequestStorageManager changeRequestStorageManager;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
+    @RegisterExtension
+    LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
     @Test
     void convert() throws Exception
     {
@@ -77,9 +101,53 @@ class ChangeRequestFileChangeAddedRecordableEventConverterTest
         when(recordableEvent.getFileChangeId()).thenReturn(fileChangeId);
         expectedParameters.put(ChangeRequestFileChangeAddedRecordableEventConverter.FILECHANGE_ID_PARAMETER_KEY, fileChangeId);
 
+        when(this.changeRequestManager.getTitle(crId, fileChangeId)).thenReturn("My page");
+        expectedParameters.put(ChangeRequestFileChangeAddedRecordableEventConverter.FILECHANGE_TITLE_PARAMETER_KEY,
+            "My page");
+
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+        when(this.changeRequestStorageManager.load(crId)).thenReturn(Optional.of(changeRequest));
+        FileChange fileChange = mock(FileChange.class);
+        when(changeRequest.getFileChangeById(fileChangeId)).thenReturn(Optional.of(fileChange));
+        DocumentReference targetReference = new DocumentReference("xwiki", "Space", "MyPage");
+        when(fileChange.getTargetEntity()).thenReturn(targetReference);
+        when(this.entityReferenceSerializer.serialize(targetReference)).thenReturn("xwiki:Space.MyPage");
+        expectedParameters.put(ChangeRequestFileChangeAddedRecordableEventConverter.FILECHANGE_TARGET_PARAMETER_KEY,
+            "xwiki:Space.MyPage");
+
         assertSame(event, this.converter.convert(recordableEvent, source, data));
         verify(event).setType(eventName);
         verify(event).setGroupId(eventName);
         verify(event).setCustom(expectedParameters);
     }
+
+    @Test
+    void convertWhenChangeRequestCannotBeLoaded() throws Exception
+    {
+        ChangeRequestFileChangeAddedRecordableEvent recordableEvent =
+            mock(ChangeRequestFileChangeAddedRecordableEvent.class);
+        Event event = mock(Event.class);
+        when(this.defaultConverter.convert(recordableEvent, null, null)).thenReturn(event);
+
+        String crId = "myCr43";
+        String fileChangeId = "fileChange42";
+        String eventName = "ChangeRequestFileChangeAddedRecordableEvent";
+        when(recordableEvent.getChangeRequestId()).thenReturn(crId);
+        when(recordableEvent.getEventName()).thenReturn(eventName);
+        when(recordableEvent.getFileChangeId()).thenReturn(fileChangeId);
+        when(event.getCustom()).thenReturn(Collections.emptyMap());
+        when(this.changeRequestStorageManager.load(crId)).thenThrow(new ChangeRequestException("Cannot load"));
+
+        Map<String, Object> expectedParameters = new HashMap<>();
+        expectedParameters.put(ChangeRequestFileChangeAddedRecordableEventConverter.CHANGE_REQUEST_ID_PARAMETER_KEY,
+            crId);
+        expectedParameters.put(ChangeRequestFileChangeAddedRecordableEventConverter.FILECHANGE_ID_PARAMETER_KEY,
+            fileChangeId);
+
+        assertSame(event, this.converter.convert(recordableEvent, null, null));
+        verify(event).setCustom(expectedParameters);
+        assertEquals(1, this.logCapture.size());
+        assertEquals("Error while loading change request [myCr43] to compute the display parameters of file change "
+            + "[fileChange42]: [ChangeRequestException: Cannot load]", this.logCapture.getMessage(0));
+    }
 }
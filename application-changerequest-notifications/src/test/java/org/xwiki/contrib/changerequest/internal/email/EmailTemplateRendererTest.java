@@ -0,0 +1,147 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.email;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Provider;
+import javax.script.ScriptContext;
+import javax.script.SimpleScriptContext;
+
+import org.apache.velocity.VelocityContext;
+import org.junit.jupiter.api.Test;
+import org.xwiki.context.Execution;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.notifications.CompositeEvent;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.script.ScriptContextManager;
+import org.xwiki.template.Template;
+import org.xwiki.template.TemplateContent;
+import org.xwiki.template.TemplateManager;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.velocity.VelocityManager;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link EmailTemplateRenderer}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class EmailTemplateRendererTest
+{
+    @InjectMockComponents
+    private EmailTemplateRenderer renderer;
+
+    @MockComponent
+    private TemplateManager templateManager;
+
+    @MockComponent
+    private ScriptContextManager scriptContextManager;
+
+    @MockComponent
+    private Provider<XWikiContext> contextProvider;
+
+    @MockComponent
+    private Execution execution;
+
+    @MockComponent
+    private VelocityManager velocityManager;
+
+    @Test
+    void executeTemplateWithSeveralEvents() throws Exception
+    {
+        XWikiContext context = mock(XWikiContext.class);
+        when(this.contextProvider.get()).thenReturn(context);
+        when(context.getWiki()).thenReturn(mock(XWiki.class));
+        DocumentReference currentUser = new DocumentReference("xwiki", "XWiki", "CurrentUser");
+        when(context.getUserReference()).thenReturn(currentUser);
+
+        ScriptContext scriptContext = new SimpleScriptContext();
+        when(this.scriptContextManager.getScriptContext()).thenReturn(scriptContext);
+        VelocityContext velocityContext = new VelocityContext();
+        velocityContext.put("existing", "initial");
+        when(this.velocityManager.getVelocityContext()).thenReturn(velocityContext);
+
+        Template template = mock(Template.class);
+        TemplateContent templateContent = mock(TemplateContent.class);
+        when(template.getContent()).thenReturn(templateContent);
+
+        CompositeEvent event1 = mock(CompositeEvent.class, "event1");
+        CompositeEvent event2 = mock(CompositeEvent.class, "event2");
+        XDOM xdom1 = mock(XDOM.class, "xdom1");
+        XDOM xdom2 = mock(XDOM.class, "xdom2");
+        // The template sets some variables: they must not be visible when rendering the next event.
+        when(this.templateManager.execute(template)).then(invocationOnMock -> {
+            Object event = scriptContext.getAttribute("event", ScriptContext.ENGINE_SCOPE);
+            assertEquals("user", scriptContext.getAttribute("emailUser", ScriptContext.ENGINE_SCOPE));
+            assertEquals("bar", scriptContext.getAttribute("foo", ScriptContext.ENGINE_SCOPE));
+            assertNull(velocityContext.get("title"));
+            assertEquals("initial", velocityContext.get("existing"));
+            velocityContext.put("title", "title of " + event);
+            velocityContext.put("existing", "modified by " + event);
+            return (event == event1) ? xdom1 : xdom2;
+        });
+
+        assertEquals(List.of(xdom1, xdom2), this.renderer.executeTemplate(List.of(event1, event2), "user",
+            template, Syntax.XHTML_1_0, Map.of("foo", "bar")));
+
+        assertFalse(velocityContext.containsKey("title"));
+        assertEquals("initial", velocityContext.get("existing"));
+        assertNull(scriptContext.getAttribute("event", ScriptContext.ENGINE_SCOPE));
+        assertNull(scriptContext.getAttribute("emailUser", ScriptContext.ENGINE_SCOPE));
+        assertNull(scriptContext.getAttribute("foo", ScriptContext.ENGINE_SCOPE));
+        verify(context).setUserReference(currentUser);
+        verify(this.execution).popContext();
+    }
+
+    @Test
+    void executeTemplateWithOneEvent() throws Exception
+    {
+        XWikiContext context = mock(XWikiContext.class);
+        when(this.contextProvider.get()).thenReturn(context);
+        when(context.getWiki()).thenReturn(mock(XWiki.class));
+        when(this.scriptContextManager.getScriptContext()).thenReturn(new SimpleScriptContext());
+        when(this.velocityManager.getVelocityContext()).thenReturn(new VelocityContext());
+
+        Template template = mock(Template.class);
+        when(template.getContent()).thenReturn(mock(TemplateContent.class));
+        XDOM xdom = mock(XDOM.class);
+        when(this.templateManager.execute(template)).thenReturn(xdom);
+
+        assertSame(xdom, this.renderer.executeTemplate(mock(CompositeEvent.class), "user", template,
+            Syntax.PLAIN_1_0, Map.of()));
+    }
+}
@@ -47,7 +47,6 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -85,7 +84,6 @@ class ChangeRequestCreatedEventListenerTest
         ChangeRequest data = mock(ChangeRequest.class);
         UserReference creator = mock(UserReference.class);
         when(data.getCreator()).thenReturn(creator);
-        when(changeRequestAutoWatchHandler.hasAutoWatchEnabled(creator)).thenReturn(true);
         FileChange fileChange = mock(FileChange.class);
         String fileChangeId = "fileChangeId";
         when(fileChange.getId()).thenReturn(fileChangeId);
@@ -99,9 +97,6 @@ class ChangeRequestCreatedEventListenerTest
             approver2,
             approver3
         ));
-        when(changeRequestAutoWatchHandler.hasAutoWatchEnabled(approver1)).thenReturn(true);
-        when(changeRequestAutoWatchHandler.hasAutoWatchEnabled(approver2)).thenReturn(false);
-        when(changeRequestAutoWatchHandler.hasAutoWatchEnabled(approver3)).thenReturn(true);
 
         DocumentReference documentReference = mock(DocumentReference.class);
         when(data.getModifiedDocuments()).thenReturn(Collections.singleton(documentReference));
@@ -124,9 +119,7 @@ class ChangeRequestCreatedEventListenerTest
         verify(this.changeRequestRecordableEventNotifier).notifyChangeRequestRecordableEvent(
             any(ChangeRequestCreatedRecordableEvent.class),
             eq(document));
-        verify(changeRequestAutoWatchHandler).watchChangeRequest(data, creator);
-        verify(changeRequestAutoWatchHandler).watchChangeRequest(data, approver1);
-        verify(changeRequestAutoWatchHandler).watchChangeRequest(data, approver3);
-        verify(changeRequestAutoWatchHandler, never()).watchChangeRequest(data, approver2);
+        verify(changeRequestAutoWatchHandler)
+            .watchChangeRequest(data, Set.of(creator, approver1, approver2, approver3));
     }
 }
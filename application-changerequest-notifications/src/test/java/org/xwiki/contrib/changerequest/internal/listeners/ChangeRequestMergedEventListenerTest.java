@@ -21,8 +21,10 @@ package org.xwiki.contrib.changerequest.internal.listeners;
 
 import java.util.List;
 import java.util.Set;
+import java.util.function.Predicate;
 
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.xwiki.contrib.changerequest.ChangeRequest;
 import org.xwiki.contrib.changerequest.ChangeRequestException;
 import org.xwiki.contrib.changerequest.FileChange;
@@ -35,6 +37,10 @@ import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
 import org.xwiki.user.UserReference;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -66,10 +72,6 @@ class ChangeRequestMergedEventListenerTest
         FileChange fileChange2 = mock(FileChange.class, "fileChange2");
         FileChange fileChange3 = mock(FileChange.class, "fileChange3");
 
-        when(this.autoWatchHandler.getAutomaticWatchMode(user1)).thenReturn(AutomaticWatchMode.NEW);
-        when(this.autoWatchHandler.getAutomaticWatchMode(user2)).thenReturn(AutomaticWatchMode.NONE);
-        when(this.autoWatchHandler.getAutomaticWatchMode(user3)).thenReturn(AutomaticWatchMode.ALL);
-
         when(fileChange1.getType()).thenReturn(FileChange.FileChangeType.EDITION);
         when(fileChange2.getType()).thenReturn(FileChange.FileChangeType.DELETION);
         when(fileChange3.getType()).thenReturn(FileChange.FileChangeType.CREATION);
@@ -85,16 +87,23 @@ class ChangeRequestMergedEventListenerTest
         when(changeRequest.getLastFileChanges()).thenReturn(List.of(fileChange1, fileChange2, fileChange3));
 
         this.changeRequestMergedEventListener.onEvent(new ChangeRequestMergedEvent(), null, changeRequest);
-        verify(this.autoWatchHandler, never()).watchDocument(entity1, user1);
-        verify(this.autoWatchHandler, never()).watchDocument(entity1, user2);
-        verify(this.autoWatchHandler).watchDocument(entity1, user3);
 
-        verify(this.autoWatchHandler, never()).watchDocument(entity2, user1);
-        verify(this.autoWatchHandler, never()).watchDocument(entity2, user2);
-        verify(this.autoWatchHandler, never()).watchDocument(entity2, user3);
+        ArgumentCaptor<Predicate<AutomaticWatchMode>> creationPredicate = ArgumentCaptor.forClass(Predicate.class);
+        verify(this.autoWatchHandler).watchDocuments(eq(List.of(entity3)), eq(Set.of(user1, user2, user3)),
+            creationPredicate.capture());
+        assertTrue(creationPredicate.getValue().test(AutomaticWatchMode.NEW));
+        assertTrue(creationPredicate.getValue().test(AutomaticWatchMode.ALL));
+        assertTrue(creationPredicate.getValue().test(AutomaticWatchMode.MAJOR));
+        assertFalse(creationPredicate.getValue().test(AutomaticWatchMode.NONE));
+
+        ArgumentCaptor<Predicate<AutomaticWatchMode>> editionPredicate = ArgumentCaptor.forClass(Predicate.class);
+        verify(this.autoWatchHandler).watchDocuments(eq(List.of(entity1)), eq(Set.of(user1, user2, user3)),
+            editionPredicate.capture());
+        assertFalse(editionPredicate.getValue().test(AutomaticWatchMode.NEW));
+        assertTrue(editionPredicate.getValue().test(AutomaticWatchMode.ALL));
+        assertTrue(editionPredicate.getValue().test(AutomaticWatchMode.MAJOR));
+        assertFalse(editionPredicate.getValue().test(AutomaticWatchMode.NONE));
 
-        verify(this.autoWatchHandler).watchDocument(entity3, user1);
-        verify(this.autoWatchHandler, never()).watchDocument(entity3, user2);
-        verify(this.autoWatchHandler).watchDocument(entity3, user3);
+        verify(this.autoWatchHandler, never()).watchDocument(any(), any());
     }
-}
\ No newline at end of file
+}
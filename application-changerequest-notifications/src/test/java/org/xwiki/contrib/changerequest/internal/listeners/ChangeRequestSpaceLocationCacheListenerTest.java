@@ -0,0 +1,72 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.internal.listeners;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.contrib.changerequest.internal.ChangeRequestSpaceLocationCache;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ChangeRequestSpaceLocationCacheListener}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class ChangeRequestSpaceLocationCacheListenerTest
+{
+    @InjectMockComponents
+    private ChangeRequestSpaceLocationCacheListener listener;
+
+    @MockComponent
+    private Provider<ChangeRequestSpaceLocationCache> spaceLocationCacheProvider;
+
+    @Test
+    void onEvent()
+    {
+        ChangeRequestSpaceLocationCache spaceLocationCache = mock(ChangeRequestSpaceLocationCache.class);
+        when(this.spaceLocationCacheProvider.get()).thenReturn(spaceLocationCache);
+
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getDocumentReference()).thenReturn(new DocumentReference("subwiki", "Space", "Page"));
+        this.listener.onEvent(new DocumentUpdatedEvent(), document, null);
+        verifyNoInteractions(this.spaceLocationCacheProvider);
+
+        when(document.getDocumentReference()).thenReturn(
+            new DocumentReference(ChangeRequestSpaceLocationCacheListener.CONFIGURATION_REFERENCE,
+                new WikiReference("subwiki")));
+        this.listener.onEvent(new DocumentUpdatedEvent(), document, null);
+        verify(spaceLocationCache).invalidate(new WikiReference("subwiki"));
+    }
+}
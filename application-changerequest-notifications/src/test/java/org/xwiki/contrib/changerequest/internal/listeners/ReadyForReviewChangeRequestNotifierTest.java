@@ -20,6 +20,7 @@
 package org.xwiki.contrib.changerequest.internal.listeners;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
@@ -36,6 +37,7 @@ import org.xwiki.contrib.changerequest.notifications.events.ChangeRequestReadyFo
 import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
@@ -47,6 +49,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -72,6 +75,9 @@ class ReadyForReviewChangeRequestNotifierTest
     @MockComponent
     private UserReferenceSerializer<String> userReferenceSerializer;
 
+    @MockComponent
+    private EntityReferenceSerializer<String> entityReferenceSerializer;
+
     @MockComponent
     private ChangeRequestRecordableEventNotifier changeRequestRecordableEventNotifier;
 
@@ -104,8 +110,12 @@ class ReadyForReviewChangeRequestNotifierTest
         when(this.userReferenceSerializer.serialize(approver1)).thenReturn("approver1");
         when(this.userReferenceSerializer.serialize(approver2)).thenReturn("approver2");
         when(this.userReferenceSerializer.serialize(approver3)).thenReturn("approver3");
-        when(this.changeRequestApproversManager.getAllApprovers(changeRequest, true))
+        when(this.changeRequestApproversManager.getAllApprovers(changeRequest, false))
             .thenReturn(new HashSet<>(Arrays.asList(approver1, approver2, approver3)));
+        DocumentReference group = new DocumentReference("xwiki", "XWiki", "Group");
+        when(this.changeRequestApproversManager.getGroupsApprovers(changeRequest))
+            .thenReturn(Collections.singleton(group));
+        when(this.entityReferenceSerializer.serialize(group)).thenReturn("xwiki:XWiki.Group");
 
         DocumentReference crDocRef = mock(DocumentReference.class);
         DocumentModelBridge documentModelBridge = mock(DocumentModelBridge.class);
@@ -115,7 +125,8 @@ class ReadyForReviewChangeRequestNotifierTest
         Set<String> expectedTargets = new HashSet<>(Arrays.asList(
             "approver1",
             "approver2",
-            "approver3"
+            "approver3",
+            "xwiki:XWiki.Group"
         ));
 
         doAnswer(invocationOnMock -> {
@@ -131,5 +142,47 @@ class ReadyForReviewChangeRequestNotifierTest
         verify(this.changeRequestRecordableEventNotifier).notifyChangeRequestRecordableEvent(
             any(ChangeRequestReadyForReviewTargetableEvent.class),
             eq(documentModelBridge));
+        verify(this.changeRequestApproversManager, never()).getAllApprovers(changeRequest, true);
+    }
+
+    @Test
+    void onEventWithBigApproversGroup() throws Exception
+    {
+        String changeRequestId = "crId";
+        ChangeRequest changeRequest = mock(ChangeRequest.class);
+        when(this.changeRequestStorageManager.load(changeRequestId)).thenReturn(Optional.of(changeRequest));
+
+        // Simulate a group of 10k members: expanding it would require to serialize each of them.
+        Set<UserReference> groupMembers = new HashSet<>();
+        for (int i = 0; i < 10000; i++) {
+            groupMembers.add(mock(UserReference.class));
+        }
+        when(this.changeRequestApproversManager.getAllApprovers(changeRequest, true)).thenReturn(groupMembers);
+        when(this.changeRequestApproversManager.getAllApprovers(changeRequest, false))
+            .thenReturn(Collections.emptySet());
+        DocumentReference group = new DocumentReference("xwiki", "XWiki", "BigGroup");
+        when(this.changeRequestApproversManager.getGroupsApprovers(changeRequest))
+            .thenReturn(Collections.singleton(group));
+        when(this.entityReferenceSerializer.serialize(group)).thenReturn("xwiki:XWiki.BigGroup");
+
+        DocumentReference crDocRef = mock(DocumentReference.class);
+        DocumentModelBridge documentModelBridge = mock(DocumentModelBridge.class);
+        when(this.changeRequestDocumentReferenceResolver.resolve(changeRequest)).thenReturn(crDocRef);
+        when(this.documentAccessBridge.getTranslatedDocumentInstance(crDocRef)).thenReturn(documentModelBridge);
+
+        doAnswer(invocationOnMock -> {
+            ChangeRequestReadyForReviewTargetableEvent targetableEvent = invocationOnMock.getArgument(0);
+            assertEquals(Collections.singleton("xwiki:XWiki.BigGroup"), targetableEvent.getTarget());
+            return null;
+        }).when(this.changeRequestRecordableEventNotifier).notifyChangeRequestRecordableEvent(
+            any(ChangeRequestReadyForReviewTargetableEvent.class), any());
+
+        this.changeRequestNotifier.onEvent(new ChangeRequestStatusChangedEvent(), changeRequestId,
+            new ChangeRequestStatus[] { ChangeRequestStatus.DRAFT, ChangeRequestStatus.READY_FOR_REVIEW });
+
+        verify(this.changeRequestRecordableEventNotifier).notifyChangeRequestRecordableEvent(
+            any(ChangeRequestReadyForReviewTargetableEvent.class), eq(documentModelBridge));
+        verify(this.changeRequestApproversManager, never()).getAllApprovers(changeRequest, true);
+        verifyNoInteractions(this.userReferenceSerializer);
     }
 }
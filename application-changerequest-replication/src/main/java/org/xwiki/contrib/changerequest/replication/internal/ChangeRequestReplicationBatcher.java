@@ -0,0 +1,178 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.replication.internal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextException;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.contrib.changerequest.ChangeRequestConfiguration;
+import org.xwiki.contrib.changerequest.replication.internal.messages.ChangeRequestReplicationBatchSenderMessage;
+import org.xwiki.contrib.replication.ReplicationException;
+import org.xwiki.contrib.replication.ReplicationSenderMessage;
+import org.xwiki.contrib.replication.entity.DocumentReplicationController;
+import org.xwiki.contrib.replication.entity.DocumentReplicationLevel;
+import org.xwiki.contrib.replication.entity.DocumentReplicationSenderMessageBuilder;
+import org.xwiki.contrib.replication.entity.EntityReplicationBuilders;
+import org.xwiki.model.reference.DocumentReference;
+
+/**
+ * Accumulates the replication messages of the change requests during a short window (see
+ * {@link ChangeRequestConfiguration#getReplicationBatchWindow()}) to send the messages of a same change request in a
+ * single {@link ChangeRequestReplicationBatchSenderMessage} to its replication instances.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component(roles = ChangeRequestReplicationBatcher.class)
+@Singleton
+public class ChangeRequestReplicationBatcher implements Initializable, Disposable
+{
+    @Inject
+    private ChangeRequestConfiguration configuration;
+
+    @Inject
+    private Provider<EntityReplicationBuilders> entityReplicationBuildersProvider;
+
+    @Inject
+    private Provider<DocumentReplicationController> documentReplicationControllerProvider;
+
+    @Inject
+    private ExecutionContextManager executionContextManager;
+
+    @Inject
+    private Execution execution;
+
+    @Inject
+    private Logger logger;
+
+    private final Map<DocumentReference, List<ReplicationSenderMessage>> pendingMessages = new LinkedHashMap<>();
+
+    private ScheduledExecutorService executor;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        this.executor = Executors.newSingleThreadScheduledExecutor(new BasicThreadFactory.Builder()
+            .namingPattern("Change request replication batcher")
+            .daemon(true)
+            .build());
+    }
+
+    /**
+     * @return {@code true} if the replication messages should be given to {@link #add(DocumentReference,
+     *         ReplicationSenderMessage)}, {@code false} if they should be sent immediately
+     */
+    public boolean isEnabled()
+    {
+        return this.configuration.getReplicationBatchWindow() > 0;
+    }
+
+    /**
+     * Add the given message to the ones to send for the given change request.
+     *
+     * @param changeRequestReference the reference of the change request document, used to find the replication
+     *            instances
+     * @param message the message to send, already initialized
+     */
+    public void add(DocumentReference changeRequestReference, ReplicationSenderMessage message)
+    {
+        boolean scheduleFlush;
+        synchronized (this.pendingMessages) {
+            scheduleFlush = this.pendingMessages.isEmpty();
+            this.pendingMessages.computeIfAbsent(changeRequestReference, key -> new ArrayList<>()).add(message);
+        }
+        if (scheduleFlush) {
+            this.executor.schedule(this::flushInExecutionContext,
+                Math.max(this.configuration.getReplicationBatchWindow(), 0), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushInExecutionContext()
+    {
+        try {
+            this.executionContextManager.initialize(new ExecutionContext());
+            this.flush();
+        } catch (ExecutionContextException e) {
+            this.logger.error("Error while initializing the context to send the replication messages", e);
+        } finally {
+            this.execution.removeContext();
+        }
+    }
+
+    /**
+     * Send immediately all the pending messages.
+     */
+    public void flush()
+    {
+        Map<DocumentReference, List<ReplicationSenderMessage>> batches;
+        synchronized (this.pendingMessages) {
+            if (this.pendingMessages.isEmpty()) {
+                return;
+            }
+            batches = new LinkedHashMap<>(this.pendingMessages);
+            this.pendingMessages.clear();
+        }
+        for (Map.Entry<DocumentReference, List<ReplicationSenderMessage>> batch : batches.entrySet()) {
+            this.send(batch.getKey(), batch.getValue());
+        }
+    }
+
+    private void send(DocumentReference changeRequestReference, List<ReplicationSenderMessage> messages)
+    {
+        try {
+            DocumentReplicationSenderMessageBuilder documentReplicationSenderMessageBuilder =
+                this.entityReplicationBuildersProvider.get()
+                    .documentMessageBuilder((builder, level, readonly, extraMetadata) ->
+                        new ChangeRequestReplicationBatchSenderMessage(messages), changeRequestReference)
+                    .minimumLevel(DocumentReplicationLevel.ALL);
+            this.documentReplicationControllerProvider.get().send(documentReplicationSenderMessageBuilder);
+        } catch (ReplicationException e) {
+            this.logger.error("Error while sending the [{}] replication messages for document [{}]", messages.size(),
+                changeRequestReference, e);
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.executor.shutdownNow();
+        this.flush();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.replication.internal;
+
+import java.util.Date;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * Position reached by a recovery of the change request replication messages: the messages are sorted by date, so the
+ * position is the date of the last sent message, along with the number of sent messages having exactly that date.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+public class ChangeRequestReplicationRecoveryCursor
+{
+    private final Date date;
+
+    private final int offset;
+
+    /**
+     * Default constructor.
+     *
+     * @param date the date of the last sent message
+     * @param offset the number of sent messages having exactly the given date
+     */
+    public ChangeRequestReplicationRecoveryCursor(Date date, int offset)
+    {
+        this.date = date;
+        this.offset = offset;
+    }
+
+    /**
+     * @return the date of the last sent message
+     */
+    public Date getDate()
+    {
+        return this.date;
+    }
+
+    /**
+     * @return the number of sent messages having exactly the date returned by {@link #getDate()}
+     */
+    public int getOffset()
+    {
+        return this.offset;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ChangeRequestReplicationRecoveryCursor that = (ChangeRequestReplicationRecoveryCursor) o;
+
+        return new EqualsBuilder()
+            .append(this.offset, that.offset)
+            .append(this.date, that.date)
+            .isEquals();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return new HashCodeBuilder(17, 37)
+            .append(this.date)
+            .append(this.offset)
+            .toHashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this)
+            .append("date", this.date)
+            .append("offset", this.offset)
+            .toString();
+    }
+}
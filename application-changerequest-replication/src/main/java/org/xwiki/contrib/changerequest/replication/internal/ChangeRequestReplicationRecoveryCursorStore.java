@@ -0,0 +1,139 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.replication.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.Properties;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.environment.Environment;
+
+/**
+ * Persist the position reached by the recovery of the change request replication messages for each instance, so that
+ * an interrupted recovery can be resumed where it stopped instead of sending again all the messages.
+ * The positions are stored in a properties file in the permanent directory.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component(roles = ChangeRequestReplicationRecoveryCursorStore.class)
+@Singleton
+public class ChangeRequestReplicationRecoveryCursorStore
+{
+    private static final String STORE_PATH = "changerequest/replication/recovery.properties";
+
+    private static final String DATE_SUFFIX = ".date";
+
+    private static final String OFFSET_SUFFIX = ".offset";
+
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * @param instance the URI of the instance being recovered
+     * @return the position reached by the last recovery of the instance if it did not complete, {@code null} otherwise
+     */
+    public synchronized ChangeRequestReplicationRecoveryCursor getCursor(String instance)
+    {
+        Properties properties = load();
+        long date = NumberUtils.toLong(properties.getProperty(instance + DATE_SUFFIX), -1);
+        if (date < 0) {
+            return null;
+        }
+        return new ChangeRequestReplicationRecoveryCursor(new Date(date),
+            NumberUtils.toInt(properties.getProperty(instance + OFFSET_SUFFIX)));
+    }
+
+    /**
+     * Save the position reached by the recovery of the given instance.
+     *
+     * @param instance the URI of the instance being recovered
+     * @param cursor the position reached by the recovery
+     */
+    public synchronized void setCursor(String instance, ChangeRequestReplicationRecoveryCursor cursor)
+    {
+        Properties properties = load();
+        properties.setProperty(instance + DATE_SUFFIX, String.valueOf(cursor.getDate().getTime()));
+        properties.setProperty(instance + OFFSET_SUFFIX, String.valueOf(cursor.getOffset()));
+        save(properties);
+    }
+
+    /**
+     * Remove the position of the given instance, once its recovery is complete.
+     *
+     * @param instance the URI of the instance which has been recovered
+     */
+    public synchronized void removeCursor(String instance)
+    {
+        Properties properties = load();
+        if (properties.remove(instance + DATE_SUFFIX) != null) {
+            properties.remove(instance + OFFSET_SUFFIX);
+            save(properties);
+        }
+    }
+
+    private File getStoreFile()
+    {
+        return new File(this.environment.getPermanentDirectory(), STORE_PATH);
+    }
+
+    private Properties load()
+    {
+        Properties properties = new Properties();
+        File file = getStoreFile();
+        if (file.exists()) {
+            try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+                properties.load(inputStream);
+            } catch (IOException e) {
+                this.logger.warn("Error while reading the change request replication recovery positions from [{}]: "
+                    + "[{}]", file, e.getMessage());
+            }
+        }
+        return properties;
+    }
+
+    private void save(Properties properties)
+    {
+        File file = getStoreFile();
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            try (OutputStream outputStream = Files.newOutputStream(file.toPath())) {
+                properties.store(outputStream, null);
+            }
+        } catch (IOException e) {
+            // The recovery can still be performed, it just won't be possible to resume it.
+            this.logger.warn("Error while saving the change request replication recovery positions to [{}]: [{}]",
+                file, e.getMessage());
+        }
+    }
+}
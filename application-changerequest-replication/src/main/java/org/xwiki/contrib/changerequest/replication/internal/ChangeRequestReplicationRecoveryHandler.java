@@ -19,11 +19,14 @@
  */
 package org.xwiki.contrib.changerequest.replication.internal;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import org.xwiki.component.annotation.Component;
@@ -37,16 +40,24 @@ import org.xwiki.contrib.changerequest.notifications.events.ChangeRequestStatusC
 import org.xwiki.contrib.changerequest.notifications.events.ChangeRequestUpdatedRecordableEvent;
 import org.xwiki.contrib.changerequest.notifications.events.DocumentModifiedInChangeRequestEvent;
 import org.xwiki.contrib.changerequest.notifications.events.StaleChangeRequestRecordableEvent;
+import org.xwiki.contrib.changerequest.replication.internal.messages.ChangeRequestReplicationBatchSenderMessage;
 import org.xwiki.contrib.replication.ReplicationException;
 import org.xwiki.contrib.replication.ReplicationInstanceRecoverHandler;
 import org.xwiki.contrib.replication.ReplicationReceiverMessage;
 import org.xwiki.contrib.replication.ReplicationSender;
 import org.xwiki.contrib.replication.log.ReplicationMessageEventQuery;
 import org.xwiki.eventstream.Event;
+import org.xwiki.eventstream.EventSearchResult;
+import org.xwiki.eventstream.EventStore;
 import org.xwiki.eventstream.query.SortableEventQuery;
 
 /**
  * Component in charge of recovering the lost change request events in replication.
+ * <p>
+ * The messages to send again are handled by pages of {@value #PAGE_SIZE}, each page being sent before the next one is
+ * searched, so that the recovery does not need to keep all the messages in memory. The position reached after each
+ * page is persisted with {@link ChangeRequestReplicationRecoveryCursorStore}: if the recovery is interrupted, the next
+ * recovery of the same instance resumes from this position.
  *
  * @version $Id$
  * @since 1.4
@@ -56,12 +67,78 @@ import org.xwiki.eventstream.query.SortableEventQuery;
 @Singleton
 public class ChangeRequestReplicationRecoveryHandler implements ReplicationInstanceRecoverHandler
 {
+    /**
+     * Number of messages sent at once.
+     */
+    static final int PAGE_SIZE = 100;
+
     @Inject
     private ReplicationSender replicationSender;
 
+    @Inject
+    private Provider<EventStore> eventStoreProvider;
+
+    @Inject
+    private ChangeRequestReplicationRecoveryCursorStore cursorStore;
+
     @Override
     public void receive(Date dateMin, Date dateMax, ReplicationReceiverMessage message)
         throws ReplicationException
+    {
+        String instance = message.getSource();
+        List<String> receivers = List.of(instance);
+
+        ChangeRequestReplicationRecoveryCursor cursor = this.cursorStore.getCursor(instance);
+        // Only resume a previous recovery if it stopped within the requested range
+        if (cursor != null && (cursor.getDate().before(dateMin) || !cursor.getDate().before(dateMax))) {
+            cursor = null;
+        }
+
+        boolean hasNext = true;
+        while (hasNext) {
+            ReplicationMessageEventQuery query = createQuery(dateMin, dateMax, cursor);
+
+            List<String> ids = new ArrayList<>(PAGE_SIZE);
+            Date lastDate = null;
+            int lastDateCount = 0;
+            try (EventSearchResult result = this.eventStoreProvider.get().search(query)) {
+                Iterator<Event> iterator = result.stream().iterator();
+                while (iterator.hasNext()) {
+                    Event event = iterator.next();
+                    ids.add(event.getId());
+                    if (event.getDate().equals(lastDate)) {
+                        lastDateCount++;
+                    } else {
+                        lastDate = event.getDate();
+                        lastDateCount = 1;
+                    }
+                }
+            } catch (Exception e) {
+                throw new ReplicationException(
+                    String.format("Error while searching the change request messages to send to [%s]", instance), e);
+            }
+
+            if (!ids.isEmpty()) {
+                ReplicationMessageEventQuery pageQuery = new ReplicationMessageEventQuery();
+                pageQuery.in(Event.FIELD_ID, ids);
+                pageQuery.addSort(Event.FIELD_DATE, SortableEventQuery.SortClause.Order.ASC);
+                this.replicationSender.resend(pageQuery, receivers);
+
+                // All the messages of the page have the date of the cursor: the offset moves forward
+                if (cursor != null && cursor.getDate().equals(lastDate)) {
+                    lastDateCount += cursor.getOffset();
+                }
+                cursor = new ChangeRequestReplicationRecoveryCursor(lastDate, lastDateCount);
+                this.cursorStore.setCursor(instance, cursor);
+            }
+            hasNext = ids.size() == PAGE_SIZE;
+        }
+
+        this.cursorStore.removeCursor(instance);
+    }
+
+    private ReplicationMessageEventQuery createQuery(Date dateMin, Date dateMax,
+        ChangeRequestReplicationRecoveryCursor cursor)
     {
         ReplicationMessageEventQuery query = new ReplicationMessageEventQuery();
 
@@ -76,7 +153,8 @@ public class ChangeRequestReplicationRecoveryHandler implements ReplicationInsta
             ReplicationMessageEventQuery.messageTypeValue(ChangeRequestReviewAddedRecordableEvent.EVENT_NAME),
             ReplicationMessageEventQuery.messageTypeValue(ChangeRequestStatusChangedRecordableEvent.EVENT_NAME),
             ReplicationMessageEventQuery.messageTypeValue(StaleChangeRequestRecordableEvent.EVENT_NAME),
-            ReplicationMessageEventQuery.messageTypeValue(DocumentModifiedInChangeRequestEvent.EVENT_NAME)
+            ReplicationMessageEventQuery.messageTypeValue(DocumentModifiedInChangeRequestEvent.EVENT_NAME),
+            ReplicationMessageEventQuery.messageTypeValue(ChangeRequestReplicationBatchSenderMessage.TYPE)
         ));
 
         // And only the stored and received ones
@@ -85,12 +163,19 @@ public class ChangeRequestReplicationRecoveryHandler implements ReplicationInsta
             ReplicationMessageEventQuery.VALUE_STATUS_STORED,
             ReplicationMessageEventQuery.VALUE_STATUS_RECEIVED);
 
-        // Minimum date
-        query.after(dateMin);
+        // Minimum date, or the position reached by a previous recovery
+        if (cursor == null) {
+            query.after(dateMin);
+        } else {
+            query.greaterOrEq(Event.FIELD_DATE, cursor.getDate());
+            query.setOffset(cursor.getOffset());
+        }
         query.before(dateMax);
-        // Sort by date
+        // Sort by date, and then by id to get stable pages
         query.addSort(Event.FIELD_DATE, SortableEventQuery.SortClause.Order.ASC);
+        query.addSort(Event.FIELD_ID, SortableEventQuery.SortClause.Order.ASC);
+        query.setLimit(PAGE_SIZE);
 
-        this.replicationSender.resend(query, List.of(message.getSource()));
+        return query;
     }
 }
@@ -19,8 +19,6 @@
  */
 package org.xwiki.contrib.changerequest.replication.internal.listeners;
 
-import java.util.Optional;
-
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
@@ -29,10 +27,9 @@ import org.slf4j.Logger;
 import org.xwiki.component.manager.ComponentLookupException;
 import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.contrib.changerequest.ChangeRequest;
-import org.xwiki.contrib.changerequest.ChangeRequestException;
 import org.xwiki.contrib.changerequest.notifications.events.AbstractChangeRequestRecordableEvent;
+import org.xwiki.contrib.changerequest.replication.internal.ChangeRequestReplicationBatcher;
 import org.xwiki.contrib.changerequest.replication.internal.messages.ChangeRequestReplicationSenderMessage;
-import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
 import org.xwiki.contrib.replication.ReplicationContext;
 import org.xwiki.contrib.replication.ReplicationException;
 import org.xwiki.contrib.replication.entity.DocumentReplicationController;
@@ -77,7 +74,7 @@ public abstract class AbstractChangeRequestEventListener<T extends RecordableEve
     private Provider<DocumentReplicationController> documentReplicationControllerProvider;
 
     @Inject
-    private Provider<ChangeRequestStorageManager> changeRequestStorageManagerProvider;
+    private Provider<ChangeRequestReplicationBatcher> replicationBatcherProvider;
 
     @Inject
     private DocumentReferenceResolver<ChangeRequest> changeRequestDocumentReferenceResolver;
@@ -116,25 +113,17 @@ public abstract class AbstractChangeRequestEventListener<T extends RecordableEve
     {
         DocumentReference result = dataDocumentReference;
         if (event instanceof AbstractChangeRequestRecordableEvent) {
+            // The reference only depends on the identifier: no need to load the change request.
             String changeRequestId = ((AbstractChangeRequestRecordableEvent) event).getChangeRequestId();
-            try {
-                Optional<ChangeRequest> optionalChangeRequest = this.changeRequestStorageManagerProvider.get()
-                    .load(changeRequestId);
-                if (optionalChangeRequest.isPresent()) {
-                    result = this.changeRequestDocumentReferenceResolver.resolve(optionalChangeRequest.get());
-                } else {
-                    this.logger.error("No change request found with identifier [{}]", changeRequestId);
-                }
-            } catch (ChangeRequestException e) {
-                this.logger.error("Cannot load change request [{}]", changeRequestId, e);
-            }
+            result = this.changeRequestDocumentReferenceResolver.resolve(new ChangeRequest().setId(changeRequestId));
         }
         return result;
     }
 
     /**
      * Create a new instance of a message associated to the event, initialize it with event information and finally
-     * sent it to the replicated instances.
+     * sent it to the replicated instances. The message might be sent later along with other messages of the same
+     * change request, see {@link ChangeRequestReplicationBatcher}.
      *
      * @param event the event from which to create the message.
      * @param messageHint the hint of the {@link ChangeRequestReplicationSenderMessage}: by convention it should be the
@@ -146,29 +135,39 @@ public abstract class AbstractChangeRequestEventListener<T extends RecordableEve
     {
         try {
             DocumentReference originalReference = getDocumentReference(event, dataDocumentReference);
-            DocumentReplicationSenderMessageBuilder documentReplicationSenderMessageBuilder =
-                this.entityReplicationBuildersProvider.get()
-                    .documentMessageBuilder((builder, level, readonly, extraMetadata) ->
-                    {
-                        try {
-                            ChangeRequestReplicationSenderMessage message = this.componentManager
-                                .getInstance(ChangeRequestReplicationSenderMessage.class, messageHint);
-                            message.initialize(event, dataDocumentReference);
-                            return message;
-                        } catch (ComponentLookupException e) {
-                            throw new ReplicationException(
-                                String .format("Error when looking for replication component message with hint [%s]",
-                                    messageHint), e);
-                        }
-                    }, originalReference)
-                    .minimumLevel(DocumentReplicationLevel.ALL);
-            this.documentReplicationControllerProvider.get().send(documentReplicationSenderMessageBuilder);
+            ChangeRequestReplicationBatcher replicationBatcher = this.replicationBatcherProvider.get();
+            if (replicationBatcher.isEnabled()) {
+                // The message is initialized right away, to get the context of the event.
+                replicationBatcher.add(originalReference, createMessage(event, messageHint, dataDocumentReference));
+            } else {
+                DocumentReplicationSenderMessageBuilder documentReplicationSenderMessageBuilder =
+                    this.entityReplicationBuildersProvider.get()
+                        .documentMessageBuilder((builder, level, readonly, extraMetadata) ->
+                            createMessage(event, messageHint, dataDocumentReference), originalReference)
+                        .minimumLevel(DocumentReplicationLevel.ALL);
+                this.documentReplicationControllerProvider.get().send(documentReplicationSenderMessageBuilder);
+            }
         } catch (ReplicationException e) {
             this.logger.error("Error while sending the replication message for document [{}]",
                 dataDocumentReference, e);
         }
     }
 
+    private ChangeRequestReplicationSenderMessage createMessage(T event, String messageHint,
+        DocumentReference dataDocumentReference) throws ReplicationException
+    {
+        try {
+            ChangeRequestReplicationSenderMessage message = this.componentManager
+                .getInstance(ChangeRequestReplicationSenderMessage.class, messageHint);
+            message.initialize(event, dataDocumentReference);
+            return message;
+        } catch (ComponentLookupException e) {
+            throw new ReplicationException(
+                String.format("Error when looking for replication component message with hint [%s]",
+                    messageHint), e);
+        }
+    }
+
     /**
      * The hint of the {@link ChangeRequestReplicationSenderMessage} component to be used in
      * {@link #processMessage(RecordableEvent, String, DocumentReference)}. By convention this hint is generally
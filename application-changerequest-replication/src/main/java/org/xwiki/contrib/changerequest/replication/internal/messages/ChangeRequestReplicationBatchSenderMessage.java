@@ -0,0 +1,136 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.replication.internal.messages;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.xwiki.contrib.replication.AbstractReplicationMessage;
+import org.xwiki.contrib.replication.ReplicationSenderMessage;
+
+/**
+ * Sender message grouping several replication messages of a same change request, to send them in a single message to
+ * the replicated instances.
+ * The types of the grouped messages are stored in order in the {@link #MESSAGE_TYPES} custom metadata, and the custom
+ * metadata of each grouped message are stored with a key prefixed by its index (see
+ * {@link #getMessageMetadataKey(int, String)}). Note that the grouped messages are not expected to have any content.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+public class ChangeRequestReplicationBatchSenderMessage extends AbstractReplicationMessage
+{
+    /**
+     * Type of the message.
+     */
+    public static final String TYPE = "changerequest.replication.batch";
+
+    /**
+     * Key of the custom metadata holding the ordered types of the grouped messages.
+     */
+    public static final String MESSAGE_TYPES = "MESSAGE_TYPES";
+
+    private static final String MESSAGE_METADATA_PREFIX = "MESSAGE_";
+
+    private final String id;
+
+    private final Date date;
+
+    private final Map<String, Collection<String>> metadata;
+
+    /**
+     * Default constructor.
+     *
+     * @param messages the messages to group, in the order they should be handled by the replicated instances
+     */
+    public ChangeRequestReplicationBatchSenderMessage(List<? extends ReplicationSenderMessage> messages)
+    {
+        this.id = UUID.randomUUID().toString();
+        this.date = new Date();
+
+        Map<String, Collection<String>> map = new LinkedHashMap<>();
+        List<String> types = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            ReplicationSenderMessage message = messages.get(i);
+            types.add(message.getType());
+            for (Map.Entry<String, Collection<String>> entry : message.getCustomMetadata().entrySet()) {
+                map.put(getMessageMetadataKey(i, entry.getKey()), entry.getValue());
+            }
+        }
+        map.put(MESSAGE_TYPES, types);
+        this.metadata = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Compute the key used to store a custom metadata of a grouped message.
+     *
+     * @param index the index of the grouped message
+     * @param key the key of the custom metadata in the grouped message
+     * @return the key of the custom metadata in the batch message
+     */
+    public static String getMessageMetadataKey(int index, String key)
+    {
+        return MESSAGE_METADATA_PREFIX + index + '_' + key;
+    }
+
+    @Override
+    public String getId()
+    {
+        return this.id;
+    }
+
+    @Override
+    public Date getDate()
+    {
+        return this.date;
+    }
+
+    @Override
+    public String getSource()
+    {
+        return null;
+    }
+
+    @Override
+    public String getType()
+    {
+        return TYPE;
+    }
+
+    @Override
+    public Map<String, Collection<String>> getCustomMetadata()
+    {
+        return this.metadata;
+    }
+
+    @Override
+    public void write(OutputStream stream) throws IOException
+    {
+        // No content associated with this message
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.replication.internal.receivers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.xwiki.contrib.changerequest.replication.internal.messages.ChangeRequestReplicationBatchSenderMessage;
+import org.xwiki.contrib.replication.ReplicationInstance;
+import org.xwiki.contrib.replication.ReplicationReceiverMessage;
+
+/**
+ * View of one of the messages grouped in a received {@link ChangeRequestReplicationBatchSenderMessage}: it exposes
+ * the type and the custom metadata of the grouped message, and the other information of the batch message.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+public class BatchedReplicationReceiverMessage implements ReplicationReceiverMessage
+{
+    private final ReplicationReceiverMessage batchMessage;
+
+    private final int index;
+
+    private final String type;
+
+    private final Map<String, Collection<String>> metadata;
+
+    /**
+     * Default constructor.
+     *
+     * @param batchMessage the received batch message
+     * @param index the index of the grouped message in the batch
+     * @param type the type of the grouped message
+     */
+    public BatchedReplicationReceiverMessage(ReplicationReceiverMessage batchMessage, int index, String type)
+    {
+        this.batchMessage = batchMessage;
+        this.index = index;
+        this.type = type;
+
+        String prefix = ChangeRequestReplicationBatchSenderMessage.getMessageMetadataKey(index, "");
+        this.metadata = new HashMap<>();
+        for (Map.Entry<String, Collection<String>> entry : batchMessage.getCustomMetadata().entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                this.metadata.put(entry.getKey().substring(prefix.length()), entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public String getId()
+    {
+        return this.batchMessage.getId() + '/' + this.index;
+    }
+
+    @Override
+    public Date getDate()
+    {
+        return this.batchMessage.getDate();
+    }
+
+    @Override
+    public String getSource()
+    {
+        return this.batchMessage.getSource();
+    }
+
+    @Override
+    public String getType()
+    {
+        return this.type;
+    }
+
+    @Override
+    public Collection<String> getReceivers()
+    {
+        return this.batchMessage.getReceivers();
+    }
+
+    @Override
+    public Map<String, Collection<String>> getCustomMetadata()
+    {
+        return this.metadata;
+    }
+
+    @Override
+    public ReplicationInstance getInstance()
+    {
+        return this.batchMessage.getInstance();
+    }
+
+    @Override
+    public InputStream open() throws IOException
+    {
+        // The grouped messages don't have any content
+        return new ByteArrayInputStream(new byte[0]);
+    }
+}
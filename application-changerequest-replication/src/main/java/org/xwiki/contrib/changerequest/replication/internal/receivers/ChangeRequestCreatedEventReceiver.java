@@ -19,6 +19,7 @@
  */
 package org.xwiki.contrib.changerequest.replication.internal.receivers;
 
+import java.util.LinkedHashSet;
 import java.util.Optional;
 import java.util.Set;
 
@@ -76,25 +77,16 @@ public class ChangeRequestCreatedEventReceiver extends AbstractChangeRequestRece
             Optional<ChangeRequest> changeRequestOpt = this.changeRequestStorageManager.load(changeRequestId);
             if (changeRequestOpt.isPresent()) {
                 ChangeRequest changeRequest = changeRequestOpt.get();
-                if (this.autoWatchHandler.hasAutoWatchEnabled(changeRequest.getCreator())) {
-                    this.autoWatchHandler.watchChangeRequest(changeRequest, changeRequest.getCreator());
+                Set<UserReference> participants = new LinkedHashSet<>();
+                participants.add(changeRequest.getCreator());
+                participants.addAll(this.approversManagerProvider.get().getAllApprovers(changeRequest, false));
+                try {
+                    this.autoWatchHandler.watchChangeRequest(changeRequest, participants);
+                } catch (ChangeRequestException e) {
+                    this.logger.error("Error while handling autowatch for changerequest [{}]: [{}]", changeRequestId,
+                        ExceptionUtils.getRootCauseMessage(e));
+                    this.logger.debug("Full stack trace: ", e);
                 }
-                Set<UserReference> allApprovers =
-                    this.approversManagerProvider.get().getAllApprovers(changeRequest, false);
-                allApprovers.forEach(userReference -> {
-                    if (autoWatchHandler.hasAutoWatchEnabled(userReference)) {
-                        try {
-                            autoWatchHandler.watchChangeRequest(changeRequest, userReference);
-                        } catch (ChangeRequestException e) {
-                            this.logger.error(
-                                "Error while handling autowatch for changerequest [{}] and approver [{}]: [{}]",
-                                changeRequest, userReference,
-                                ExceptionUtils.getRootCauseMessage(e)
-                            );
-                            this.logger.debug("Full stack trace: ", e);
-                        }
-                    }
-                });
             }
         } catch (ChangeRequestException e) {
             throw new ReplicationException(
@@ -0,0 +1,82 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.replication.internal.receivers;
+
+import java.util.Collection;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.contrib.changerequest.replication.internal.messages.ChangeRequestReplicationBatchSenderMessage;
+import org.xwiki.contrib.replication.AbstractReplicationReceiver;
+import org.xwiki.contrib.replication.ReplicationException;
+import org.xwiki.contrib.replication.ReplicationReceiver;
+import org.xwiki.contrib.replication.ReplicationReceiverMessage;
+
+/**
+ * Receiver of {@link ChangeRequestReplicationBatchSenderMessage}: each grouped message is handled in order by the
+ * receiver of its type, as if it had been received separately.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@Component
+@Singleton
+@Named(ChangeRequestReplicationBatchSenderMessage.TYPE)
+public class ChangeRequestReplicationBatchReceiver extends AbstractReplicationReceiver
+{
+    @Inject
+    @Named("context")
+    private Provider<ComponentManager> componentManagerProvider;
+
+    @Inject
+    private Logger logger;
+
+    @Override
+    public void receive(ReplicationReceiverMessage message) throws ReplicationException
+    {
+        // Ensure that the message is valid
+        this.messageReader.getMetadata(message, ChangeRequestReplicationBatchSenderMessage.MESSAGE_TYPES, true);
+        Collection<String> types =
+            message.getCustomMetadata().get(ChangeRequestReplicationBatchSenderMessage.MESSAGE_TYPES);
+
+        int index = 0;
+        for (String type : types) {
+            // A failing message should not prevent to handle the next ones, since the batch won't be received again.
+            try {
+                ReplicationReceiver receiver =
+                    this.componentManagerProvider.get().getInstance(ReplicationReceiver.class, type);
+                receiver.receive(new BatchedReplicationReceiverMessage(message, index, type));
+            } catch (ComponentLookupException | ReplicationException e) {
+                this.logger.error("Error while handling the message [{}] of type [{}] from the replication message "
+                    + "[{}]: [{}]", index, type, message.getId(), ExceptionUtils.getRootCauseMessage(e));
+                this.logger.debug("Full stack trace of the error: ", e);
+            }
+            index++;
+        }
+    }
+}
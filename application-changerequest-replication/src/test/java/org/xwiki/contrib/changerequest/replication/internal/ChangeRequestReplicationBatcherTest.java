@@ -0,0 +1,218 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.replication.internal;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.contrib.changerequest.ChangeRequestConfiguration;
+import org.xwiki.contrib.changerequest.replication.internal.messages.ChangeRequestReplicationBatchSenderMessage;
+import org.xwiki.contrib.replication.ReplicationException;
+import org.xwiki.contrib.replication.ReplicationSenderMessage;
+import org.xwiki.contrib.replication.entity.DocumentReplicationController;
+import org.xwiki.contrib.replication.entity.DocumentReplicationLevel;
+import org.xwiki.contrib.replication.entity.DocumentReplicationSenderMessageBuilder;
+import org.xwiki.contrib.replication.entity.EntityReplicationBuilders;
+import org.xwiki.contrib.replication.entity.EntityReplicationSenderMessageBuilderProducer;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ChangeRequestReplicationBatcher}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class ChangeRequestReplicationBatcherTest
+{
+    private static final long LONG_WINDOW = 60000L;
+
+    @InjectMockComponents
+    private ChangeRequestReplicationBatcher batcher;
+
+    @MockComponent
+    private ChangeRequestConfiguration configuration;
+
+    @MockComponent
+    private EntityReplicationBuilders entityReplicationBuilders;
+
+    @MockComponent
+    private DocumentReplicationController documentReplicationController;
+
+    @MockComponent
+    private ExecutionContextManager executionContextManager;
+
+    @MockComponent
+    private Execution execution;
+
+    @RegisterExtension
+    LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    private DocumentReplicationSenderMessageBuilder messageBuilder;
+
+    private DocumentReplicationSenderMessageBuilder levelMessageBuilder;
+
+    @BeforeEach
+    void setup()
+    {
+        this.messageBuilder = mock(DocumentReplicationSenderMessageBuilder.class, "beforeLevel");
+        this.levelMessageBuilder = mock(DocumentReplicationSenderMessageBuilder.class, "afterLevel");
+        when(this.messageBuilder.minimumLevel(DocumentReplicationLevel.ALL)).thenReturn(this.levelMessageBuilder);
+    }
+
+    private ReplicationSenderMessage mockMessage(String type, Map<String, Collection<String>> metadata)
+    {
+        ReplicationSenderMessage message = mock(ReplicationSenderMessage.class, type);
+        when(message.getType()).thenReturn(type);
+        when(message.getCustomMetadata()).thenReturn(metadata);
+        return message;
+    }
+
+    private ChangeRequestReplicationBatchSenderMessage produce(DocumentReference changeRequestReference)
+        throws ReplicationException
+    {
+        ArgumentCaptor<EntityReplicationSenderMessageBuilderProducer> producerCaptor =
+            ArgumentCaptor.forClass(EntityReplicationSenderMessageBuilderProducer.class);
+        verify(this.entityReplicationBuilders)
+            .documentMessageBuilder(producerCaptor.capture(), eq(changeRequestReference));
+        return (ChangeRequestReplicationBatchSenderMessage) producerCaptor.getValue().produce(null, null, null, null);
+    }
+
+    @Test
+    void isEnabled()
+    {
+        assertFalse(this.batcher.isEnabled());
+
+        when(this.configuration.getReplicationBatchWindow()).thenReturn(100L);
+        assertTrue(this.batcher.isEnabled());
+    }
+
+    @Test
+    void flush() throws Exception
+    {
+        when(this.configuration.getReplicationBatchWindow()).thenReturn(LONG_WINDOW);
+        DocumentReference cr1 = mock(DocumentReference.class, "cr1");
+        DocumentReference cr2 = mock(DocumentReference.class, "cr2");
+        when(this.entityReplicationBuilders.documentMessageBuilder(any(), any())).thenReturn(this.messageBuilder);
+
+        ReplicationSenderMessage message1 =
+            mockMessage("type1", Collections.singletonMap("KEY", Collections.singletonList("value1")));
+        ReplicationSenderMessage message2 = mockMessage("type2", Collections.emptyMap());
+        ReplicationSenderMessage message3 =
+            mockMessage("type3", Collections.singletonMap("KEY", Collections.singletonList("value3")));
+
+        this.batcher.add(cr1, message1);
+        this.batcher.add(cr2, message2);
+        this.batcher.add(cr1, message3);
+        verifyNoInteractions(this.documentReplicationController);
+
+        this.batcher.flush();
+        verify(this.documentReplicationController, times(2)).send(this.levelMessageBuilder);
+
+        ChangeRequestReplicationBatchSenderMessage batchMessage = produce(cr1);
+        Map<String, Collection<String>> metadata = batchMessage.getCustomMetadata();
+        assertEquals(Arrays.asList("type1", "type3"),
+            metadata.get(ChangeRequestReplicationBatchSenderMessage.MESSAGE_TYPES));
+        assertEquals(List.of("value1"),
+            metadata.get(ChangeRequestReplicationBatchSenderMessage.getMessageMetadataKey(0, "KEY")));
+        assertEquals(List.of("value3"),
+            metadata.get(ChangeRequestReplicationBatchSenderMessage.getMessageMetadataKey(1, "KEY")));
+
+        batchMessage = produce(cr2);
+        assertEquals(List.of("type2"),
+            batchMessage.getCustomMetadata().get(ChangeRequestReplicationBatchSenderMessage.MESSAGE_TYPES));
+
+        // Nothing left to send
+        this.batcher.flush();
+        verify(this.documentReplicationController, times(2)).send(this.levelMessageBuilder);
+    }
+
+    @Test
+    void flushAfterWindow() throws Exception
+    {
+        when(this.configuration.getReplicationBatchWindow()).thenReturn(10L);
+        DocumentReference cr = mock(DocumentReference.class, "cr");
+        when(this.entityReplicationBuilders.documentMessageBuilder(any(), eq(cr))).thenReturn(this.messageBuilder);
+
+        this.batcher.add(cr, mockMessage("type", Collections.emptyMap()));
+
+        verify(this.documentReplicationController, timeout(10000)).send(this.levelMessageBuilder);
+        verify(this.executionContextManager).initialize(any(ExecutionContext.class));
+        verify(this.execution, timeout(10000)).removeContext();
+    }
+
+    @Test
+    void flushWithError() throws Exception
+    {
+        when(this.configuration.getReplicationBatchWindow()).thenReturn(LONG_WINDOW);
+        DocumentReference cr = new DocumentReference("xwiki", "CR", "Doc");
+        when(this.entityReplicationBuilders.documentMessageBuilder(any(), eq(cr))).thenReturn(this.messageBuilder);
+        doThrow(new ReplicationException("Error")).when(this.documentReplicationController)
+            .send(this.levelMessageBuilder);
+
+        this.batcher.add(cr, mockMessage("type", Collections.emptyMap()));
+        this.batcher.flush();
+
+        assertEquals(1, this.logCapture.size());
+        assertEquals("Error while sending the [1] replication messages for document [xwiki:CR.Doc]",
+            this.logCapture.getMessage(0));
+    }
+
+    @Test
+    void dispose() throws Exception
+    {
+        when(this.configuration.getReplicationBatchWindow()).thenReturn(LONG_WINDOW);
+        DocumentReference cr = mock(DocumentReference.class, "cr");
+        when(this.entityReplicationBuilders.documentMessageBuilder(any(), eq(cr))).thenReturn(this.messageBuilder);
+
+        this.batcher.add(cr, mockMessage("type", Collections.emptyMap()));
+        this.batcher.dispose();
+
+        verify(this.documentReplicationController).send(this.levelMessageBuilder);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.replication.internal;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.xwiki.environment.Environment;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ChangeRequestReplicationRecoveryCursorStore}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class ChangeRequestReplicationRecoveryCursorStoreTest
+{
+    private static final String INSTANCE1 = "https://instance1.example.org/xwiki";
+
+    private static final String INSTANCE2 = "https://instance2.example.org/xwiki";
+
+    @InjectMockComponents
+    private ChangeRequestReplicationRecoveryCursorStore cursorStore;
+
+    @MockComponent
+    private Environment environment;
+
+    @XWikiTempDir
+    private File tmpDir;
+
+    @RegisterExtension
+    LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @BeforeEach
+    void setup()
+    {
+        when(this.environment.getPermanentDirectory()).thenReturn(this.tmpDir);
+    }
+
+    @Test
+    void setGetAndRemoveCursor()
+    {
+        assertNull(this.cursorStore.getCursor(INSTANCE1));
+
+        ChangeRequestReplicationRecoveryCursor cursor1 = new ChangeRequestReplicationRecoveryCursor(new Date(42), 3);
+        ChangeRequestReplicationRecoveryCursor cursor2 = new ChangeRequestReplicationRecoveryCursor(new Date(43), 0);
+        this.cursorStore.setCursor(INSTANCE1, cursor1);
+        this.cursorStore.setCursor(INSTANCE2, cursor2);
+        assertTrue(new File(this.tmpDir, "changerequest/replication/recovery.properties").exists());
+
+        assertEquals(cursor1, this.cursorStore.getCursor(INSTANCE1));
+        assertEquals(cursor2, this.cursorStore.getCursor(INSTANCE2));
+
+        ChangeRequestReplicationRecoveryCursor cursor3 = new ChangeRequestReplicationRecoveryCursor(new Date(100), 7);
+        this.cursorStore.setCursor(INSTANCE1, cursor3);
+        assertEquals(cursor3, this.cursorStore.getCursor(INSTANCE1));
+
+        this.cursorStore.removeCursor(INSTANCE1);
+        assertNull(this.cursorStore.getCursor(INSTANCE1));
+        assertEquals(cursor2, this.cursorStore.getCursor(INSTANCE2));
+    }
+
+    @Test
+    void setCursorWithUnwritableStore() throws Exception
+    {
+        // A file where the store directory is expected prevents to save the positions
+        File parent = new File(this.tmpDir, "changerequest");
+        Files.createDirectories(parent.toPath());
+        Files.createFile(new File(parent, "replication").toPath());
+
+        this.cursorStore.setCursor(INSTANCE1, new ChangeRequestReplicationRecoveryCursor(new Date(42), 3));
+        assertNull(this.cursorStore.getCursor(INSTANCE1));
+
+        assertEquals(1, this.logCapture.size());
+        assertTrue(this.logCapture.getMessage(0)
+            .startsWith("Error while saving the change request replication recovery positions to ["));
+    }
+}
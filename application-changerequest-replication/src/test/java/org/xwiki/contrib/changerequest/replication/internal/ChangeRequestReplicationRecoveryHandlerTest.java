@@ -19,10 +19,14 @@
  */
 package org.xwiki.contrib.changerequest.replication.internal;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.xwiki.contrib.changerequest.notifications.events.ChangeRequestCreatedRecordableEvent;
 import org.xwiki.contrib.changerequest.notifications.events.ChangeRequestDiscussionRecordableEvent;
 import org.xwiki.contrib.changerequest.notifications.events.ChangeRequestFileChangeAddedRecordableEvent;
@@ -33,19 +37,29 @@ import org.xwiki.contrib.changerequest.notifications.events.ChangeRequestStatusC
 import org.xwiki.contrib.changerequest.notifications.events.ChangeRequestUpdatedRecordableEvent;
 import org.xwiki.contrib.changerequest.notifications.events.DocumentModifiedInChangeRequestEvent;
 import org.xwiki.contrib.changerequest.notifications.events.StaleChangeRequestRecordableEvent;
+import org.xwiki.contrib.changerequest.replication.internal.messages.ChangeRequestReplicationBatchSenderMessage;
 import org.xwiki.contrib.replication.ReplicationException;
 import org.xwiki.contrib.replication.ReplicationReceiverMessage;
 import org.xwiki.contrib.replication.ReplicationSender;
 import org.xwiki.contrib.replication.log.ReplicationMessageEventQuery;
 import org.xwiki.eventstream.Event;
+import org.xwiki.eventstream.EventSearchResult;
+import org.xwiki.eventstream.EventStore;
+import org.xwiki.eventstream.EventStreamException;
 import org.xwiki.eventstream.query.SortableEventQuery;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
 
-import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -56,18 +70,32 @@ import static org.mockito.Mockito.when;
 @ComponentTest
 class ChangeRequestReplicationRecoveryHandlerTest
 {
+    private static final String INSTANCE = "toto";
+
     @InjectMockComponents
     private ChangeRequestReplicationRecoveryHandler requestReplicationRecoveryHandler;
 
     @MockComponent
     private ReplicationSender replicationSender;
 
-    @Test
-    void receive() throws ReplicationException
+    @MockComponent
+    private EventStore eventStore;
+
+    @MockComponent
+    private ChangeRequestReplicationRecoveryCursorStore cursorStore;
+
+    private ReplicationReceiverMessage message;
+
+    @BeforeEach
+    void setup()
     {
-        Date dateMin = new Date(41);
-        Date dateMax = new Date(4444);
+        this.message = mock(ReplicationReceiverMessage.class);
+        when(this.message.getSource()).thenReturn(INSTANCE);
+    }
 
+    private ReplicationMessageEventQuery createQuery(Date dateMin, Date dateMax,
+        ChangeRequestReplicationRecoveryCursor cursor)
+    {
         ReplicationMessageEventQuery query = new ReplicationMessageEventQuery();
 
         // Get all events related to Change request
@@ -81,7 +109,8 @@ class ChangeRequestReplicationRecoveryHandlerTest
             ReplicationMessageEventQuery.messageTypeValue(ChangeRequestReviewAddedRecordableEvent.EVENT_NAME),
             ReplicationMessageEventQuery.messageTypeValue(ChangeRequestStatusChangedRecordableEvent.EVENT_NAME),
             ReplicationMessageEventQuery.messageTypeValue(StaleChangeRequestRecordableEvent.EVENT_NAME),
-            ReplicationMessageEventQuery.messageTypeValue(DocumentModifiedInChangeRequestEvent.EVENT_NAME)
+            ReplicationMessageEventQuery.messageTypeValue(DocumentModifiedInChangeRequestEvent.EVENT_NAME),
+            ReplicationMessageEventQuery.messageTypeValue(ChangeRequestReplicationBatchSenderMessage.TYPE)
         ));
 
         // And only the stored and received ones
@@ -90,16 +119,158 @@ class ChangeRequestReplicationRecoveryHandlerTest
             ReplicationMessageEventQuery.VALUE_STATUS_STORED,
             ReplicationMessageEventQuery.VALUE_STATUS_RECEIVED);
 
-        // Minimum date
-        query.after(dateMin);
+        if (cursor == null) {
+            query.after(dateMin);
+        } else {
+            query.greaterOrEq(Event.FIELD_DATE, cursor.getDate());
+            query.setOffset(cursor.getOffset());
+        }
         query.before(dateMax);
-        // Sort by date
         query.addSort(Event.FIELD_DATE, SortableEventQuery.SortClause.Order.ASC);
+        query.addSort(Event.FIELD_ID, SortableEventQuery.SortClause.Order.ASC);
+        query.setLimit(ChangeRequestReplicationRecoveryHandler.PAGE_SIZE);
+
+        return query;
+    }
+
+    private ReplicationMessageEventQuery createPageQuery(List<String> ids)
+    {
+        ReplicationMessageEventQuery query = new ReplicationMessageEventQuery();
+        query.in(Event.FIELD_ID, ids);
+        query.addSort(Event.FIELD_DATE, SortableEventQuery.SortClause.Order.ASC);
+        return query;
+    }
+
+    private List<Event> mockSearch(ReplicationMessageEventQuery query, List<Event> events) throws Exception
+    {
+        EventSearchResult result = mock(EventSearchResult.class);
+        when(result.stream()).thenReturn(events.stream());
+        when(this.eventStore.search(query)).thenReturn(result);
+        return events;
+    }
+
+    private Event mockEvent(String id, long date)
+    {
+        Event event = mock(Event.class, id);
+        when(event.getId()).thenReturn(id);
+        when(event.getDate()).thenReturn(new Date(date));
+        return event;
+    }
+
+    private List<String> getIds(List<Event> events)
+    {
+        return events.stream().map(Event::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void receive() throws Exception
+    {
+        Date dateMin = new Date(41);
+        Date dateMax = new Date(4444);
+
+        List<Event> events = mockSearch(createQuery(dateMin, dateMax, null),
+            List.of(mockEvent("event1", 42), mockEvent("event2", 43)));
+
+        this.requestReplicationRecoveryHandler.receive(dateMin, dateMax, this.message);
+
+        verify(this.replicationSender).resend(createPageQuery(getIds(events)), List.of(INSTANCE));
+        verify(this.cursorStore).setCursor(INSTANCE, new ChangeRequestReplicationRecoveryCursor(new Date(43), 1));
+        verify(this.cursorStore).removeCursor(INSTANCE);
+        verify(this.eventStore).search(any());
+    }
+
+    @Test
+    void receiveWithSeveralPages() throws Exception
+    {
+        Date dateMin = new Date(41);
+        Date dateMax = new Date(4444);
+        int pageSize = ChangeRequestReplicationRecoveryHandler.PAGE_SIZE;
+
+        // First page: all the messages but the first one have the same date
+        List<Event> page1 = new ArrayList<>();
+        page1.add(mockEvent("event0", 100));
+        for (int i = 1; i < pageSize; i++) {
+            page1.add(mockEvent("event" + i, 200));
+        }
+        mockSearch(createQuery(dateMin, dateMax, null), page1);
+
+        // Second page: only messages with the same date as the end of the first page
+        ChangeRequestReplicationRecoveryCursor cursor1 =
+            new ChangeRequestReplicationRecoveryCursor(new Date(200), pageSize - 1);
+        List<Event> page2 = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            page2.add(mockEvent("other" + i, 200));
+        }
+        mockSearch(createQuery(dateMin, dateMax, cursor1), page2);
+
+        // Last page
+        ChangeRequestReplicationRecoveryCursor cursor2 =
+            new ChangeRequestReplicationRecoveryCursor(new Date(200), 2 * pageSize - 1);
+        List<Event> page3 = List.of(mockEvent("last1", 200), mockEvent("last2", 300));
+        mockSearch(createQuery(dateMin, dateMax, cursor2), page3);
+
+        this.requestReplicationRecoveryHandler.receive(dateMin, dateMax, this.message);
+
+        InOrder inOrder = inOrder(this.replicationSender, this.cursorStore);
+        inOrder.verify(this.replicationSender).resend(createPageQuery(getIds(page1)), List.of(INSTANCE));
+        inOrder.verify(this.cursorStore).setCursor(INSTANCE, cursor1);
+        inOrder.verify(this.replicationSender).resend(createPageQuery(getIds(page2)), List.of(INSTANCE));
+        inOrder.verify(this.cursorStore).setCursor(INSTANCE, cursor2);
+        inOrder.verify(this.replicationSender).resend(createPageQuery(getIds(page3)), List.of(INSTANCE));
+        inOrder.verify(this.cursorStore)
+            .setCursor(INSTANCE, new ChangeRequestReplicationRecoveryCursor(new Date(300), 1));
+        inOrder.verify(this.cursorStore).removeCursor(INSTANCE);
+    }
+
+    @Test
+    void receiveResumesInterruptedRecovery() throws Exception
+    {
+        Date dateMin = new Date(41);
+        Date dateMax = new Date(4444);
+
+        ChangeRequestReplicationRecoveryCursor cursor = new ChangeRequestReplicationRecoveryCursor(new Date(500), 3);
+        when(this.cursorStore.getCursor(INSTANCE)).thenReturn(cursor);
+        List<Event> events = mockSearch(createQuery(dateMin, dateMax, cursor), List.of(mockEvent("event4", 500)));
+
+        this.requestReplicationRecoveryHandler.receive(dateMin, dateMax, this.message);
+
+        verify(this.replicationSender).resend(createPageQuery(getIds(events)), List.of(INSTANCE));
+        verify(this.cursorStore).setCursor(INSTANCE, new ChangeRequestReplicationRecoveryCursor(new Date(500), 4));
+        verify(this.cursorStore).removeCursor(INSTANCE);
+    }
+
+    @Test
+    void receiveIgnoresCursorOutsideOfRange() throws Exception
+    {
+        Date dateMin = new Date(41);
+        Date dateMax = new Date(4444);
+
+        when(this.cursorStore.getCursor(INSTANCE))
+            .thenReturn(new ChangeRequestReplicationRecoveryCursor(new Date(5000), 3));
+        mockSearch(createQuery(dateMin, dateMax, null), List.of());
+
+        this.requestReplicationRecoveryHandler.receive(dateMin, dateMax, this.message);
+
+        verify(this.eventStore).search(createQuery(dateMin, dateMax, null));
+        verifyNoInteractions(this.replicationSender);
+        verify(this.cursorStore, never()).setCursor(any(), any());
+        verify(this.cursorStore).removeCursor(INSTANCE);
+    }
+
+    @Test
+    void receiveWithSearchError() throws Exception
+    {
+        Date dateMin = new Date(41);
+        Date dateMax = new Date(4444);
 
-        ReplicationReceiverMessage message = mock(ReplicationReceiverMessage.class);
-        when(message.getSource()).thenReturn("toto");
+        EventStreamException exception = new EventStreamException("Search error");
+        when(this.eventStore.search(any())).thenThrow(exception);
 
-        this.requestReplicationRecoveryHandler.receive(dateMin, dateMax, message);
-        verify(this.replicationSender).resend(query, List.of(message.getSource()));
+        ReplicationException replicationException = assertThrows(ReplicationException.class,
+            () -> this.requestReplicationRecoveryHandler.receive(dateMin, dateMax, this.message));
+        assertEquals("Error while searching the change request messages to send to [toto]",
+            replicationException.getMessage());
+        assertSame(exception, replicationException.getCause());
+        verify(this.cursorStore, never()).removeCursor(any());
     }
-}
\ No newline at end of file
+}
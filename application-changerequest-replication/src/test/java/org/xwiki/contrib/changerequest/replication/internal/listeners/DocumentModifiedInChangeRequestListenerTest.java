@@ -20,14 +20,13 @@
 package org.xwiki.contrib.changerequest.replication.internal.listeners;
 
 import java.util.Collections;
-import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
 import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.contrib.changerequest.ChangeRequest;
 import org.xwiki.contrib.changerequest.notifications.events.DocumentModifiedInChangeRequestEvent;
+import org.xwiki.contrib.changerequest.replication.internal.ChangeRequestReplicationBatcher;
 import org.xwiki.contrib.changerequest.replication.internal.messages.ChangeRequestReplicationSenderMessage;
-import org.xwiki.contrib.changerequest.storage.ChangeRequestStorageManager;
 import org.xwiki.contrib.replication.ReplicationContext;
 import org.xwiki.contrib.replication.entity.DocumentReplicationController;
 import org.xwiki.contrib.replication.entity.DocumentReplicationLevel;
@@ -49,6 +48,7 @@ import com.xpn.xwiki.doc.XWikiDocument;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doAnswer;
@@ -75,7 +75,7 @@ class DocumentModifiedInChangeRequestListenerTest
     private ReplicationContext replicationContext;
 
     @MockComponent
-    private ChangeRequestStorageManager changeRequestStorageManager;
+    private ChangeRequestReplicationBatcher replicationBatcher;
 
     @MockComponent
     private EntityReplicationBuilders entityReplicationBuilders;
@@ -125,11 +125,10 @@ class DocumentModifiedInChangeRequestListenerTest
             componentManager.registerMockComponent(ChangeRequestReplicationSenderMessage.class, expectedHint);
 
 
-        ChangeRequest changeRequest = mock(ChangeRequest.class);
-        when(this.changeRequestStorageManager.load(crId)).thenReturn(Optional.of(changeRequest));
         DocumentReference crDocReference = mock(DocumentReference.class, "crDoc");
 
-        when(this.changeRequestDocumentReferenceResolver.resolve(changeRequest)).thenReturn(crDocReference);
+        when(this.changeRequestDocumentReferenceResolver.resolve(
+            argThat(changeRequest -> crId.equals(changeRequest.getId())))).thenReturn(crDocReference);
         DocumentReplicationSenderMessageBuilder messageBuilder1 = mock(DocumentReplicationSenderMessageBuilder.class,
             "beforeLevel");
         DocumentReplicationSenderMessageBuilder messageBuilder2 = mock(DocumentReplicationSenderMessageBuilder.class,
@@ -149,4 +148,29 @@ class DocumentModifiedInChangeRequestListenerTest
         verify(messageBuilder1).minimumLevel(DocumentReplicationLevel.ALL);
         verify(this.documentReplicationController).send(messageBuilder2);
     }
+
+    @Test
+    void onEventWithBatching(MockitoComponentManager componentManager) throws Exception
+    {
+        String crId = "crFooBar";
+        DocumentModifiedInChangeRequestEvent event = new DocumentModifiedInChangeRequestEvent(crId);
+        XWikiDocument data = mock(XWikiDocument.class, "data");
+        DocumentReference dataDocRef = mock(DocumentReference.class);
+        when(data.getDocumentReference()).thenReturn(dataDocRef);
+
+        ChangeRequestReplicationSenderMessage senderMessage =
+            componentManager.registerMockComponent(ChangeRequestReplicationSenderMessage.class,
+                DocumentModifiedInChangeRequestEvent.EVENT_NAME);
+
+        DocumentReference crDocReference = mock(DocumentReference.class, "crDoc");
+        when(this.changeRequestDocumentReferenceResolver.resolve(
+            argThat(changeRequest -> crId.equals(changeRequest.getId())))).thenReturn(crDocReference);
+        when(this.replicationBatcher.isEnabled()).thenReturn(true);
+
+        this.listener.onEvent(event, null, data);
+        verify(senderMessage).initialize(event, dataDocRef);
+        verify(this.replicationBatcher).add(crDocReference, senderMessage);
+        verifyNoInteractions(this.entityReplicationBuilders);
+        verifyNoInteractions(this.documentReplicationController);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.replication.internal.messages;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.contrib.replication.ReplicationSenderMessage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ChangeRequestReplicationBatchSenderMessage}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+class ChangeRequestReplicationBatchSenderMessageTest
+{
+    @Test
+    void getMessageMetadataKey()
+    {
+        assertEquals("MESSAGE_0_CHANGE_REQUEST_ID",
+            ChangeRequestReplicationBatchSenderMessage.getMessageMetadataKey(0, "CHANGE_REQUEST_ID"));
+        assertEquals("MESSAGE_12_", ChangeRequestReplicationBatchSenderMessage.getMessageMetadataKey(12, ""));
+    }
+
+    @Test
+    void getCustomMetadata() throws Exception
+    {
+        ReplicationSenderMessage message1 = mock(ReplicationSenderMessage.class, "message1");
+        when(message1.getType()).thenReturn("type1");
+        Map<String, Collection<String>> metadata1 = new LinkedHashMap<>();
+        metadata1.put("CHANGE_REQUEST_ID", List.of("cr1"));
+        metadata1.put("CONTEXT_USER", List.of("XWiki.Foo"));
+        when(message1.getCustomMetadata()).thenReturn(metadata1);
+
+        ReplicationSenderMessage message2 = mock(ReplicationSenderMessage.class, "message2");
+        when(message2.getType()).thenReturn("type2");
+        when(message2.getCustomMetadata()).thenReturn(Collections.singletonMap("CHANGE_REQUEST_ID", List.of("cr1")));
+
+        ChangeRequestReplicationBatchSenderMessage batchMessage =
+            new ChangeRequestReplicationBatchSenderMessage(Arrays.asList(message1, message2, message1));
+
+        assertEquals(ChangeRequestReplicationBatchSenderMessage.TYPE, batchMessage.getType());
+        assertNotNull(batchMessage.getId());
+        assertNotNull(batchMessage.getDate());
+        assertNull(batchMessage.getSource());
+
+        Map<String, Collection<String>> expectedMetadata = new LinkedHashMap<>();
+        expectedMetadata.put("MESSAGE_0_CHANGE_REQUEST_ID", List.of("cr1"));
+        expectedMetadata.put("MESSAGE_0_CONTEXT_USER", List.of("XWiki.Foo"));
+        expectedMetadata.put("MESSAGE_1_CHANGE_REQUEST_ID", List.of("cr1"));
+        expectedMetadata.put("MESSAGE_2_CHANGE_REQUEST_ID", List.of("cr1"));
+        expectedMetadata.put("MESSAGE_2_CONTEXT_USER", List.of("XWiki.Foo"));
+        expectedMetadata.put(ChangeRequestReplicationBatchSenderMessage.MESSAGE_TYPES,
+            List.of("type1", "type2", "type1"));
+        assertEquals(expectedMetadata, batchMessage.getCustomMetadata());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        batchMessage.write(outputStream);
+        assertEquals(0, outputStream.size());
+    }
+}
@@ -51,7 +51,6 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -128,12 +127,7 @@ class ChangeRequestCreatedEventReceiverTest
             approver3
         ));
 
-        when(autoWatchHandler.hasAutoWatchEnabled(approver1)).thenReturn(true);
-        when(autoWatchHandler.hasAutoWatchEnabled(approver2)).thenReturn(false);
-        when(autoWatchHandler.hasAutoWatchEnabled(approver3)).thenReturn(true);
-
         when(this.changeRequestStorageManager.load(crId)).thenReturn(Optional.of(changeRequest));
-        when(this.autoWatchHandler.hasAutoWatchEnabled(creator)).thenReturn(true);
 
         when(this.messageReader.getMetadata(message, "FROM_SPLIT", true)).thenReturn("true");
 
@@ -159,9 +153,6 @@ class ChangeRequestCreatedEventReceiverTest
         verify(this.context).setUserReference(originalUserRef);
         verify(this.recordableEventNotifier)
             .notifyChangeRequestRecordableEvent(any(ChangeRequestCreatedRecordableEvent.class), eq(dataDoc));
-        verify(autoWatchHandler).watchChangeRequest(changeRequest, creator);
-        verify(autoWatchHandler).watchChangeRequest(changeRequest, approver1);
-        verify(autoWatchHandler).watchChangeRequest(changeRequest, approver3);
-        verify(autoWatchHandler, never()).watchChangeRequest(changeRequest, approver2);
+        verify(autoWatchHandler).watchChangeRequest(changeRequest, Set.of(creator, approver1, approver2, approver3));
     }
 }
\ No newline at end of file
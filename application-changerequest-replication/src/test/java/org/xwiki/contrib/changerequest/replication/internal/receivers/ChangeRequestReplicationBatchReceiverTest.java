@@ -0,0 +1,146 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.contrib.changerequest.replication.internal.receivers;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.contrib.changerequest.replication.internal.messages.ChangeRequestReplicationBatchSenderMessage;
+import org.xwiki.contrib.replication.ReplicationException;
+import org.xwiki.contrib.replication.ReplicationMessageReader;
+import org.xwiki.contrib.replication.ReplicationReceiver;
+import org.xwiki.contrib.replication.ReplicationReceiverMessage;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ChangeRequestReplicationBatchReceiver}.
+ *
+ * @version $Id$
+ * @since 1.24
+ */
+@ComponentTest
+class ChangeRequestReplicationBatchReceiverTest
+{
+    @InjectMockComponents
+    private ChangeRequestReplicationBatchReceiver receiver;
+
+    @MockComponent
+    private ReplicationMessageReader messageReader;
+
+    @RegisterExtension
+    LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.WARN);
+
+    @BeforeComponent
+    void beforeComponent(MockitoComponentManager componentManager) throws Exception
+    {
+        componentManager.registerComponent(ComponentManager.class, "context", componentManager);
+    }
+
+    @Test
+    void receive(MockitoComponentManager componentManager) throws Exception
+    {
+        ReplicationReceiver receiver1 = componentManager.registerMockComponent(ReplicationReceiver.class, "type1");
+        ReplicationReceiver receiver2 = componentManager.registerMockComponent(ReplicationReceiver.class, "type2");
+
+        ReplicationReceiverMessage message = mock(ReplicationReceiverMessage.class);
+        when(message.getId()).thenReturn("batchId");
+        Map<String, Collection<String>> metadata = new LinkedHashMap<>();
+        metadata.put(ChangeRequestReplicationBatchSenderMessage.MESSAGE_TYPES, List.of("type1", "type2", "type1"));
+        metadata.put("MESSAGE_0_CHANGE_REQUEST_ID", List.of("cr1"));
+        metadata.put("MESSAGE_1_CHANGE_REQUEST_ID", List.of("cr2"));
+        metadata.put("MESSAGE_1_CONTEXT_USER", List.of("XWiki.Foo"));
+        metadata.put("MESSAGE_2_CHANGE_REQUEST_ID", List.of("cr3"));
+        when(message.getCustomMetadata()).thenReturn(metadata);
+
+        this.receiver.receive(message);
+        verify(this.messageReader).getMetadata(message, ChangeRequestReplicationBatchSenderMessage.MESSAGE_TYPES,
+            true);
+
+        ArgumentCaptor<ReplicationReceiverMessage> captor1 = ArgumentCaptor.forClass(ReplicationReceiverMessage.class);
+        ArgumentCaptor<ReplicationReceiverMessage> captor2 = ArgumentCaptor.forClass(ReplicationReceiverMessage.class);
+        InOrder inOrder = inOrder(receiver1, receiver2);
+        inOrder.verify(receiver1).receive(captor1.capture());
+        inOrder.verify(receiver2).receive(captor2.capture());
+        inOrder.verify(receiver1).receive(captor1.capture());
+
+        ReplicationReceiverMessage subMessage = captor1.getAllValues().get(0);
+        assertEquals("batchId/0", subMessage.getId());
+        assertEquals("type1", subMessage.getType());
+        assertEquals(Map.of("CHANGE_REQUEST_ID", List.of("cr1")), subMessage.getCustomMetadata());
+
+        subMessage = captor2.getValue();
+        assertEquals("batchId/1", subMessage.getId());
+        assertEquals("type2", subMessage.getType());
+        assertEquals(Map.of("CHANGE_REQUEST_ID", List.of("cr2"), "CONTEXT_USER", List.of("XWiki.Foo")),
+            subMessage.getCustomMetadata());
+        assertEquals(-1, subMessage.open().read());
+
+        subMessage = captor1.getAllValues().get(1);
+        assertEquals("batchId/2", subMessage.getId());
+        assertEquals(Map.of("CHANGE_REQUEST_ID", List.of("cr3")), subMessage.getCustomMetadata());
+    }
+
+    @Test
+    void receiveWithErrors(MockitoComponentManager componentManager) throws Exception
+    {
+        ReplicationReceiver receiver1 = componentManager.registerMockComponent(ReplicationReceiver.class, "type1");
+        doThrow(new ReplicationException("Failure")).when(receiver1).receive(any());
+
+        ReplicationReceiverMessage message = mock(ReplicationReceiverMessage.class);
+        when(message.getId()).thenReturn("batchId");
+        when(message.getCustomMetadata()).thenReturn(Map.of(ChangeRequestReplicationBatchSenderMessage.MESSAGE_TYPES,
+            List.of("type1", "unknown", "type1")));
+
+        this.receiver.receive(message);
+        verify(receiver1, times(2)).receive(any());
+
+        assertEquals(3, this.logCapture.size());
+        assertEquals("Error while handling the message [0] of type [type1] from the replication message [batchId]: "
+            + "[ReplicationException: Failure]", this.logCapture.getMessage(0));
+        assertTrue(this.logCapture.getMessage(1)
+            .startsWith("Error while handling the message [1] of type [unknown] from the replication message "
+                + "[batchId]: ["));
+        assertEquals("Error while handling the message [2] of type [type1] from the replication message [batchId]: "
+            + "[ReplicationException: Failure]", this.logCapture.getMessage(2));
+    }
+}